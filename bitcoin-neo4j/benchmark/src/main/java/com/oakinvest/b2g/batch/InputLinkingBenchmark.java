@@ -0,0 +1,89 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.benchmark.Fixtures;
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.util.mapper.BitcoinCoreToDomainMapper;
+import com.oakinvest.b2g.util.mapper.IngestionProfile;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input linking of BlockImporter (InputLinker) on an import window : the transactions of the blocks are indexed in the
+ * window and the inputs of each block are linked to the outputs of the previous ones (in the batch package to use the
+ * import window).
+ * <p>
+ * There is no database : outputs that are not in the window are left unresolved and addresses are created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputLinkingBenchmark {
+
+    /**
+     * First block height of the window.
+     */
+    private static final int FIRST_BLOCK = 1;
+
+    /**
+     * Number of blocks in the window (the first spending transaction is in block 170).
+     */
+    @Param({"200", "600"})
+    private int blocks;
+
+    /**
+     * Blocks of the window (mapped once, linking sets the same links again at each invocation).
+     */
+    private final List<BitcoinBlock> window = new ArrayList<>();
+
+    /**
+     * Status.
+     */
+    private final ApplicationStatus status = new ApplicationStatus();
+
+    /**
+     * Loads and maps the blocks.
+     */
+    @Setup
+    public void setup() {
+        final Fixtures fixtures = new Fixtures();
+        final BitcoinCoreToDomainMapper mapper = Mappers.getMapper(BitcoinCoreToDomainMapper.class);
+        for (int h = FIRST_BLOCK; h < FIRST_BLOCK + blocks; h++) {
+            window.add(mapper.blockDataToBitcoinBlock(fixtures.getBlockData(h), IngestionProfile.FULL));
+        }
+    }
+
+    /**
+     * Indexes the blocks in a new window and links their transactions.
+     *
+     * @return import window
+     */
+    @Benchmark
+    public ImportWindow link() {
+        final ImportWindow importWindow = new ImportWindow(FIRST_BLOCK, FIRST_BLOCK + blocks - 1, status, true);
+        final InputLinker linker = new InputLinker(importWindow, BitcoinAddress::new, (txId, n) -> Optional.empty());
+        window.forEach(b -> importWindow.addTransactions(b.getHeight(), b.getTransactions()));
+        window.forEach(b -> b.getTransactions().forEach(t -> linker.link(b.getHeight(), t)));
+        return importWindow;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.oakinvest.b2g.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the JMH command line options, the GC profiler being always added so that the allocation
+ * rates (gc.alloc.rate.norm : bytes allocated per operation) are reported.
+ * <p>
+ * Usage : java -jar target/benchmarks.jar [JMH options] (for example, "Mapper -f 1" or "-lp" to list the profilers).
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Utility class.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Main.
+     *
+     * @param args JMH command line options
+     * @throws CommandLineOptionException invalid options
+     * @throws RunnerException            benchmark error
+     * @throws IOException                error while listing the benchmarks
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            Main.main(args);
+        } else {
+            new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.oakinvest.b2g.benchmark;
+
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchive;
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchiveWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Converts the responses recorded by the BitcoinCoreMock in its cache directories (a Java serialized response per
+ * file) to the archive of recorded responses, merged with the responses already archived.
+ * <p>
+ * Usage : java -cp target/benchmarks.jar com.oakinvest.b2g.benchmark.FixtureArchiveConverter [cache directory]
+ * [archive file] (by default, the cache of the back-end and its responses.dat). The serialized files can be deleted
+ * once converted.
+ */
+public final class FixtureArchiveConverter {
+
+    /**
+     * Default cache directory.
+     */
+    private static final String DEFAULT_DIRECTORY = "../project-back-end/src/test/resources/cache";
+
+    /**
+     * Default archive file name (in the cache directory).
+     */
+    private static final String DEFAULT_ARCHIVE_FILE = "responses.dat";
+
+    /**
+     * Utility class.
+     */
+    private FixtureArchiveConverter() {
+    }
+
+    /**
+     * Main.
+     *
+     * @param args cache directory and archive file (optional)
+     * @throws IOException error while writing the archive
+     */
+    public static void main(final String[] args) throws IOException {
+        Path directory = Paths.get(DEFAULT_DIRECTORY);
+        if (args.length > 0) {
+            directory = Paths.get(args[0]);
+        }
+        Path file = directory.resolve(DEFAULT_ARCHIVE_FILE);
+        if (args.length > 1) {
+            file = Paths.get(args[1]);
+        }
+
+        // Responses already archived and then the serialized responses.
+        final RecordedResponseArchiveWriter writer = new RecordedResponseArchiveWriter();
+        int archived = 0;
+        if (Files.exists(file)) {
+            final RecordedResponseArchive archive = new RecordedResponseArchive(file);
+            writer.addArchive(archive);
+            archived = archive.getKeys().size();
+        }
+        writer.addCacheDirectory(directory);
+
+        // Written next to the archive and then moved, as the previous archive is memory-mapped.
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        writer.write(temporaryFile);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+
+        // Every response is read back.
+        final RecordedResponseArchive archive = new RecordedResponseArchive(file);
+        archive.getKeys().forEach(key -> archive.readJson(key).orElseThrow());
+        System.out.println(file.toAbsolutePath() + " : " + archive.getKeys().size() + " responses ("
+                + archived + " already archived), " + Files.size(file) + " bytes");
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.oakinvest.b2g.benchmark;
+
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchive;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bitcoin core responses recorded by the tests of the back-end (archive responses.dat of the BitcoinCoreMock cache :
+ * getblockhash, getblock and getrawtransaction responses by height, block hash and transaction id).
+ * <p>
+ * The directory is set with the b2g.benchmark.fixtures system property (by default, the cache of the back-end when the
+ * benchmarks are run from the benchmark directory).
+ */
+public final class Fixtures {
+
+    /**
+     * System property of the fixtures directory.
+     */
+    public static final String DIRECTORY_PROPERTY = "b2g.benchmark.fixtures";
+
+    /**
+     * Default fixtures directory.
+     */
+    private static final String DEFAULT_DIRECTORY = "../project-back-end/src/test/resources/cache";
+
+    /**
+     * Archive file in the fixtures directory.
+     */
+    private static final String ARCHIVE_FILE = "responses.dat";
+
+    /**
+     * Archive of the recorded responses.
+     */
+    private final RecordedResponseArchive archive;
+
+    /**
+     * Constructor.
+     */
+    public Fixtures() {
+        final Path file = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY)).resolve(ARCHIVE_FILE);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Fixtures not found in " + file.toAbsolutePath() + " (set -D" + DIRECTORY_PROPERTY + ")");
+        }
+        this.archive = new RecordedResponseArchive(file);
+    }
+
+    /**
+     * Returns the recorded getblock response of a block.
+     *
+     * @param blockHeight block height
+     * @return getblock response
+     */
+    public GetBlockResponse getBlockResponse(final int blockHeight) {
+        final GetBlockHashResponse blockHash = read(RecordedResponseArchive.getBlockHashKey(blockHeight), GetBlockHashResponse.class);
+        return read(RecordedResponseArchive.getBlockKey(blockHash.getResult()), GetBlockResponse.class);
+    }
+
+    /**
+     * Returns the number of blocks recorded (highest height recorded without a gap from block 1).
+     *
+     * @return block count
+     */
+    public int getBlockCount() {
+        int blockCount = 0;
+        while (archive.contains(RecordedResponseArchive.getBlockHashKey(blockCount + 1))) {
+            blockCount++;
+        }
+        return blockCount;
+    }
+
+    /**
+     * Returns the recorded getblockhash response of a block.
+     *
+     * @param blockHeight block height
+     * @return getblockhash response (empty if not recorded)
+     */
+    public Optional<GetBlockHashResponse> findBlockHashResponse(final int blockHeight) {
+        return archive.read(RecordedResponseArchive.getBlockHashKey(blockHeight), GetBlockHashResponse.class);
+    }
+
+    /**
+     * Returns the recorded getblock response of a block.
+     *
+     * @param blockHash block hash
+     * @return getblock response (empty if not recorded)
+     */
+    public Optional<GetBlockResponse> findBlockResponse(final String blockHash) {
+        return archive.read(RecordedResponseArchive.getBlockKey(blockHash), GetBlockResponse.class);
+    }
+
+    /**
+     * Returns the recorded getrawtransaction response of a transaction.
+     *
+     * @param transactionId transaction id
+     * @return getrawtransaction response (empty if not recorded)
+     */
+    public Optional<GetRawTransactionResponse> findRawTransactionResponse(final String transactionId) {
+        return archive.read(RecordedResponseArchive.getRawTransactionKey(transactionId), GetRawTransactionResponse.class);
+    }
+
+    /**
+     * Returns the recorded getrawtransaction responses of the transactions of a block.
+     *
+     * @param blockHeight block height
+     * @return getrawtransaction responses
+     */
+    public List<GetRawTransactionResponse> getRawTransactionResponses(final int blockHeight) {
+        return getBlockResponse(blockHeight).getResult().getTx()
+                .stream()
+                .map(txId -> read(RecordedResponseArchive.getRawTransactionKey(txId), GetRawTransactionResponse.class))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the data of a block, as built by BitcoinDataService.getBlockData().
+     *
+     * @param blockHeight block height
+     * @return block data
+     */
+    public BitcoinCoreBlockData getBlockData(final int blockHeight) {
+        final List<GetRawTransactionResult> transactions = getRawTransactionResponses(blockHeight)
+                .stream()
+                .map(GetRawTransactionResponse::getResult)
+                .collect(Collectors.toList());
+        final Set<String> addresses = new HashSet<>();
+        transactions.forEach(t -> t.getVout().forEach(o -> addresses.addAll(o.getScriptPubKey().getAddresses())));
+        return new BitcoinCoreBlockData(getBlockResponse(blockHeight).getResult(), transactions, addresses);
+    }
+
+    /**
+     * Reads a recorded response.
+     *
+     * @param key  key in the archive
+     * @param type response type
+     * @param <T>  response type
+     * @return response
+     */
+    private <T> T read(final String key, final Class<T> type) {
+        return archive.read(key, type).orElseThrow(() -> new IllegalStateException(key + " is not recorded"));
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.oakinvest.b2g.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson deserialization of the getblock and getrawtransaction responses of core (the recorded responses are written
+ * back to JSON and read with an object mapper configured as the one of RestTemplate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDeserializationBenchmark {
+
+    /**
+     * Block height.
+     */
+    @Param({"170", "546"})
+    private int blockHeight;
+
+    /**
+     * Object mapper.
+     */
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    /**
+     * getblock response (JSON).
+     */
+    private byte[] blockResponse;
+
+    /**
+     * getrawtransaction responses of the transactions of the block (JSON).
+     */
+    private final List<byte[]> transactionResponses = new ArrayList<>();
+
+    /**
+     * Writes the recorded responses in JSON.
+     *
+     * @throws JsonProcessingException serialization error
+     */
+    @Setup
+    public void setup() throws JsonProcessingException {
+        final Fixtures fixtures = new Fixtures();
+        blockResponse = mapper.writeValueAsBytes(fixtures.getBlockResponse(blockHeight));
+        for (GetRawTransactionResponse response : fixtures.getRawTransactionResponses(blockHeight)) {
+            transactionResponses.add(mapper.writeValueAsBytes(response));
+        }
+    }
+
+    /**
+     * Reads the getblock response.
+     *
+     * @return response
+     * @throws IOException deserialization error
+     */
+    @Benchmark
+    public GetBlockResponse getBlock() throws IOException {
+        return mapper.readValue(blockResponse, GetBlockResponse.class);
+    }
+
+    /**
+     * Reads the getrawtransaction responses of all the transactions of the block.
+     *
+     * @param blackhole blackhole
+     * @throws IOException deserialization error
+     */
+    @Benchmark
+    public void getRawTransactions(final Blackhole blackhole) throws IOException {
+        for (byte[] response : transactionResponses) {
+            blackhole.consume(mapper.readValue(response, GetRawTransactionResponse.class));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.oakinvest.b2g.benchmark;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.util.mapper.BitcoinCoreToDomainMapper;
+import com.oakinvest.b2g.util.mapper.IngestionProfile;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the data retrieved from core to a block (BitcoinCoreToDomainMapper.blockDataToBitcoinBlock) for each
+ * ingestion profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    /**
+     * Block height.
+     */
+    @Param({"170", "546"})
+    private int blockHeight;
+
+    /**
+     * Ingestion profile.
+     */
+    @Param({"FULL", "SLIM", "MINIMAL"})
+    private IngestionProfile profile;
+
+    /**
+     * Mapper.
+     */
+    private final BitcoinCoreToDomainMapper mapper = Mappers.getMapper(BitcoinCoreToDomainMapper.class);
+
+    /**
+     * Block data.
+     */
+    private BitcoinCoreBlockData blockData;
+
+    /**
+     * Loads the block data.
+     */
+    @Setup
+    public void setup() {
+        blockData = new Fixtures().getBlockData(blockHeight);
+    }
+
+    /**
+     * Maps the block.
+     *
+     * @return block
+     */
+    @Benchmark
+    public BitcoinBlock blockDataToBitcoinBlock() {
+        return mapper.blockDataToBitcoinBlock(blockData, profile);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.oakinvest.b2g.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import com.oakinvest.b2g.util.throughput.BlockRecord;
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the messages published on the websockets : the status (StatusPublisher) and the throughput report
+ * of the last blocks (ThroughputPublisher).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusSerializationBenchmark {
+
+    /**
+     * Number of records in the history (and published).
+     */
+    private static final int RECORDS = 100;
+
+    /**
+     * Window of the throughput aggregates (milliseconds).
+     */
+    private static final long WINDOW = 60000;
+
+    /**
+     * Object mapper (as in the publishers).
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Status.
+     */
+    private final ApplicationStatus status = new ApplicationStatus();
+
+    /**
+     * Throughput history.
+     */
+    private ThroughputHistory history;
+
+    /**
+     * Builds a status and a history during an import.
+     */
+    @Setup
+    public void setup() {
+        final CurrentBlockStatus currentBlockStatus = new CurrentBlockStatus();
+        currentBlockStatus.setBlockHeight(RECORDS);
+        currentBlockStatus.setProcessStep(CurrentBlockStatusProcessStep.PROCESSING_TRANSACTIONS);
+        currentBlockStatus.setTransactionCount(RECORDS);
+        currentBlockStatus.setProcessedTransactions(RECORDS / 2);
+        status.setCurrentBlockStatus(currentBlockStatus);
+        status.setBlockCountInBlockchain(RECORDS * 2);
+        status.setBlockCountInNeo4j(RECORDS);
+
+        history = new ThroughputHistory(status, RECORDS, WINDOW);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < RECORDS; i++) {
+            final BlockRecord record = new BlockRecord(i);
+            for (CurrentBlockStatusProcessStep step : CurrentBlockStatusProcessStep.values()) {
+                record.addStepDuration(step, TimeUnit.MILLISECONDS.toNanos(i));
+            }
+            record.complete(i, i, i * RECORDS, now - (RECORDS - i) * RECORDS);
+            history.add(record);
+        }
+    }
+
+    /**
+     * Serializes the status.
+     *
+     * @return message
+     * @throws JsonProcessingException serialization error
+     */
+    @Benchmark
+    public byte[] status() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(status);
+    }
+
+    /**
+     * Serializes the throughput report.
+     *
+     * @return message
+     * @throws JsonProcessingException serialization error
+     */
+    @Benchmark
+    public byte[] throughputReport() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(history.getReport(RECORDS));
+    }
+
+}
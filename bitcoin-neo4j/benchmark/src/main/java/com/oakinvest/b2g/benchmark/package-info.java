@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks of the import hot paths.
+ */
+package com.oakinvest.b2g.benchmark;
@@ -0,0 +1,131 @@
+package com.oakinvest.b2g.benchmark.simulator;
+
+import java.util.Random;
+
+/**
+ * Latency distribution of the simulated responses (milliseconds) :
+ * <ul>
+ * <li>none : no latency.</li>
+ * <li>constant:5 : always 5 ms.</li>
+ * <li>uniform:2-20 : uniformly between 2 and 20 ms.</li>
+ * <li>lognormal:5,0.8 : log-normal of median 5 ms and shape 0.8 (long tail, like a loaded node).</li>
+ * </ul>
+ */
+public final class LatencyDistribution {
+
+    /**
+     * Distribution types.
+     */
+    private enum Type {
+        /**
+         * No latency.
+         */
+        NONE,
+        /**
+         * Constant latency.
+         */
+        CONSTANT,
+        /**
+         * Uniform latency.
+         */
+        UNIFORM,
+        /**
+         * Log-normal latency.
+         */
+        LOGNORMAL
+    }
+
+    /**
+     * Type.
+     */
+    private final Type type;
+
+    /**
+     * First parameter (constant, minimum or median).
+     */
+    private final double first;
+
+    /**
+     * Second parameter (maximum or shape).
+     */
+    private final double second;
+
+    /**
+     * Constructor.
+     *
+     * @param newType   type
+     * @param newFirst  first parameter
+     * @param newSecond second parameter
+     */
+    private LatencyDistribution(final Type newType, final double newFirst, final double newSecond) {
+        this.type = newType;
+        this.first = newFirst;
+        this.second = newSecond;
+    }
+
+    /**
+     * Parses a distribution ("none", "constant:5", "uniform:2-20" or "lognormal:5,0.8").
+     *
+     * @param value distribution
+     * @return distribution
+     */
+    public static LatencyDistribution parse(final String value) {
+        final String[] typeAndParameters = value.trim().split(":");
+        try {
+            final Type type = Type.valueOf(typeAndParameters[0].trim().toUpperCase());
+            switch (type) {
+                case CONSTANT:
+                    return new LatencyDistribution(type, Double.parseDouble(typeAndParameters[1]), 0);
+                case UNIFORM:
+                    final String[] bounds = typeAndParameters[1].split("-");
+                    return new LatencyDistribution(type, Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]));
+                case LOGNORMAL:
+                    final String[] parameters = typeAndParameters[1].split(",");
+                    return new LatencyDistribution(type, Double.parseDouble(parameters[0]), Double.parseDouble(parameters[1]));
+                default:
+                    return new LatencyDistribution(Type.NONE, 0, 0);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency distribution " + value + " (none, constant:5, uniform:2-20 or lognormal:5,0.8)", e);
+        }
+    }
+
+    /**
+     * Draws a latency.
+     *
+     * @param random generator
+     * @return latency (milliseconds)
+     */
+    public double sample(final Random random) {
+        switch (type) {
+            case CONSTANT:
+                return first;
+            case UNIFORM:
+                return first + random.nextDouble() * (second - first);
+            case LOGNORMAL:
+                return first * Math.exp(second * random.nextGaussian());
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Returns the distribution.
+     *
+     * @return distribution
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case CONSTANT:
+                return "constant " + first + " ms";
+            case UNIFORM:
+                return "uniform " + first + "-" + second + " ms";
+            case LOGNORMAL:
+                return "lognormal median " + first + " ms, shape " + second;
+            default:
+                return "none";
+        }
+    }
+
+}
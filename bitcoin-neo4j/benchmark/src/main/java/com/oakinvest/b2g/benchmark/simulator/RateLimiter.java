@@ -0,0 +1,55 @@
+package com.oakinvest.b2g.benchmark.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput cap : calls are spaced evenly, a caller waits for the slot of its last call when the rate is exceeded.
+ */
+public final class RateLimiter {
+
+    /**
+     * Nanoseconds in a second.
+     */
+    private static final double NANOSECONDS_PER_SECOND = 1_000_000_000d;
+
+    /**
+     * Interval between two calls (nanoseconds).
+     */
+    private final long interval;
+
+    /**
+     * Time of the next free slot (nanoseconds).
+     */
+    private long nextSlot = System.nanoTime();
+
+    /**
+     * Constructor.
+     *
+     * @param callsPerSecond maximum calls per second
+     */
+    public RateLimiter(final double callsPerSecond) {
+        if (callsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid rate " + callsPerSecond);
+        }
+        this.interval = Math.round(NANOSECONDS_PER_SECOND / callsPerSecond);
+    }
+
+    /**
+     * Waits for the slots of calls.
+     *
+     * @param calls number of calls
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void acquire(final int calls) throws InterruptedException {
+        final long wait;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            final long slot = Math.max(now, nextSlot);
+            nextSlot = slot + interval * calls;
+            // Waits for the slot of the last call.
+            wait = nextSlot - interval - now;
+        }
+        TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.oakinvest.b2g.benchmark.simulator;
+
+import com.oakinvest.b2g.benchmark.Fixtures;
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockcount.GetBlockCountResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponseError;
+import com.oakinvest.b2g.service.BitcoinCoreService;
+
+import java.util.function.Supplier;
+
+/**
+ * Core service serving the recorded responses (fixtures). Responses that are not recorded return the errors of core.
+ */
+public final class RecordedBitcoinCoreService implements BitcoinCoreService {
+
+    /**
+     * Error code of core : invalid parameter (height out of range).
+     */
+    private static final int INVALID_PARAMETER = -8;
+
+    /**
+     * Error code of core : invalid address or key (block or transaction not found).
+     */
+    private static final int INVALID_ADDRESS_OR_KEY = -5;
+
+    /**
+     * Recorded responses.
+     */
+    private final Fixtures fixtures;
+
+    /**
+     * Number of blocks recorded.
+     */
+    private final int blockCount;
+
+    /**
+     * Constructor.
+     *
+     * @param newFixtures recorded responses
+     */
+    public RecordedBitcoinCoreService(final Fixtures newFixtures) {
+        this.fixtures = newFixtures;
+        this.blockCount = newFixtures.getBlockCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GetBlockCountResponse getBlockCount() {
+        final GetBlockCountResponse response = new GetBlockCountResponse();
+        response.setResult(blockCount);
+        return response;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GetBlockHashResponse getBlockHash(final int blockHeight) {
+        if (blockHeight > blockCount) {
+            return createError(GetBlockHashResponse::new, INVALID_PARAMETER, "Block height out of range");
+        }
+        return fixtures.findBlockHashResponse(blockHeight)
+                .orElseGet(() -> createError(GetBlockHashResponse::new, INVALID_PARAMETER, "Block height out of range"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GetBlockResponse getBlock(final String blockHash) {
+        return fixtures.findBlockResponse(blockHash)
+                .orElseGet(() -> createError(GetBlockResponse::new, INVALID_ADDRESS_OR_KEY, "Block not found"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GetRawTransactionResponse getRawTransaction(final String transactionHash) {
+        return fixtures.findRawTransactionResponse(transactionHash)
+                .orElseGet(() -> createError(GetRawTransactionResponse::new, INVALID_ADDRESS_OR_KEY, "No such mempool or blockchain transaction"));
+    }
+
+    /**
+     * Creates an error response.
+     *
+     * @param constructor response constructor
+     * @param code        error code
+     * @param message     error message
+     * @param <T>         response type
+     * @return response
+     */
+    private <T extends BitcoinCoreResponse> T createError(final Supplier<T> constructor, final int code, final String message) {
+        final BitcoinCoreResponseError error = new BitcoinCoreResponseError();
+        error.setCode(code);
+        error.setMessage(message);
+        final T response = constructor.get();
+        response.setError(error);
+        return response;
+    }
+
+}
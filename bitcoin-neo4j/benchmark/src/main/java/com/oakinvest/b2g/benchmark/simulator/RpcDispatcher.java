@@ -0,0 +1,287 @@
+package com.oakinvest.b2g.benchmark.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponse;
+import com.oakinvest.b2g.service.BitcoinCoreService;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Dispatches JSON-RPC requests (single or batch) to a core service and builds the responses as core does : a single
+ * request with an error gets an HTTP error status, a batch always gets 200 with an error in each failed response.
+ * <p>
+ * Errors are injected in calls with the error rate (error -28 : core is warming up).
+ */
+public final class RpcDispatcher {
+
+    /**
+     * HTTP status : OK.
+     */
+    private static final int HTTP_OK = 200;
+
+    /**
+     * HTTP status : bad request.
+     */
+    private static final int HTTP_BAD_REQUEST = 400;
+
+    /**
+     * HTTP status : not found.
+     */
+    private static final int HTTP_NOT_FOUND = 404;
+
+    /**
+     * HTTP status : internal server error.
+     */
+    private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+
+    /**
+     * JSON-RPC error : parse error.
+     */
+    private static final int PARSE_ERROR = -32700;
+
+    /**
+     * JSON-RPC error : invalid request.
+     */
+    private static final int INVALID_REQUEST = -32600;
+
+    /**
+     * JSON-RPC error : method not found.
+     */
+    private static final int METHOD_NOT_FOUND = -32601;
+
+    /**
+     * Core error : invalid parameter.
+     */
+    private static final int INVALID_PARAMETER = -8;
+
+    /**
+     * Core error : warming up (injected errors).
+     */
+    private static final int IN_WARMUP = -28;
+
+    /**
+     * Core service.
+     */
+    private final BitcoinCoreService service;
+
+    /**
+     * Probability that a call fails.
+     */
+    private final double errorRate;
+
+    /**
+     * JSON mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Constructor.
+     *
+     * @param newService   core service
+     * @param newErrorRate probability that a call fails
+     */
+    public RpcDispatcher(final BitcoinCoreService newService, final double newErrorRate) {
+        this.service = newService;
+        this.errorRate = newErrorRate;
+    }
+
+    /**
+     * Returns the number of calls of a request (elements of a batch).
+     *
+     * @param request request
+     * @return number of calls
+     */
+    public int getCallCount(final JsonNode request) {
+        if (request.isArray()) {
+            return Math.max(1, request.size());
+        }
+        return 1;
+    }
+
+    /**
+     * Parses a request.
+     *
+     * @param body request body
+     * @return request (null if the body is not JSON)
+     */
+    public JsonNode parse(final byte[] body) {
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Dispatches a request.
+     *
+     * @param request request (null if the body is not JSON)
+     * @param random  generator (error injection)
+     * @return response
+     */
+    public RpcResponse dispatch(final JsonNode request, final Random random) {
+        if (request == null) {
+            return createResponse(createError(NullNode.getInstance(), PARSE_ERROR, "Parse error"));
+        }
+        if (request.isArray()) {
+            if (request.size() == 0) {
+                return createResponse(createError(NullNode.getInstance(), INVALID_REQUEST, "Empty batch"));
+            }
+            final ArrayNode responses = mapper.createArrayNode();
+            request.forEach(r -> responses.add(call(r, random)));
+            return new RpcResponse(HTTP_OK, toBytes(responses));
+        }
+        return createResponse(call(request, random));
+    }
+
+    /**
+     * Calls the service.
+     *
+     * @param request request (one call)
+     * @param random  generator (error injection)
+     * @return response
+     */
+    private ObjectNode call(final JsonNode request, final Random random) {
+        JsonNode id = request.path("id");
+        if (id.isMissingNode()) {
+            id = NullNode.getInstance();
+        }
+        if (!request.isObject() || !request.path("method").isTextual()) {
+            return createError(id, INVALID_REQUEST, "Invalid request");
+        }
+        if (random.nextDouble() < errorRate) {
+            return createError(id, IN_WARMUP, "Simulated error");
+        }
+        final JsonNode params = request.path("params");
+        final BitcoinCoreResponse response;
+        switch (request.get("method").asText()) {
+            case "getblockcount":
+                response = service.getBlockCount();
+                break;
+            case "getblockhash":
+                if (!params.path(0).canConvertToInt()) {
+                    return createError(id, INVALID_PARAMETER, "Invalid block height");
+                }
+                response = service.getBlockHash(params.path(0).asInt());
+                break;
+            case "getblock":
+                response = service.getBlock(params.path(0).asText());
+                break;
+            case "getrawtransaction":
+                response = service.getRawTransaction(params.path(0).asText());
+                break;
+            default:
+                return createError(id, METHOD_NOT_FOUND, "Method not found");
+        }
+        final ObjectNode node = mapper.valueToTree(response);
+        node.set("id", id);
+        return node;
+    }
+
+    /**
+     * Creates an error response.
+     *
+     * @param id      request id
+     * @param code    error code
+     * @param message error message
+     * @return response
+     */
+    private ObjectNode createError(final JsonNode id, final int code, final String message) {
+        final ObjectNode response = mapper.createObjectNode();
+        response.putNull("result");
+        response.putObject("error").put("code", code).put("message", message);
+        response.set("id", id);
+        return response;
+    }
+
+    /**
+     * Creates the HTTP response of a single request (error status as core : 400 invalid request, 404 method not found
+     * and 500 for the other errors).
+     *
+     * @param response response
+     * @return HTTP response
+     */
+    private RpcResponse createResponse(final ObjectNode response) {
+        final JsonNode error = response.path("error");
+        int status = HTTP_OK;
+        if (error.isObject()) {
+            switch (error.path("code").asInt()) {
+                case INVALID_REQUEST:
+                    status = HTTP_BAD_REQUEST;
+                    break;
+                case METHOD_NOT_FOUND:
+                    status = HTTP_NOT_FOUND;
+                    break;
+                default:
+                    status = HTTP_INTERNAL_SERVER_ERROR;
+            }
+        }
+        return new RpcResponse(status, toBytes(response));
+    }
+
+    /**
+     * Serializes a response.
+     *
+     * @param response response
+     * @return JSON
+     */
+    private byte[] toBytes(final JsonNode response) {
+        try {
+            return mapper.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error serializing the response", e);
+        }
+    }
+
+    /**
+     * HTTP response.
+     */
+    public static final class RpcResponse {
+
+        /**
+         * HTTP status.
+         */
+        private final int status;
+
+        /**
+         * Body (JSON).
+         */
+        private final byte[] body;
+
+        /**
+         * Constructor.
+         *
+         * @param newStatus HTTP status
+         * @param newBody   body
+         */
+        RpcResponse(final int newStatus, final byte[] newBody) {
+            this.status = newStatus;
+            this.body = newBody;
+        }
+
+        /**
+         * Getter of status.
+         *
+         * @return HTTP status
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Getter of body.
+         *
+         * @return body (JSON)
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+    }
+
+}
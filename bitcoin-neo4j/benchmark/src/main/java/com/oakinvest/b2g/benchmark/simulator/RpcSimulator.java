@@ -0,0 +1,276 @@
+package com.oakinvest.b2g.benchmark.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oakinvest.b2g.benchmark.Fixtures;
+import com.oakinvest.b2g.service.BitcoinCoreService;
+import com.oakinvest.b2g.service.SyntheticBitcoinCoreService;
+import com.oakinvest.b2g.util.synthetic.SyntheticChain;
+import com.oakinvest.b2g.util.synthetic.SyntheticChainSettings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP JSON-RPC server simulating bitcoin core : getblockcount, getblockhash, getblock and getrawtransaction
+ * (single or batch requests) are served from the recorded responses (fixtures) or from the synthetic chain.
+ * <p>
+ * Like core, requests are processed by a fixed number of threads (rpcthreads) and a request that finds the work queue
+ * full (rpcworkqueue) is rejected with 503. On top of that, the simulator adds a latency drawn from a distribution to
+ * each request, caps the calls per second and injects faults : RPC errors (per call) and dropped connections (per
+ * request, nothing is answered).
+ * <p>
+ * Usage : java [options] -cp target/benchmarks.jar com.oakinvest.b2g.benchmark.simulator.RpcSimulator with the
+ * options (system properties) :
+ * <ul>
+ * <li>b2g.simulator.port : port (8332).</li>
+ * <li>b2g.simulator.source : recorded (fixtures, see b2g.benchmark.fixtures) or synthetic (b2g.synthetic.seed,
+ * block-count, transactions, inputs, outputs, address-reuse and in-block-spends as in the back-end).</li>
+ * <li>b2g.simulator.latency : latency distribution (none, constant:5, uniform:2-20 or lognormal:5,0.8).</li>
+ * <li>b2g.simulator.max-rate : maximum calls per second (0 : no cap).</li>
+ * <li>b2g.simulator.threads : requests processed at the same time (4, as rpcthreads).</li>
+ * <li>b2g.simulator.work-queue : requests waiting for a thread (16, as rpcworkqueue).</li>
+ * <li>b2g.simulator.error-rate : probability that a call returns an error (0).</li>
+ * <li>b2g.simulator.drop-rate : probability that a connection is dropped without response (0).</li>
+ * </ul>
+ * The back-end is then started with bitcoinCore.hostname=localhost and bitcoinCore.port set to the simulator port.
+ */
+public final class RpcSimulator {
+
+    /**
+     * Prefix of the options.
+     */
+    private static final String PREFIX = "b2g.simulator.";
+
+    /**
+     * HTTP status : service unavailable (work queue full).
+     */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * Microseconds in a millisecond.
+     */
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000d;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(RpcSimulator.class);
+
+    /**
+     * Dispatcher.
+     */
+    private final RpcDispatcher dispatcher;
+
+    /**
+     * Latency distribution.
+     */
+    private final LatencyDistribution latency;
+
+    /**
+     * Throughput cap (null : no cap).
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Probability that a connection is dropped.
+     */
+    private final double dropRate;
+
+    /**
+     * Requests processed at the same time.
+     */
+    private final Semaphore workers;
+
+    /**
+     * Requests processed or waiting.
+     */
+    private final Semaphore queue;
+
+    /**
+     * Executor of the requests.
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * Constructor.
+     *
+     * @param newDispatcher dispatcher
+     * @param newLatency    latency distribution
+     * @param maxRate       maximum calls per second (0 : no cap)
+     * @param threads       requests processed at the same time
+     * @param workQueue     requests waiting for a thread
+     * @param newDropRate   probability that a connection is dropped
+     */
+    public RpcSimulator(final RpcDispatcher newDispatcher, final LatencyDistribution newLatency, final double maxRate,
+                        final int threads, final int workQueue, final double newDropRate) {
+        this.dispatcher = newDispatcher;
+        this.latency = newLatency;
+        if (maxRate > 0) {
+            this.rateLimiter = new RateLimiter(maxRate);
+        } else {
+            this.rateLimiter = null;
+        }
+        this.dropRate = newDropRate;
+        this.workers = new Semaphore(threads);
+        this.queue = new Semaphore(threads + workQueue);
+    }
+
+    /**
+     * Main.
+     *
+     * @param args not used (options are system properties)
+     * @throws IOException error while starting the server
+     */
+    public static void main(final String[] args) throws IOException {
+        final BitcoinCoreService service;
+        final String source = System.getProperty(PREFIX + "source", "recorded");
+        if ("synthetic".equals(source)) {
+            service = new SyntheticBitcoinCoreService(new SyntheticChain(new SyntheticChainSettings(
+                    Long.parseLong(System.getProperty("b2g.synthetic.seed", "1")),
+                    Integer.parseInt(System.getProperty("b2g.synthetic.block-count", "1000")),
+                    System.getProperty("b2g.synthetic.transactions", "1000-3000"),
+                    System.getProperty("b2g.synthetic.inputs", "1-3"),
+                    System.getProperty("b2g.synthetic.outputs", "1-3"),
+                    Double.parseDouble(System.getProperty("b2g.synthetic.address-reuse", "0.3")),
+                    Double.parseDouble(System.getProperty("b2g.synthetic.in-block-spends", "0.1")))));
+        } else if ("recorded".equals(source)) {
+            service = new RecordedBitcoinCoreService(new Fixtures());
+        } else {
+            throw new IllegalArgumentException("Invalid source " + source + " (recorded or synthetic)");
+        }
+        final RpcSimulator simulator = new RpcSimulator(
+                new RpcDispatcher(service, Double.parseDouble(System.getProperty(PREFIX + "error-rate", "0"))),
+                LatencyDistribution.parse(System.getProperty(PREFIX + "latency", "none")),
+                Double.parseDouble(System.getProperty(PREFIX + "max-rate", "0")),
+                Integer.parseInt(System.getProperty(PREFIX + "threads", "4")),
+                Integer.parseInt(System.getProperty(PREFIX + "work-queue", "16")),
+                Double.parseDouble(System.getProperty(PREFIX + "drop-rate", "0")));
+        simulator.start(Integer.parseInt(System.getProperty(PREFIX + "port", "8332")));
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop));
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @param port port (0 : any free port)
+     * @throws IOException error while starting the server
+     */
+    public void start(final int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Simulating core on port " + getPort() + " (latency " + latency + ")");
+    }
+
+    /**
+     * Returns the port of the server.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Handles a request.
+     *
+     * @param exchange HTTP exchange
+     * @throws IOException error while reading the request or writing the response
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!queue.tryAcquire()) {
+                respond(exchange, HTTP_SERVICE_UNAVAILABLE, "Work queue depth exceeded".getBytes(StandardCharsets.UTF_8), "text/plain");
+                return;
+            }
+            try {
+                workers.acquire();
+                try {
+                    process(exchange);
+                } finally {
+                    workers.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                queue.release();
+            }
+        } finally {
+            // Closed without response if nothing was sent (dropped connection).
+            exchange.close();
+        }
+    }
+
+    /**
+     * Processes a request : throughput cap, connection drop, latency and response.
+     *
+     * @param exchange HTTP exchange
+     * @throws IOException          error while reading the request or writing the response
+     * @throws InterruptedException interrupted while waiting
+     */
+    private void process(final HttpExchange exchange) throws IOException, InterruptedException {
+        final byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        final JsonNode request = dispatcher.parse(body);
+        if (rateLimiter != null && request != null) {
+            rateLimiter.acquire(dispatcher.getCallCount(request));
+        }
+        final Random random = ThreadLocalRandom.current();
+        if (random.nextDouble() < dropRate) {
+            // Closed without response.
+            return;
+        }
+        TimeUnit.MICROSECONDS.sleep(Math.round(latency.sample(random) * MICROSECONDS_PER_MILLISECOND));
+        final RpcDispatcher.RpcResponse response = dispatcher.dispatch(request, random);
+        respond(exchange, response.getStatus(), response.getBody(), "application/json");
+    }
+
+    /**
+     * Writes a response.
+     *
+     * @param exchange    HTTP exchange
+     * @param status      HTTP status
+     * @param body        body
+     * @param contentType content type
+     * @throws IOException error while writing the response
+     */
+    private void respond(final HttpExchange exchange, final int status, final byte[] body, final String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Local bitcoin core JSON-RPC simulator (recorded or synthetic responses, latency, throughput caps and faults) to load
+ * test the RPC client end to end on one machine.
+ */
+package com.oakinvest.b2g.benchmark.simulator;
@@ -0,0 +1,90 @@
+package com.oakinvest.b2g.util.buffer;
+
+import com.oakinvest.b2g.benchmark.Fixtures;
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BitcoinDataServiceBuffer as used by the buffer loader and the importer : the blocks of a window and their
+ * transactions are added, retrieved and purged once imported (in the buffer package to call purge()).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferBenchmark {
+
+    /**
+     * First block height of the window.
+     */
+    private static final int FIRST_BLOCK = 1;
+
+    /**
+     * Number of blocks in the window.
+     */
+    @Param({"10", "100"})
+    private int blocks;
+
+    /**
+     * Buffer.
+     */
+    private BitcoinDataServiceBuffer buffer;
+
+    /**
+     * Data of the blocks.
+     */
+    private final List<BitcoinCoreBlockData> blockData = new ArrayList<>();
+
+    /**
+     * Loads the blocks and creates the buffer.
+     */
+    @Setup
+    public void setup() {
+        final Fixtures fixtures = new Fixtures();
+        for (int h = FIRST_BLOCK; h < FIRST_BLOCK + blocks; h++) {
+            blockData.add(fixtures.getBlockData(h));
+        }
+        final ApplicationStatus status = new ApplicationStatus();
+        buffer = new BitcoinDataServiceBuffer(new PipelineMetrics(new SimpleMeterRegistry(), new ThroughputHistory(status, 1, 1)));
+    }
+
+    /**
+     * Adds the blocks and their transactions, retrieves them and purges the buffer.
+     *
+     * @param blackhole blackhole
+     */
+    @Benchmark
+    public void addGetAndPurge(final Blackhole blackhole) {
+        blockData.forEach(data -> {
+            buffer.addBlockInBuffer(data.getBlock().getHeight(), data.getBlock());
+            data.getTransactions().forEach(t -> buffer.addTransactionInBuffer(t.getTxid(), t));
+        });
+        blockData.forEach(data -> {
+            blackhole.consume(buffer.getBlockInBuffer(data.getBlock().getHeight()));
+            data.getBlock().getTx().forEach(txId -> blackhole.consume(buffer.getTransactionInBuffer(txId)));
+        });
+        buffer.purge(FIRST_BLOCK + blocks);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.oakinvest.b2g.test.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.benchmark.simulator.LatencyDistribution;
+import com.oakinvest.b2g.benchmark.simulator.RpcDispatcher;
+import com.oakinvest.b2g.benchmark.simulator.RpcSimulator;
+import com.oakinvest.b2g.service.SyntheticBitcoinCoreService;
+import com.oakinvest.b2g.util.synthetic.SyntheticChain;
+import com.oakinvest.b2g.util.synthetic.SyntheticChainSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the core simulator (served on a free port).
+ */
+public class RpcSimulatorTest {
+
+    /**
+     * Number of blocks of the synthetic chain.
+     */
+    private static final int BLOCK_COUNT = 10;
+
+    /**
+     * HTTP status : OK.
+     */
+    private static final int HTTP_OK = 200;
+
+    /**
+     * HTTP status : service unavailable.
+     */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * JSON-RPC error : method not found.
+     */
+    private static final int METHOD_NOT_FOUND = -32601;
+
+    /**
+     * Requests sent at the same time to a simulator processing one request.
+     */
+    private static final int CONCURRENT_REQUESTS = 4;
+
+    /**
+     * Object to Json mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * HTTP client.
+     */
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    /**
+     * Simulator started by the test.
+     */
+    private RpcSimulator simulator;
+
+    /**
+     * Stops the simulator.
+     */
+    @After
+    public final void stopSimulator() {
+        if (simulator != null) {
+            simulator.stop();
+        }
+    }
+
+    /**
+     * A single call gets its result.
+     *
+     * @throws Exception error
+     */
+    @Test
+    public final void singleCallTest() throws Exception {
+        startSimulator("none", 1, 1);
+        final HttpResponse<String> response = send("{\"jsonrpc\":\"1.0\",\"id\":\"1\",\"method\":\"getblockcount\",\"params\":[]}");
+        assertThat(response.statusCode()).as("HTTP status").isEqualTo(HTTP_OK);
+        final JsonNode body = mapper.readTree(response.body());
+        assertThat(body.path("result").asInt()).as("Block count").isEqualTo(BLOCK_COUNT);
+        assertThat(body.path("error").isNull()).as("No error").isTrue();
+        assertThat(body.path("id").asText()).as("Id").isEqualTo("1");
+    }
+
+    /**
+     * A batch gets 200 with an error in the failed call only.
+     *
+     * @throws Exception error
+     */
+    @Test
+    public final void batchTest() throws Exception {
+        startSimulator("none", 1, 1);
+        final HttpResponse<String> response = send("["
+                + "{\"jsonrpc\":\"1.0\",\"id\":\"1\",\"method\":\"getblockhash\",\"params\":[1]},"
+                + "{\"jsonrpc\":\"1.0\",\"id\":\"2\",\"method\":\"unknown\",\"params\":[]}"
+                + "]");
+        assertThat(response.statusCode()).as("HTTP status").isEqualTo(HTTP_OK);
+        final JsonNode body = mapper.readTree(response.body());
+        assertThat(body.size()).as("Responses").isEqualTo(2);
+        assertThat(body.get(0).path("id").asText()).as("First id").isEqualTo("1");
+        assertThat(body.get(0).path("result").asText()).as("Block hash").isNotEmpty();
+        assertThat(body.get(0).path("error").isNull()).as("No error").isTrue();
+        assertThat(body.get(1).path("id").asText()).as("Second id").isEqualTo("2");
+        assertThat(body.get(1).path("error").path("code").asInt()).as("Method not found").isEqualTo(METHOD_NOT_FOUND);
+    }
+
+    /**
+     * A request finding the work queue full is rejected with 503.
+     *
+     * @throws IOException error while starting the server
+     */
+    @Test
+    public final void workQueueFullTest() throws IOException {
+        // One request processed at a time, none waiting.
+        startSimulator("constant:500", 1, 0);
+        final List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, CONCURRENT_REQUESTS)
+                .mapToObj(i -> client.sendAsync(createRequest("{\"jsonrpc\":\"1.0\",\"id\":\"" + i + "\",\"method\":\"getblockcount\",\"params\":[]}"),
+                        HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList());
+        final List<Integer> statuses = responses.stream().map(r -> r.join().statusCode()).collect(Collectors.toList());
+        assertThat(statuses).as("Request processed").contains(HTTP_OK);
+        assertThat(statuses).as("Requests rejected").contains(HTTP_SERVICE_UNAVAILABLE);
+        assertThat(statuses).as("Only processed or rejected").containsOnly(HTTP_OK, HTTP_SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Starts the simulator on a free port, serving a synthetic chain.
+     *
+     * @param latency   latency distribution
+     * @param threads   requests processed at the same time
+     * @param workQueue requests waiting for a thread
+     * @throws IOException error while starting the server
+     */
+    private void startSimulator(final String latency, final int threads, final int workQueue) throws IOException {
+        final SyntheticBitcoinCoreService service = new SyntheticBitcoinCoreService(new SyntheticChain(
+                new SyntheticChainSettings(1, BLOCK_COUNT, "1-2", "1-2", "1-2", 0.3, 0.1)));
+        simulator = new RpcSimulator(new RpcDispatcher(service, 0), LatencyDistribution.parse(latency), 0, threads, workQueue, 0);
+        simulator.start(0);
+    }
+
+    /**
+     * Creates a request to the simulator.
+     *
+     * @param body JSON-RPC request
+     * @return HTTP request
+     */
+    private HttpRequest createRequest(final String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + simulator.getPort() + "/"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Sends a request to the simulator.
+     *
+     * @param body JSON-RPC request
+     * @return response
+     * @throws Exception error
+     */
+    private HttpResponse<String> send(final String body) throws Exception {
+        return client.send(createRequest(body), HttpResponse.BodyHandlers.ofString());
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Core simulator test.
+ */
+package com.oakinvest.b2g.test.simulator;
@@ -1,6 +1,7 @@
 package com.oakinvest.b2g;
 
 import com.oakinvest.b2g.util.benchmark.BenchmarkLauncher;
+import com.oakinvest.b2g.util.job.MaintenanceJobLauncher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -8,8 +9,11 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 /**
  * Application launcher.
@@ -29,17 +33,29 @@ public class Application implements ApplicationRunner {
      */
     private static final String BENCHMARK_PARAMETER = "benchmark";
 
+    /**
+     * Maintenance job launcher parameter (--job=name, several jobs can be given).
+     */
+    private static final String JOB_PARAMETER = "job";
+
     /**
      * Benchmark launcher.
      */
     private final BenchmarkLauncher benchmarkLauncher;
 
+    /**
+     * Maintenance job launcher.
+     */
+    private final MaintenanceJobLauncher maintenanceJobLauncher;
+
     /**
      * Constructor.
      * @param newBenchmarkLauncher benchmark launcher.
+     * @param newMaintenanceJobLauncher maintenance job launcher.
      */
-    public Application(final BenchmarkLauncher newBenchmarkLauncher) {
+    public Application(final BenchmarkLauncher newBenchmarkLauncher, final MaintenanceJobLauncher newMaintenanceJobLauncher) {
         this.benchmarkLauncher = newBenchmarkLauncher;
+        this.maintenanceJobLauncher = newMaintenanceJobLauncher;
     }
 
     /**
@@ -60,6 +76,17 @@ public class Application implements ApplicationRunner {
         } else {
             log.info("Application will start importing data in few minutes");
         }
+        // If maintenance jobs are requested, they run in parallel of the import.
+        if (args.containsOption(JOB_PARAMETER)) {
+            final List<String> jobs = args.getOptionValues(JOB_PARAMETER)
+                    .stream()
+                    .flatMap(j -> Arrays.stream(j.split(",")))
+                    .map(String::trim)
+                    .collect(Collectors.toList());
+            final ExecutorService service = Executors.newSingleThreadExecutor();
+            service.execute(() -> maintenanceJobLauncher.run(jobs));
+            service.shutdown();
+        }
     }
 
 }
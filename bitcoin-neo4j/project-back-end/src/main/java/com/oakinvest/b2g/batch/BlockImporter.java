@@ -0,0 +1,404 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.util.analytics.BlockTotals;
+import com.oakinvest.b2g.util.analytics.TransactionTotals;
+import com.oakinvest.b2g.util.embedded.EmbeddedGraphWriter;
+import com.oakinvest.b2g.util.executors.ParallelTasks;
+import com.oakinvest.b2g.util.jfr.AddressResolutionEvent;
+import com.oakinvest.b2g.util.jfr.BlockFetchEvent;
+import com.oakinvest.b2g.util.jfr.BlockMappingEvent;
+import com.oakinvest.b2g.util.jfr.BlockSaveEvent;
+import com.oakinvest.b2g.util.jfr.InputLinkingEvent;
+import com.oakinvest.b2g.util.mapper.BlockDataMapper;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
+import com.oakinvest.b2g.util.providers.ExecutorsProvider;
+import com.oakinvest.b2g.util.providers.ServicesProvider;
+import com.oakinvest.b2g.util.session.Neo4jSessionPool;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import com.oakinvest.b2g.util.throughput.BlockRecord;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports the blocks of a window : workers prepare the blocks in parallel and a sequencer saves them in height order.
+ * Used by the import batch and the distributed import batch.
+ */
+@Component
+public class BlockImporter {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(BlockImporter.class);
+
+    /**
+     * Neo4j sessions.
+     */
+    private final Neo4jSessionPool sessionPool;
+
+    /**
+     * Services.
+     */
+    private final ServicesProvider services;
+
+    /**
+     * Executors.
+     */
+    private final ExecutorsProvider executors;
+
+    /**
+     * Status component.
+     */
+    private final ApplicationStatus status;
+
+    /**
+     * Writer used instead of OGM when the embedded database is enabled.
+     */
+    private final Optional<EmbeddedGraphWriter> embeddedGraphWriter;
+
+    /**
+     * Maps the data retrieved from core.
+     */
+    private final BlockDataMapper blockDataMapper;
+
+    /**
+     * Stages run after each block is saved.
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Metrics.
+     */
+    private final PipelineMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionPool         neo4j session pool
+     * @param newServices            services
+     * @param newExecutors           executors
+     * @param newApplicationStatus   application status
+     * @param newEmbeddedGraphWriter embedded graph writer (if the embedded database is enabled)
+     * @param newBlockDataMapper     block data mapper
+     * @param newStages              stages run after each block is saved
+     * @param newMetrics             metrics
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public BlockImporter(final Neo4jSessionPool newSessionPool, final ServicesProvider newServices, final ExecutorsProvider newExecutors, final ApplicationStatus newApplicationStatus, final Optional<EmbeddedGraphWriter> newEmbeddedGraphWriter, final BlockDataMapper newBlockDataMapper, final BlockImportStages newStages, final PipelineMetrics newMetrics) {
+        this.sessionPool = newSessionPool;
+        this.services = newServices;
+        this.executors = newExecutors;
+        this.status = newApplicationStatus;
+        this.embeddedGraphWriter = newEmbeddedGraphWriter;
+        this.blockDataMapper = newBlockDataMapper;
+        this.stages = newStages;
+        this.metrics = newMetrics;
+    }
+
+    /**
+     * Import the blocks of a window : workers prepare the blocks in parallel and they are saved in height order.
+     * If a block can't be processed, the following ones are not saved and will be processed again by the next batch.
+     * With the embedded database, the blocks of the window are written in one transaction committed at the end : they
+     * are counted as saved (metrics, history and status) only once it is committed.
+     *
+     * @param window import window
+     */
+    final void importBlocks(final ImportWindow window) {
+        if (window.getFrom() == window.getTo()) {
+            log.info("Starting to process block " + getFormattedBlockHeight(window.getFrom()));
+        } else {
+            log.info("Starting to process blocks " + getFormattedBlockHeight(window.getFrom()) + " to " + getFormattedBlockHeight(window.getTo()));
+        }
+        status.getCurrentBlockStatus().setBlockHeight(window.getFrom());
+
+        // -------------------------------------------------------------------------------------------------------------
+        // Workers preparing the blocks.
+        final Map<Integer, CompletableFuture<Optional<BitcoinBlock>>> processedBlocks = new HashMap<>();
+        final Map<Integer, BlockRecord> records = new HashMap<>();
+        IntStream.rangeClosed(window.getFrom(), window.getTo()).forEach(h -> {
+            final BlockRecord record = new BlockRecord(h);
+            records.put(h, record);
+            processedBlocks.put(h, CompletableFuture.supplyAsync(() -> processBlock(h, window, record), executors.getImportExecutor()));
+        });
+
+        // -------------------------------------------------------------------------------------------------------------
+        // Sequencer saving the blocks in order (the write session knows what the previous blocks of the window saved).
+        final Session writeSession = sessionPool.openWriteSession();
+        final List<BitcoinBlock> uncommittedBlocks = new ArrayList<>();
+        stages.getWriteLock().lock();
+        try {
+            Instant blockStartTime = Instant.now();
+            Optional<BitcoinBlock> previousBlock = sessionPool.findBlockByHeight(window.getFrom() - 1);
+            for (int blockHeight = window.getFrom(); blockHeight <= window.getTo(); blockHeight++) {
+                Optional<BitcoinBlock> blockToProcess = ParallelTasks.join(processedBlocks.get(blockHeight));
+                if (blockToProcess.isEmpty()) {
+                    // The error has already been reported.
+                    break;
+                }
+                final BitcoinBlock bitcoinBlock = blockToProcess.get();
+                if (blockHeight != window.getFrom()) {
+                    status.getCurrentBlockStatus().setBlockHeight(blockHeight);
+                }
+
+                // Before saving the last block, we start to load the next block in the buffer.
+                if (blockHeight == window.getTo()) {
+                    services.getBitcoinDataServiceBufferLoader().loadBlockInBuffer(blockHeight + 1);
+                }
+
+                // We set the previous and the next block.
+                previousBlock.ifPresent(previous -> {
+                    log.info("Linking block " + bitcoinBlock.getFormattedHeight() + " to the previous one");
+                    bitcoinBlock.setPreviousBlock(previous);
+                    previous.setNextBlock(bitcoinBlock);
+                });
+
+                // If the block has been well processed, we change the state and we save it.
+                log.info("Saving block " + bitcoinBlock.getFormattedHeight() + " data");
+                status.getCurrentBlockStatus().setProcessStep(CurrentBlockStatusProcessStep.SAVING_BLOCK);
+                final long savingStart = System.nanoTime();
+                final BlockSaveEvent saveEvent = new BlockSaveEvent();
+                saveEvent.begin();
+                stages.beforeSave(bitcoinBlock);
+                if (embeddedGraphWriter.isPresent()) {
+                    embeddedGraphWriter.get().save(bitcoinBlock);
+                    metrics.recordSave(savingStart);
+                    stages.apply(bitcoinBlock, embeddedGraphWriter.get()::execute);
+                } else {
+                    saveBlock(writeSession, bitcoinBlock, window);
+                }
+                saveEvent.commit(bitcoinBlock.getHeight(), bitcoinBlock.getTransactions().size());
+                metrics.recordStep(records.get(blockHeight), CurrentBlockStatusProcessStep.SAVING_BLOCK, savingStart);
+                metrics.completeRecord(bitcoinBlock, records.get(blockHeight));
+                if (embeddedGraphWriter.isPresent()) {
+                    uncommittedBlocks.add(bitcoinBlock);
+                } else {
+                    blockCommitted(bitcoinBlock, records.get(blockHeight));
+                }
+
+                // We calculate time.
+                Duration blockDuration = Duration.between(blockStartTime, Instant.now());
+                long secondsDuration = blockDuration.toSecondsPart();
+                long millisecondsDuration = blockDuration.toMillisPart();
+                log.info("Block " + bitcoinBlock.getFormattedHeight() + " processed in " + secondsDuration + "." + millisecondsDuration + " secs");
+                status.setLastBlockProcessDuration(blockDuration.toMillis());
+
+                // We set status.
+                status.getCurrentBlockStatus().setProcessStep(CurrentBlockStatusProcessStep.BLOCK_SAVED);
+                previousBlock = blockToProcess;
+                blockStartTime = Instant.now();
+            }
+            embeddedGraphWriter.ifPresent(writer -> {
+                window.checkBeforeCommit(writer::execute);
+                final long written = writer.commit();
+                stages.afterCommit();
+                metrics.recordNodesCreated(written);
+                uncommittedBlocks.forEach(b -> blockCommitted(b, records.get(b.getHeight())));
+                log.info(written + " node(s) written in the embedded database");
+            });
+        } finally {
+            embeddedGraphWriter.ifPresent(EmbeddedGraphWriter::rollback);
+            // Nothing to discard if the blocks applied are committed.
+            stages.afterRollback();
+            stages.getWriteLock().unlock();
+            writeSession.clear();
+            // If a block failed, we wait for the workers still running so that they don't outlive the batch.
+            CompletableFuture.allOf(processedBlocks.values().toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        }
+    }
+
+    /**
+     * Process block.
+     *
+     * @param blockHeight block height to process.
+     * @param window      import window
+     * @param record      record of the block (time spent in each step)
+     * @return block processed
+     */
+    private Optional<BitcoinBlock> processBlock(final int blockHeight, final ImportWindow window, final BlockRecord record) {
+        final CurrentBlockStatus blockStatus = window.getCurrentBlockStatus(blockHeight);
+        final Optional<BitcoinCoreBlockData> blockData;
+        final Optional<BitcoinBlock> mappedBlock;
+        long stepStart = System.nanoTime();
+        try {
+            blockStatus.setProcessStep(CurrentBlockStatusProcessStep.LOADING_TRANSACTIONS_FROM_BLOCKCHAIN);
+            log.info("Loading block " + getFormattedBlockHeight(blockHeight) + " data from Bitcoin core");
+            final BlockFetchEvent fetchEvent = new BlockFetchEvent();
+            fetchEvent.begin();
+            blockData = services.getBitcoinDataService().getBlockData(blockHeight);
+            blockData.ifPresent(data -> {
+                fetchEvent.setSize(data.getBlock().getSize());
+                fetchEvent.commit(blockHeight, data.getTransactions().size());
+            });
+
+            // ---------------------------------------------------------------------------------------------------------
+            // We create the block to save. We retrieve the data from core and map it.
+            blockData.ifPresent(data -> {
+                blockStatus.setTransactionCount(data.getTransactions().size());
+                blockStatus.setAddressCount(data.getAddresses().size());
+            });
+            final BlockMappingEvent mappingEvent = new BlockMappingEvent();
+            mappingEvent.begin();
+            mappedBlock = blockData.map(blockDataMapper::map);
+            mappedBlock.ifPresent(b -> mappingEvent.commit(blockHeight, b.getTransactions().size()));
+            mappedBlock.ifPresent(b -> window.addTransactions(blockHeight, b.getTransactions()));
+        } finally {
+            // The following blocks can now search their inputs in this one.
+            window.setMapped(blockHeight);
+        }
+
+        // -------------------------------------------------------------------------------------------------------------
+        // If we have the data.
+        if (blockData.isPresent() && mappedBlock.isPresent()) {
+            final BitcoinBlock block = mappedBlock.get();
+
+            // ---------------------------------------------------------------------------------------------------------
+            // We get all the addresses.
+            metrics.recordStep(record, CurrentBlockStatusProcessStep.LOADING_TRANSACTIONS_FROM_BLOCKCHAIN, stepStart);
+            stepStart = System.nanoTime();
+            blockStatus.setProcessStep(CurrentBlockStatusProcessStep.PROCESSING_ADDRESSES);
+            log.info("Treating " + blockData.get().getAddresses().size() + " address(es)");
+            final List<String> addresses = blockData.get().getAddresses()
+                    .stream()
+                    .filter(Objects::nonNull) // If the address is not null.
+                    .collect(Collectors.toList());
+            final AddressResolutionEvent addressEvent = new AddressResolutionEvent();
+            addressEvent.begin();
+            ParallelTasks.forEach(executors.getIoExecutor(), addresses, a -> {
+                window.getAddress(a, this::findOrCreateAddress);
+                blockStatus.addProcessedAddress();
+            });
+            addressEvent.setAddressCount(addresses.size());
+            addressEvent.commit(blockHeight, block.getTransactions().size());
+
+            // ---------------------------------------------------------------------------------------------------------
+            // We link the addresses to the input and the origin transaction.
+            metrics.recordStep(record, CurrentBlockStatusProcessStep.PROCESSING_ADDRESSES, stepStart);
+            stepStart = System.nanoTime();
+            blockStatus.setProcessStep(CurrentBlockStatusProcessStep.PROCESSING_TRANSACTIONS);
+            window.waitForPredecessors(blockHeight);
+            final AtomicInteger transactionCounter = new AtomicInteger(0);
+            final int txSize = block.getTransactions().size();
+            log.info("Treating " + txSize + " transaction(s)");
+            final InputLinkingEvent linkingEvent = new InputLinkingEvent();
+            linkingEvent.begin();
+            final InputLinker linker = new InputLinker(window, this::findOrCreateAddress, sessionPool::findTransactionOutput);
+            ParallelTasks.forEach(executors.getIoExecutor(), block.getTransactions(), t -> {
+                linker.link(blockHeight, t);
+
+                // -----------------------------------------------------------------------------------------------------
+                // Logging.
+                blockStatus.addProcessedTransaction();
+                log.info("- Transaction " + transactionCounter.incrementAndGet() + "/" + txSize + " created (" + t.getTxId() + " : " + t.getInputs().size() + " vin(s) & " + t.getOutputs().size() + " vout(s))");
+            });
+            if (linkingEvent.isEnabled()) {
+                linkingEvent.setInputCount(block.getTransactions().stream().mapToInt(t -> t.getInputs().size()).sum());
+            }
+            linkingEvent.commit(blockHeight, txSize);
+
+            // ---------------------------------------------------------------------------------------------------------
+            // We compute the totals and the fees (all the inputs are linked).
+            final BlockTotals blockTotals = new BlockTotals();
+            block.getTransactions().forEach(t -> {
+                final TransactionTotals transactionTotals = TransactionTotals.of(t);
+                transactionTotals.applyTo(t);
+                blockTotals.add(transactionTotals);
+            });
+            blockTotals.applyTo(block);
+            metrics.recordStep(record, CurrentBlockStatusProcessStep.PROCESSING_TRANSACTIONS, stepStart);
+
+            // ---------------------------------------------------------------------------------------------------------
+            // We return the block.
+            return Optional.of(block);
+
+        } else {
+            // Or nothing if we did not retrieve the data.
+            status.setLastErrorMessage("No response from core for block n°" + getFormattedBlockHeight(blockHeight));
+            log.error("No response from core for block n°" + getFormattedBlockHeight(blockHeight));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the address from the database or a new one if it doesn't exist yet.
+     *
+     * @param address address
+     * @return bitcoin address
+     */
+    private BitcoinAddress findOrCreateAddress(final String address) {
+        Optional<BitcoinAddress> addressInRepository = sessionPool.findAddress(address);
+        if (addressInRepository.isPresent()) {
+            log.info("- Address " + address + " already exists");
+            return addressInRepository.get();
+        } else {
+            log.info("- Creating address " + address);
+            return new BitcoinAddress(address);
+        }
+    }
+
+    /**
+     * Saves the block (and everything linked to it) in its own transaction, with the statements of the stages and the
+     * check of the window.
+     *
+     * @param writeSession write session
+     * @param block        block to save
+     * @param window       import window
+     */
+    private void saveBlock(final Session writeSession, final BitcoinBlock block, final ImportWindow window) {
+        // Counted before the save, which sets the ids of the new entities.
+        final long newNodes = metrics.countNewNodes(block);
+        try (Transaction transaction = writeSession.beginTransaction()) {
+            final long start = System.nanoTime();
+            writeSession.save(block);
+            metrics.recordSave(start);
+            stages.apply(block, writeSession::query);
+            window.checkBeforeCommit(writeSession::query);
+            transaction.commit();
+        }
+        metrics.recordNodesCreated(newNodes);
+        stages.afterCommit();
+    }
+
+    /**
+     * Counts a block whose transaction is committed : metrics, throughput history and block count of the status.
+     *
+     * @param block  block committed
+     * @param record record of the block
+     */
+    private void blockCommitted(final BitcoinBlock block, final BlockRecord record) {
+        metrics.recordBlockSaved(block, record);
+        status.setBlockCountInNeo4j(block.getHeight());
+    }
+
+    /**
+     * Returns the block height in a formatted way.
+     *
+     * @param blockHeight block height
+     * @return formatted block height
+     */
+    private String getFormattedBlockHeight(final int blockHeight) {
+        return String.format("%09d", blockHeight);
+    }
+
+}
@@ -0,0 +1,317 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.util.exception.LeaseLostException;
+import com.oakinvest.b2g.util.lease.ImportLease;
+import com.oakinvest.b2g.util.lease.ImportLeaseStatus;
+import com.oakinvest.b2g.util.lease.ImportLeaseStore;
+import com.oakinvest.b2g.util.providers.ServicesProvider;
+import com.oakinvest.b2g.util.session.Neo4jSessionPool;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.oakinvest.b2g.configuration.ApplicationConfiguration.LOG_SEPARATOR;
+import static com.oakinvest.b2g.configuration.ApplicationConfiguration.PAUSE_BEFORE_SEARCHING_FOR_NEW_BLOCK;
+import static com.oakinvest.b2g.configuration.ApplicationConfiguration.PAUSE_BEFORE_STARTING_APPLICATION;
+
+/**
+ * Batch importing bitcoin blocks with other importers (b2g.import.distributed.enabled=true).
+ * <p>
+ * Each importer leases a range of block heights from the lease table shared by the importers and imports it without
+ * waiting for the other ranges : inputs spending an output of a range not imported yet are marked as unresolved and
+ * the first block of the range is not linked to its previous block. Once all the ranges are imported, the stitching
+ * links those inputs and blocks and updates the data computed by the import for the blocks of those inputs (totals,
+ * statistics fees, address aggregates, flows and clusters) and the balance checkpoints, not written by the import as
+ * ranges are committed out of height order. A lease is renewed in the transaction saving each block
+ * and its version is checked there (fencing token) : if an importer dies, its lease expires and the range is given to
+ * another importer that resumes after the last block saved, the blocks of the previous owner are not committed.
+ * <p>
+ * To run several importers on one machine, start several instances with the same neo4j database (or embedded harness),
+ * b2g.import.distributed.enabled=true, a different server.port and, if the lease table must not be stored in neo4j,
+ * the same b2g.import.distributed.lease-file.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.import.distributed.enabled", havingValue = "true")
+public class DistributedImportBatch {
+
+    /**
+     * Query linking the unresolved inputs to their origin transaction output (marked as spent) and to its addresses,
+     * the inputs are marked as stitched until the data of their block is updated.
+     */
+    private static final String STITCH_INPUTS = "MATCH (i:BitcoinTransactionInput) WHERE i.unresolved = true "
+            + "MATCH (o:BitcoinTransactionOutput) WHERE o.txid = i.txid AND o.n = i.vout "
+            + "WITH i, o LIMIT $batchSize "
+            + "MERGE (o)-[:TRANSACTION_OUTPUT]->(i) "
+            + "SET o.spent = true, o.spentAtHeight = head([(i)<-[:INPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(b:BitcoinBlock) | b.height]) "
+            + "REMOVE i.unresolved "
+            + "SET i.stitched = true "
+            + "WITH i, o "
+            + "OPTIONAL MATCH (a:BitcoinAddress)-[:ADDRESS]->(o) "
+            + "FOREACH (address IN CASE WHEN a IS NULL THEN [] ELSE [a] END | MERGE (address)-[:ADDRESS]->(i)) "
+            + "RETURN count(DISTINCT i) AS linked";
+
+    /**
+     * Query linking the first block of the ranges to their previous block.
+     */
+    private static final String STITCH_BLOCKS = "UNWIND $heights AS height "
+            + "MATCH (b:BitcoinBlock) WHERE b.height = height AND NOT (b)-[:PREVIOUS_BLOCK]->() "
+            + "MATCH (p:BitcoinBlock) WHERE p.height = height - 1 "
+            + "MERGE (b)-[:PREVIOUS_BLOCK]->(p) "
+            + "MERGE (p)-[:NEXT_BLOCK]->(b) "
+            + "RETURN count(b) AS linked";
+
+    /**
+     * Query counting the unresolved inputs.
+     */
+    private static final String COUNT_UNRESOLVED_INPUTS = "MATCH (i:BitcoinTransactionInput) WHERE i.unresolved = true RETURN count(i)";
+
+    /**
+     * Number of inputs linked per stitching transaction.
+     */
+    private static final int STITCH_BATCH_SIZE = 10000;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(DistributedImportBatch.class);
+
+    /**
+     * Block importer.
+     */
+    private final BlockImporter blockImporter;
+
+    /**
+     * Lease table.
+     */
+    private final ImportLeaseStore leaseStore;
+
+    /**
+     * Neo4j sessions.
+     */
+    private final Neo4jSessionPool sessionPool;
+
+    /**
+     * Services.
+     */
+    private final ServicesProvider services;
+
+    /**
+     * Status component.
+     */
+    private final ApplicationStatus status;
+
+    /**
+     * Updates the blocks whose inputs are linked by the stitching.
+     */
+    private final StitchedBlocksUpdater stitchedBlocksUpdater;
+
+    /**
+     * Importer name in the lease table (process id and host name if not set).
+     */
+    @Value("${b2g.import.distributed.owner:}")
+    private String owner;
+
+    /**
+     * Number of blocks in a leased range.
+     */
+    @Value("${b2g.import.distributed.range-size:1000}")
+    private int rangeSize;
+
+    /**
+     * Lease duration in milliseconds (a lease not renewed during this time is given to another importer).
+     */
+    @Value("${b2g.import.distributed.lease-duration:300000}")
+    private long leaseDuration;
+
+    /**
+     * Number of blocks prepared in parallel.
+     */
+    @Value("${b2g.import.parallelism:1}")
+    private int parallelism;
+
+    /**
+     * Constructor.
+     *
+     * @param newBlockImporter         block importer
+     * @param newLeaseStore            lease table
+     * @param newSessionPool           neo4j session pool
+     * @param newServices              services
+     * @param newApplicationStatus     application status
+     * @param newStitchedBlocksUpdater updates the blocks whose inputs are linked by the stitching
+     */
+    public DistributedImportBatch(final BlockImporter newBlockImporter, final ImportLeaseStore newLeaseStore, final Neo4jSessionPool newSessionPool, final ServicesProvider newServices,
+                                  final ApplicationStatus newApplicationStatus, final StitchedBlocksUpdater newStitchedBlocksUpdater) {
+        this.blockImporter = newBlockImporter;
+        this.leaseStore = newLeaseStore;
+        this.sessionPool = newSessionPool;
+        this.services = newServices;
+        this.status = newApplicationStatus;
+        this.stitchedBlocksUpdater = newStitchedBlocksUpdater;
+    }
+
+    /**
+     * Execute the batch.
+     */
+    @Scheduled(fixedDelay = 1, initialDelay = PAUSE_BEFORE_STARTING_APPLICATION)
+    @SuppressWarnings("checkstyle:designforextension")
+    public void execute() {
+        log.info(LOG_SEPARATOR);
+        try {
+            final Optional<Integer> totalBlockCount = services.getBitcoinDataService().getBlockCount();
+            boolean rangeImported = false;
+            if (totalBlockCount.isPresent()) {
+                status.setBlockCountInBlockchain(totalBlockCount.get());
+                rangeImported = importNextRange(totalBlockCount.get());
+            }
+
+            // If there is nothing to process.
+            if (!rangeImported) {
+                log.info("No block to process, Retrying in " + TimeUnit.MILLISECONDS.toMinutes(PAUSE_BEFORE_SEARCHING_FOR_NEW_BLOCK) + " minute(s)");
+                status.getCurrentBlockStatus().setProcessStep(CurrentBlockStatusProcessStep.NO_BLOCK_TO_PROCESS);
+                Thread.sleep(PAUSE_BEFORE_SEARCHING_FOR_NEW_BLOCK);
+            }
+        } catch (Exception e) {
+            status.setLastErrorMessage("An error occurred while processing block : " + e.getMessage());
+            log.error("An error occurred while processing block : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Leases a range and imports it. If all the ranges are imported, runs the stitching.
+     *
+     * @param lastBlockHeight last block height to import
+     * @return false if there was no range to lease
+     */
+    public final boolean importNextRange(final int lastBlockHeight) {
+        final Optional<ImportLease> lease = leaseStore.acquire(getOwner(), rangeSize, lastBlockHeight, leaseDuration);
+        if (lease.isPresent()) {
+            importRange(lease.get());
+            return true;
+        } else {
+            if (leaseStore.isEverythingImported(lastBlockHeight)) {
+                stitch();
+            } else {
+                log.info("All the ranges are leased by other importers");
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Links the inputs and the blocks that could not be linked because they were imported by different importers and
+     * updates the blocks of those inputs.
+     */
+    public final void stitch() {
+        log.info("Stitching ranges");
+        final List<Integer> rangeStarts = leaseStore.getLeases()
+                .stream()
+                .filter(l -> l.getStatus() == ImportLeaseStatus.DONE)
+                .map(ImportLease::getStart)
+                .collect(Collectors.toList());
+        final long linkedBlocks = runStitchingQuery(STITCH_BLOCKS, Map.of("heights", rangeStarts));
+        long linkedInputs = 0;
+        long linked;
+        do {
+            linked = runStitchingQuery(STITCH_INPUTS, Map.of("batchSize", STITCH_BATCH_SIZE));
+            linkedInputs += linked;
+        } while (linked > 0);
+        final long updatedBlocks = stitchedBlocksUpdater.update();
+        log.info("Stitching done : " + linkedBlocks + " block(s) and " + linkedInputs + " input(s) linked, " + updatedBlocks + " block(s) updated");
+
+        final Long unresolvedInputs = sessionPool.read(s -> s.queryForObject(Long.class, COUNT_UNRESOLVED_INPUTS, Map.of()));
+        if (unresolvedInputs != null && unresolvedInputs > 0) {
+            status.setLastErrorMessage(unresolvedInputs + " input(s) without origin transaction after stitching");
+            log.error(unresolvedInputs + " input(s) without origin transaction after stitching");
+        }
+    }
+
+    /**
+     * Imports the blocks of a leased range, window by window, starting after the last block saved in the range. The
+     * lease is renewed in the transaction saving each block : the block is not committed if the lease has been given
+     * to another importer.
+     *
+     * @param lease lease
+     */
+    private void importRange(final ImportLease lease) {
+        log.info("Importing range " + lease);
+        int from = getBlockHeightToProcess(lease);
+        while (from <= lease.getEnd()) {
+            final int to = Math.min(from + parallelism - 1, lease.getEnd());
+            try {
+                blockImporter.importBlocks(new ImportWindow(from, to, status, true, runner -> {
+                    if (!leaseStore.renew(lease, getOwner(), leaseDuration, runner)) {
+                        throw new LeaseLostException("Lease on range " + lease + " given to another importer");
+                    }
+                }));
+            } catch (LeaseLostException e) {
+                log.warn("Lease on range " + lease + " expired, the range will be finished by another importer");
+                return;
+            }
+            final int next = getBlockHeightToProcess(lease);
+            if (next == from) {
+                // The error has already been reported, the range will be resumed by the next batch.
+                return;
+            }
+            from = next;
+        }
+        leaseStore.complete(lease, getOwner());
+        log.info("Range " + lease.getStart() + "-" + lease.getEnd() + " imported");
+    }
+
+    /**
+     * Return the block to process in a range.
+     *
+     * @param lease lease
+     * @return block to process
+     */
+    private int getBlockHeightToProcess(final ImportLease lease) {
+        return sessionPool.findLastBlockHeight(lease.getStart(), lease.getEnd())
+                .map(h -> h + 1)
+                .orElse(lease.getStart());
+    }
+
+    /**
+     * Runs a stitching query in its own transaction.
+     *
+     * @param query      query
+     * @param parameters parameters
+     * @return number of elements linked
+     */
+    private long runStitchingQuery(final String query, final Map<String, Object> parameters) {
+        final Session session = sessionPool.openWriteSession();
+        try (Transaction transaction = session.beginTransaction()) {
+            final Map<String, Object> row = session.query(query, parameters).queryResults().iterator().next();
+            transaction.commit();
+            return ((Number) row.get("linked")).longValue();
+        } finally {
+            session.clear();
+        }
+    }
+
+    /**
+     * Returns the importer name in the lease table.
+     *
+     * @return owner
+     */
+    private String getOwner() {
+        if (owner == null || owner.isBlank()) {
+            owner = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return owner;
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * State shared by the workers preparing the blocks of the same import window (blocks from..to).
+ * <p>
+ * Addresses are shared so that an address created in a block is reused by the following ones and the outputs of the
+ * blocks in the window are indexed so that a worker finds the outputs spent from its predecessors without a
+ * database round trip.
+ */
+final class ImportWindow {
+
+    /**
+     * First block height of the window.
+     */
+    private final int from;
+
+    /**
+     * Last block height of the window.
+     */
+    private final int to;
+
+    /**
+     * Status component.
+     */
+    private final ApplicationStatus status;
+
+    /**
+     * True if inputs whose origin is not imported yet are allowed (distributed import, linked by the stitching).
+     */
+    private final boolean unresolvedInputsAllowed;
+
+    /**
+     * Check run in the transaction saving blocks of the window before it is committed (throws an exception if they
+     * must not be committed).
+     */
+    private final Consumer<CypherRunner> commitCheck;
+
+    /**
+     * Addresses of the window.
+     */
+    private final Map<String, BitcoinAddress> addresses = new ConcurrentHashMap<>();
+
+    /**
+     * Transactions of the window (indexed by transaction id).
+     */
+    private final Map<String, BitcoinTransaction> transactions = new ConcurrentHashMap<>();
+
+    /**
+     * Completed when the transactions of a block are mapped and indexed (indexed by block height).
+     */
+    private final Map<Integer, CompletableFuture<Void>> mappedBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param newFrom                    first block height
+     * @param newTo                      last block height
+     * @param newStatus                  status
+     * @param newUnresolvedInputsAllowed true if inputs whose origin is not imported yet are allowed
+     */
+    ImportWindow(final int newFrom, final int newTo, final ApplicationStatus newStatus, final boolean newUnresolvedInputsAllowed) {
+        this(newFrom, newTo, newStatus, newUnresolvedInputsAllowed, runner -> { });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param newFrom                    first block height
+     * @param newTo                      last block height
+     * @param newStatus                  status
+     * @param newUnresolvedInputsAllowed true if inputs whose origin is not imported yet are allowed
+     * @param newCommitCheck             check run in the transaction saving blocks before it is committed
+     */
+    ImportWindow(final int newFrom, final int newTo, final ApplicationStatus newStatus, final boolean newUnresolvedInputsAllowed, final Consumer<CypherRunner> newCommitCheck) {
+        this.from = newFrom;
+        this.to = newTo;
+        this.status = newStatus;
+        this.unresolvedInputsAllowed = newUnresolvedInputsAllowed;
+        this.commitCheck = newCommitCheck;
+        IntStream.rangeClosed(newFrom, newTo).forEach(h -> mappedBlocks.put(h, new CompletableFuture<>()));
+    }
+
+    /**
+     * Getter of from.
+     *
+     * @return from
+     */
+    int getFrom() {
+        return from;
+    }
+
+    /**
+     * Getter of to.
+     *
+     * @return to
+     */
+    int getTo() {
+        return to;
+    }
+
+    /**
+     * Getter of unresolvedInputsAllowed.
+     *
+     * @return true if inputs whose origin is not imported yet are allowed
+     */
+    boolean isUnresolvedInputsAllowed() {
+        return unresolvedInputsAllowed;
+    }
+
+    /**
+     * Checks, in the transaction saving blocks of the window, that they can be committed.
+     *
+     * @param runner runs statements in the transaction
+     */
+    void checkBeforeCommit(final CypherRunner runner) {
+        commitCheck.accept(runner);
+    }
+
+    /**
+     * Returns the status a worker must update : only the first block of the window is displayed.
+     *
+     * @param blockHeight block height
+     * @return current block status
+     */
+    CurrentBlockStatus getCurrentBlockStatus(final int blockHeight) {
+        if (blockHeight == from) {
+            return status.getCurrentBlockStatus();
+        } else {
+            return new CurrentBlockStatus();
+        }
+    }
+
+    /**
+     * Returns the address from the window or, if it's not there yet, from the loader.
+     * If two workers load the same address at the same time, the first one added to the window wins.
+     *
+     * @param address address
+     * @param loader  loads the address if it's not in the window
+     * @return address
+     */
+    BitcoinAddress getAddress(final String address, final Function<String, BitcoinAddress> loader) {
+        BitcoinAddress bitcoinAddress = addresses.get(address);
+        if (bitcoinAddress == null) {
+            bitcoinAddress = loader.apply(address);
+            BitcoinAddress existingAddress = addresses.putIfAbsent(address, bitcoinAddress);
+            if (existingAddress != null) {
+                bitcoinAddress = existingAddress;
+            }
+        }
+        return bitcoinAddress;
+    }
+
+    /**
+     * Indexes the transactions of a block and signals that the block is mapped.
+     *
+     * @param blockHeight       block height
+     * @param blockTransactions block transactions
+     */
+    void addTransactions(final int blockHeight, final Collection<BitcoinTransaction> blockTransactions) {
+        blockTransactions.forEach(t -> transactions.put(t.getTxId(), t));
+        setMapped(blockHeight);
+    }
+
+    /**
+     * Signals that the block is mapped (also called when the block could not be retrieved so no worker waits forever).
+     *
+     * @param blockHeight block height
+     */
+    void setMapped(final int blockHeight) {
+        mappedBlocks.get(blockHeight).complete(null);
+    }
+
+    /**
+     * Waits until all the blocks before this one in the window are mapped.
+     *
+     * @param blockHeight block height
+     */
+    void waitForPredecessors(final int blockHeight) {
+        IntStream.range(from, blockHeight).forEach(h -> mappedBlocks.get(h).join());
+    }
+
+    /**
+     * Find a transaction output in the transactions of the window.
+     *
+     * @param txId transaction id
+     * @param n    output index
+     * @return transaction output
+     */
+    Optional<BitcoinTransactionOutput> findTransactionOutput(final String txId, final int n) {
+        BitcoinTransaction transaction = transactions.get(txId);
+        if (transaction != null) {
+            return transaction.getOutputByIndex(n);
+        } else {
+            return Optional.empty();
+        }
+    }
+
+}
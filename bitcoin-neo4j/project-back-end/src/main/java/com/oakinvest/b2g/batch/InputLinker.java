@@ -0,0 +1,112 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.exception.OriginTransactionNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Links the inputs of the transactions of a block to the outputs they spend and sets the addresses of the inputs and
+ * the outputs. The outputs are searched in the import window first and then with the output loader (database).
+ */
+final class InputLinker {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(InputLinker.class);
+
+    /**
+     * Import window.
+     */
+    private final ImportWindow window;
+
+    /**
+     * Loads an address that is not in the window yet.
+     */
+    private final Function<String, BitcoinAddress> addressLoader;
+
+    /**
+     * Loads an output that is not in the window (transaction id, output index).
+     */
+    private final BiFunction<String, Integer, Optional<BitcoinTransactionOutput>> outputLoader;
+
+    /**
+     * Constructor.
+     *
+     * @param newWindow        import window
+     * @param newAddressLoader loads an address that is not in the window yet
+     * @param newOutputLoader  loads an output that is not in the window
+     */
+    InputLinker(final ImportWindow newWindow, final Function<String, BitcoinAddress> newAddressLoader,
+                final BiFunction<String, Integer, Optional<BitcoinTransactionOutput>> newOutputLoader) {
+        this.window = newWindow;
+        this.addressLoader = newAddressLoader;
+        this.outputLoader = newOutputLoader;
+    }
+
+    /**
+     * Links the inputs and the outputs of a transaction.
+     *
+     * @param blockHeight height of the block of the transaction
+     * @param transaction transaction
+     */
+    void link(final int blockHeight, final BitcoinTransaction transaction) {
+        // -------------------------------------------------------------------------------------------------------------
+        // For each Vin.
+        transaction.getInputs()
+                .stream()
+                .filter(vin -> !vin.isCoinbase()) // If it's NOT a coinbase transaction.
+                .forEach(vin -> {
+                    // -------------------------------------------------------------------------------------------------
+                    // We retrieve the original transaction in this block or in the previous blocks of the window.
+                    Optional<BitcoinTransactionOutput> originTransactionOutput = window.findTransactionOutput(vin.getTxId(), vin.getvOut());
+
+                    // if we don't find it there, this transaction must be in the database.
+                    if (originTransactionOutput.isEmpty()) {
+                        originTransactionOutput = outputLoader.apply(vin.getTxId(), vin.getvOut());
+                    }
+
+                    if (originTransactionOutput.isPresent()) {
+                        // ---------------------------------------------------------------------------------------------
+                        // We create the link and mark the output as spent.
+                        vin.setTransactionOutput(originTransactionOutput.get());
+                        originTransactionOutput.get().setSpentAtHeight(blockHeight);
+
+                        // ---------------------------------------------------------------------------------------------
+                        // We set all the addresses linked to this input.
+                        originTransactionOutput.get().getAddresses()
+                                .stream()
+                                .filter(Objects::nonNull)
+                                .forEach(a -> vin.setBitcoinAddress(window.getAddress(a, addressLoader)));
+                    } else if (window.isUnresolvedInputsAllowed()) {
+                        // ---------------------------------------------------------------------------------------------
+                        // The origin is in a range imported by another importer, the stitching will link it.
+                        log.info("- Origin transaction " + vin.getTxId() + " / " + vin.getvOut() + " not imported yet");
+                        vin.setUnresolved(true);
+                    } else {
+                        throw new OriginTransactionNotFoundException("Origin transaction not found " + vin.getTxId() + " / " + vin.getvOut());
+                    }
+                });
+
+        // -------------------------------------------------------------------------------------------------------------
+        // For each Vout.
+        transaction.getOutputs()
+                .forEach(vout -> {
+                    // -------------------------------------------------------------------------------------------------
+                    // We set all the addresses linked to this output.
+                    vout.getAddresses()
+                            .stream()
+                            .filter(Objects::nonNull)
+                            .forEach(a -> vout.setBitcoinAddress(window.getAddress(a, addressLoader)));
+                });
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.oakinvest.b2g.batch;
+
+import com.oakinvest.b2g.util.analytics.AddressAggregatesRebuildJob;
+import com.oakinvest.b2g.util.analytics.AddressFlowsRebuildJob;
+import com.oakinvest.b2g.util.analytics.ChainStatisticsStage;
+import com.oakinvest.b2g.util.analytics.TransactionTotalsBackfillJob;
+import com.oakinvest.b2g.util.cluster.AddressClusters;
+import com.oakinvest.b2g.util.session.Neo4jSessionPool;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Updates the data computed by the import for the blocks whose inputs were linked by the stitching of a distributed
+ * import (inputs marked as stitched) : transaction and block totals, fees of the chain statistics, aggregates, balance
+ * checkpoints and flows of the addresses spending in their transactions, address clusters.
+ * <p>
+ * Blocks are updated in batches, each one in a transaction holding the import write lock that also removes the marks,
+ * so a batch interrupted is updated again by the next stitching. Then the addresses whose balance checkpoints were not
+ * written by the import (ranges committed out of height order) are rebuilt.
+ */
+@Component
+public class StitchedBlocksUpdater {
+
+    /**
+     * Number of blocks updated in a transaction.
+     */
+    private static final int BLOCKS_PER_BATCH = 10;
+
+    /**
+     * Query returning the next blocks with stitched inputs.
+     */
+    private static final String NEXT_BLOCKS = "MATCH (i:BitcoinTransactionInput) WHERE i.stitched = true "
+            + "MATCH (i)<-[:INPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "RETURN DISTINCT b.height AS height LIMIT $limit";
+
+    /**
+     * Query returning the time and the total fees of blocks.
+     */
+    private static final String BLOCK_FEES = "MATCH (b:BitcoinBlock) WHERE b.height IN $heights "
+            + "RETURN b.height AS height, b.time AS time, b.totalFees AS totalFees";
+
+    /**
+     * Query returning the addresses spending in the transactions with stitched inputs of blocks.
+     */
+    private static final String SPENDING_ADDRESSES = "MATCH (b:BitcoinBlock) WHERE b.height IN $heights "
+            + "MATCH (b)<-[:TRANSACTIONS]-(t:BitcoinTransaction)-[:INPUTS]->(s:BitcoinTransactionInput) WHERE s.stitched = true "
+            + "WITH DISTINCT t "
+            + "MATCH (t)-[:INPUTS]->(:BitcoinTransactionInput)<-[:ADDRESS]-(a:BitcoinAddress) "
+            + "RETURN DISTINCT a.address AS address";
+
+    /**
+     * Statement removing the stitched marks of the inputs of blocks.
+     */
+    private static final String REMOVE_MARKS = "MATCH (b:BitcoinBlock) WHERE b.height IN $heights "
+            + "MATCH (b)<-[:TRANSACTIONS]-(:BitcoinTransaction)-[:INPUTS]->(i:BitcoinTransactionInput) WHERE i.stitched = true "
+            + "REMOVE i.stitched";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(StitchedBlocksUpdater.class);
+
+    /**
+     * Neo4j sessions.
+     */
+    private final Neo4jSessionPool sessionPool;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Transaction totals.
+     */
+    private final TransactionTotalsBackfillJob transactionTotals;
+
+    /**
+     * Chain statistics (if enabled).
+     */
+    private final ObjectProvider<ChainStatisticsStage> chainStatistics;
+
+    /**
+     * Address aggregates (if enabled).
+     */
+    private final ObjectProvider<AddressAggregatesRebuildJob> addressAggregates;
+
+    /**
+     * Address flows (if enabled).
+     */
+    private final ObjectProvider<AddressFlowsRebuildJob> addressFlows;
+
+    /**
+     * Address clusters (if enabled).
+     */
+    private final ObjectProvider<AddressClusters> addressClusters;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionPool       neo4j session pool
+     * @param newStages            import stages
+     * @param newTransactionTotals transaction totals
+     * @param newChainStatistics   chain statistics
+     * @param newAddressAggregates address aggregates
+     * @param newAddressFlows      address flows
+     * @param newAddressClusters   address clusters
+     */
+    public StitchedBlocksUpdater(final Neo4jSessionPool newSessionPool, final BlockImportStages newStages, final TransactionTotalsBackfillJob newTransactionTotals,
+                                 final ObjectProvider<ChainStatisticsStage> newChainStatistics, final ObjectProvider<AddressAggregatesRebuildJob> newAddressAggregates,
+                                 final ObjectProvider<AddressFlowsRebuildJob> newAddressFlows, final ObjectProvider<AddressClusters> newAddressClusters) {
+        this.sessionPool = newSessionPool;
+        this.stages = newStages;
+        this.transactionTotals = newTransactionTotals;
+        this.chainStatistics = newChainStatistics;
+        this.addressAggregates = newAddressAggregates;
+        this.addressFlows = newAddressFlows;
+        this.addressClusters = newAddressClusters;
+    }
+
+    /**
+     * Updates all the blocks with stitched inputs and rebuilds the balance checkpoints not written by the import.
+     *
+     * @return number of blocks updated
+     */
+    public final long update() {
+        long updated = 0;
+        boolean finished = false;
+        while (!finished) {
+            final List<Integer> heights = sessionPool.read(s -> {
+                final List<Integer> next = new ArrayList<>();
+                s.query(NEXT_BLOCKS, Map.of("limit", BLOCKS_PER_BATCH)).forEach(row -> next.add(((Number) row.get("height")).intValue()));
+                return next;
+            });
+            if (heights.isEmpty()) {
+                finished = true;
+            } else {
+                update(heights);
+                updated += heights.size();
+                log.info(updated + " stitched block(s) updated");
+            }
+        }
+        addressAggregates.ifAvailable(aggregates -> {
+            final long rebuilt = aggregates.rebuildPendingCheckpoints();
+            if (rebuilt > 0) {
+                log.info(rebuilt + " address(es) balance checkpoints rebuilt");
+            }
+        });
+        return updated;
+    }
+
+    /**
+     * Updates blocks with stitched inputs (a block can't be written at the same time).
+     *
+     * @param heights block heights
+     */
+    private void update(final List<Integer> heights) {
+        final Session session = sessionPool.openWriteSession();
+        final CypherRunner runner = session::query;
+        final Map<String, Object> parameters = Map.of("heights", heights);
+        stages.getWriteLock().lock();
+        try (Transaction transaction = session.beginTransaction()) {
+            // Totals, the fees not known when the blocks were applied are added to the statistics.
+            final Map<Integer, Long> feesBefore = new HashMap<>();
+            runner.run(BLOCK_FEES, parameters).forEach(row -> feesBefore.put(((Number) row.get("height")).intValue(), getFees(row)));
+            transactionTotals.backfill(heights, runner);
+            chainStatistics.ifAvailable(statistics -> runner.run(BLOCK_FEES, parameters).forEach(row -> {
+                final long fees = getFees(row) - feesBefore.get(((Number) row.get("height")).intValue());
+                if (fees != 0) {
+                    statistics.addFees(((Number) row.get("time")).longValue(), fees, runner);
+                }
+            }));
+
+            // Addresses spending in the transactions.
+            final List<String> addresses = new ArrayList<>();
+            runner.run(SPENDING_ADDRESSES, parameters).forEach(row -> addresses.add((String) row.get("address")));
+            addressAggregates.ifAvailable(aggregates -> aggregates.rebuild(addresses, runner));
+            addressFlows.ifAvailable(flows -> flows.rebuild(addresses, runner));
+            addressClusters.ifAvailable(clusters -> heights.forEach(height -> clusters.addBlocksFromGraph(height, height, runner)));
+
+            runner.run(REMOVE_MARKS, parameters);
+            transaction.commit();
+            addressClusters.ifAvailable(AddressClusters::commit);
+        } finally {
+            // The unions of a batch not committed are discarded : the batch will be updated again.
+            addressClusters.ifAvailable(AddressClusters::rollback);
+            stages.getWriteLock().unlock();
+            session.clear();
+        }
+    }
+
+    /**
+     * Returns the total fees of a block row.
+     *
+     * @param row row
+     * @return total fees in satoshis (0 if not known)
+     */
+    private long getFees(final Map<String, Object> row) {
+        return ((Number) Objects.requireNonNullElse(row.get("totalFees"), 0L)).longValue();
+    }
+
+}
@@ -1,15 +1,165 @@
 package com.oakinvest.b2g.configuration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
 
 /**
  * Async configuration class.
+ * <p>
+ * Blocking calls (bitcoin core and neo4j) and CPU bound work (mapping) run on their own named executors instead of
+ * the JVM-wide common fork join pool, so the buffer loader and the import batch can't starve each other.
  *
  * Created by straumat.
  */
 @Configuration
 @EnableAsync
-public class AsyncConfiguration {
+public class AsyncConfiguration implements AsyncConfigurer {
+
+    /**
+     * I/O executor name.
+     */
+    public static final String IO_EXECUTOR = "ioExecutor";
+
+    /**
+     * CPU executor name.
+     */
+    public static final String CPU_EXECUTOR = "cpuExecutor";
+
+    /**
+     * Import executor name (used by the workers preparing blocks).
+     */
+    public static final String IMPORT_EXECUTOR = "importExecutor";
+
+    /**
+     * Async executor name (used by @Async methods).
+     */
+    public static final String ASYNC_EXECUTOR = "asyncExecutor";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
+
+    /**
+     * Number of threads for blocking I/O (bitcoin core calls & neo4j lookups).
+     */
+    @Value("${b2g.executors.io.size:64}")
+    private int ioExecutorSize;
+
+    /**
+     * Number of threads for CPU bound work (0 means the number of available processors).
+     */
+    @Value("${b2g.executors.cpu.size:0}")
+    private int cpuExecutorSize;
+
+    /**
+     * Number of blocks prepared in parallel by the import batch.
+     */
+    @Value("${b2g.import.parallelism:1}")
+    private int importParallelism;
+
+    /**
+     * Number of threads for @Async methods.
+     */
+    @Value("${b2g.executors.async.size:2}")
+    private int asyncExecutorSize;
+
+    /**
+     * Executor used for blocking I/O.
+     * Java 11 has no virtual threads so it's a platform thread pool whose idle threads are released.
+     *
+     * @return I/O executor
+     */
+    @Bean(name = IO_EXECUTOR)
+    @SuppressWarnings("checkstyle:designforextension")
+    public ThreadPoolTaskExecutor ioExecutor() {
+        return createExecutor("b2g-io-", ioExecutorSize);
+    }
+
+    /**
+     * Executor used for CPU bound work, bounded to the number of processors.
+     *
+     * @return CPU executor
+     */
+    @Bean(name = CPU_EXECUTOR)
+    @SuppressWarnings("checkstyle:designforextension")
+    public ThreadPoolTaskExecutor cpuExecutor() {
+        int size = cpuExecutorSize;
+        if (size <= 0) {
+            size = Runtime.getRuntime().availableProcessors();
+        }
+        return createExecutor("b2g-cpu-", size);
+    }
+
+    /**
+     * Executor used by the import batch workers, one thread per block prepared in parallel.
+     * Workers wait for I/O and CPU tasks so they can't share those executors without risking a deadlock.
+     *
+     * @return import executor
+     */
+    @Bean(name = IMPORT_EXECUTOR)
+    @SuppressWarnings("checkstyle:designforextension")
+    public ThreadPoolTaskExecutor importExecutor() {
+        return createExecutor("b2g-import-", importParallelism);
+    }
+
+    /**
+     * Executor used by @Async methods (buffer loader).
+     *
+     * @return async executor
+     */
+    @Bean(name = ASYNC_EXECUTOR)
+    @SuppressWarnings("checkstyle:designforextension")
+    public ThreadPoolTaskExecutor asyncExecutor() {
+        return createExecutor("b2g-async-", asyncExecutorSize);
+    }
+
+    /**
+     * Returns the executor used by @Async methods.
+     *
+     * @return async executor
+     */
+    @Override
+    @SuppressWarnings("checkstyle:designforextension")
+    public Executor getAsyncExecutor() {
+        return asyncExecutor();
+    }
+
+    /**
+     * Returns the handler for uncaught exceptions in @Async methods.
+     *
+     * @return exception handler
+     */
+    @Override
+    @SuppressWarnings("checkstyle:designforextension")
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (throwable, method, params) -> log.error("Error in " + method.getName() + " : " + throwable.getMessage(), throwable);
+    }
+
+    /**
+     * Creates a fixed size executor with an unbounded queue.
+     *
+     * @param threadNamePrefix thread name prefix
+     * @param size             number of threads
+     * @return executor
+     */
+    private ThreadPoolTaskExecutor createExecutor(final String threadNamePrefix, final int size) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
 
 }
@@ -0,0 +1,43 @@
+package com.oakinvest.b2g.configuration;
+
+import com.oakinvest.b2g.util.lease.FileImportLeaseStore;
+import com.oakinvest.b2g.util.lease.ImportLeaseStore;
+import com.oakinvest.b2g.util.lease.Neo4jImportLeaseStore;
+import org.neo4j.ogm.session.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Distributed import configuration (several importers sharing a lease table).
+ */
+@Configuration
+@ConditionalOnProperty(name = "b2g.import.distributed.enabled", havingValue = "true")
+public class DistributedImportConfiguration {
+
+    /**
+     * Lease file shared by the importers running on the same machine (if empty, the lease table is stored in neo4j).
+     */
+    @Value("${b2g.import.distributed.lease-file:}")
+    private String leaseFile;
+
+    /**
+     * Lease table shared by the importers.
+     *
+     * @param sessionFactory session factory
+     * @return lease store
+     */
+    @Bean
+    @SuppressWarnings("checkstyle:designforextension")
+    public ImportLeaseStore importLeaseStore(final SessionFactory sessionFactory) {
+        if (leaseFile.isBlank()) {
+            return new Neo4jImportLeaseStore(sessionFactory);
+        } else {
+            return new FileImportLeaseStore(Paths.get(leaseFile));
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.oakinvest.b2g.configuration;
+
+import com.oakinvest.b2g.util.embedded.EmbeddedGraphWriter;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.configuration.connectors.BoltConnector;
+import org.neo4j.configuration.helpers.SocketAddress;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.ogm.metadata.MetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Embedded neo4j configuration (b2g.import.embedded.enabled=true), used for the initial sync.
+ * <p>
+ * The database runs in the application on b2g.import.embedded.store-directory : the import batch writes the blocks
+ * with the core API (one transaction per import window) and the lookups still go through OGM, on the bolt connector
+ * of the embedded database (org.neo4j.driver.uri must point to b2g.import.embedded.bolt-port). When the application
+ * stops, the database is shut down and the store directory (data/databases/neo4j and data/transactions/neo4j) can be
+ * handed to a neo4j server of the same version.
+ */
+@Configuration
+@ConditionalOnProperty(name = "b2g.import.embedded.enabled", havingValue = "true")
+public class EmbeddedNeo4jConfiguration {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(EmbeddedNeo4jConfiguration.class);
+
+    /**
+     * Neo4j home directory of the embedded database.
+     */
+    @Value("${b2g.import.embedded.store-directory:neo4j-embedded}")
+    private String storeDirectory;
+
+    /**
+     * Port of the bolt connector of the embedded database.
+     */
+    @Value("${b2g.import.embedded.bolt-port:7687}")
+    private int boltPort;
+
+    /**
+     * Embedded database management service (shut down with the application).
+     *
+     * @return database management service
+     */
+    @Bean(destroyMethod = "shutdown")
+    @SuppressWarnings("checkstyle:designforextension")
+    public DatabaseManagementService databaseManagementService() {
+        log.info("Starting embedded neo4j in " + Paths.get(storeDirectory).toAbsolutePath());
+        return new DatabaseManagementServiceBuilder(Paths.get(storeDirectory))
+                .setConfig(BoltConnector.enabled, true)
+                .setConfig(BoltConnector.listen_address, new SocketAddress("localhost", boltPort))
+                .setConfig(GraphDatabaseSettings.auth_enabled, false)
+                .build();
+    }
+
+    /**
+     * Embedded database with the constraints and indexes of the neo4j configuration.
+     *
+     * @param databaseManagementService database management service
+     * @return embedded database
+     */
+    @Bean
+    @SuppressWarnings("checkstyle:designforextension")
+    public GraphDatabaseService embeddedDatabase(final DatabaseManagementService databaseManagementService) {
+        final GraphDatabaseService database = databaseManagementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+        // The index on the block height created by a previous version is replaced by a uniqueness constraint.
+        final boolean blockHeightIndex = database.executeTransactionally(Neo4jConfiguration.FIND_BLOCK_HEIGHT_INDEX, Map.of(),
+                result -> ((Number) result.next().get("count")).longValue() > 0);
+        if (blockHeightIndex) {
+            database.executeTransactionally(Neo4jConfiguration.DROP_BLOCK_HEIGHT_INDEX);
+        }
+        Neo4jConfiguration.CONSTRAINTS_AND_INDEXES.forEach(query -> {
+            try (Transaction transaction = database.beginTx()) {
+                transaction.execute(query);
+                transaction.commit();
+            } catch (Exception e) {
+                log.error("Error creating constraint or index : " + e.getMessage(), e);
+            }
+        });
+        return database;
+    }
+
+    /**
+     * Writer of the domain entities in the embedded database.
+     *
+     * @param embeddedDatabase embedded database
+     * @return embedded graph writer
+     */
+    @Bean
+    @SuppressWarnings("checkstyle:designforextension")
+    public EmbeddedGraphWriter embeddedGraphWriter(final GraphDatabaseService embeddedDatabase) {
+        return new EmbeddedGraphWriter(embeddedDatabase, new MetaData("com.oakinvest.b2g.domain"));
+    }
+
+}
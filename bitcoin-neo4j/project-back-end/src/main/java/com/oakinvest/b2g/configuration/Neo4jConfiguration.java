@@ -1,9 +1,11 @@
 package com.oakinvest.b2g.configuration;
 
+import com.oakinvest.b2g.util.converter.StorageEncoding;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
@@ -11,6 +13,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.annotation.PostConstruct;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static com.oakinvest.b2g.configuration.ApplicationConfiguration.PAUSE_BEFORE_STARTING_APPLICATION;
 
@@ -22,9 +26,45 @@ import static com.oakinvest.b2g.configuration.ApplicationConfiguration.PAUSE_BEF
 @Configuration
 @EnableTransactionManagement
 @EnableNeo4jRepositories(basePackages = "com.oakinvest.b2g")
-@EntityScan(basePackages = "com.oakinvest.b2g.domain")
+@EntityScan(basePackages = {"com.oakinvest.b2g.domain", "com.oakinvest.b2g.dto.analytics"})
 public class Neo4jConfiguration {
 
+    /**
+     * Constraints and indexes (also created by the embedded database). The hash indexes work with both encodings.
+     */
+    public static final List<String> CONSTRAINTS_AND_INDEXES = List.of(
+            // Constraints.
+            "CREATE CONSTRAINT ON (n:BitcoinAddress) ASSERT n.address IS UNIQUE",
+            "CREATE CONSTRAINT ON (n:BitcoinImportLeaseTable) ASSERT n.name IS UNIQUE",
+            "CREATE CONSTRAINT ON (n:BitcoinImportLease) ASSERT n.start IS UNIQUE",
+            "CREATE CONSTRAINT ON (n:BitcoinCluster) ASSERT n.clusterId IS UNIQUE",
+            "CREATE CONSTRAINT ON (n:BitcoinBlock) ASSERT n.height IS UNIQUE",
+            // Indexes.
+            "CREATE INDEX ON :BitcoinBlock(hash)",
+            "CREATE INDEX ON :BitcoinTransaction(txid)",
+            "CREATE INDEX ON :BitcoinTransactionOutput(txid, n)",
+            "CREATE INDEX ON :BitcoinTransactionOutput(spent)",
+            "CREATE INDEX ON :BitcoinTransactionInput(unresolved)",
+            "CREATE INDEX ON :BitcoinTransactionInput(stitched)",
+            "CREATE INDEX ON :BitcoinAddress(checkpointsPending)",
+            "CREATE INDEX ON :BitcoinStatistics(period, start)");
+
+    /**
+     * Query counting the index on the block height created by a previous version (replaced by a uniqueness constraint).
+     */
+    public static final String FIND_BLOCK_HEIGHT_INDEX = "CALL db.indexes() YIELD uniqueness, labelsOrTypes, properties "
+            + "WHERE uniqueness = 'NONUNIQUE' AND labelsOrTypes = ['BitcoinBlock'] AND properties = ['height'] RETURN count(*) AS count";
+
+    /**
+     * Statement dropping the index on the block height created by a previous version.
+     */
+    public static final String DROP_BLOCK_HEIGHT_INDEX = "DROP INDEX ON :BitcoinBlock(height)";
+
+    /**
+     * Query returning the hash of a block (to find the mode the store was written with).
+     */
+    private static final String FIND_BLOCK_HASH = "MATCH (b:BitcoinBlock) RETURN b.hash AS hash LIMIT 1";
+
     /**
      * Session factory.
      */
@@ -34,9 +74,11 @@ public class Neo4jConfiguration {
      * Constructor.
      *
      * @param newSessionFactory session factory
+     * @param newCompactStorage true to store hashes as byte arrays and amounts as satoshis
      */
-    public Neo4jConfiguration(final SessionFactory newSessionFactory) {
+    public Neo4jConfiguration(final SessionFactory newSessionFactory, @Value("${b2g.storage.compact:false}") final boolean newCompactStorage) {
         this.sessionFactory = newSessionFactory;
+        StorageEncoding.setCompact(newCompactStorage);
     }
 
     /**
@@ -50,18 +92,46 @@ public class Neo4jConfiguration {
             e.printStackTrace();
         }
         Logger log = LoggerFactory.getLogger(Neo4jConfiguration.class);
+        log.info("Creating constraints and indexes...");
+        // Session.
+        Session session = sessionFactory.openSession();
+        // The index on the block height created by a previous version is replaced by a uniqueness constraint.
+        if (((Number) session.query(FIND_BLOCK_HEIGHT_INDEX, Collections.emptyMap()).iterator().next().get("count")).longValue() > 0) {
+            createConstraintOrIndex(session, DROP_BLOCK_HEIGHT_INDEX);
+        }
+        CONSTRAINTS_AND_INDEXES.forEach(query -> createConstraintOrIndex(session, query));
+        log.info("Constraints and indexes created");
+        checkStorageEncoding(session);
+    }
+
+    /**
+     * Checks that the store was written with the configured storage mode : hash lookups only use the encoding of the
+     * current mode so a store written with the other one can't be read.
+     *
+     * @param session session
+     */
+    private void checkStorageEncoding(final Session session) {
+        for (Map<String, Object> row : session.query(FIND_BLOCK_HASH, Collections.emptyMap()).queryResults()) {
+            final boolean storeCompact = StorageEncoding.isCompactHash(row.get("hash"));
+            if (storeCompact != StorageEncoding.isCompact()) {
+                throw new IllegalStateException("The store was written with b2g.storage.compact=" + storeCompact
+                        + " but the application is configured with b2g.storage.compact=" + StorageEncoding.isCompact()
+                        + " : the store must be rebuilt to change the storage mode");
+            }
+        }
+    }
+
+    /**
+     * Creates a constraint or an index (an error doesn't prevent the creation of the following ones).
+     *
+     * @param session session
+     * @param query   query
+     */
+    private void createConstraintOrIndex(final Session session, final String query) {
         try {
-            log.info("Creating constraints and indexes...");
-            // Session.
-            Session session = sessionFactory.openSession();
-            // Constraints.
-            session.query("CREATE CONSTRAINT ON (n:BitcoinAddress) ASSERT n.address IS UNIQUE", Collections.emptyMap());
-            // Indexes.
-            session.query("CREATE INDEX ON :BitcoinBlock(height)", Collections.emptyMap());
-            session.query("CREATE INDEX ON :BitcoinTransactionOutput(txid, n)", Collections.emptyMap());
-            log.info("Constraints and indexes created");
+            session.query(query, Collections.emptyMap());
         } catch (Exception e) {
-            log.error("Error creating constraints and indexes : " + e.getMessage(), e);
+            LoggerFactory.getLogger(Neo4jConfiguration.class).error("Error creating constraint or index : " + e.getMessage(), e);
         }
     }
 
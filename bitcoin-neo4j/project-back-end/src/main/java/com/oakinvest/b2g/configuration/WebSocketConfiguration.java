@@ -1,6 +1,7 @@
 package com.oakinvest.b2g.configuration;
 
 import com.oakinvest.b2g.web.StatusHandler;
+import com.oakinvest.b2g.web.ThroughputHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -20,13 +21,20 @@ public class WebSocketConfiguration implements WebSocketConfigurer {
      */
     private final StatusHandler statusHandler;
 
+    /**
+     * Throughput handler.
+     */
+    private final ThroughputHandler throughputHandler;
+
     /**
      * Constructor.
      *
-     * @param newStatusHandler statusHandler
+     * @param newStatusHandler     statusHandler
+     * @param newThroughputHandler throughput handler
      */
-    public WebSocketConfiguration(final StatusHandler newStatusHandler) {
+    public WebSocketConfiguration(final StatusHandler newStatusHandler, final ThroughputHandler newThroughputHandler) {
         this.statusHandler = newStatusHandler;
+        this.throughputHandler = newThroughputHandler;
     }
 
     /**
@@ -37,6 +45,7 @@ public class WebSocketConfiguration implements WebSocketConfigurer {
     @Override
     public final void registerWebSocketHandlers(final WebSocketHandlerRegistry registry) {
         registry.addHandler(statusHandler, "/status").setAllowedOrigins("*").withSockJS();
+        registry.addHandler(throughputHandler, "/throughput").setAllowedOrigins("*").withSockJS();
     }
 
 }
@@ -1,10 +1,12 @@
 package com.oakinvest.b2g.domain;
 
+import com.oakinvest.b2g.util.converter.HashConverter;
 import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.annotation.typeconversion.Convert;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -30,6 +32,7 @@ public class BitcoinBlock {
 	 * Block hash.
 	 */
 	@Property(name = "hash")
+	@Convert(HashConverter.class)
 	private String hash;
 
 	/**
@@ -72,6 +75,7 @@ public class BitcoinBlock {
 	 * The merkle root.
 	 */
 	@Property(name = "merkleroot")
+	@Convert(HashConverter.class)
 	private String merkleRoot;
 
 	/**
@@ -108,18 +112,21 @@ public class BitcoinBlock {
 	 * Expected number of hashes required to produce the chain up to this block (in hex).
 	 */
 	@Property(name = "chainwork")
+	@Convert(HashConverter.class)
 	private String chainWork;
 
 	/**
 	 * The hash of the previous block.
 	 */
 	@Property(name = "previousblockhash")
+	@Convert(HashConverter.class)
 	private String previousBlockHash;
 
 	/**
 	 * The hash of the next block.
 	 */
 	@Property(name = "nextblockhash")
+	@Convert(HashConverter.class)
 	private String nextBlockHash;
 
 	/**
@@ -128,6 +135,18 @@ public class BitcoinBlock {
 	@Property(name = "tx")
 	private ArrayList<String> tx = new ArrayList<>();
 
+	/**
+	 * Sum of the fees in satoshis (null if an origin output is not imported yet).
+	 */
+	@Property(name = "totalFees")
+	private Long totalFees;
+
+	/**
+	 * Sum of the outputs in satoshis (coinbase included).
+	 */
+	@Property(name = "totalOutput")
+	private Long totalOutput;
+
 	/**
 	 * For display.
 	 *
@@ -436,6 +455,42 @@ public class BitcoinBlock {
 		tx = newTx;
 	}
 
+	/**
+	 * Getter of totalFees.
+	 *
+	 * @return sum of the fees in satoshis
+	 */
+	public final Long getTotalFees() {
+		return totalFees;
+	}
+
+	/**
+	 * Setter of totalFees.
+	 *
+	 * @param newTotalFees sum of the fees in satoshis
+	 */
+	public final void setTotalFees(final Long newTotalFees) {
+		totalFees = newTotalFees;
+	}
+
+	/**
+	 * Getter of totalOutput.
+	 *
+	 * @return sum of the outputs in satoshis
+	 */
+	public final Long getTotalOutput() {
+		return totalOutput;
+	}
+
+	/**
+	 * Setter of totalOutput.
+	 *
+	 * @param newTotalOutput sum of the outputs in satoshis
+	 */
+	public final void setTotalOutput(final Long newTotalOutput) {
+		totalOutput = newTotalOutput;
+	}
+
 	/**
 	 * Getter previousBlock.
 	 *
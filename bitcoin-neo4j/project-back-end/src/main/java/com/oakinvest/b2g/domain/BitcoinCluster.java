@@ -0,0 +1,63 @@
+package com.oakinvest.b2g.domain;
+
+import org.neo4j.ogm.annotation.GeneratedValue;
+import org.neo4j.ogm.annotation.Id;
+import org.neo4j.ogm.annotation.NodeEntity;
+import org.neo4j.ogm.annotation.Property;
+
+/**
+ * Cluster of addresses owned by the same entity (common-input-ownership heuristic), maintained by the import.
+ * <p>
+ * Clusters are written with cypher and are read only : the IN_CLUSTER relationships of the addresses are not mapped.
+ */
+@SuppressWarnings("unused")
+@NodeEntity(label = "BitcoinCluster")
+public class BitcoinCluster {
+
+    /**
+     * ID.
+     */
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    /**
+     * Cluster id (node id of the root address of the cluster).
+     */
+    @Property(name = "clusterId")
+    private long clusterId;
+
+    /**
+     * Number of addresses.
+     */
+    @Property(name = "size")
+    private long size;
+
+    /**
+     * Getter of id.
+     *
+     * @return id
+     */
+    public final Long getId() {
+        return id;
+    }
+
+    /**
+     * Getter of clusterId.
+     *
+     * @return cluster id (node id of the root address of the cluster)
+     */
+    public final long getClusterId() {
+        return clusterId;
+    }
+
+    /**
+     * Getter of size.
+     *
+     * @return number of addresses
+     */
+    public final long getSize() {
+        return size;
+    }
+
+}
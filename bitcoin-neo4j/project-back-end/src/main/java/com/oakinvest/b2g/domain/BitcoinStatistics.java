@@ -0,0 +1,154 @@
+package com.oakinvest.b2g.domain;
+
+import org.neo4j.ogm.annotation.GeneratedValue;
+import org.neo4j.ogm.annotation.Id;
+import org.neo4j.ogm.annotation.NodeEntity;
+import org.neo4j.ogm.annotation.Property;
+
+/**
+ * Chain statistics of an hour or a day, maintained by the import.
+ * <p>
+ * Nodes are written by the import with cypher and are read only : the active addresses sketch stored on the node is
+ * not mapped.
+ */
+@SuppressWarnings("unused")
+@NodeEntity(label = "BitcoinStatistics")
+public class BitcoinStatistics {
+
+    /**
+     * ID.
+     */
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    /**
+     * Period.
+     */
+    @Property(name = "period")
+    private StatisticsPeriod period;
+
+    /**
+     * Start of the period (epoch seconds).
+     */
+    @Property(name = "start")
+    private long start;
+
+    /**
+     * Number of blocks.
+     */
+    @Property(name = "blockCount")
+    private long blockCount;
+
+    /**
+     * Number of transactions.
+     */
+    @Property(name = "txCount")
+    private long txCount;
+
+    /**
+     * Sum of the outputs in satoshis.
+     */
+    @Property(name = "outputVolume")
+    private long outputVolume;
+
+    /**
+     * Sum of the fees in satoshis.
+     */
+    @Property(name = "fees")
+    private long fees;
+
+    /**
+     * Number of addresses seen for the first time.
+     */
+    @Property(name = "newAddresses")
+    private long newAddresses;
+
+    /**
+     * Estimated number of distinct addresses receiving or sending.
+     */
+    @Property(name = "activeAddresses")
+    private long activeAddresses;
+
+    /**
+     * Getter of id.
+     *
+     * @return id
+     */
+    public final Long getId() {
+        return id;
+    }
+
+    /**
+     * Getter of period.
+     *
+     * @return period
+     */
+    public final StatisticsPeriod getPeriod() {
+        return period;
+    }
+
+    /**
+     * Getter of start.
+     *
+     * @return start of the period (epoch seconds)
+     */
+    public final long getStart() {
+        return start;
+    }
+
+    /**
+     * Getter of blockCount.
+     *
+     * @return number of blocks
+     */
+    public final long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Getter of txCount.
+     *
+     * @return number of transactions
+     */
+    public final long getTxCount() {
+        return txCount;
+    }
+
+    /**
+     * Getter of outputVolume.
+     *
+     * @return sum of the outputs in satoshis
+     */
+    public final long getOutputVolume() {
+        return outputVolume;
+    }
+
+    /**
+     * Getter of fees.
+     *
+     * @return sum of the fees in satoshis
+     */
+    public final long getFees() {
+        return fees;
+    }
+
+    /**
+     * Getter of newAddresses.
+     *
+     * @return number of addresses seen for the first time
+     */
+    public final long getNewAddresses() {
+        return newAddresses;
+    }
+
+    /**
+     * Getter of activeAddresses.
+     *
+     * @return estimated number of distinct addresses receiving or sending
+     */
+    public final long getActiveAddresses() {
+        return activeAddresses;
+    }
+
+}
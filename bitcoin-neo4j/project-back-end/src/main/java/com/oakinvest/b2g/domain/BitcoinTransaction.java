@@ -1,10 +1,12 @@
 package com.oakinvest.b2g.domain;
 
+import com.oakinvest.b2g.util.converter.HashConverter;
 import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.annotation.typeconversion.Convert;
 
 import java.util.HashSet;
 import java.util.Optional;
@@ -36,12 +38,14 @@ public class BitcoinTransaction {
 	 * The transaction id (same as provided).
 	 */
 	@Property(name = "txid")
+	@Convert(HashConverter.class)
 	private String txId;
 
 	/**
 	 * The transaction hash (differs from txId for witness transactions).
 	 */
 	@Property(name = "hash")
+	@Convert(HashConverter.class)
 	private String hash;
 
 	/**
@@ -72,6 +76,7 @@ public class BitcoinTransaction {
 	 * The block hash.
 	 */
 	@Property(name = "blockhash")
+	@Convert(HashConverter.class)
 	private String blockHash;
 
 	/**
@@ -86,6 +91,42 @@ public class BitcoinTransaction {
 	@Property(name = "blocktime")
 	private long blockTime;
 
+	/**
+	 * Segment of the raw transaction archive where the hex and the scripts are stored (archive profile).
+	 */
+	@Property(name = "archiveSegment")
+	private Integer archiveSegment;
+
+	/**
+	 * Offset of the hex and the scripts in the archive segment (archive profile).
+	 */
+	@Property(name = "archiveOffset")
+	private Long archiveOffset;
+
+	/**
+	 * Sum of the inputs in satoshis (null for a coinbase or if an origin output is not imported yet).
+	 */
+	@Property(name = "inputTotal")
+	private Long inputTotal;
+
+	/**
+	 * Sum of the outputs in satoshis.
+	 */
+	@Property(name = "outputTotal")
+	private Long outputTotal;
+
+	/**
+	 * Fee in satoshis (null for a coinbase or if an origin output is not imported yet).
+	 */
+	@Property(name = "fee")
+	private Long fee;
+
+	/**
+	 * Fee rate in satoshis per virtual byte.
+	 */
+	@Property(name = "feeRate")
+	private Double feeRate;
+
 	/**
 	 * Inputs.
 	 */
@@ -185,6 +226,114 @@ public class BitcoinTransaction {
 		hex = newHex;
 	}
 
+	/**
+	 * Getter of archiveSegment.
+	 *
+	 * @return archiveSegment
+	 */
+	public final Integer getArchiveSegment() {
+		return archiveSegment;
+	}
+
+	/**
+	 * Setter of archiveSegment.
+	 *
+	 * @param newArchiveSegment the archiveSegment to set
+	 */
+	public final void setArchiveSegment(final Integer newArchiveSegment) {
+		archiveSegment = newArchiveSegment;
+	}
+
+	/**
+	 * Getter of archiveOffset.
+	 *
+	 * @return archiveOffset
+	 */
+	public final Long getArchiveOffset() {
+		return archiveOffset;
+	}
+
+	/**
+	 * Setter of archiveOffset.
+	 *
+	 * @param newArchiveOffset the archiveOffset to set
+	 */
+	public final void setArchiveOffset(final Long newArchiveOffset) {
+		archiveOffset = newArchiveOffset;
+	}
+
+	/**
+	 * Getter of inputTotal.
+	 *
+	 * @return sum of the inputs in satoshis
+	 */
+	public final Long getInputTotal() {
+		return inputTotal;
+	}
+
+	/**
+	 * Setter of inputTotal.
+	 *
+	 * @param newInputTotal sum of the inputs in satoshis
+	 */
+	public final void setInputTotal(final Long newInputTotal) {
+		inputTotal = newInputTotal;
+	}
+
+	/**
+	 * Getter of outputTotal.
+	 *
+	 * @return sum of the outputs in satoshis
+	 */
+	public final Long getOutputTotal() {
+		return outputTotal;
+	}
+
+	/**
+	 * Setter of outputTotal.
+	 *
+	 * @param newOutputTotal sum of the outputs in satoshis
+	 */
+	public final void setOutputTotal(final Long newOutputTotal) {
+		outputTotal = newOutputTotal;
+	}
+
+	/**
+	 * Getter of fee.
+	 *
+	 * @return fee in satoshis
+	 */
+	public final Long getFee() {
+		return fee;
+	}
+
+	/**
+	 * Setter of fee.
+	 *
+	 * @param newFee fee in satoshis
+	 */
+	public final void setFee(final Long newFee) {
+		fee = newFee;
+	}
+
+	/**
+	 * Getter of feeRate.
+	 *
+	 * @return fee rate in satoshis per virtual byte
+	 */
+	public final Double getFeeRate() {
+		return feeRate;
+	}
+
+	/**
+	 * Setter of feeRate.
+	 *
+	 * @param newFeeRate fee rate in satoshis per virtual byte
+	 */
+	public final void setFeeRate(final Double newFeeRate) {
+		feeRate = newFeeRate;
+	}
+
 	/**
 	 * Getter of txId.
 	 *
@@ -1,10 +1,12 @@
 package com.oakinvest.b2g.domain;
 
+import com.oakinvest.b2g.util.converter.HashConverter;
 import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.annotation.typeconversion.Convert;
 
 /**
  * Bitcoin transaction input.
@@ -32,6 +34,7 @@ public class BitcoinTransactionInput {
 	 * The transaction id (same as provided).
 	 */
 	@Property(name = "txid")
+	@Convert(HashConverter.class)
 	private String txId;
 
 	/**
@@ -64,6 +67,12 @@ public class BitcoinTransactionInput {
 	@Property(name = "sequence")
 	private long sequence;
 
+	/**
+	 * True if the origin transaction output was not imported yet (set by the distributed import, removed by the stitching).
+	 */
+	@Property(name = "unresolved")
+	private Boolean unresolved;
+
     /**
      * Address.
      */
@@ -240,6 +249,28 @@ public class BitcoinTransactionInput {
 		sequence = newSequence;
 	}
 
+	/**
+	 * Getter of unresolved.
+	 *
+	 * @return true if the origin transaction output was not imported yet
+	 */
+	public final boolean isUnresolved() {
+		return Boolean.TRUE.equals(unresolved);
+	}
+
+	/**
+	 * Setter of unresolved.
+	 *
+	 * @param newUnresolved true if the origin transaction output was not imported yet
+	 */
+	public final void setUnresolved(final boolean newUnresolved) {
+		if (newUnresolved) {
+			unresolved = Boolean.TRUE;
+		} else {
+			unresolved = null;
+		}
+	}
+
     @Override
     public final String toString() {
         if (getTxId() == null) {
@@ -1,11 +1,15 @@
 package com.oakinvest.b2g.domain;
 
+import com.oakinvest.b2g.util.converter.AmountConverter;
+import com.oakinvest.b2g.util.converter.HashConverter;
 import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.annotation.typeconversion.Convert;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -29,13 +33,15 @@ public class BitcoinTransactionOutput {
      * Link to the transaction where the transaction output is.
      */
     @Property(name = "txid")
+    @Convert(HashConverter.class)
     private String txId;
 
     /**
      * The value in BTC.
      */
     @Property(name = "value")
-    private float value;
+    @Convert(AmountConverter.class)
+    private BigDecimal value;
 
     /**
      * index.
@@ -73,6 +79,18 @@ public class BitcoinTransactionOutput {
     @Property(name = "addresses")
     private Set<String> addresses = new HashSet<>();
 
+    /**
+     * True if an input spends this output.
+     */
+    @Property(name = "spent")
+    private boolean spent;
+
+    /**
+     * Height of the block spending this output.
+     */
+    @Property(name = "spentAtHeight")
+    private Integer spentAtHeight;
+
     /**
      * Address.
      */
@@ -206,7 +224,7 @@ public class BitcoinTransactionOutput {
      *
      * @return value
      */
-    public final float getValue() {
+    public final BigDecimal getValue() {
         return value;
     }
 
@@ -215,7 +233,7 @@ public class BitcoinTransactionOutput {
      *
      * @param newValue the value to set
      */
-    public final void setValue(final float newValue) {
+    public final void setValue(final BigDecimal newValue) {
         value = newValue;
     }
 
@@ -273,6 +291,34 @@ public class BitcoinTransactionOutput {
         scriptPubKeyHex = newScriptPubKeyHex;
     }
 
+    /**
+     * Getter of spent.
+     *
+     * @return true if an input spends this output
+     */
+    public final boolean isSpent() {
+        return spent;
+    }
+
+    /**
+     * Getter of spentAtHeight.
+     *
+     * @return height of the block spending this output (null if unspent)
+     */
+    public final Integer getSpentAtHeight() {
+        return spentAtHeight;
+    }
+
+    /**
+     * Marks this output as spent.
+     *
+     * @param newSpentAtHeight height of the block spending this output
+     */
+    public final void setSpentAtHeight(final int newSpentAtHeight) {
+        spent = true;
+        spentAtHeight = newSpentAtHeight;
+    }
+
     /**
      * Equals.
      * @param o object
@@ -0,0 +1,67 @@
+package com.oakinvest.b2g.domain;
+
+/**
+ * Period covered by chain statistics (buckets aligned on UTC hours and days of the block time).
+ */
+public enum StatisticsPeriod {
+
+    /**
+     * Hour.
+     */
+    HOUR(3600, 10),
+
+    /**
+     * Day.
+     */
+    DAY(86400, 12);
+
+    /**
+     * Duration in seconds.
+     */
+    private final long duration;
+
+    /**
+     * Precision of the active addresses sketch.
+     */
+    private final int sketchPrecision;
+
+    /**
+     * Constructor.
+     *
+     * @param newDuration        duration in seconds
+     * @param newSketchPrecision precision of the active addresses sketch
+     */
+    StatisticsPeriod(final long newDuration, final int newSketchPrecision) {
+        this.duration = newDuration;
+        this.sketchPrecision = newSketchPrecision;
+    }
+
+    /**
+     * Returns the start of the bucket containing a time.
+     *
+     * @param time time (epoch seconds)
+     * @return bucket start (epoch seconds)
+     */
+    public long getStart(final long time) {
+        return Math.floorDiv(time, duration) * duration;
+    }
+
+    /**
+     * Getter of duration.
+     *
+     * @return duration in seconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Getter of sketchPrecision.
+     *
+     * @return precision of the active addresses sketch
+     */
+    public int getSketchPrecision() {
+        return sketchPrecision;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.oakinvest.b2g.dto.analytics;
+
+import org.springframework.data.neo4j.annotation.QueryResult;
+
+/**
+ * Aggregates of an address maintained by the import (amounts in satoshis).
+ */
+@QueryResult
+public class AddressAggregates {
+
+    /**
+     * Address.
+     */
+    private String address;
+
+    /**
+     * Balance.
+     */
+    private long balance;
+
+    /**
+     * Total received.
+     */
+    private long totalReceived;
+
+    /**
+     * Total sent.
+     */
+    private long totalSent;
+
+    /**
+     * Number of transactions involving the address.
+     */
+    private long txCount;
+
+    /**
+     * Height of the first block involving the address.
+     */
+    private Integer firstSeenHeight;
+
+    /**
+     * Height of the last block involving the address.
+     */
+    private Integer lastSeenHeight;
+
+    /**
+     * Getter of address.
+     *
+     * @return address
+     */
+    public final String getAddress() {
+        return address;
+    }
+
+    /**
+     * Getter of balance.
+     *
+     * @return balance
+     */
+    public final long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Getter of totalReceived.
+     *
+     * @return totalReceived
+     */
+    public final long getTotalReceived() {
+        return totalReceived;
+    }
+
+    /**
+     * Getter of totalSent.
+     *
+     * @return totalSent
+     */
+    public final long getTotalSent() {
+        return totalSent;
+    }
+
+    /**
+     * Getter of txCount.
+     *
+     * @return txCount
+     */
+    public final long getTxCount() {
+        return txCount;
+    }
+
+    /**
+     * Getter of firstSeenHeight.
+     *
+     * @return firstSeenHeight
+     */
+    public final Integer getFirstSeenHeight() {
+        return firstSeenHeight;
+    }
+
+    /**
+     * Getter of lastSeenHeight.
+     *
+     * @return lastSeenHeight
+     */
+    public final Integer getLastSeenHeight() {
+        return lastSeenHeight;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.oakinvest.b2g.dto.analytics;
+
+import org.springframework.data.neo4j.annotation.QueryResult;
+
+/**
+ * Flow from an address to another maintained by the import (SENT_TO relationship, amount in satoshis).
+ */
+@QueryResult
+public class AddressFlow {
+
+    /**
+     * Address sending.
+     */
+    private String sender;
+
+    /**
+     * Address receiving.
+     */
+    private String recipient;
+
+    /**
+     * Amount sent.
+     */
+    private long amount;
+
+    /**
+     * Number of transactions.
+     */
+    private long count;
+
+    /**
+     * Height of the first block with a transaction.
+     */
+    private Integer firstHeight;
+
+    /**
+     * Height of the last block with a transaction.
+     */
+    private Integer lastHeight;
+
+    /**
+     * Getter of sender.
+     *
+     * @return sender
+     */
+    public final String getSender() {
+        return sender;
+    }
+
+    /**
+     * Getter of recipient.
+     *
+     * @return recipient
+     */
+    public final String getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * Getter of amount.
+     *
+     * @return amount
+     */
+    public final long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Getter of count.
+     *
+     * @return count
+     */
+    public final long getCount() {
+        return count;
+    }
+
+    /**
+     * Getter of firstHeight.
+     *
+     * @return firstHeight
+     */
+    public final Integer getFirstHeight() {
+        return firstHeight;
+    }
+
+    /**
+     * Getter of lastHeight.
+     *
+     * @return lastHeight
+     */
+    public final Integer getLastHeight() {
+        return lastHeight;
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Analytics query results.
+ */
+package com.oakinvest.b2g.dto.analytics;
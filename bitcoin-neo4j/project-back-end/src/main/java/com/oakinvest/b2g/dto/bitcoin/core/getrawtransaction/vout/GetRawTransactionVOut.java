@@ -3,6 +3,7 @@ package com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.scriptpubkey.GetRawTransactionScriptPubKey;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Iterator;
 
 /**
@@ -15,7 +16,7 @@ public class GetRawTransactionVOut implements Serializable {
 	/**
 	 * The value in BTC.
 	 */
-	private float value;
+	private BigDecimal value;
 
 	/**
 	 * Index.
@@ -32,7 +33,7 @@ public class GetRawTransactionVOut implements Serializable {
 	 *
 	 * @return value
 	 */
-	public final float getValue() {
+	public final BigDecimal getValue() {
 		return value;
 	}
 
@@ -41,7 +42,7 @@ public class GetRawTransactionVOut implements Serializable {
 	 *
 	 * @param newValue the value to set
 	 */
-	public final void setValue(final float newValue) {
+	public final void setValue(final BigDecimal newValue) {
 		value = newValue;
 	}
 
@@ -1,10 +1,13 @@
 package com.oakinvest.b2g.repository;
 
 import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.dto.analytics.AddressAggregates;
+import com.oakinvest.b2g.dto.analytics.AddressFlow;
 import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,4 +35,64 @@ public interface AddressRepository extends Neo4jRepository<BitcoinAddress, Long>
     @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 return a")
     Optional<BitcoinAddress> findByAddressWithoutDepth(String address);
 
+    /**
+     * Find the aggregates of an address (maintained by the import, amounts in satoshis).
+     *
+     * @param address address
+     * @return address aggregates
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "RETURN a.address AS address, coalesce(a.balance, 0) AS balance, coalesce(a.totalReceived, 0) AS totalReceived, "
+            + "coalesce(a.totalSent, 0) AS totalSent, coalesce(a.txCount, 0) AS txCount, "
+            + "a.firstSeenHeight AS firstSeenHeight, a.lastSeenHeight AS lastSeenHeight")
+    Optional<AddressAggregates> findAggregatesByAddress(String address);
+
+    /**
+     * Find the balance of an address after a block (from the nearest balance checkpoint, amount in satoshis). In a
+     * distributed import, the checkpoints are only up to date after the stitching.
+     *
+     * @param address address
+     * @param height  block height
+     * @return balance (null if the address is unknown)
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "OPTIONAL MATCH (a)-[:BALANCE_CHECKPOINT]->(c:BitcoinBalanceCheckpoint) WHERE c.height <= $1 "
+            + "WITH c ORDER BY c.height DESC LIMIT 1 "
+            + "RETURN CASE WHEN c IS NULL THEN 0 "
+            + "ELSE c.balance + reduce(balance = 0, i IN range(0, size(c.heights) - 1) | balance + CASE WHEN c.heights[i] <= $1 THEN c.deltas[i] ELSE 0 END) END")
+    Long findBalanceAtHeight(String address, int height);
+
+    /**
+     * Find the addresses of a cluster (with depth 0).
+     *
+     * @param clusterId cluster id
+     * @return addresses
+     */
+    @Query("MATCH (c:BitcoinCluster) WHERE c.clusterId = $0 MATCH (a:BitcoinAddress)-[:IN_CLUSTER]->(c) RETURN a")
+    List<BitcoinAddress> findByClusterId(long clusterId);
+
+    /**
+     * Find the flows sent by an address (maintained by the import, biggest amounts first).
+     *
+     * @param address address
+     * @return flows to the recipients
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "MATCH (a)-[f:SENT_TO]->(r:BitcoinAddress) "
+            + "RETURN a.address AS sender, r.address AS recipient, f.amount AS amount, f.count AS count, "
+            + "f.firstHeight AS firstHeight, f.lastHeight AS lastHeight ORDER BY f.amount DESC")
+    List<AddressFlow> findFlowsFrom(String address);
+
+    /**
+     * Find the flows received by an address (maintained by the import, biggest amounts first).
+     *
+     * @param address address
+     * @return flows from the senders
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "MATCH (s:BitcoinAddress)-[f:SENT_TO]->(a) "
+            + "RETURN s.address AS sender, a.address AS recipient, f.amount AS amount, f.count AS count, "
+            + "f.firstHeight AS firstHeight, f.lastHeight AS lastHeight ORDER BY f.amount DESC")
+    List<AddressFlow> findFlowsTo(String address);
+
 }
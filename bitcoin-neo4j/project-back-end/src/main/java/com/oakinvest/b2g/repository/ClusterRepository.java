@@ -0,0 +1,26 @@
+package com.oakinvest.b2g.repository;
+
+import com.oakinvest.b2g.domain.BitcoinCluster;
+import org.springframework.data.neo4j.annotation.Query;
+import org.springframework.data.neo4j.repository.Neo4jRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * BitcoinCluster repository (read only, the clusters are written by the import).
+ */
+@Repository
+public interface ClusterRepository extends Neo4jRepository<BitcoinCluster, Long> {
+
+    /**
+     * Find the cluster of an address.
+     *
+     * @param address address
+     * @return cluster (empty if the address never spent)
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "MATCH (a)-[:IN_CLUSTER]->(c:BitcoinCluster) RETURN c")
+    Optional<BitcoinCluster> findByAddress(String address);
+
+}
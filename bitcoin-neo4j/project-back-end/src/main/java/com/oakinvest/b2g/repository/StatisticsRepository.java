@@ -0,0 +1,27 @@
+package com.oakinvest.b2g.repository;
+
+import com.oakinvest.b2g.domain.BitcoinStatistics;
+import org.springframework.data.neo4j.annotation.Query;
+import org.springframework.data.neo4j.repository.Neo4jRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * BitcoinStatistics repository (read only, the statistics are written by the import).
+ */
+@Repository
+public interface StatisticsRepository extends Neo4jRepository<BitcoinStatistics, Long> {
+
+    /**
+     * Find the statistics of a period starting in a time range.
+     *
+     * @param period period (HOUR or DAY)
+     * @param from   first start (epoch seconds, included)
+     * @param to     last start (epoch seconds, excluded)
+     * @return statistics ordered by start
+     */
+    @Query("MATCH (s:BitcoinStatistics) WHERE s.period = $0 AND s.start >= $1 AND s.start < $2 RETURN s ORDER BY s.start")
+    List<BitcoinStatistics> findByPeriodAndStartRange(String period, long from, long to);
+
+}
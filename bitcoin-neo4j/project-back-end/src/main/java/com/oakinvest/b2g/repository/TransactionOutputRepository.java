@@ -1,9 +1,11 @@
 package com.oakinvest.b2g.repository;
 
 import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,4 +25,22 @@ public interface TransactionOutputRepository extends Neo4jRepository<BitcoinTran
      */
     Optional<BitcoinTransactionOutput> findByTxIdAndN(String txId, int n);
 
+    /**
+     * Find the unspent outputs of an address (with depth 0).
+     *
+     * @param address address
+     * @return unspent transaction outputs
+     */
+    @Query("MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $0 "
+            + "MATCH (a)-[:ADDRESS]->(o:BitcoinTransactionOutput) WHERE o.spent = false RETURN o")
+    List<BitcoinTransactionOutput> findUnspentByAddress(String address);
+
+    /**
+     * Count the unspent outputs (size of the UTXO set at the last block imported).
+     *
+     * @return number of unspent transaction outputs
+     */
+    @Query("MATCH (o:BitcoinTransactionOutput) USING INDEX o:BitcoinTransactionOutput(spent) WHERE o.spent = false RETURN count(o)")
+    long countUnspent();
+
 }
@@ -0,0 +1,19 @@
+package com.oakinvest.b2g.service;
+
+import java.util.Optional;
+
+/**
+ * Address balance service : historical balances from the checkpoints maintained by the import.
+ */
+public interface AddressBalanceService {
+
+    /**
+     * Returns the balance of an address after a block.
+     *
+     * @param address address
+     * @param height  block height
+     * @return balance in satoshis (empty if the address is unknown)
+     */
+    Optional<Long> getBalanceAtHeight(String address, int height);
+
+}
@@ -0,0 +1,35 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.repository.AddressRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Address balance service implementation : the balance is read from the nearest checkpoint of the address and its
+ * balance changes up to the height, whatever the number of transactions of the address.
+ */
+@Service
+public class AddressBalanceServiceImplementation implements AddressBalanceService {
+
+    /**
+     * Address repository.
+     */
+    private final AddressRepository addressRepository;
+
+    /**
+     * Constructor.
+     *
+     * @param newAddressRepository address repository
+     */
+    public AddressBalanceServiceImplementation(final AddressRepository newAddressRepository) {
+        this.addressRepository = newAddressRepository;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:designforextension")
+    public Optional<Long> getBalanceAtHeight(final String address, final int height) {
+        return Optional.ofNullable(addressRepository.findBalanceAtHeight(address, height));
+    }
+
+}
@@ -6,6 +6,9 @@ import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getblockcount.GetBlockCountResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
+import com.oakinvest.b2g.util.jfr.RpcCallEvent;
+import com.oakinvest.b2g.util.mapper.IngestionProfile;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
 import com.oakinvest.b2g.util.rest.BitcoinCoreResponseErrorHandler;
 import org.apache.tomcat.util.codec.binary.Base64;
 import org.slf4j.Logger;
@@ -13,6 +16,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -65,11 +70,21 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
      */
     private static final String PARAMS_PARAMETER = "params";
 
+    /**
+     * Bytes sent (metrics).
+     */
+    private static final String SENT_BYTES = "sent";
+
     /**
      * Rest template.
      */
     private final RestTemplate restTemplate;
 
+    /**
+     * Metrics.
+     */
+    private final PipelineMetrics metrics;
+
     /**
      * Bitcoin core hostname.
      */
@@ -94,6 +109,12 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
     @Value("${bitcoinCore.password}")
     private String password;
 
+    /**
+     * Ingestion profile (the fields it drops are not deserialized).
+     */
+    @Value("${b2g.import.profile:FULL}")
+    private IngestionProfile ingestionProfile;
+
     /**
      * Bitcoin core URL.
      */
@@ -106,15 +127,18 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
 
     /**
      * Constructor.
+     *
+     * @param newMetrics metrics
      */
     @SuppressWarnings("WhitespaceAround")
-    public BitcoinCoreServiceImplementation() {
+    public BitcoinCoreServiceImplementation(final PipelineMetrics newMetrics) {
+        metrics = newMetrics;
         restTemplate = new RestTemplate();
         restTemplate.setErrorHandler(new BitcoinCoreResponseErrorHandler());
     }
 
     /**
-     * Initialize URL and authentication.
+     * Initialize URL, authentication and deserialization.
      */
     @PostConstruct
     private void initializeURLAndAuthentication() {
@@ -127,6 +151,11 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
         HttpHeaders h = new HttpHeaders();
         h.set("Authorization", authHeader);
         headers = h;
+        // Skip the fields dropped by the ingestion profile.
+        restTemplate.getMessageConverters()
+                .stream()
+                .filter(c -> c instanceof MappingJackson2HttpMessageConverter)
+                .forEach(c -> ingestionProfile.configure(((MappingJackson2HttpMessageConverter) c).getObjectMapper()));
     }
 
     /**
@@ -157,9 +186,8 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
         String request = getRequest(GETBLOCKCOUNT_COMMAND, params);
 
         // Making the call.
-        HttpEntity<String> entity = new HttpEntity<>(request, getHeaders());
         log.debug("Calling getblockCount with " + request);
-        return restTemplate.postForObject(getUrl(), entity, GetBlockCountResponse.class);
+        return post(GETBLOCKCOUNT_COMMAND, request, GetBlockCountResponse.class);
     }
 
     /**
@@ -174,9 +202,8 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
         String request = getRequest(GETBLOCKHASH_COMMAND, params);
 
         // Making the call.
-        HttpEntity<String> entity = new HttpEntity<>(request, getHeaders());
         log.debug("Calling getblockHash on block " + request);
-        return restTemplate.postForObject(getUrl(), entity, GetBlockHashResponse.class);
+        return post(GETBLOCKHASH_COMMAND, request, GetBlockHashResponse.class);
     }
 
     /**
@@ -191,9 +218,8 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
         String request = getRequest(GETBLOCK_COMMAND, params);
 
         // Making the call.
-        HttpEntity<String> entity = new HttpEntity<>(request, getHeaders());
         log.debug("Calling getblock on block " + request);
-        return restTemplate.postForObject(getUrl(), entity, GetBlockResponse.class);
+        return post(GETBLOCK_COMMAND, request, GetBlockResponse.class);
     }
 
     /**
@@ -209,9 +235,43 @@ public class BitcoinCoreServiceImplementation implements BitcoinCoreService {
         String request = getRequest(GETRAWTRANSACTION_COMMAND, params);
 
         // Making the call.
-        HttpEntity<String> entity = new HttpEntity<>(request, getHeaders());
         log.debug("Calling getrawtransaction on transaction " + request);
-        return restTemplate.postForObject(getUrl(), entity, GetRawTransactionResponse.class);
+        return post(GETRAWTRANSACTION_COMMAND, request, GetRawTransactionResponse.class);
+    }
+
+    /**
+     * Posts a request to core (measured and recorded as a flight recorder event).
+     *
+     * @param command      command called
+     * @param request      json query
+     * @param responseType response type
+     * @param <T>          response type
+     * @return response
+     */
+    private <T> T post(final String command, final String request, final Class<T> responseType) {
+        final RpcCallEvent event = new RpcCallEvent();
+        event.begin();
+        final HttpEntity<String> entity = new HttpEntity<>(request, getHeaders());
+        final ResponseEntity<T> response = metrics.recordRpc(command, () -> restTemplate.postForEntity(getUrl(), entity, responseType));
+
+        // Bytes sent and received (core sets the content length of its responses).
+        long requestSize = 0;
+        if (request != null) {
+            requestSize = request.getBytes(StandardCharsets.UTF_8).length;
+        }
+        final long responseSize = response.getHeaders().getContentLength();
+        metrics.recordRpcBytes(SENT_BYTES, requestSize);
+        if (responseSize >= 0) {
+            metrics.recordRpcBytes(PipelineMetrics.RECEIVED_BYTES, responseSize);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMethod(command);
+            event.setRequestSize(requestSize);
+            event.setResponseSize(responseSize);
+            event.commit();
+        }
+        return response.getBody();
     }
 
     /**
@@ -8,6 +8,9 @@ import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
 import com.oakinvest.b2g.util.buffer.BitcoinDataServiceBuffer;
+import com.oakinvest.b2g.util.executors.ParallelTasks;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
+import com.oakinvest.b2g.util.providers.ExecutorsProvider;
 import com.oakinvest.b2g.util.status.ApplicationStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,7 +24,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Bitcoin data service implementation.
@@ -56,17 +58,31 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
      */
     private final BitcoinDataServiceBuffer buffer;
 
+    /**
+     * Executors.
+     */
+    private final ExecutorsProvider executors;
+
+    /**
+     * Metrics.
+     */
+    private final PipelineMetrics metrics;
+
     /**
      * Constructor.
      *
      * @param newBitcoinCoreService core service
      * @param newStatusService      status service
      * @param newBuffer             buffer
+     * @param newExecutors          executors
+     * @param newMetrics            metrics
      */
-    public BitcoinDataServiceImplementation(final BitcoinCoreService newBitcoinCoreService, final ApplicationStatus newStatusService, final BitcoinDataServiceBuffer newBuffer) {
+    public BitcoinDataServiceImplementation(final BitcoinCoreService newBitcoinCoreService, final ApplicationStatus newStatusService, final BitcoinDataServiceBuffer newBuffer, final ExecutorsProvider newExecutors, final PipelineMetrics newMetrics) {
         this.status = newStatusService;
         this.bitcoinCoreService = newBitcoinCoreService;
         this.buffer = newBuffer;
+        this.executors = newExecutors;
+        this.metrics = newMetrics;
     }
 
     /**
@@ -114,7 +130,6 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
             final Set<String> addresses = Collections.synchronizedSet(new HashSet<>());
 
             // We retrieve all
-            final AtomicInteger loadedTransactionsCounter = new AtomicInteger(0);
             block.get().getTx()
                     .forEach(txId -> {
                         Optional<GetRawTransactionResult> transactionResponse = getRawTransactionResult(txId);
@@ -123,7 +138,7 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
                             transactions.add(transactionResponse.get());
                             // Adding the addresses.
                             transactionResponse.get().getVout().forEach(o -> addresses.addAll(o.getScriptPubKey().getAddresses()));
-                            status.getCurrentBlockStatus().setLoadedTransactions(loadedTransactionsCounter.incrementAndGet());
+                            status.getCurrentBlockStatus().addLoadedTransaction();
                         } else {
                             log.error("Transaction " + txId + " missing");
                             status.setLastErrorMessage("Transaction " + txId + " missing");
@@ -155,6 +170,7 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
      */
     private Optional<GetBlockResult> getBlockResult(final int blockHeight) {
         Optional<GetBlockResult> result = buffer.getBlockInBuffer(blockHeight);
+        metrics.recordBufferRequest(PipelineMetrics.BLOCK_BUFFER, result.isPresent());
         if (result.isEmpty()) {
             result = getBlockResultFromBitcoinCore(blockHeight);
             // We add it so the buffer loader won't try to add it.
@@ -171,6 +187,7 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
      */
     private Optional<GetRawTransactionResult> getRawTransactionResult(final String txId) {
         Optional<GetRawTransactionResult> result = buffer.getTransactionInBuffer(txId);
+        metrics.recordBufferRequest(PipelineMetrics.TRANSACTION_BUFFER, result.isPresent());
         if (result.isEmpty()) {
             result = getRawTransactionResultFromBitcoinCore(txId);
             // We add it so the buffer loader won't try to add it.
@@ -273,13 +290,13 @@ public class BitcoinDataServiceImplementation implements BitcoinDataService {
             ArrayList<String> transactions = getBlockResult.getTx();
             Collections.reverse(transactions);
 
-            // Add the transactions in buffer.
-            transactions.parallelStream()
-                    .filter(txId -> buffer.getTransactionInBuffer(txId).isEmpty())
-                    .forEach(txId -> {
-                        Optional<GetRawTransactionResult> result = getRawTransactionResultFromBitcoinCore(txId);
-                        result.ifPresent(getRawTransactionResult -> buffer.addTransactionInBuffer(txId, getRawTransactionResult));
-                    });
+            // Add the transactions in buffer (in parallel on the I/O executor).
+            ParallelTasks.forEach(executors.getIoExecutor(), transactions, txId -> {
+                if (buffer.getTransactionInBuffer(txId).isEmpty()) {
+                    Optional<GetRawTransactionResult> result = getRawTransactionResultFromBitcoinCore(txId);
+                    result.ifPresent(getRawTransactionResult -> buffer.addTransactionInBuffer(txId, getRawTransactionResult));
+                }
+            });
         });
     }
 
@@ -0,0 +1,24 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.domain.BitcoinStatistics;
+import com.oakinvest.b2g.domain.StatisticsPeriod;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Chain statistics service : hourly and daily statistics maintained by the import.
+ */
+public interface ChainStatisticsService {
+
+    /**
+     * Returns the statistics of the periods overlapping a time range.
+     *
+     * @param period period (hour or day)
+     * @param from   start of the range (included)
+     * @param to     end of the range (excluded)
+     * @return statistics ordered by start (periods without block are missing)
+     */
+    List<BitcoinStatistics> getStatistics(StatisticsPeriod period, Instant from, Instant to);
+
+}
@@ -0,0 +1,37 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.domain.BitcoinStatistics;
+import com.oakinvest.b2g.domain.StatisticsPeriod;
+import com.oakinvest.b2g.repository.StatisticsRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Chain statistics service implementation : the statistics nodes are read with the (period, start) index.
+ */
+@Service
+public class ChainStatisticsServiceImplementation implements ChainStatisticsService {
+
+    /**
+     * Statistics repository.
+     */
+    private final StatisticsRepository statisticsRepository;
+
+    /**
+     * Constructor.
+     *
+     * @param newStatisticsRepository statistics repository
+     */
+    public ChainStatisticsServiceImplementation(final StatisticsRepository newStatisticsRepository) {
+        this.statisticsRepository = newStatisticsRepository;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:designforextension")
+    public List<BitcoinStatistics> getStatistics(final StatisticsPeriod period, final Instant from, final Instant to) {
+        return statisticsRepository.findByPeriodAndStartRange(period.name(), period.getStart(from.getEpochSecond()), to.getEpochSecond());
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.util.archive.ArchivedTransaction;
+
+import java.util.Optional;
+
+/**
+ * Raw transaction service : access to the transaction hex and scripts kept in the archive.
+ */
+public interface RawTransactionService {
+
+    /**
+     * Returns the archived hex and scripts of a transaction.
+     *
+     * @param txId transaction id
+     * @return raw transaction data (empty if the transaction is unknown or was not archived)
+     */
+    Optional<ArchivedTransaction> getRawTransaction(String txId);
+
+}
@@ -0,0 +1,50 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.repository.TransactionRepository;
+import com.oakinvest.b2g.util.archive.ArchivePointer;
+import com.oakinvest.b2g.util.archive.ArchivedTransaction;
+import com.oakinvest.b2g.util.archive.RawTransactionArchive;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Raw transaction service implementation : the archive pointer is read from the transaction node and the data from the
+ * memory-mapped archive segment.
+ */
+@Service
+public class RawTransactionServiceImplementation implements RawTransactionService {
+
+    /**
+     * Transaction repository.
+     */
+    private final TransactionRepository transactionRepository;
+
+    /**
+     * Raw transaction archive (archive profile).
+     */
+    private final Optional<RawTransactionArchive> rawTransactionArchive;
+
+    /**
+     * Constructor.
+     *
+     * @param newTransactionRepository transaction repository
+     * @param newRawTransactionArchive raw transaction archive (archive profile)
+     */
+    public RawTransactionServiceImplementation(final TransactionRepository newTransactionRepository, final Optional<RawTransactionArchive> newRawTransactionArchive) {
+        this.transactionRepository = newTransactionRepository;
+        this.rawTransactionArchive = newRawTransactionArchive;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:designforextension")
+    public Optional<ArchivedTransaction> getRawTransaction(final String txId) {
+        if (rawTransactionArchive.isEmpty()) {
+            return Optional.empty();
+        }
+        return transactionRepository.findByTxId(txId)
+                .filter(t -> t.getArchiveSegment() != null && t.getArchiveOffset() != null)
+                .map(t -> rawTransactionArchive.get().read(new ArchivePointer(t.getArchiveSegment(), t.getArchiveOffset())));
+    }
+
+}
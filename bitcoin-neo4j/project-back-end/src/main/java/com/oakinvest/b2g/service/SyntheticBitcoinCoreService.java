@@ -0,0 +1,120 @@
+package com.oakinvest.b2g.service;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockcount.GetBlockCountResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponseError;
+import com.oakinvest.b2g.util.synthetic.SyntheticChain;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Core service serving the synthetic chain instead of calling core, to load test the whole import pipeline locally
+ * (enabled with b2g.synthetic.enabled=true). Unknown heights, hashes and ids return the errors of core.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "b2g.synthetic.enabled", havingValue = "true")
+public class SyntheticBitcoinCoreService implements BitcoinCoreService {
+
+    /**
+     * Error code of core : invalid parameter (height out of range).
+     */
+    private static final int INVALID_PARAMETER = -8;
+
+    /**
+     * Error code of core : invalid address or key (block or transaction not found).
+     */
+    private static final int INVALID_ADDRESS_OR_KEY = -5;
+
+    /**
+     * Synthetic chain.
+     */
+    private final SyntheticChain chain;
+
+    /**
+     * Constructor.
+     *
+     * @param newChain synthetic chain
+     */
+    public SyntheticBitcoinCoreService(final SyntheticChain newChain) {
+        this.chain = newChain;
+    }
+
+    /**
+     * Returns the number of blocks of the synthetic chain.
+     *
+     * @return the number of blocks in the block chain.
+     */
+    @Override
+    public final GetBlockCountResponse getBlockCount() {
+        final GetBlockCountResponse response = new GetBlockCountResponse();
+        response.setResult(chain.getBlockCount());
+        return response;
+    }
+
+    /**
+     * Returns the hash of a block of the synthetic chain.
+     *
+     * @param blockHeight block height.
+     * @return the block header hash.
+     */
+    @Override
+    public final GetBlockHashResponse getBlockHash(final int blockHeight) {
+        final GetBlockHashResponse response = new GetBlockHashResponse();
+        final Optional<String> hash = chain.getBlockHash(blockHeight);
+        if (hash.isPresent()) {
+            response.setResult(hash.get());
+        } else {
+            response.setError(createError(INVALID_PARAMETER, "Block height out of range"));
+        }
+        return response;
+    }
+
+    /**
+     * Returns a block of the synthetic chain.
+     *
+     * @param blockHash block hash.
+     * @return a JSON block.
+     */
+    @Override
+    public final GetBlockResponse getBlock(final String blockHash) {
+        final GetBlockResponse response = new GetBlockResponse();
+        chain.getBlock(blockHash).ifPresentOrElse(response::setResult,
+                () -> response.setError(createError(INVALID_ADDRESS_OR_KEY, "Block not found")));
+        return response;
+    }
+
+    /**
+     * Returns a transaction of the synthetic chain.
+     *
+     * @param transactionHash transaction hash.
+     * @return getrawtransaction response.
+     */
+    @Override
+    public final GetRawTransactionResponse getRawTransaction(final String transactionHash) {
+        final GetRawTransactionResponse response = new GetRawTransactionResponse();
+        chain.getTransaction(transactionHash).ifPresentOrElse(response::setResult,
+                () -> response.setError(createError(INVALID_ADDRESS_OR_KEY, "No such mempool or blockchain transaction")));
+        return response;
+    }
+
+    /**
+     * Creates an error.
+     *
+     * @param code    error code
+     * @param message error message
+     * @return error
+     */
+    private BitcoinCoreResponseError createError(final int code, final String message) {
+        final BitcoinCoreResponseError error = new BitcoinCoreResponseError();
+        error.setCode(code);
+        error.setMessage(message);
+        return error;
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.oakinvest.b2g.util.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Aggregates of an address being computed (a block delta or a rebuild), amounts in satoshis.
+ */
+final class AddressAggregate {
+
+    /**
+     * Address.
+     */
+    private final String address;
+
+    /**
+     * Amount received.
+     */
+    private long received;
+
+    /**
+     * Amount sent.
+     */
+    private long sent;
+
+    /**
+     * Transactions involving the address.
+     */
+    private final Set<Object> transactions = new HashSet<>();
+
+    /**
+     * Balance change of each block involving the address (indexed by height).
+     */
+    private final NavigableMap<Integer, Long> balanceChanges = new TreeMap<>();
+
+    /**
+     * First height where the address is seen.
+     */
+    private Integer firstSeenHeight;
+
+    /**
+     * Last height where the address is seen.
+     */
+    private Integer lastSeenHeight;
+
+    /**
+     * Constructor.
+     *
+     * @param newAddress address
+     */
+    AddressAggregate(final String newAddress) {
+        this.address = newAddress;
+    }
+
+    /**
+     * Adds an amount received.
+     *
+     * @param amount      amount in satoshis
+     * @param transaction transaction (id or node id)
+     * @param height      block height
+     */
+    void addReceived(final long amount, final Object transaction, final int height) {
+        received += amount;
+        balanceChanges.merge(height, amount, Long::sum);
+        addTransaction(transaction, height);
+    }
+
+    /**
+     * Adds an amount sent.
+     *
+     * @param amount      amount in satoshis
+     * @param transaction transaction (id or node id)
+     * @param height      block height
+     */
+    void addSent(final long amount, final Object transaction, final int height) {
+        sent += amount;
+        balanceChanges.merge(height, -amount, Long::sum);
+        addTransaction(transaction, height);
+    }
+
+    /**
+     * Returns the statement parameters.
+     *
+     * @return parameters (address, received, sent, txCount, firstSeenHeight, lastSeenHeight)
+     */
+    Map<String, Object> toParameters() {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("address", address);
+        parameters.put("received", received);
+        parameters.put("sent", sent);
+        parameters.put("txCount", transactions.size());
+        parameters.put("firstSeenHeight", firstSeenHeight);
+        parameters.put("lastSeenHeight", lastSeenHeight);
+        return parameters;
+    }
+
+    /**
+     * Returns the balance checkpoints of the address (rebuild) : each checkpoint holds the balance before its height
+     * and the balance changes of the next blocks involving the address (up to interval blocks).
+     *
+     * @param interval number of balance changes in a checkpoint
+     * @return parameters of each checkpoint (address, height, balance, heights, deltas)
+     */
+    List<Map<String, Object>> toBalanceCheckpoints(final int interval) {
+        final List<Map<String, Object>> checkpoints = new ArrayList<>();
+        long balance = 0;
+        List<Integer> heights = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Map.Entry<Integer, Long> change : balanceChanges.entrySet()) {
+            if (checkpoints.isEmpty() || heights.size() >= interval) {
+                heights = new ArrayList<>();
+                deltas = new ArrayList<>();
+                final Map<String, Object> checkpoint = new HashMap<>();
+                checkpoint.put("address", address);
+                checkpoint.put("height", change.getKey());
+                checkpoint.put("balance", balance);
+                checkpoint.put("heights", heights);
+                checkpoint.put("deltas", deltas);
+                checkpoints.add(checkpoint);
+            }
+            heights.add(change.getKey());
+            deltas.add(change.getValue());
+            balance += change.getValue();
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Adds a transaction involving the address.
+     *
+     * @param transaction transaction (id or node id)
+     * @param height      block height
+     */
+    private void addTransaction(final Object transaction, final int height) {
+        transactions.add(transaction);
+        if (firstSeenHeight == null || height < firstSeenHeight) {
+            firstSeenHeight = height;
+        }
+        if (lastSeenHeight == null || height > lastSeenHeight) {
+            lastSeenHeight = height;
+        }
+    }
+
+}
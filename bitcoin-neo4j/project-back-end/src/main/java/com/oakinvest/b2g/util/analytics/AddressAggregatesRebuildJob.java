@@ -0,0 +1,220 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import com.oakinvest.b2g.util.job.MaintenanceJob;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the aggregates and the balance checkpoints of all the addresses from the graph (existing data). Addresses are
+ * read in batches in the order of the address index. The stitching of a distributed import rebuilds the addresses
+ * spending in the inputs it links and the addresses whose checkpoints were not written by the import.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.analytics.address-aggregates.enabled", havingValue = "true", matchIfMissing = true)
+public class AddressAggregatesRebuildJob implements MaintenanceJob {
+
+    /**
+     * Number of addresses rebuilt in a transaction.
+     */
+    private static final int ADDRESSES_PER_BATCH = 5000;
+
+    /**
+     * Query returning the next addresses.
+     */
+    private static final String NEXT_ADDRESSES = "MATCH (a:BitcoinAddress) WHERE a.address > $lastAddress "
+            + "RETURN a.address AS address ORDER BY a.address LIMIT $limit";
+
+    /**
+     * Query returning the next addresses whose balance checkpoints were not written by the import.
+     */
+    private static final String NEXT_PENDING_ADDRESSES = "MATCH (a:BitcoinAddress) WHERE a.checkpointsPending = true "
+            + "RETURN a.address AS address LIMIT $limit";
+
+    /**
+     * Query returning the amounts received.
+     */
+    private static final String RECEIVED = "MATCH (a:BitcoinAddress)-[:ADDRESS]->(o:BitcoinTransactionOutput)<-[:OUTPUTS]-(t:BitcoinTransaction)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "WHERE a.address IN $addresses "
+            + "RETURN a.address AS address, o.value AS value, id(t) AS tx, b.height AS height";
+
+    /**
+     * Query returning the amounts sent.
+     */
+    private static final String SENT = "MATCH (a:BitcoinAddress)-[:ADDRESS]->(i:BitcoinTransactionInput)<-[:TRANSACTION_OUTPUT]-(o:BitcoinTransactionOutput), "
+            + "(t:BitcoinTransaction)-[:INPUTS]->(i), (t)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "WHERE a.address IN $addresses "
+            + "RETURN a.address AS address, o.value AS value, id(t) AS tx, b.height AS height";
+
+    /**
+     * Statement setting the aggregates.
+     */
+    private static final String SET_AGGREGATES = "UNWIND $rows AS d "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = d.address "
+            + "SET a.totalReceived = d.received, a.totalSent = d.sent, a.balance = d.received - d.sent, a.txCount = d.txCount, "
+            + "a.firstSeenHeight = d.firstSeenHeight, a.lastSeenHeight = d.lastSeenHeight "
+            + "REMOVE a.checkpointsPending";
+
+    /**
+     * Statement deleting the balance checkpoints.
+     */
+    private static final String DELETE_BALANCE_CHECKPOINTS = "UNWIND $addresses AS address "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = address "
+            + "MATCH (a)-[:BALANCE_CHECKPOINT]->(c:BitcoinBalanceCheckpoint) DETACH DELETE c";
+
+    /**
+     * Statement creating the balance checkpoints.
+     */
+    private static final String CREATE_BALANCE_CHECKPOINTS = "UNWIND $rows AS d "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = d.address "
+            + "CREATE (a)-[:BALANCE_CHECKPOINT]->(:BitcoinBalanceCheckpoint {height: d.height, balance: d.balance, heights: d.heights, deltas: d.deltas})";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AddressAggregatesRebuildJob.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Number of balance changes in a checkpoint.
+     */
+    private final int balanceCheckpointInterval;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory            session factory
+     * @param newStages                    import stages
+     * @param newBalanceCheckpointInterval number of balance changes in a checkpoint
+     */
+    public AddressAggregatesRebuildJob(final SessionFactory newSessionFactory, final BlockImportStages newStages,
+                                       @Value("${b2g.analytics.balance-checkpoints.interval:100}") final int newBalanceCheckpointInterval) {
+        this.sessionFactory = newSessionFactory;
+        this.stages = newStages;
+        this.balanceCheckpointInterval = newBalanceCheckpointInterval;
+    }
+
+    @Override
+    public final String getName() {
+        return "rebuild-address-aggregates";
+    }
+
+    @Override
+    public final void run() {
+        final Session session = sessionFactory.openSession();
+        String lastAddress = "";
+        long rebuilt = 0;
+        boolean finished = false;
+        while (!finished) {
+            final List<String> addresses = new ArrayList<>();
+            session.query(NEXT_ADDRESSES, Map.of("lastAddress", lastAddress, "limit", ADDRESSES_PER_BATCH))
+                    .forEach(row -> addresses.add((String) row.get("address")));
+            if (addresses.isEmpty()) {
+                finished = true;
+            } else {
+                rebuild(session, addresses);
+                rebuilt += addresses.size();
+                lastAddress = addresses.get(addresses.size() - 1);
+                log.info(rebuilt + " address(es) rebuilt");
+            }
+            session.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the addresses whose balance checkpoints were not written by the import (distributed import, all the
+     * blocks up to the last one being imported).
+     *
+     * @return number of addresses rebuilt
+     */
+    public final long rebuildPendingCheckpoints() {
+        final Session session = sessionFactory.openSession();
+        long rebuilt = 0;
+        boolean finished = false;
+        while (!finished) {
+            final List<String> addresses = new ArrayList<>();
+            session.query(NEXT_PENDING_ADDRESSES, Map.of("limit", ADDRESSES_PER_BATCH)).forEach(row -> addresses.add((String) row.get("address")));
+            if (addresses.isEmpty()) {
+                finished = true;
+            } else {
+                rebuild(session, addresses);
+                rebuilt += addresses.size();
+            }
+            session.clear();
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Rebuilds the aggregates and the balance checkpoints of addresses (a block can't be written at the same time).
+     *
+     * @param session   session
+     * @param addresses addresses
+     */
+    private void rebuild(final Session session, final List<String> addresses) {
+        stages.getWriteLock().lock();
+        try (Transaction transaction = session.beginTransaction()) {
+            rebuild(addresses, session::query);
+            transaction.commit();
+        } finally {
+            stages.getWriteLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the aggregates and the balance checkpoints of addresses in the current transaction (the caller holds
+     * the import write lock).
+     *
+     * @param addresses addresses
+     * @param runner    runs statements in the current transaction
+     */
+    public final void rebuild(final List<String> addresses, final CypherRunner runner) {
+        final Map<String, AddressAggregate> aggregates = new LinkedHashMap<>();
+        addresses.forEach(a -> aggregates.put(a, new AddressAggregate(a)));
+        final Map<String, Object> parameters = Map.of("addresses", addresses);
+        runner.run(RECEIVED, parameters).forEach(row -> aggregates.get((String) row.get("address"))
+                .addReceived(getAmount(row), row.get("tx"), ((Number) row.get("height")).intValue()));
+        runner.run(SENT, parameters).forEach(row -> aggregates.get((String) row.get("address"))
+                .addSent(getAmount(row), row.get("tx"), ((Number) row.get("height")).intValue()));
+        runner.run(SET_AGGREGATES, Map.of("rows", aggregates.values().stream().map(AddressAggregate::toParameters).collect(Collectors.toList())));
+        runner.run(DELETE_BALANCE_CHECKPOINTS, parameters);
+        runner.run(CREATE_BALANCE_CHECKPOINTS, Map.of("rows", aggregates.values()
+                .stream()
+                .flatMap(a -> a.toBalanceCheckpoints(balanceCheckpointInterval).stream())
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns the amount of a row in satoshis.
+     *
+     * @param row row (value in BTC or in satoshis in compact mode)
+     * @return amount in satoshis
+     */
+    private long getAmount(final Map<String, Object> row) {
+        return StorageEncoding.toSatoshis(StorageEncoding.decodeAmount(row.get("value")));
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.stage.BlockImportStage;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.oakinvest.b2g.util.converter.StorageEncoding.toSatoshis;
+
+/**
+ * Maintains the aggregates of the addresses (balance, totalReceived, totalSent in satoshis, txCount, firstSeenHeight
+ * and lastSeenHeight) : the deltas of a block are computed from the block in memory and applied in batches.
+ * <p>
+ * Aggregates are not mapped in BitcoinAddress (OGM would write back the values it loaded) : they are read with
+ * AddressRepository.findAggregatesByAddress().
+ * <p>
+ * The balance history is kept in BitcoinBalanceCheckpoint nodes : a checkpoint holds the balance before its height and
+ * the balance changes of the next blocks involving the address. The changes are appended to the last checkpoint of the
+ * address and a new one is started every interval changes, so the balance at a height is read from one checkpoint
+ * (AddressRepository.findBalanceAtHeight()).
+ * <p>
+ * In a distributed import (b2g.import.distributed.enabled=true), ranges are committed out of height order : the
+ * changes can't be appended to the checkpoints. The addresses are marked instead (checkpointsPending) and their
+ * aggregates and checkpoints are rebuilt by the stitching, once all the blocks up to the last one are imported ; until
+ * then, findBalanceAtHeight() doesn't count the blocks of these addresses imported since the last stitching.
+ */
+@Component
+@Order(AddressAggregatesStage.ORDER)
+@ConditionalOnProperty(name = "b2g.analytics.address-aggregates.enabled", havingValue = "true", matchIfMissing = true)
+public class AddressAggregatesStage implements BlockImportStage {
+
+    /**
+     * Stage order.
+     */
+    public static final int ORDER = 100;
+
+    /**
+     * Statement applying the deltas.
+     */
+    private static final String APPLY_DELTAS = "UNWIND $rows AS d "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = d.address "
+            + "SET a.totalReceived = coalesce(a.totalReceived, 0) + d.received, "
+            + "a.totalSent = coalesce(a.totalSent, 0) + d.sent, "
+            + "a.balance = coalesce(a.balance, 0) + d.received - d.sent, "
+            + "a.txCount = coalesce(a.txCount, 0) + d.txCount, "
+            + "a.firstSeenHeight = CASE WHEN a.firstSeenHeight IS NULL OR a.firstSeenHeight > d.firstSeenHeight THEN d.firstSeenHeight ELSE a.firstSeenHeight END, "
+            + "a.lastSeenHeight = CASE WHEN a.lastSeenHeight IS NULL OR a.lastSeenHeight < d.lastSeenHeight THEN d.lastSeenHeight ELSE a.lastSeenHeight END";
+
+    /**
+     * Statement appending the balance changes to the last checkpoint (or starting a new one when it is full).
+     */
+    private static final String APPLY_BALANCE_CHANGES = "UNWIND $rows AS d "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = d.address "
+            + "OPTIONAL MATCH (a)-[:BALANCE_CHECKPOINT]->(c:BitcoinBalanceCheckpoint) WHERE size(c.heights) < $interval "
+            + "FOREACH (x IN CASE WHEN c IS NULL THEN [1] ELSE [] END | "
+            + "CREATE (a)-[:BALANCE_CHECKPOINT]->(:BitcoinBalanceCheckpoint {height: d.lastSeenHeight, balance: a.balance - d.received + d.sent, "
+            + "heights: [d.lastSeenHeight], deltas: [d.received - d.sent]})) "
+            + "FOREACH (x IN CASE WHEN c IS NULL THEN [] ELSE [1] END | "
+            + "SET c.heights = c.heights + d.lastSeenHeight, c.deltas = c.deltas + (d.received - d.sent))";
+
+    /**
+     * Statement marking the addresses whose balance checkpoints must be rebuilt (distributed import).
+     */
+    private static final String MARK_CHECKPOINTS_PENDING = "UNWIND $rows AS d "
+            + "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = d.address "
+            + "SET a.checkpointsPending = true";
+
+    /**
+     * Number of balance changes in a checkpoint.
+     */
+    private final int balanceCheckpointInterval;
+
+    /**
+     * True if blocks are imported by several importers (out of height order).
+     */
+    private final boolean distributedImport;
+
+    /**
+     * Constructor.
+     *
+     * @param newBalanceCheckpointInterval number of balance changes in a checkpoint
+     * @param newDistributedImport         true if blocks are imported by several importers
+     */
+    public AddressAggregatesStage(@Value("${b2g.analytics.balance-checkpoints.interval:100}") final int newBalanceCheckpointInterval,
+                                  @Value("${b2g.import.distributed.enabled:false}") final boolean newDistributedImport) {
+        this.balanceCheckpointInterval = newBalanceCheckpointInterval;
+        this.distributedImport = newDistributedImport;
+    }
+
+    @Override
+    public final String getName() {
+        return "address aggregates";
+    }
+
+    @Override
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        final Map<String, AddressAggregate> deltas = new LinkedHashMap<>();
+        block.getTransactions().forEach(t -> {
+            // Outputs : received.
+            t.getOutputs().forEach(o -> o.getAddresses()
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .forEach(a -> deltas.computeIfAbsent(a, AddressAggregate::new).addReceived(toSatoshis(o.getValue()), t.getTxId(), block.getHeight())));
+
+            // Inputs : sent (unresolved inputs of the distributed import are counted by the stitching).
+            t.getInputs()
+                    .stream()
+                    .filter(i -> !i.isCoinbase() && i.getTransactionOutput() != null)
+                    .forEach(i -> {
+                        final BitcoinTransactionOutput origin = i.getTransactionOutput();
+                        origin.getAddresses()
+                                .stream()
+                                .filter(Objects::nonNull)
+                                .forEach(a -> deltas.computeIfAbsent(a, AddressAggregate::new).addSent(toSatoshis(origin.getValue()), t.getTxId(), block.getHeight()));
+                    });
+        });
+        final List<Map<String, Object>> rows = deltas.values().stream().map(AddressAggregate::toParameters).collect(Collectors.toList());
+        runner.runInBatches(APPLY_DELTAS, rows, Collections.emptyMap());
+        if (distributedImport) {
+            runner.runInBatches(MARK_CHECKPOINTS_PENDING, rows, Collections.emptyMap());
+        } else {
+            runner.runInBatches(APPLY_BALANCE_CHANGES, rows, Map.of("interval", balanceCheckpointInterval));
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.oakinvest.b2g.util.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flows between addresses being computed (a block delta or a rebuild), amounts in satoshis.
+ * <p>
+ * The value received by an output address is attributed to the input addresses in proportion to the value they spent
+ * in the transaction. Flows from an address to itself (change) are ignored.
+ */
+final class AddressFlows {
+
+    /**
+     * Flows (indexed by sender and recipient).
+     */
+    private final Map<List<String>, Flow> flows = new LinkedHashMap<>();
+
+    /**
+     * Adds the flows of a transaction.
+     *
+     * @param height  block height
+     * @param inputs  amount spent by each input address
+     * @param outputs amount received by each output address
+     */
+    void addTransaction(final int height, final Map<String, Long> inputs, final Map<String, Long> outputs) {
+        final long inputTotal = inputs.values().stream().mapToLong(Long::longValue).sum();
+        if (inputTotal > 0) {
+            inputs.forEach((sender, spent) -> outputs.forEach((recipient, received) -> {
+                final long amount = Math.round(received * ((double) spent / inputTotal));
+                if (!sender.equals(recipient) && amount > 0) {
+                    flows.computeIfAbsent(List.of(sender, recipient), k -> new Flow()).add(amount, height);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Returns the statement parameters.
+     *
+     * @return parameters of each flow (sender, recipient, amount, count, firstHeight, lastHeight)
+     */
+    List<Map<String, Object>> toParameters() {
+        final List<Map<String, Object>> rows = new ArrayList<>(flows.size());
+        flows.forEach((addresses, flow) -> {
+            final Map<String, Object> parameters = new HashMap<>();
+            parameters.put("sender", addresses.get(0));
+            parameters.put("recipient", addresses.get(1));
+            parameters.put("amount", flow.amount);
+            parameters.put("count", flow.count);
+            parameters.put("firstHeight", flow.firstHeight);
+            parameters.put("lastHeight", flow.lastHeight);
+            rows.add(parameters);
+        });
+        return rows;
+    }
+
+    /**
+     * Flow from an address to another.
+     */
+    private static final class Flow {
+
+        /**
+         * Amount sent.
+         */
+        private long amount;
+
+        /**
+         * Number of transactions.
+         */
+        private int count;
+
+        /**
+         * Height of the first transaction.
+         */
+        private int firstHeight = Integer.MAX_VALUE;
+
+        /**
+         * Height of the last transaction.
+         */
+        private int lastHeight = Integer.MIN_VALUE;
+
+        /**
+         * Adds a transaction.
+         *
+         * @param newAmount amount sent
+         * @param height    block height
+         */
+        private void add(final long newAmount, final int height) {
+            amount += newAmount;
+            count++;
+            firstHeight = Math.min(firstHeight, height);
+            lastHeight = Math.max(lastHeight, height);
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import com.oakinvest.b2g.util.job.MaintenanceJob;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the SENT_TO relationships of all the addresses from the graph (existing data). Senders are read in batches
+ * in the order of the address index and their outgoing flows are replaced. The stitching of a distributed import
+ * rebuilds the flows of the addresses spending in the inputs it links.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.analytics.address-flows.enabled", havingValue = "true", matchIfMissing = true)
+public class AddressFlowsRebuildJob implements MaintenanceJob {
+
+    /**
+     * Number of addresses rebuilt in a transaction.
+     */
+    private static final int ADDRESSES_PER_BATCH = 1000;
+
+    /**
+     * Query returning the next addresses.
+     */
+    private static final String NEXT_ADDRESSES = "MATCH (a:BitcoinAddress) WHERE a.address > $lastAddress "
+            + "RETURN a.address AS address ORDER BY a.address LIMIT $limit";
+
+    /**
+     * Transactions in which the addresses spent.
+     */
+    private static final String SPENDING_TRANSACTIONS = "MATCH (a:BitcoinAddress)-[:ADDRESS]->(:BitcoinTransactionInput)<-[:INPUTS]-(t:BitcoinTransaction) "
+            + "WHERE a.address IN $addresses WITH DISTINCT t ";
+
+    /**
+     * Query returning the amounts spent by the input addresses of the transactions.
+     */
+    private static final String INPUTS = SPENDING_TRANSACTIONS
+            + "MATCH (t)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "MATCH (t)-[:INPUTS]->(:BitcoinTransactionInput)<-[:TRANSACTION_OUTPUT]-(o:BitcoinTransactionOutput)<-[:ADDRESS]-(x:BitcoinAddress) "
+            + "RETURN id(t) AS tx, b.height AS height, x.address AS address, o.value AS value";
+
+    /**
+     * Query returning the amounts received by the output addresses of the transactions.
+     */
+    private static final String OUTPUTS = SPENDING_TRANSACTIONS
+            + "MATCH (t)-[:OUTPUTS]->(o:BitcoinTransactionOutput)<-[:ADDRESS]-(x:BitcoinAddress) "
+            + "RETURN id(t) AS tx, x.address AS address, o.value AS value";
+
+    /**
+     * Statement deleting the flows sent by the addresses.
+     */
+    private static final String DELETE_FLOWS = "UNWIND $addresses AS address "
+            + "MATCH (s:BitcoinAddress) USING INDEX s:BitcoinAddress(address) WHERE s.address = address "
+            + "MATCH (s)-[f:SENT_TO]->() DELETE f";
+
+    /**
+     * Statement creating the flows.
+     */
+    private static final String CREATE_FLOWS = "UNWIND $rows AS d "
+            + "MATCH (s:BitcoinAddress) USING INDEX s:BitcoinAddress(address) WHERE s.address = d.sender "
+            + "MATCH (r:BitcoinAddress) USING INDEX r:BitcoinAddress(address) WHERE r.address = d.recipient "
+            + "CREATE (s)-[:SENT_TO {amount: d.amount, count: d.count, firstHeight: d.firstHeight, lastHeight: d.lastHeight}]->(r)";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AddressFlowsRebuildJob.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     * @param newStages         import stages
+     */
+    public AddressFlowsRebuildJob(final SessionFactory newSessionFactory, final BlockImportStages newStages) {
+        this.sessionFactory = newSessionFactory;
+        this.stages = newStages;
+    }
+
+    @Override
+    public final String getName() {
+        return "rebuild-address-flows";
+    }
+
+    @Override
+    public final void run() {
+        final Session session = sessionFactory.openSession();
+        String lastAddress = "";
+        long rebuilt = 0;
+        boolean finished = false;
+        while (!finished) {
+            final List<String> addresses = new ArrayList<>();
+            session.query(NEXT_ADDRESSES, Map.of("lastAddress", lastAddress, "limit", ADDRESSES_PER_BATCH))
+                    .forEach(row -> addresses.add((String) row.get("address")));
+            if (addresses.isEmpty()) {
+                finished = true;
+            } else {
+                rebuild(session, addresses);
+                rebuilt += addresses.size();
+                lastAddress = addresses.get(addresses.size() - 1);
+                log.info(rebuilt + " address(es) flows rebuilt");
+            }
+            session.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the flows sent by addresses (a block can't be written at the same time).
+     *
+     * @param session   session
+     * @param addresses addresses
+     */
+    private void rebuild(final Session session, final List<String> addresses) {
+        stages.getWriteLock().lock();
+        try (Transaction transaction = session.beginTransaction()) {
+            rebuild(addresses, session::query);
+            transaction.commit();
+        } finally {
+            stages.getWriteLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the flows sent by addresses in the current transaction (the caller holds the import write lock).
+     *
+     * @param addresses addresses
+     * @param runner    runs statements in the current transaction
+     */
+    public final void rebuild(final List<String> addresses, final CypherRunner runner) {
+        final Map<String, Object> parameters = Map.of("addresses", addresses);
+        final Map<Object, Integer> heights = new HashMap<>();
+        final Map<Object, Map<String, Long>> inputs = new HashMap<>();
+        final Map<Object, Map<String, Long>> outputs = new HashMap<>();
+        runner.run(INPUTS, parameters).forEach(row -> {
+            heights.put(row.get("tx"), ((Number) row.get("height")).intValue());
+            inputs.computeIfAbsent(row.get("tx"), t -> new HashMap<>()).merge((String) row.get("address"), getAmount(row), Long::sum);
+        });
+        runner.run(OUTPUTS, parameters).forEach(row -> outputs.computeIfAbsent(row.get("tx"), t -> new HashMap<>())
+                .merge((String) row.get("address"), getAmount(row), Long::sum));
+
+        // Flows of the transactions, only the flows sent by the addresses are kept.
+        final AddressFlows flows = new AddressFlows();
+        inputs.forEach((tx, amounts) -> flows.addTransaction(heights.get(tx), amounts, outputs.getOrDefault(tx, Map.of())));
+        final Set<String> senders = new HashSet<>(addresses);
+        runner.run(DELETE_FLOWS, parameters);
+        runner.run(CREATE_FLOWS, Map.of("rows", flows.toParameters()
+                .stream()
+                .filter(f -> senders.contains(f.get("sender")))
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns the amount of a row in satoshis.
+     *
+     * @param row row (value in BTC or in satoshis in compact mode)
+     * @return amount in satoshis
+     */
+    private long getAmount(final Map<String, Object> row) {
+        return StorageEncoding.toSatoshis(StorageEncoding.decodeAmount(row.get("value")));
+    }
+
+}
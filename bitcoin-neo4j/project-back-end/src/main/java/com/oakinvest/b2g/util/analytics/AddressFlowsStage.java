@@ -0,0 +1,95 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.stage.BlockImportStage;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.oakinvest.b2g.util.converter.StorageEncoding.toSatoshis;
+
+/**
+ * Maintains the SENT_TO relationships between addresses (amount in satoshis, count, firstHeight and lastHeight) so
+ * that "who paid whom" queries don't go through the outputs, inputs and transactions : the deltas of a block are
+ * computed from the block in memory and applied in batches.
+ * <p>
+ * Transactions with inputs not linked yet (distributed import) are skipped : their flows are computed by the
+ * stitching.
+ */
+@Component
+@Order(AddressFlowsStage.ORDER)
+@ConditionalOnProperty(name = "b2g.analytics.address-flows.enabled", havingValue = "true", matchIfMissing = true)
+public class AddressFlowsStage implements BlockImportStage {
+
+    /**
+     * Stage order.
+     */
+    public static final int ORDER = 150;
+
+    /**
+     * Statement applying the deltas.
+     */
+    private static final String APPLY_DELTAS = "UNWIND $rows AS d "
+            + "MATCH (s:BitcoinAddress) USING INDEX s:BitcoinAddress(address) WHERE s.address = d.sender "
+            + "MATCH (r:BitcoinAddress) USING INDEX r:BitcoinAddress(address) WHERE r.address = d.recipient "
+            + "MERGE (s)-[f:SENT_TO]->(r) "
+            + "SET f.amount = coalesce(f.amount, 0) + d.amount, "
+            + "f.count = coalesce(f.count, 0) + d.count, "
+            + "f.firstHeight = CASE WHEN f.firstHeight IS NULL OR f.firstHeight > d.firstHeight THEN d.firstHeight ELSE f.firstHeight END, "
+            + "f.lastHeight = CASE WHEN f.lastHeight IS NULL OR f.lastHeight < d.lastHeight THEN d.lastHeight ELSE f.lastHeight END";
+
+    @Override
+    public final String getName() {
+        return "address flows";
+    }
+
+    @Override
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        final AddressFlows flows = new AddressFlows();
+        block.getTransactions()
+                .stream()
+                .filter(this::isLinked)
+                .forEach(t -> {
+                    final Map<String, Long> inputs = new HashMap<>();
+                    t.getInputs().forEach(i -> addAmounts(inputs, i.getTransactionOutput()));
+                    final Map<String, Long> outputs = new HashMap<>();
+                    t.getOutputs().forEach(o -> addAmounts(outputs, o));
+                    flows.addTransaction(block.getHeight(), inputs, outputs);
+                });
+        runner.runInBatches(APPLY_DELTAS, flows.toParameters(), Collections.emptyMap());
+    }
+
+    /**
+     * Returns true if the transaction is not a coinbase and all its inputs are linked to their origin output.
+     *
+     * @param transaction transaction
+     * @return true if the flows of the transaction can be computed
+     */
+    private boolean isLinked(final BitcoinTransaction transaction) {
+        return transaction.getInputs()
+                .stream()
+                .noneMatch(i -> i.isCoinbase() || i.getTransactionOutput() == null);
+    }
+
+    /**
+     * Adds the value of an output to the amount of each of its addresses.
+     *
+     * @param amounts amounts by address
+     * @param output  output
+     */
+    private void addAmounts(final Map<String, Long> amounts, final BitcoinTransactionOutput output) {
+        output.getAddresses()
+                .stream()
+                .filter(Objects::nonNull)
+                .forEach(a -> amounts.merge(a, toSatoshis(output.getValue()), Long::sum));
+    }
+
+}
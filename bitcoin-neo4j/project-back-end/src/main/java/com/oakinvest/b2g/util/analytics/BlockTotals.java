@@ -0,0 +1,88 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Total fees and total output of a block, in satoshis. The total fees are not known if the fee of a transaction isn't.
+ */
+public class BlockTotals {
+
+    /**
+     * Sum of the fees.
+     */
+    private long totalFees;
+
+    /**
+     * Sum of the outputs.
+     */
+    private long totalOutput;
+
+    /**
+     * True if the fee of a transaction is not known.
+     */
+    private boolean incomplete;
+
+    /**
+     * Adds the totals of a transaction.
+     *
+     * @param transaction transaction totals
+     */
+    public final void add(final TransactionTotals transaction) {
+        totalOutput += transaction.getOutputTotal();
+        if (transaction.getFee() != null) {
+            totalFees += transaction.getFee();
+        } else if (!transaction.isCoinbase()) {
+            incomplete = true;
+        }
+    }
+
+    /**
+     * Returns the sum of the fees.
+     *
+     * @return sum of the fees in satoshis (null if the fee of a transaction is not known)
+     */
+    public final Long getTotalFees() {
+        if (incomplete) {
+            return null;
+        } else {
+            return totalFees;
+        }
+    }
+
+    /**
+     * Returns the sum of the outputs.
+     *
+     * @return sum of the outputs in satoshis
+     */
+    public final long getTotalOutput() {
+        return totalOutput;
+    }
+
+    /**
+     * Sets the totals on a block.
+     *
+     * @param block block
+     */
+    public final void applyTo(final BitcoinBlock block) {
+        block.setTotalFees(getTotalFees());
+        block.setTotalOutput(getTotalOutput());
+    }
+
+    /**
+     * Returns the totals as statement parameters.
+     *
+     * @param id block node id
+     * @return parameters (id, totalFees, totalOutput)
+     */
+    public final Map<String, Object> toParameters(final Object id) {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
+        parameters.put("totalFees", getTotalFees());
+        parameters.put("totalOutput", getTotalOutput());
+        return parameters;
+    }
+
+}
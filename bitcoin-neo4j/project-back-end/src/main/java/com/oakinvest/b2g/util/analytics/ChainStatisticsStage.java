@@ -0,0 +1,133 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.domain.StatisticsPeriod;
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import com.oakinvest.b2g.util.stage.BlockImportStage;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Maintains the hourly and daily chain statistics (BitcoinStatistics nodes) : number of blocks and transactions, output
+ * volume and fees in satoshis, new addresses and active addresses. The active addresses are estimated with a
+ * HyperLogLog sketch stored on the node and merged with the addresses of each block.
+ * <p>
+ * Blocks are bucketed by their time. New addresses are the addresses without node when the block is saved. Fees are
+ * not counted for the blocks without total fees : in a distributed import, the stitching adds them once the inputs of
+ * the block are linked.
+ */
+@Component
+@Order(ChainStatisticsStage.ORDER)
+@ConditionalOnProperty(name = "b2g.analytics.chain-statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class ChainStatisticsStage implements BlockImportStage {
+
+    /**
+     * Stage order.
+     */
+    public static final int ORDER = 200;
+
+    /**
+     * Query returning the sketch of a period.
+     */
+    private static final String FIND_SKETCH = "MATCH (s:BitcoinStatistics) WHERE s.period = $period AND s.start = $start RETURN s.sketch AS sketch";
+
+    /**
+     * Statement adding a block to the statistics of a period.
+     */
+    private static final String ADD_BLOCK = "MERGE (s:BitcoinStatistics {period: $period, start: $start}) "
+            + "SET s.blockCount = coalesce(s.blockCount, 0) + 1, "
+            + "s.txCount = coalesce(s.txCount, 0) + $txCount, "
+            + "s.outputVolume = coalesce(s.outputVolume, 0) + $outputVolume, "
+            + "s.fees = coalesce(s.fees, 0) + $fees, "
+            + "s.newAddresses = coalesce(s.newAddresses, 0) + $newAddresses, "
+            + "s.activeAddresses = $activeAddresses, "
+            + "s.sketch = $sketch";
+
+    /**
+     * Statement adding fees to the statistics of a period.
+     */
+    private static final String ADD_FEES = "MATCH (s:BitcoinStatistics) WHERE s.period = $period AND s.start = $start "
+            + "SET s.fees = coalesce(s.fees, 0) + $fees";
+
+    /**
+     * Number of new addresses of the block being saved.
+     */
+    private long newAddresses;
+
+    @Override
+    public final String getName() {
+        return "chain statistics";
+    }
+
+    @Override
+    public final void beforeSave(final BitcoinBlock block) {
+        newAddresses = block.getTransactions()
+                .stream()
+                .flatMap(t -> t.getOutputs().stream())
+                .map(BitcoinTransactionOutput::getBitcoinAddress)
+                .filter(a -> a != null && a.getId() == null)
+                .map(BitcoinAddress::getAddress)
+                .distinct()
+                .count();
+    }
+
+    @Override
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        // Addresses receiving or sending in the block.
+        final Set<String> activeAddresses = new HashSet<>();
+        block.getTransactions().forEach(t -> {
+            t.getOutputs().forEach(o -> o.getAddresses().stream().filter(Objects::nonNull).forEach(activeAddresses::add));
+            t.getInputs()
+                    .stream()
+                    .filter(i -> i.getTransactionOutput() != null)
+                    .forEach(i -> i.getTransactionOutput().getAddresses().stream().filter(Objects::nonNull).forEach(activeAddresses::add));
+        });
+
+        for (StatisticsPeriod period : StatisticsPeriod.values()) {
+            final Map<String, Object> parameters = new HashMap<>();
+            parameters.put("period", period.name());
+            parameters.put("start", period.getStart(block.getTime()));
+
+            // The sketch of the block is merged with the sketch of the period.
+            final HyperLogLog sketch = new HyperLogLog(period.getSketchPrecision());
+            activeAddresses.forEach(sketch::add);
+            runner.run(FIND_SKETCH, parameters).forEach(row -> {
+                if (row.get("sketch") != null) {
+                    sketch.merge(new HyperLogLog(period.getSketchPrecision(), StorageEncoding.toBytes(row.get("sketch"))));
+                }
+            });
+
+            parameters.put("txCount", block.getTransactions().size());
+            parameters.put("outputVolume", Objects.requireNonNullElse(block.getTotalOutput(), 0L));
+            parameters.put("fees", Objects.requireNonNullElse(block.getTotalFees(), 0L));
+            parameters.put("newAddresses", newAddresses);
+            parameters.put("activeAddresses", sketch.estimate());
+            parameters.put("sketch", sketch.toBytes());
+            runner.run(ADD_BLOCK, parameters);
+        }
+    }
+
+    /**
+     * Adds the fees of a block applied without total fees (inputs linked by the stitching of a distributed import).
+     *
+     * @param time   block time
+     * @param fees   fees in satoshis
+     * @param runner runs statements in the current transaction
+     */
+    public final void addFees(final long time, final long fees, final CypherRunner runner) {
+        for (StatisticsPeriod period : StatisticsPeriod.values()) {
+            runner.run(ADD_FEES, Map.of("period", period.name(), "start", period.getStart(time), "fees", fees));
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.oakinvest.b2g.util.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct strings (2^precision one-byte registers, standard error of
+ * 1.04 / sqrt(2^precision)). Sketches with the same precision can be merged, so the sketch of a period is stored and
+ * merged with the sketch of each block.
+ */
+public class HyperLogLog {
+
+    /**
+     * FNV-1a 64 bits offset basis.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64 bits prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * First multiplier of the murmur3 finalizer.
+     */
+    private static final long FMIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+
+    /**
+     * Second multiplier of the murmur3 finalizer.
+     */
+    private static final long FMIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    /**
+     * Shift of the murmur3 finalizer.
+     */
+    private static final int FMIX_SHIFT = 33;
+
+    /**
+     * Bias correction constant (for 128 registers or more).
+     */
+    private static final double ALPHA = 0.7213;
+
+    /**
+     * Bias correction constant depending on the number of registers.
+     */
+    private static final double ALPHA_REGISTERS = 1.079;
+
+    /**
+     * Small range correction threshold (in number of registers).
+     */
+    private static final double SMALL_RANGE_THRESHOLD = 2.5;
+
+    /**
+     * Precision (number of bits of the hash used to select a register).
+     */
+    private final int precision;
+
+    /**
+     * Registers (highest rank seen).
+     */
+    private final byte[] registers;
+
+    /**
+     * Constructor for an empty sketch.
+     *
+     * @param newPrecision precision (between 4 and 16)
+     */
+    public HyperLogLog(final int newPrecision) {
+        this.precision = newPrecision;
+        this.registers = new byte[1 << newPrecision];
+    }
+
+    /**
+     * Constructor for a stored sketch.
+     *
+     * @param newPrecision precision
+     * @param newRegisters registers (a copy is made)
+     */
+    public HyperLogLog(final int newPrecision, final byte[] newRegisters) {
+        this(newPrecision);
+        if (newRegisters.length != registers.length) {
+            throw new IllegalArgumentException("Expected " + registers.length + " registers, found " + newRegisters.length);
+        }
+        System.arraycopy(newRegisters, 0, registers, 0, registers.length);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value value
+     */
+    public final void add(final String value) {
+        final long hash = hash(value);
+        final int index = (int) (hash >>> (Long.SIZE - precision));
+        // A guard bit limits the rank when all the remaining bits are 0.
+        final long remaining = (hash << precision) | (1L << (precision - 1));
+        final byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Merges another sketch in this one.
+     *
+     * @param other sketch with the same precision
+     */
+    public final void merge(final HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Precisions " + precision + " and " + other.precision + " can't be merged");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct values.
+     *
+     * @return estimate
+     */
+    public final long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = ALPHA / (1 + ALPHA_REGISTERS / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= SMALL_RANGE_THRESHOLD * m && zeros > 0) {
+            // Linear counting for small cardinalities.
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns a copy of the registers (to be stored).
+     *
+     * @return registers
+     */
+    public final byte[] toBytes() {
+        return Arrays.copyOf(registers, registers.length);
+    }
+
+    /**
+     * Returns the 64 bits hash of a value (FNV-1a mixed by the murmur3 finalizer).
+     *
+     * @param value value
+     * @return hash
+     */
+    private static long hash(final String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> FMIX_SHIFT;
+        hash *= FMIX_MULTIPLIER_1;
+        hash ^= hash >>> FMIX_SHIFT;
+        hash *= FMIX_MULTIPLIER_2;
+        hash ^= hash >>> FMIX_SHIFT;
+        return hash;
+    }
+
+}
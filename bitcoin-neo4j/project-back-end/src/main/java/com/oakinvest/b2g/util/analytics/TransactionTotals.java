@@ -0,0 +1,241 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.oakinvest.b2g.util.converter.StorageEncoding.isExact;
+import static com.oakinvest.b2g.util.converter.StorageEncoding.toSatoshis;
+
+/**
+ * Input total, output total, fee and fee rate of a transaction (amounts in satoshis, fee rate in satoshis per virtual
+ * byte). A coinbase has no input total and no fee ; neither has a transaction spending an output not imported yet nor
+ * a transaction with an amount stored as a float by a previous version (see StorageEncoding.isExact).
+ */
+public class TransactionTotals {
+
+    /**
+     * Sum of the inputs.
+     */
+    private long inputTotal;
+
+    /**
+     * Sum of the outputs.
+     */
+    private long outputTotal;
+
+    /**
+     * True if the transaction is a coinbase.
+     */
+    private boolean coinbase;
+
+    /**
+     * True if an origin output is not known.
+     */
+    private boolean incomplete;
+
+    /**
+     * True if an amount is not exact.
+     */
+    private boolean inexact;
+
+    /**
+     * Size.
+     */
+    private final int size;
+
+    /**
+     * Virtual size (0 if core doesn't give it).
+     */
+    private final int vSize;
+
+    /**
+     * Constructor.
+     *
+     * @param newSize  size
+     * @param newVSize virtual size (0 if core doesn't give it)
+     */
+    public TransactionTotals(final int newSize, final int newVSize) {
+        this.size = newSize;
+        this.vSize = newVSize;
+    }
+
+    /**
+     * Computes the totals of a transaction from its outputs and the origin outputs of its inputs.
+     *
+     * @param transaction transaction (inputs linked)
+     * @return totals
+     */
+    public static TransactionTotals of(final BitcoinTransaction transaction) {
+        final TransactionTotals totals = new TransactionTotals(transaction.getSize(), transaction.getvSize());
+        transaction.getOutputs().forEach(o -> totals.addOutput(o.getValue()));
+        transaction.getInputs().forEach(i -> {
+            if (i.isCoinbase()) {
+                totals.setCoinbase();
+            } else if (i.getTransactionOutput() == null) {
+                totals.addUnknownInput();
+            } else {
+                totals.addInput(i.getTransactionOutput().getValue());
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Adds an output.
+     *
+     * @param amount amount in satoshis
+     */
+    public final void addOutput(final long amount) {
+        outputTotal += amount;
+    }
+
+    /**
+     * Adds an input.
+     *
+     * @param amount amount of the origin output in satoshis
+     */
+    public final void addInput(final long amount) {
+        inputTotal += amount;
+    }
+
+    /**
+     * Adds an output.
+     *
+     * @param amount amount in BTC
+     */
+    public final void addOutput(final BigDecimal amount) {
+        checkExact(amount);
+        addOutput(toSatoshis(amount));
+    }
+
+    /**
+     * Adds an input.
+     *
+     * @param amount amount of the origin output in BTC
+     */
+    public final void addInput(final BigDecimal amount) {
+        checkExact(amount);
+        addInput(toSatoshis(amount));
+    }
+
+    /**
+     * Adds an input whose origin output is not known.
+     */
+    public final void addUnknownInput() {
+        incomplete = true;
+    }
+
+    /**
+     * Marks the transaction as a coinbase.
+     */
+    public final void setCoinbase() {
+        coinbase = true;
+    }
+
+    /**
+     * Returns true if the transaction is a coinbase.
+     *
+     * @return true if the transaction is a coinbase
+     */
+    public final boolean isCoinbase() {
+        return coinbase;
+    }
+
+    /**
+     * Returns the sum of the inputs.
+     *
+     * @return sum of the inputs in satoshis (null for a coinbase, if an origin output is not known or if an amount is
+     * not exact)
+     */
+    public final Long getInputTotal() {
+        if (coinbase || incomplete || inexact) {
+            return null;
+        } else {
+            return inputTotal;
+        }
+    }
+
+    /**
+     * Returns the sum of the outputs.
+     *
+     * @return sum of the outputs in satoshis
+     */
+    public final long getOutputTotal() {
+        return outputTotal;
+    }
+
+    /**
+     * Returns the fee.
+     *
+     * @return fee in satoshis (null for a coinbase, if an origin output is not known or if an amount is not exact)
+     */
+    public final Long getFee() {
+        final Long total = getInputTotal();
+        if (total == null) {
+            return null;
+        } else {
+            return total - outputTotal;
+        }
+    }
+
+    /**
+     * Returns the fee rate (the size is used if core doesn't give the virtual size).
+     *
+     * @return fee rate in satoshis per virtual byte (null if there is no fee)
+     */
+    public final Double getFeeRate() {
+        final Long fee = getFee();
+        int weightedSize = vSize;
+        if (weightedSize <= 0) {
+            weightedSize = size;
+        }
+        if (fee == null || weightedSize <= 0) {
+            return null;
+        } else {
+            return (double) fee / weightedSize;
+        }
+    }
+
+    /**
+     * Marks the totals as inexact if an amount is not a whole number of satoshis.
+     *
+     * @param amount amount in BTC
+     */
+    private void checkExact(final BigDecimal amount) {
+        if (!isExact(amount)) {
+            inexact = true;
+        }
+    }
+
+    /**
+     * Sets the totals on a transaction.
+     *
+     * @param transaction transaction
+     */
+    public final void applyTo(final BitcoinTransaction transaction) {
+        transaction.setInputTotal(getInputTotal());
+        transaction.setOutputTotal(getOutputTotal());
+        transaction.setFee(getFee());
+        transaction.setFeeRate(getFeeRate());
+    }
+
+    /**
+     * Returns the totals as statement parameters.
+     *
+     * @param id transaction node id
+     * @return parameters (id, inputTotal, outputTotal, fee, feeRate)
+     */
+    public final Map<String, Object> toParameters(final Object id) {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
+        parameters.put("inputTotal", getInputTotal());
+        parameters.put("outputTotal", getOutputTotal());
+        parameters.put("fee", getFee());
+        parameters.put("feeRate", getFeeRate());
+        return parameters;
+    }
+
+}
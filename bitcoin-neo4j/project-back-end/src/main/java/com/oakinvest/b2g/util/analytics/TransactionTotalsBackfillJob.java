@@ -0,0 +1,242 @@
+package com.oakinvest.b2g.util.analytics;
+
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import com.oakinvest.b2g.util.executors.ParallelTasks;
+import com.oakinvest.b2g.util.job.MaintenanceJob;
+import com.oakinvest.b2g.util.providers.ExecutorsProvider;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the transaction and block totals of the blocks imported before they were computed by the import. The
+ * blocks whose inputs are linked by the stitching of a distributed import are computed again by the stitching.
+ * <p>
+ * Ranges of blocks are read and computed in parallel by the I/O workers. The writes hold the import write lock.
+ */
+@Component
+public class TransactionTotalsBackfillJob implements MaintenanceJob {
+
+    /**
+     * Number of blocks processed in a transaction.
+     */
+    private static final int BLOCKS_PER_BATCH = 100;
+
+    /**
+     * Query returning the highest block height.
+     */
+    private static final String LAST_BLOCK_HEIGHT = "MATCH (b:BitcoinBlock) RETURN max(b.height) AS height";
+
+    /**
+     * Query returning the transactions of the blocks matched with their output values and the values of the origin
+     * outputs of their inputs (null if not linked).
+     */
+    private static final String TRANSACTIONS_OF_BLOCKS = "MATCH (b)<-[:TRANSACTIONS]-(t:BitcoinTransaction) "
+            + "RETURN id(b) AS block, id(t) AS transaction, t.size AS size, t.vsize AS vsize, "
+            + "size([(t)-[:INPUTS]->(i:BitcoinTransactionInput) WHERE i.coinbase IS NOT NULL | i]) > 0 AS coinbase, "
+            + "[(t)-[:OUTPUTS]->(o:BitcoinTransactionOutput) | o.value] AS outputs, "
+            + "[(t)-[:INPUTS]->(i:BitcoinTransactionInput) WHERE i.coinbase IS NULL | head([(o:BitcoinTransactionOutput)-[:TRANSACTION_OUTPUT]->(i) | o.value])] AS inputs";
+
+    /**
+     * Query returning the transactions of a range of blocks.
+     */
+    private static final String TRANSACTIONS_IN_RANGE = "MATCH (b:BitcoinBlock) WHERE b.height >= $from AND b.height < $to " + TRANSACTIONS_OF_BLOCKS;
+
+    /**
+     * Query returning the transactions of blocks.
+     */
+    private static final String TRANSACTIONS_AT_HEIGHTS = "MATCH (b:BitcoinBlock) WHERE b.height IN $heights " + TRANSACTIONS_OF_BLOCKS;
+
+    /**
+     * Statement setting the transaction totals.
+     */
+    private static final String SET_TRANSACTION_TOTALS = "UNWIND $rows AS r "
+            + "MATCH (t:BitcoinTransaction) WHERE id(t) = r.id "
+            + "SET t.inputTotal = r.inputTotal, t.outputTotal = r.outputTotal, t.fee = r.fee, t.feeRate = r.feeRate";
+
+    /**
+     * Statement setting the block totals.
+     */
+    private static final String SET_BLOCK_TOTALS = "UNWIND $rows AS r "
+            + "MATCH (b:BitcoinBlock) WHERE id(b) = r.id "
+            + "SET b.totalFees = r.totalFees, b.totalOutput = r.totalOutput";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(TransactionTotalsBackfillJob.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Executors.
+     */
+    private final ExecutorsProvider executors;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     * @param newExecutors      executors
+     * @param newStages         import stages
+     */
+    public TransactionTotalsBackfillJob(final SessionFactory newSessionFactory, final ExecutorsProvider newExecutors, final BlockImportStages newStages) {
+        this.sessionFactory = newSessionFactory;
+        this.executors = newExecutors;
+        this.stages = newStages;
+    }
+
+    @Override
+    public final String getName() {
+        return "backfill-transaction-totals";
+    }
+
+    @Override
+    public final void run() {
+        final Object lastBlockHeight = sessionFactory.openSession()
+                .query(LAST_BLOCK_HEIGHT, Collections.emptyMap())
+                .iterator()
+                .next()
+                .get("height");
+        if (lastBlockHeight == null) {
+            log.info("No block to backfill");
+            return;
+        }
+        final List<Integer> batches = new ArrayList<>();
+        for (int from = 0; from <= ((Number) lastBlockHeight).intValue(); from += BLOCKS_PER_BATCH) {
+            batches.add(from);
+        }
+        final AtomicInteger processedBatches = new AtomicInteger();
+        ParallelTasks.forEach(executors.getIoExecutor(), batches, from -> {
+            backfill(from, from + BLOCKS_PER_BATCH);
+            log.info(processedBatches.incrementAndGet() + "/" + batches.size() + " range(s) of blocks backfilled");
+        });
+    }
+
+    /**
+     * Computes and sets the totals of blocks in the current transaction (the caller holds the import write lock).
+     *
+     * @param heights block heights
+     * @param runner  runs statements in the current transaction
+     */
+    public final void backfill(final Collection<Integer> heights, final CypherRunner runner) {
+        final Map<Object, BlockTotals> blocks = new LinkedHashMap<>();
+        final List<Map<String, Object>> transactions = computeTotals(runner.run(TRANSACTIONS_AT_HEIGHTS, Map.of("heights", heights)), blocks);
+        setTotals(transactions, blocks, runner);
+    }
+
+    /**
+     * Computes and sets the totals of a range of blocks.
+     *
+     * @param from first block height
+     * @param to   block height after the last one
+     */
+    private void backfill(final int from, final int to) {
+        final Session session = sessionFactory.openSession();
+        final Map<Object, BlockTotals> blocks = new LinkedHashMap<>();
+        final List<Map<String, Object>> transactions = computeTotals(session.query(TRANSACTIONS_IN_RANGE, Map.of("from", from, "to", to)), blocks);
+
+        // A block can't be written at the same time.
+        stages.getWriteLock().lock();
+        try (Transaction transaction = session.beginTransaction()) {
+            setTotals(transactions, blocks, session::query);
+            transaction.commit();
+        } finally {
+            stages.getWriteLock().unlock();
+            session.clear();
+        }
+    }
+
+    /**
+     * Computes the totals of transactions.
+     *
+     * @param rows   transactions (rows of TRANSACTIONS_OF_BLOCKS)
+     * @param blocks totals of the blocks (by block node id), filled with the transactions
+     * @return totals of the transactions, as statement parameters
+     */
+    private List<Map<String, Object>> computeTotals(final Iterable<Map<String, Object>> rows, final Map<Object, BlockTotals> blocks) {
+        final List<Map<String, Object>> transactions = new ArrayList<>();
+        rows.forEach(row -> {
+            final TransactionTotals totals = new TransactionTotals(getInt(row.get("size")), getInt(row.get("vsize")));
+            for (Object value : (Object[]) row.get("outputs")) {
+                totals.addOutput(getAmount(value));
+            }
+            if (Boolean.TRUE.equals(row.get("coinbase"))) {
+                totals.setCoinbase();
+            }
+            for (Object value : (Object[]) row.get("inputs")) {
+                if (value == null) {
+                    totals.addUnknownInput();
+                } else {
+                    totals.addInput(getAmount(value));
+                }
+            }
+            transactions.add(totals.toParameters(row.get("transaction")));
+            blocks.computeIfAbsent(row.get("block"), b -> new BlockTotals()).add(totals);
+        });
+        return transactions;
+    }
+
+    /**
+     * Sets the totals of transactions and blocks.
+     *
+     * @param transactions totals of the transactions
+     * @param blocks       totals of the blocks (by block node id)
+     * @param runner       runs statements in the current transaction
+     */
+    private void setTotals(final List<Map<String, Object>> transactions, final Map<Object, BlockTotals> blocks, final CypherRunner runner) {
+        runner.run(SET_TRANSACTION_TOTALS, Map.of("rows", transactions));
+        runner.run(SET_BLOCK_TOTALS, Map.of("rows", blocks.entrySet()
+                .stream()
+                .map(b -> b.getValue().toParameters(b.getKey()))
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns an amount in BTC.
+     *
+     * @param value value stored (in BTC or in satoshis in compact mode)
+     * @return amount in BTC
+     */
+    private BigDecimal getAmount(final Object value) {
+        return StorageEncoding.decodeAmount(value);
+    }
+
+    /**
+     * Returns an integer property (0 if it's not set).
+     *
+     * @param value value stored
+     * @return integer
+     */
+    private int getInt(final Object value) {
+        if (value == null) {
+            return 0;
+        } else {
+            return ((Number) value).intValue();
+        }
+    }
+
+}
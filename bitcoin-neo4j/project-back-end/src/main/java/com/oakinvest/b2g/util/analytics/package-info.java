@@ -0,0 +1,4 @@
+/**
+ * Analytics maintained by the import.
+ */
+package com.oakinvest.b2g.util.analytics;
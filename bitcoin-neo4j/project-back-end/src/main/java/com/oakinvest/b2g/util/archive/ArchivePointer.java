@@ -0,0 +1,52 @@
+package com.oakinvest.b2g.util.archive;
+
+/**
+ * Position of an archived transaction : segment number and offset of the record in the segment.
+ */
+public final class ArchivePointer {
+
+    /**
+     * Segment number.
+     */
+    private final int segment;
+
+    /**
+     * Offset of the record in the segment.
+     */
+    private final long offset;
+
+    /**
+     * Constructor.
+     *
+     * @param newSegment segment number
+     * @param newOffset  offset of the record in the segment
+     */
+    public ArchivePointer(final int newSegment, final long newOffset) {
+        this.segment = newSegment;
+        this.offset = newOffset;
+    }
+
+    /**
+     * Getter of segment.
+     *
+     * @return segment
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Getter of offset.
+     *
+     * @return offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return segment + ":" + offset;
+    }
+
+}
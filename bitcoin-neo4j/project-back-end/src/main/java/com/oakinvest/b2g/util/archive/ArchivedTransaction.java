@@ -0,0 +1,155 @@
+package com.oakinvest.b2g.util.archive;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Raw data of a transaction kept in the archive : hex and scripts (in the vin and vout order).
+ */
+public final class ArchivedTransaction {
+
+    /**
+     * Transaction id.
+     */
+    private final String txId;
+
+    /**
+     * The serialized, hex-encoded data.
+     */
+    private final String hex;
+
+    /**
+     * Script asm of the inputs.
+     */
+    private final List<String> scriptSigAsm = new ArrayList<>();
+
+    /**
+     * Script hex of the inputs.
+     */
+    private final List<String> scriptSigHex = new ArrayList<>();
+
+    /**
+     * Script asm of the outputs.
+     */
+    private final List<String> scriptPubKeyAsm = new ArrayList<>();
+
+    /**
+     * Script hex of the outputs.
+     */
+    private final List<String> scriptPubKeyHex = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param newTxId transaction id
+     * @param newHex  serialized, hex-encoded data
+     */
+    public ArchivedTransaction(final String newTxId, final String newHex) {
+        this.txId = newTxId;
+        this.hex = newHex;
+    }
+
+    /**
+     * Creates the archived data of a transaction retrieved from core.
+     *
+     * @param transaction transaction from core
+     * @return archived transaction
+     */
+    public static ArchivedTransaction of(final GetRawTransactionResult transaction) {
+        final ArchivedTransaction archivedTransaction = new ArchivedTransaction(transaction.getTxid(), transaction.getHex());
+        transaction.getVin().forEach(vin -> {
+            if (vin.getScriptSig() != null) {
+                archivedTransaction.addInputScript(vin.getScriptSig().getAsm(), vin.getScriptSig().getHex());
+            } else {
+                archivedTransaction.addInputScript(null, null);
+            }
+        });
+        transaction.getVout().forEach(vout -> {
+            if (vout.getScriptPubKey() != null) {
+                archivedTransaction.addOutputScript(vout.getScriptPubKey().getAsm(), vout.getScriptPubKey().getHex());
+            } else {
+                archivedTransaction.addOutputScript(null, null);
+            }
+        });
+        return archivedTransaction;
+    }
+
+    /**
+     * Adds the script of the next input.
+     *
+     * @param scriptAsm script asm
+     * @param scriptHex script hex
+     */
+    public void addInputScript(final String scriptAsm, final String scriptHex) {
+        scriptSigAsm.add(scriptAsm);
+        scriptSigHex.add(scriptHex);
+    }
+
+    /**
+     * Adds the script of the next output.
+     *
+     * @param scriptAsm script asm
+     * @param scriptHex script hex
+     */
+    public void addOutputScript(final String scriptAsm, final String scriptHex) {
+        scriptPubKeyAsm.add(scriptAsm);
+        scriptPubKeyHex.add(scriptHex);
+    }
+
+    /**
+     * Getter of txId.
+     *
+     * @return txId
+     */
+    public String getTxId() {
+        return txId;
+    }
+
+    /**
+     * Getter of hex.
+     *
+     * @return hex
+     */
+    public String getHex() {
+        return hex;
+    }
+
+    /**
+     * Getter of scriptSigAsm.
+     *
+     * @return script asm of the inputs
+     */
+    public List<String> getScriptSigAsm() {
+        return scriptSigAsm;
+    }
+
+    /**
+     * Getter of scriptSigHex.
+     *
+     * @return script hex of the inputs
+     */
+    public List<String> getScriptSigHex() {
+        return scriptSigHex;
+    }
+
+    /**
+     * Getter of scriptPubKeyAsm.
+     *
+     * @return script asm of the outputs
+     */
+    public List<String> getScriptPubKeyAsm() {
+        return scriptPubKeyAsm;
+    }
+
+    /**
+     * Getter of scriptPubKeyHex.
+     *
+     * @return script hex of the outputs
+     */
+    public List<String> getScriptPubKeyHex() {
+        return scriptPubKeyHex;
+    }
+
+}
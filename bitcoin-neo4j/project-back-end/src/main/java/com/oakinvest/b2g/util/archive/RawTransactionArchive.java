@@ -0,0 +1,354 @@
+package com.oakinvest.b2g.util.archive;
+
+import com.oakinvest.b2g.util.exception.ArchiveException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archive of the raw transaction data (hex and scripts) kept out of neo4j.
+ * <p>
+ * Transactions are written in append-only segment files (segment-000000.dat, segment-000001.dat...), each record being
+ * deflated : [compressed length][raw length][compressed data]. A new segment is started when the current one is
+ * bigger than the segment size. The transaction node keeps the pointer (segment, offset) to its record and records are
+ * read with memory-mapped segments.
+ * <p>
+ * Transactions are archived when their block is prepared, so a block imported again (after an error) leaves an
+ * unreferenced record behind.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.import.profile", havingValue = "ARCHIVE")
+public class RawTransactionArchive {
+
+    /**
+     * Segment file name format.
+     */
+    private static final String SEGMENT_FILE_NAME = "segment-%06d.dat";
+
+    /**
+     * Segment file name prefix.
+     */
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+
+    /**
+     * Segment file name suffix.
+     */
+    private static final String SEGMENT_FILE_SUFFIX = ".dat";
+
+    /**
+     * Record header size (compressed length and raw length).
+     */
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * Length written for a null string.
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(RawTransactionArchive.class);
+
+    /**
+     * Archive directory.
+     */
+    private final Path directory;
+
+    /**
+     * Size from which a new segment is started (segments are mapped so it must be lower than 2 Gb).
+     */
+    private final long segmentSize;
+
+    /**
+     * Memory-mapped segments (indexed by segment number).
+     */
+    private final Map<Integer, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+
+    /**
+     * Segment being written.
+     */
+    private int currentSegment;
+
+    /**
+     * Channel of the segment being written.
+     */
+    private FileChannel currentChannel;
+
+    /**
+     * Size of the segment being written.
+     */
+    private long currentSize;
+
+    /**
+     * Constructor : opens the last segment of the archive.
+     *
+     * @param newDirectory   archive directory
+     * @param newSegmentSize size from which a new segment is started
+     */
+    public RawTransactionArchive(@Value("${b2g.archive.directory:archive}") final String newDirectory, @Value("${b2g.archive.segment-size:268435456}") final long newSegmentSize) {
+        this.directory = Paths.get(newDirectory);
+        this.segmentSize = newSegmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                currentSegment = files.map(f -> f.getFileName().toString())
+                        .filter(f -> f.startsWith(SEGMENT_FILE_PREFIX) && f.endsWith(SEGMENT_FILE_SUFFIX))
+                        .mapToInt(f -> Integer.parseInt(f.substring(SEGMENT_FILE_PREFIX.length(), f.length() - SEGMENT_FILE_SUFFIX.length())))
+                        .max()
+                        .orElse(0);
+            }
+            openSegment(currentSegment);
+            log.info("Raw transaction archive opened in " + directory.toAbsolutePath() + " (segment " + currentSegment + ")");
+        } catch (IOException e) {
+            throw new ArchiveException("Error while opening the archive in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Appends a transaction to the archive.
+     *
+     * @param transaction raw transaction data
+     * @return pointer to the record
+     */
+    public final ArchivePointer append(final ArchivedTransaction transaction) {
+        // Serialization and compression outside of the lock.
+        final byte[] raw = serialize(transaction);
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            final byte[] buffer = new byte[raw.length + RECORD_HEADER_SIZE];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + compressed.size());
+        record.putInt(compressed.size()).putInt(raw.length).put(compressed.toByteArray()).flip();
+
+        synchronized (this) {
+            try {
+                if (currentSize >= segmentSize) {
+                    currentChannel.close();
+                    currentSegment++;
+                    openSegment(currentSegment);
+                }
+                final ArchivePointer pointer = new ArchivePointer(currentSegment, currentSize);
+                while (record.hasRemaining()) {
+                    currentSize += currentChannel.write(record);
+                }
+                return pointer;
+            } catch (IOException e) {
+                throw new ArchiveException("Error while archiving transaction " + transaction.getTxId(), e);
+            }
+        }
+    }
+
+    /**
+     * Reads a transaction from the archive.
+     *
+     * @param pointer pointer to the record
+     * @return raw transaction data
+     */
+    public final ArchivedTransaction read(final ArchivePointer pointer) {
+        final int offset = (int) pointer.getOffset();
+        try {
+            final ByteBuffer header = getMappedSegment(pointer.getSegment(), offset + RECORD_HEADER_SIZE).duplicate();
+            header.position(offset);
+            final int compressedLength = header.getInt();
+            final int rawLength = header.getInt();
+            final ByteBuffer data = getMappedSegment(pointer.getSegment(), offset + RECORD_HEADER_SIZE + compressedLength).duplicate();
+            data.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + compressedLength);
+
+            final Inflater inflater = new Inflater();
+            final byte[] raw = new byte[rawLength];
+            try {
+                inflater.setInput(data);
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    length += inflater.inflate(raw, length, rawLength - length);
+                }
+            } finally {
+                inflater.end();
+            }
+            return deserialize(raw);
+        } catch (IOException | DataFormatException e) {
+            throw new ArchiveException("Error while reading the archive at " + pointer, e);
+        }
+    }
+
+    /**
+     * Flushes and closes the segment being written.
+     */
+    @PreDestroy
+    public final void close() {
+        synchronized (this) {
+            try {
+                currentChannel.force(true);
+                currentChannel.close();
+            } catch (IOException e) {
+                log.error("Error while closing the archive : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Opens a segment for writing.
+     *
+     * @param segment segment number
+     * @throws IOException error
+     */
+    private void openSegment(final int segment) throws IOException {
+        currentChannel = FileChannel.open(getSegmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentSize = currentChannel.size();
+    }
+
+    /**
+     * Returns a segment mapped in memory, the segment being mapped again if it has grown since it was mapped.
+     *
+     * @param segment segment number
+     * @param end     position that must be mapped
+     * @return mapped segment
+     * @throws IOException error
+     */
+    private MappedByteBuffer getMappedSegment(final int segment, final int end) throws IOException {
+        MappedByteBuffer mappedSegment = mappedSegments.get(segment);
+        if (mappedSegment == null || mappedSegment.capacity() < end) {
+            try (FileChannel channel = FileChannel.open(getSegmentPath(segment), StandardOpenOption.READ)) {
+                mappedSegment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedSegments.put(segment, mappedSegment);
+        }
+        return mappedSegment;
+    }
+
+    /**
+     * Returns the path of a segment.
+     *
+     * @param segment segment number
+     * @return path
+     */
+    private Path getSegmentPath(final int segment) {
+        return directory.resolve(String.format(SEGMENT_FILE_NAME, segment));
+    }
+
+    /**
+     * Serializes a transaction.
+     *
+     * @param transaction transaction
+     * @return serialized transaction
+     */
+    private byte[] serialize(final ArchivedTransaction transaction) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            writeString(output, transaction.getTxId());
+            writeString(output, transaction.getHex());
+            writeScripts(output, transaction.getScriptSigAsm(), transaction.getScriptSigHex());
+            writeScripts(output, transaction.getScriptPubKeyAsm(), transaction.getScriptPubKeyHex());
+        } catch (IOException e) {
+            throw new ArchiveException("Error while serializing transaction " + transaction.getTxId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a transaction.
+     *
+     * @param raw serialized transaction
+     * @return transaction
+     * @throws IOException error
+     */
+    private ArchivedTransaction deserialize(final byte[] raw) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(raw))) {
+            final ArchivedTransaction transaction = new ArchivedTransaction(readString(input), readString(input));
+            final int inputs = input.readInt();
+            for (int i = 0; i < inputs; i++) {
+                transaction.addInputScript(readString(input), readString(input));
+            }
+            final int outputs = input.readInt();
+            for (int i = 0; i < outputs; i++) {
+                transaction.addOutputScript(readString(input), readString(input));
+            }
+            return transaction;
+        }
+    }
+
+    /**
+     * Writes scripts (asm and hex).
+     *
+     * @param output output
+     * @param asm    scripts asm
+     * @param hex    scripts hex
+     * @throws IOException error
+     */
+    private void writeScripts(final DataOutputStream output, final List<String> asm, final List<String> hex) throws IOException {
+        output.writeInt(asm.size());
+        for (int i = 0; i < asm.size(); i++) {
+            writeString(output, asm.get(i));
+            writeString(output, hex.get(i));
+        }
+    }
+
+    /**
+     * Writes a string (writeUTF is limited to 64 Kb, transactions can be bigger).
+     *
+     * @param output output
+     * @param value  string
+     * @throws IOException error
+     */
+    private void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param input input
+     * @return string
+     * @throws IOException error
+     */
+    private String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        } else {
+            final byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Raw transaction archive.
+ */
+package com.oakinvest.b2g.util.archive;
@@ -2,6 +2,7 @@ package com.oakinvest.b2g.util.buffer;
 
 import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResult;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -26,6 +27,16 @@ public class BitcoinDataServiceBuffer {
      */
     private final Map<String, GetRawTransactionResult> transactionsBuffer = new ConcurrentHashMap<>();
 
+    /**
+     * Constructor : the size of the buffers is published as metrics.
+     *
+     * @param newMetrics metrics
+     */
+    public BitcoinDataServiceBuffer(final PipelineMetrics newMetrics) {
+        newMetrics.registerBuffer(PipelineMetrics.BLOCK_BUFFER, blocksBuffer);
+        newMetrics.registerBuffer(PipelineMetrics.TRANSACTION_BUFFER, transactionsBuffer);
+    }
+
     /**
      * Purge the buffer of useless data.
      *
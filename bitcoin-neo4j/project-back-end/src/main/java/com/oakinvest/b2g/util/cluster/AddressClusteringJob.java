@@ -0,0 +1,103 @@
+package com.oakinvest.b2g.util.cluster;
+
+import com.oakinvest.b2g.util.job.MaintenanceJob;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Applies to the address clusters the blocks of the graph after the last checkpoint (all the blocks the first time),
+ * until the clusters are up to date with the import.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.analytics.clustering.enabled", havingValue = "true")
+public class AddressClusteringJob implements MaintenanceJob {
+
+    /**
+     * Number of blocks applied in a transaction.
+     */
+    private static final int BLOCKS_PER_BATCH = 100;
+
+    /**
+     * Query returning the highest block height.
+     */
+    private static final String LAST_BLOCK_HEIGHT = "MATCH (b:BitcoinBlock) RETURN max(b.height) AS height";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AddressClusteringJob.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Address clusters.
+     */
+    private final AddressClusters clusters;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     * @param newStages         import stages
+     * @param newClusters       address clusters
+     */
+    public AddressClusteringJob(final SessionFactory newSessionFactory, final BlockImportStages newStages, final AddressClusters newClusters) {
+        this.sessionFactory = newSessionFactory;
+        this.stages = newStages;
+        this.clusters = newClusters;
+    }
+
+    @Override
+    public final String getName() {
+        return "cluster-addresses";
+    }
+
+    @Override
+    public final void run() {
+        final Session session = sessionFactory.openSession();
+        boolean finished = false;
+        while (!finished) {
+            // A block can't be written at the same time.
+            stages.getWriteLock().lock();
+            try {
+                final Object lastBlockHeight = session.query(LAST_BLOCK_HEIGHT, Collections.emptyMap()).iterator().next().get("height");
+                final int from = clusters.getAppliedHeight() + 1;
+                if (lastBlockHeight == null || from > ((Number) lastBlockHeight).intValue()) {
+                    clusters.checkpoint();
+                    finished = true;
+                } else {
+                    final int to = Math.min(from + BLOCKS_PER_BATCH - 1, ((Number) lastBlockHeight).intValue());
+                    try (Transaction transaction = session.beginTransaction()) {
+                        clusters.addBlocksFromGraph(from, to, session::query);
+                        transaction.commit();
+                        clusters.commit();
+                    } finally {
+                        // The unions of a batch not committed are discarded : the batch will be applied again.
+                        clusters.rollback();
+                    }
+                    log.info("Address clusters applied up to block " + to);
+                }
+            } finally {
+                stages.getWriteLock().unlock();
+                session.clear();
+            }
+        }
+    }
+
+}
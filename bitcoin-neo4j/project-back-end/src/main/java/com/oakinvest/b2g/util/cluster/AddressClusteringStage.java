@@ -0,0 +1,98 @@
+package com.oakinvest.b2g.util.cluster;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionInput;
+import com.oakinvest.b2g.util.stage.BlockImportStage;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Adds the transactions of each block to the address clusters (b2g.analytics.clustering.enabled=true).
+ * <p>
+ * The blocks imported since the last checkpoint (lost by a crash) are applied again from the graph before the block.
+ * If more blocks are missing (clustering enabled on an existing graph), the cluster-addresses job must be run.
+ */
+@Component
+@Order(AddressClusteringStage.ORDER)
+@ConditionalOnProperty(name = "b2g.analytics.clustering.enabled", havingValue = "true")
+public class AddressClusteringStage implements BlockImportStage {
+
+    /**
+     * Stage order.
+     */
+    public static final int ORDER = 300;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AddressClusteringStage.class);
+
+    /**
+     * Address clusters.
+     */
+    private final AddressClusters clusters;
+
+    /**
+     * True once the missing blocks have been reported.
+     */
+    private boolean missingBlocksReported;
+
+    /**
+     * Constructor.
+     *
+     * @param newClusters address clusters
+     */
+    public AddressClusteringStage(final AddressClusters newClusters) {
+        this.clusters = newClusters;
+    }
+
+    @Override
+    public final String getName() {
+        return "address clustering";
+    }
+
+    @Override
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        final int missingBlocks = block.getHeight() - clusters.getAppliedHeight() - 1;
+        if (missingBlocks > 0 && missingBlocks <= clusters.getCheckpointInterval()) {
+            log.info("Applying blocks " + (clusters.getAppliedHeight() + 1) + " to " + (block.getHeight() - 1) + " to the address clusters");
+            clusters.addBlocksFromGraph(clusters.getAppliedHeight() + 1, block.getHeight() - 1, runner);
+        } else if (missingBlocks > 0 && !missingBlocksReported) {
+            log.warn("Address clusters are only complete up to block " + clusters.getAppliedHeight() + ", run the cluster-addresses job");
+            missingBlocksReported = true;
+        }
+
+        final List<long[]> transactions = block.getTransactions()
+                .stream()
+                .map(t -> t.getInputs()
+                        .stream()
+                        .map(BitcoinTransactionInput::getBitcoinAddress)
+                        .filter(Objects::nonNull)
+                        .mapToLong(BitcoinAddress::getId)
+                        .distinct()
+                        .toArray())
+                .filter(addresses -> addresses.length > 0)
+                .collect(Collectors.toList());
+        clusters.addBlock(block.getHeight(), transactions, runner);
+    }
+
+    @Override
+    public final void afterCommit() {
+        clusters.commit();
+    }
+
+    @Override
+    public final void afterRollback() {
+        clusters.rollback();
+    }
+
+}
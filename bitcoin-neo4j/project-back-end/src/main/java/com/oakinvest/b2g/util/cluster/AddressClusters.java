@@ -0,0 +1,381 @@
+package com.oakinvest.b2g.util.cluster;
+
+import com.oakinvest.b2g.util.exception.ClusteringException;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Address clusters built with the common-input-ownership heuristic : all the addresses spending in a transaction
+ * belong to the same entity. The sets of addresses (by address node id) are kept in an off-heap union-find and each
+ * set is written as a BitcoinCluster node (clusterId is the id of the root address) linked to its addresses by
+ * IN_CLUSTER relationships.
+ * <p>
+ * The unions of the blocks applied in a transaction are kept in a journal (and an in-memory overlay answering the
+ * lookups of the following blocks) : they reach the union-find on commit and are discarded on rollback, as the
+ * address ids of a transaction rolled back are reused by Neo4j. Unions are idempotent, so a block can be applied again
+ * (after an import error or a crash) : the cluster nodes are written from the union-find, the members of a cluster
+ * merged into another one being moved to it. A checkpoint, written after a commit every checkpoint interval blocks,
+ * saves the union-find file and the height up to which all the blocks are committed ; after a crash, the blocks after
+ * the checkpoint are applied again.
+ * <p>
+ * Not thread safe : used with the import write lock.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.analytics.clustering.enabled", havingValue = "true")
+public class AddressClusters {
+
+    /**
+     * Union-find file name.
+     */
+    private static final String UNION_FIND_FILE = "union-find.dat";
+
+    /**
+     * Checkpoint file name.
+     */
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * Query returning the addresses spending in the transactions of a range of blocks.
+     */
+    private static final String INPUT_ADDRESSES = "MATCH (b:BitcoinBlock) WHERE b.height >= $from AND b.height <= $to "
+            + "MATCH (b)<-[:TRANSACTIONS]-(t:BitcoinTransaction)-[:INPUTS]->(:BitcoinTransactionInput)<-[:ADDRESS]-(a:BitcoinAddress) "
+            + "WITH b, t, collect(DISTINCT id(a)) AS addresses "
+            + "RETURN b.height AS height, addresses";
+
+    /**
+     * Statement moving the members of the clusters merged into another one.
+     */
+    private static final String MOVE_MERGED_CLUSTERS = "UNWIND $rows AS r "
+            + "MATCH (a:BitcoinAddress)-[:IN_CLUSTER]->(old:BitcoinCluster) WHERE id(a) = r.address AND old.clusterId <> r.cluster "
+            + "WITH DISTINCT old, r.cluster AS cluster "
+            + "MERGE (c:BitcoinCluster {clusterId: cluster}) "
+            + "WITH old, c "
+            + "MATCH (m:BitcoinAddress)-[link:IN_CLUSTER]->(old) "
+            + "DELETE link "
+            + "MERGE (m)-[:IN_CLUSTER]->(c) "
+            + "WITH DISTINCT old "
+            + "DETACH DELETE old";
+
+    /**
+     * Statement linking the addresses to their cluster.
+     */
+    private static final String LINK_ADDRESSES = "UNWIND $rows AS r "
+            + "MATCH (a:BitcoinAddress) WHERE id(a) = r.address "
+            + "MERGE (c:BitcoinCluster {clusterId: r.cluster}) "
+            + "MERGE (a)-[:IN_CLUSTER]->(c) "
+            + "SET c.size = r.size";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(AddressClusters.class);
+
+    /**
+     * Union-find of the address ids.
+     */
+    private final OffHeapUnionFind unionFind;
+
+    /**
+     * Checkpoint file.
+     */
+    private final Path checkpointFile;
+
+    /**
+     * Number of blocks between two checkpoints.
+     */
+    private final int checkpointInterval;
+
+    /**
+     * Height up to which all the blocks are committed (-1 if none).
+     */
+    private int committedHeight;
+
+    /**
+     * Height up to which all the blocks are applied, the blocks not committed yet included (-1 if none).
+     */
+    private int appliedHeight;
+
+    /**
+     * Blocks committed since the last checkpoint.
+     */
+    private int blocksSinceCheckpoint;
+
+    /**
+     * Unions not committed yet (first id, second id), in the order they were made.
+     */
+    private final List<long[]> pendingUnions = new ArrayList<>();
+
+    /**
+     * Parents of the roots merged by the unions not committed yet.
+     */
+    private final Map<Long, Long> pendingParents = new HashMap<>();
+
+    /**
+     * Sizes of the roots grown by the unions not committed yet.
+     */
+    private final Map<Long, Long> pendingSizes = new HashMap<>();
+
+    /**
+     * Constructor : opens the union-find and reads the checkpoint.
+     *
+     * @param newDirectory          directory of the union-find and checkpoint files
+     * @param newCheckpointInterval number of blocks between two checkpoints
+     */
+    public AddressClusters(@Value("${b2g.analytics.clustering.directory:clusters}") final String newDirectory, @Value("${b2g.analytics.clustering.checkpoint-interval:1000}") final int newCheckpointInterval) {
+        final Path directory = Paths.get(newDirectory);
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        this.checkpointInterval = newCheckpointInterval;
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(checkpointFile)) {
+                committedHeight = Integer.parseInt(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim());
+            } else {
+                committedHeight = -1;
+            }
+            appliedHeight = committedHeight;
+        } catch (IOException e) {
+            throw new ClusteringException("Error while reading the checkpoint in " + directory.toAbsolutePath(), e);
+        }
+        this.unionFind = new OffHeapUnionFind(directory.resolve(UNION_FIND_FILE));
+        log.info("Address clusters opened in " + directory.toAbsolutePath() + " (blocks applied up to " + appliedHeight + ")");
+    }
+
+    /**
+     * Applies the transactions of a block : the addresses spending in a transaction are merged in one cluster (the
+     * unions reach the union-find when the block transaction is committed).
+     *
+     * @param height       block height
+     * @param transactions address ids spending in each transaction of the block
+     * @param runner       runs statements in the block transaction
+     */
+    public final void addBlock(final int height, final Collection<long[]> transactions, final CypherRunner runner) {
+        final Set<Long> spendingAddresses = new LinkedHashSet<>();
+        for (long[] addresses : transactions) {
+            for (int i = 1; i < addresses.length; i++) {
+                union(addresses[0], addresses[i]);
+            }
+            for (long address : addresses) {
+                spendingAddresses.add(address);
+            }
+        }
+        final List<Map<String, Object>> rows = new ArrayList<>(spendingAddresses.size());
+        spendingAddresses.forEach(address -> {
+            final Map<String, Object> row = new HashMap<>();
+            row.put("address", address);
+            final long cluster = find(address);
+            row.put("cluster", cluster);
+            row.put("size", getSize(cluster));
+            rows.add(row);
+        });
+        runner.runInBatches(MOVE_MERGED_CLUSTERS, rows, Map.of());
+        runner.runInBatches(LINK_ADDRESSES, rows, Map.of());
+
+        if (height == appliedHeight + 1) {
+            appliedHeight = height;
+        }
+    }
+
+    /**
+     * Applies the unions of the blocks applied since the last commit to the union-find (called once their transaction
+     * is committed) and writes a checkpoint every checkpoint interval blocks.
+     */
+    public final void commit() {
+        // The union-find takes the same decisions as the overlay : the roots written in the graph are its roots.
+        pendingUnions.forEach(union -> unionFind.union(union[0], union[1]));
+        clearPendingUnions();
+        blocksSinceCheckpoint += appliedHeight - committedHeight;
+        committedHeight = appliedHeight;
+        if (blocksSinceCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Discards the unions of the blocks applied since the last commit (called when their transaction is rolled back
+     * or not committed) : these blocks will be applied again.
+     */
+    public final void rollback() {
+        if (appliedHeight != committedHeight || !pendingUnions.isEmpty()) {
+            log.info("Address clusters rolled back to block " + committedHeight);
+        }
+        clearPendingUnions();
+        appliedHeight = committedHeight;
+    }
+
+    /**
+     * Applies a range of blocks already in the graph.
+     *
+     * @param from   first block height
+     * @param to     last block height
+     * @param runner runs statements in the current transaction
+     */
+    public final void addBlocksFromGraph(final int from, final int to, final CypherRunner runner) {
+        final Map<Integer, List<long[]>> blocks = new HashMap<>();
+        runner.run(INPUT_ADDRESSES, Map.of("from", from, "to", to))
+                .forEach(row -> blocks.computeIfAbsent(((Number) row.get("height")).intValue(), h -> new ArrayList<>()).add(toIds(row.get("addresses"))));
+        for (int height = from; height <= to; height++) {
+            addBlock(height, blocks.getOrDefault(height, List.of()), runner);
+        }
+    }
+
+    /**
+     * Saves the union-find and the height up to which the blocks are committed.
+     */
+    public final void checkpoint() {
+        unionFind.force();
+        try {
+            final Path temporaryFile = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temporaryFile, Integer.toString(committedHeight), StandardCharsets.UTF_8);
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ClusteringException("Error while writing the checkpoint", e);
+        }
+        blocksSinceCheckpoint = 0;
+        log.info("Address clusters checkpoint at block " + committedHeight);
+    }
+
+    /**
+     * Writes a checkpoint (of the committed blocks only) and closes the union-find.
+     */
+    @PreDestroy
+    public final void close() {
+        checkpoint();
+        unionFind.close();
+    }
+
+    /**
+     * Returns the cluster id of an address.
+     *
+     * @param addressId address node id
+     * @return cluster id (id of the root address)
+     */
+    public final long getClusterId(final long addressId) {
+        return find(addressId);
+    }
+
+    /**
+     * Getter of appliedHeight.
+     *
+     * @return height up to which all the blocks are applied, the blocks not committed yet included (-1 if none)
+     */
+    public final int getAppliedHeight() {
+        return appliedHeight;
+    }
+
+    /**
+     * Getter of committedHeight.
+     *
+     * @return height up to which all the blocks are committed (-1 if none)
+     */
+    public final int getCommittedHeight() {
+        return committedHeight;
+    }
+
+    /**
+     * Getter of checkpointInterval.
+     *
+     * @return number of blocks between two checkpoints
+     */
+    public final int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Returns the root of the set of an id, the unions not committed yet included.
+     *
+     * @param id id
+     * @return root id
+     */
+    private long find(final long id) {
+        long root = unionFind.find(id);
+        Long parent = pendingParents.get(root);
+        while (parent != null) {
+            root = parent;
+            parent = pendingParents.get(root);
+        }
+        return root;
+    }
+
+    /**
+     * Returns the size of a set, the unions not committed yet included.
+     *
+     * @param root root id
+     * @return number of elements
+     */
+    private long getSize(final long root) {
+        final Long size = pendingSizes.get(root);
+        if (size == null) {
+            return unionFind.size(root);
+        } else {
+            return size;
+        }
+    }
+
+    /**
+     * Merges the sets of two ids in the overlay and journals the union (union by size, as the union-find does).
+     *
+     * @param first  first id
+     * @param second second id
+     */
+    private void union(final long first, final long second) {
+        long root = find(first);
+        long other = find(second);
+        if (root == other) {
+            return;
+        }
+        if (getSize(root) < getSize(other)) {
+            final long smaller = root;
+            root = other;
+            other = smaller;
+        }
+        pendingSizes.put(root, getSize(root) + getSize(other));
+        pendingParents.put(other, root);
+        pendingUnions.add(new long[]{first, second});
+    }
+
+    /**
+     * Clears the journal and the overlay.
+     */
+    private void clearPendingUnions() {
+        pendingUnions.clear();
+        pendingParents.clear();
+        pendingSizes.clear();
+    }
+
+    /**
+     * Returns ids read from a list value (array with OGM, list with the embedded database).
+     *
+     * @param value value read
+     * @return ids
+     */
+    @SuppressWarnings("unchecked")
+    private long[] toIds(final Object value) {
+        final Collection<Object> ids;
+        if (value instanceof Object[]) {
+            ids = List.of((Object[]) value);
+        } else {
+            ids = (Collection<Object>) value;
+        }
+        return ids.stream().mapToLong(id -> ((Number) id).longValue()).toArray();
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.oakinvest.b2g.util.cluster;
+
+import com.oakinvest.b2g.util.exception.ClusteringException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Union-find (disjoint sets) of long ids stored in a memory-mapped file : nothing is kept on the heap.
+ * <p>
+ * Each id has a 16 bytes entry at the offset id * 16 : parent + 1 and set size - 1, so that an entry never written
+ * (0, 0) is a set of one element. The file is mapped by regions, created when an id is first used, and is sparse on
+ * the file systems supporting it. Sets are merged by size and paths are halved when they are followed.
+ * <p>
+ * Not thread safe.
+ */
+public class OffHeapUnionFind {
+
+    /**
+     * Size of an entry (parent and size).
+     */
+    private static final int ENTRY_SIZE = Long.BYTES * 2;
+
+    /**
+     * Number of bits of the index of an entry in its region.
+     */
+    private static final int REGION_BITS = 22;
+
+    /**
+     * Number of entries of a region (64 Mb regions).
+     */
+    private static final long ENTRIES_PER_REGION = 1L << REGION_BITS;
+
+    /**
+     * File channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Regions mapped (null if not mapped yet).
+     */
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    /**
+     * Constructor : opens or creates the file.
+     *
+     * @param file file
+     */
+    public OffHeapUnionFind(final Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new ClusteringException("Error while opening " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Returns the root of the set of an id.
+     *
+     * @param id id
+     * @return root id
+     */
+    public final long find(final long id) {
+        long current = id;
+        long parent = getParent(current);
+        while (parent != current) {
+            // Path halving : the element is linked to its grandparent.
+            final long grandParent = getParent(parent);
+            setParent(current, grandParent);
+            current = grandParent;
+            parent = getParent(current);
+        }
+        return current;
+    }
+
+    /**
+     * Merges the sets of two ids.
+     *
+     * @param first  first id
+     * @param second second id
+     * @return root of the merged set
+     */
+    public final long union(final long first, final long second) {
+        long root = find(first);
+        long other = find(second);
+        if (root == other) {
+            return root;
+        }
+        if (getSize(root) < getSize(other)) {
+            final long smaller = root;
+            root = other;
+            other = smaller;
+        }
+        setParent(other, root);
+        setSize(root, getSize(root) + getSize(other));
+        return root;
+    }
+
+    /**
+     * Returns the size of a set.
+     *
+     * @param id id of an element of the set
+     * @return number of elements
+     */
+    public final long size(final long id) {
+        return getSize(find(id));
+    }
+
+    /**
+     * Writes the mapped regions to the file.
+     */
+    public final void force() {
+        regions.stream().filter(r -> r != null).forEach(MappedByteBuffer::force);
+    }
+
+    /**
+     * Writes the mapped regions and closes the file.
+     */
+    public final void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ClusteringException("Error while closing the union-find file", e);
+        }
+    }
+
+    /**
+     * Returns the parent of an id.
+     *
+     * @param id id
+     * @return parent (the id itself for a root)
+     */
+    private long getParent(final long id) {
+        final long value = getRegion(id).getLong(getOffset(id));
+        if (value == 0) {
+            return id;
+        } else {
+            return value - 1;
+        }
+    }
+
+    /**
+     * Sets the parent of an id.
+     *
+     * @param id     id
+     * @param parent parent
+     */
+    private void setParent(final long id, final long parent) {
+        getRegion(id).putLong(getOffset(id), parent + 1);
+    }
+
+    /**
+     * Returns the size stored for a root.
+     *
+     * @param root root
+     * @return size
+     */
+    private long getSize(final long root) {
+        return getRegion(root).getLong(getOffset(root) + Long.BYTES) + 1;
+    }
+
+    /**
+     * Sets the size of a root.
+     *
+     * @param root root
+     * @param size size
+     */
+    private void setSize(final long root, final long size) {
+        getRegion(root).putLong(getOffset(root) + Long.BYTES, size - 1);
+    }
+
+    /**
+     * Returns the offset of an entry in its region.
+     *
+     * @param id id
+     * @return offset
+     */
+    private int getOffset(final long id) {
+        return (int) (id & (ENTRIES_PER_REGION - 1)) * ENTRY_SIZE;
+    }
+
+    /**
+     * Returns the region of an id, mapped if needed (the file grows to contain it).
+     *
+     * @param id id
+     * @return region
+     */
+    private MappedByteBuffer getRegion(final long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        final int index = (int) (id >>> REGION_BITS);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        if (region == null) {
+            try {
+                region = channel.map(FileChannel.MapMode.READ_WRITE, index * ENTRIES_PER_REGION * ENTRY_SIZE, ENTRIES_PER_REGION * ENTRY_SIZE);
+            } catch (IOException e) {
+                throw new ClusteringException("Error while mapping region " + index + " of the union-find file", e);
+            }
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Address clustering (common-input-ownership heuristic).
+ */
+package com.oakinvest.b2g.util.cluster;
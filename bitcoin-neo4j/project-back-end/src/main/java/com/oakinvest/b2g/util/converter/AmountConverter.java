@@ -0,0 +1,22 @@
+package com.oakinvest.b2g.util.converter;
+
+import org.neo4j.ogm.typeconversion.AttributeConverter;
+
+import java.math.BigDecimal;
+
+/**
+ * Converts an amount in BTC to its graph encoding (long satoshis in compact mode).
+ */
+public class AmountConverter implements AttributeConverter<BigDecimal, Object> {
+
+    @Override
+    public final Object toGraphProperty(final BigDecimal value) {
+        return StorageEncoding.encodeAmount(value);
+    }
+
+    @Override
+    public final BigDecimal toEntityAttribute(final Object value) {
+        return StorageEncoding.decodeAmount(value);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.oakinvest.b2g.util.converter;
+
+import org.neo4j.ogm.typeconversion.AttributeConverter;
+
+/**
+ * Converts a hash (hexadecimal string) to its graph encoding (a byte array in compact mode).
+ */
+public class HashConverter implements AttributeConverter<String, Object> {
+
+    @Override
+    public final Object toGraphProperty(final String value) {
+        return StorageEncoding.encodeHash(value);
+    }
+
+    @Override
+    public final String toEntityAttribute(final Object value) {
+        return StorageEncoding.decodeHash(value);
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.oakinvest.b2g.util.converter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+
+/**
+ * Encoding of hashes and amounts in the graph.
+ * <p>
+ * By default, hashes are stored as hexadecimal strings and amounts as floating point numbers (BTC). In compact mode
+ * (b2g.storage.compact=true), hashes are stored as byte arrays (32 bytes instead of 64 chars) and amounts as long
+ * satoshis. Amounts are exact decimals (BTC) in the domain, except the ones stored as floats by a previous version.
+ * <p>
+ * Lookups with a hash only use the encoding of the current mode so a store can't be switched from one mode to the
+ * other : the application refuses to start when the store was written with the other mode (see
+ * {@link #isCompactHash(Object)}).
+ * <p>
+ * The mode is static because OGM instantiates the converters itself ; it's set once at startup.
+ */
+public final class StorageEncoding {
+
+    /**
+     * Number of decimals of an amount in BTC.
+     */
+    private static final int BITCOIN_SCALE = 8;
+
+    /**
+     * Hexadecimal radix.
+     */
+    private static final int HEXADECIMAL = 16;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEXADECIMAL_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Number of bits in a hexadecimal digit.
+     */
+    private static final int BITS_PER_DIGIT = 4;
+
+    /**
+     * Mask of a hexadecimal digit.
+     */
+    private static final int DIGIT_MASK = 0x0F;
+
+    /**
+     * True if the compact mode is enabled.
+     */
+    private static volatile boolean compact = false;
+
+    /**
+     * Private constructor.
+     */
+    private StorageEncoding() {
+    }
+
+    /**
+     * Returns true if the compact mode is enabled.
+     *
+     * @return compact
+     */
+    public static boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Enables or disables the compact mode.
+     *
+     * @param newCompact true to enable the compact mode
+     */
+    public static void setCompact(final boolean newCompact) {
+        compact = newCompact;
+    }
+
+    /**
+     * Encodes a hash (hexadecimal string) for the graph.
+     *
+     * @param hash hash
+     * @return hexadecimal string or byte array in compact mode
+     */
+    public static Object encodeHash(final String hash) {
+        if (compact && hash != null) {
+            final byte[] bytes = new byte[hash.length() / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) ((Character.digit(hash.charAt(2 * i), HEXADECIMAL) << BITS_PER_DIGIT) + Character.digit(hash.charAt(2 * i + 1), HEXADECIMAL));
+            }
+            return bytes;
+        } else {
+            return hash;
+        }
+    }
+
+    /**
+     * Decodes a hash read from the graph.
+     *
+     * @param value hexadecimal string or byte array (a list of bytes when read by OGM)
+     * @return hash (hexadecimal string)
+     */
+    public static String decodeHash(final Object value) {
+        if (value instanceof byte[] || value instanceof Collection) {
+            final byte[] bytes = toBytes(value);
+            final char[] hash = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                hash[2 * i] = HEXADECIMAL_DIGITS[(bytes[i] >> BITS_PER_DIGIT) & DIGIT_MASK];
+                hash[2 * i + 1] = HEXADECIMAL_DIGITS[bytes[i] & DIGIT_MASK];
+            }
+            return new String(hash);
+        } else if (value != null) {
+            return value.toString();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the mode used to write a hash read from the graph.
+     *
+     * @param value hexadecimal string or byte array (a list of bytes when read by OGM)
+     * @return true if the hash was written in compact mode
+     */
+    public static boolean isCompactHash(final Object value) {
+        return value instanceof byte[] || value instanceof Collection;
+    }
+
+    /**
+     * Returns the bytes of a byte array property (OGM and the bolt driver give a list of bytes).
+     *
+     * @param value byte array or list of bytes
+     * @return bytes
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] toBytes(final Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        } else {
+            final Collection<Number> list = (Collection<Number>) value;
+            final byte[] bytes = new byte[list.size()];
+            int i = 0;
+            for (Number b : list) {
+                bytes[i++] = b.byteValue();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Encodes an amount (BTC) for the graph.
+     *
+     * @param amount amount in BTC
+     * @return amount in BTC or in satoshis in compact mode
+     */
+    public static Object encodeAmount(final BigDecimal amount) {
+        if (compact && amount != null) {
+            return toSatoshis(amount);
+        } else if (amount != null) {
+            return amount.doubleValue();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if an amount is a whole number of satoshis (false for an amount stored as a float by a previous
+     * version : the fees and totals computed from it would be wrong).
+     *
+     * @param amount amount in BTC
+     * @return true if the amount is exact
+     */
+    public static boolean isExact(final BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= BITCOIN_SCALE;
+    }
+
+    /**
+     * Converts an amount in BTC to satoshis (used by the analytics, whatever the mode).
+     *
+     * @param amount amount in BTC
+     * @return amount in satoshis
+     */
+    public static long toSatoshis(final BigDecimal amount) {
+        return amount.movePointRight(BITCOIN_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Decodes an amount read from the graph.
+     *
+     * @param value amount in BTC (floating point number) or in satoshis (long)
+     * @return amount in BTC
+     */
+    public static BigDecimal decodeAmount(final Object value) {
+        if (value instanceof Long || value instanceof Integer) {
+            return BigDecimal.valueOf(((Number) value).longValue(), BITCOIN_SCALE);
+        } else if (value != null) {
+            // A double written from an exact amount reads back with at most 8 decimals ; more decimals mean it was
+            // written from a float by a previous version and the amount is kept as read (see isExact).
+            final BigDecimal amount = BigDecimal.valueOf(((Number) value).doubleValue());
+            if (isExact(amount)) {
+                return amount.setScale(BITCOIN_SCALE, RoundingMode.UNNECESSARY);
+            } else {
+                return amount;
+            }
+        } else {
+            return null;
+        }
+    }
+
+}
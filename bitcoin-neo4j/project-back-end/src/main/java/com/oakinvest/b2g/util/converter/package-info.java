@@ -0,0 +1,4 @@
+/**
+ * Neo4j property converters.
+ */
+package com.oakinvest.b2g.util.converter;
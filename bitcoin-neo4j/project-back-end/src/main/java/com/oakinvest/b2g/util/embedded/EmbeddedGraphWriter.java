@@ -0,0 +1,256 @@
+package com.oakinvest.b2g.util.embedded;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.metadata.ClassInfo;
+import org.neo4j.ogm.metadata.FieldInfo;
+import org.neo4j.ogm.metadata.MetaData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes domain entities to an embedded database with the core API (no bolt and no cypher).
+ * <p>
+ * Labels, property names, converters and relationships are read from the OGM metadata of the domain classes so the
+ * graph has the same shape as the one written by OGM. Entities with an id are considered as saved : their
+ * relationships to new entities are created but they are neither updated nor traversed. The ids of the new entities
+ * are set so that the following saves (and the OGM sessions) see them as saved.
+ * <p>
+ * All the saves between two commits are written in the same transaction. Not thread safe.
+ */
+public class EmbeddedGraphWriter {
+
+    /**
+     * Embedded database.
+     */
+    private final GraphDatabaseService database;
+
+    /**
+     * OGM metadata of the domain classes.
+     */
+    private final MetaData metaData;
+
+    /**
+     * Current transaction.
+     */
+    private Transaction transaction;
+
+    /**
+     * Nodes of the entities created by the current save.
+     */
+    private final Map<Object, Node> createdNodes = new IdentityHashMap<>();
+
+    /**
+     * Nodes of the saved entities reached by the current save.
+     */
+    private final Map<Object, Node> savedNodes = new IdentityHashMap<>();
+
+    /**
+     * Relationships created by the current save (start node id, type, end node id).
+     */
+    private final Set<String> createdRelationships = new HashSet<>();
+
+    /**
+     * Number of entities written in the current transaction.
+     */
+    private long writtenEntities;
+
+    /**
+     * Constructor.
+     *
+     * @param newDatabase embedded database
+     * @param newMetaData OGM metadata of the domain classes
+     */
+    public EmbeddedGraphWriter(final GraphDatabaseService newDatabase, final MetaData newMetaData) {
+        this.database = newDatabase;
+        this.metaData = newMetaData;
+    }
+
+    /**
+     * Writes an entity and all the new entities reachable from it in the current transaction (started if needed).
+     *
+     * @param entity entity
+     */
+    public final void save(final Object entity) {
+        if (transaction == null) {
+            transaction = database.beginTx();
+        }
+        final Deque<Object> entitiesToSave = new ArrayDeque<>();
+        getNode(entity, entitiesToSave);
+
+        // New entities : properties and all their relationships.
+        while (!entitiesToSave.isEmpty()) {
+            final Object current = entitiesToSave.pop();
+            for (FieldInfo field : metaData.classInfo(current).relationshipFields()) {
+                for (Object related : getRelatedEntities(field, current)) {
+                    createRelationship(field, current, getNode(related, entitiesToSave));
+                }
+            }
+        }
+
+        // Saved entities : only their relationships to new entities (for example, the next block of the previous block).
+        savedNodes.keySet().forEach(saved -> metaData.classInfo(saved).relationshipFields()
+                .forEach(field -> getRelatedEntities(field, saved)
+                        .stream()
+                        .filter(createdNodes::containsKey)
+                        .forEach(related -> createRelationship(field, saved, createdNodes.get(related)))));
+
+        // The entities created now have an id : the next saves consider them as saved.
+        createdNodes.clear();
+        savedNodes.clear();
+        createdRelationships.clear();
+    }
+
+    /**
+     * Runs a statement in the current transaction (started if needed).
+     *
+     * @param query      cypher query
+     * @param parameters parameters
+     * @return rows returned by the statement
+     */
+    public final List<Map<String, Object>> execute(final String query, final Map<String, Object> parameters) {
+        if (transaction == null) {
+            transaction = database.beginTx();
+        }
+        final List<Map<String, Object>> rows = new ArrayList<>();
+        try (Result result = transaction.execute(query, parameters)) {
+            result.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    /**
+     * Commits the current transaction.
+     *
+     * @return number of entities written
+     */
+    public final long commit() {
+        final long written = writtenEntities;
+        if (transaction != null) {
+            try {
+                transaction.commit();
+            } finally {
+                reset();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Rollbacks the current transaction if it's not committed (the ids set during the transaction are invalid).
+     */
+    public final void rollback() {
+        if (transaction != null) {
+            try {
+                transaction.rollback();
+            } finally {
+                reset();
+            }
+        }
+    }
+
+    /**
+     * Returns the node of an entity : the existing node if the entity has an id or a new node with its properties.
+     * New entities are added to the entities to save.
+     *
+     * @param entity         entity
+     * @param entitiesToSave entities to save
+     * @return node
+     */
+    @SuppressWarnings("unchecked")
+    private Node getNode(final Object entity, final Deque<Object> entitiesToSave) {
+        Node node = createdNodes.get(entity);
+        if (node == null) {
+            node = savedNodes.get(entity);
+        }
+        if (node == null) {
+            final ClassInfo classInfo = metaData.classInfo(entity);
+            final Long id = (Long) classInfo.identityField().read(entity);
+            if (id != null) {
+                node = transaction.getNodeById(id);
+                savedNodes.put(entity, node);
+            } else {
+                node = transaction.createNode(classInfo.staticLabels().stream().map(Label::label).toArray(Label[]::new));
+                for (FieldInfo field : classInfo.propertyFields()) {
+                    final Object value = field.readProperty(entity);
+                    if (value instanceof Collection) {
+                        // The collections of the domain are collections of strings.
+                        node.setProperty(field.property(), ((Collection<Object>) value).stream().map(String::valueOf).toArray(String[]::new));
+                    } else if (value != null) {
+                        node.setProperty(field.property(), value);
+                    }
+                }
+                classInfo.identityField().write(entity, node.getId());
+                createdNodes.put(entity, node);
+                entitiesToSave.push(entity);
+                writtenEntities++;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the entities of a relationship field.
+     *
+     * @param field  relationship field
+     * @param entity entity
+     * @return related entities
+     */
+    @SuppressWarnings("unchecked")
+    private Collection<Object> getRelatedEntities(final FieldInfo field, final Object entity) {
+        final Object value = field.read(entity);
+        if (value == null) {
+            return Collections.emptySet();
+        } else if (value instanceof Collection) {
+            return (Collection<Object>) value;
+        } else {
+            return Collections.singleton(value);
+        }
+    }
+
+    /**
+     * Creates the relationship described by a relationship field if it was not created by the current save.
+     *
+     * @param field       relationship field
+     * @param entity      entity owning the field
+     * @param relatedNode node of the related entity
+     */
+    private void createRelationship(final FieldInfo field, final Object entity, final Node relatedNode) {
+        Node start = createdNodes.get(entity);
+        if (start == null) {
+            start = savedNodes.get(entity);
+        }
+        Node end = relatedNode;
+        if (Relationship.INCOMING.equals(field.relationshipDirection())) {
+            end = start;
+            start = relatedNode;
+        }
+        if (createdRelationships.add(start.getId() + field.relationshipType() + end.getId())) {
+            start.createRelationshipTo(end, RelationshipType.withName(field.relationshipType()));
+        }
+    }
+
+    /**
+     * Resets the transaction state.
+     */
+    private void reset() {
+        transaction.close();
+        transaction = null;
+        writtenEntities = 0;
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Embedded neo4j.
+ */
+package com.oakinvest.b2g.util.embedded;
@@ -0,0 +1,18 @@
+package com.oakinvest.b2g.util.exception;
+
+/**
+ * Exception : error while reading or writing an archive (raw transactions or recorded core responses).
+ */
+public class ArchiveException extends RuntimeException {
+
+    /**
+     * Default constructor.
+     *
+     * @param message error message
+     * @param cause   cause
+     */
+    public ArchiveException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.oakinvest.b2g.util.exception;
+
+/**
+ * Exception : error while reading or writing the address clustering files.
+ */
+public class ClusteringException extends RuntimeException {
+
+    /**
+     * Default constructor.
+     *
+     * @param message error message
+     * @param cause   cause
+     */
+    public ClusteringException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.oakinvest.b2g.util.exception;
+
+/**
+ * Exception : error while starting or dumping the flight recording.
+ */
+public class FlightRecordingException extends RuntimeException {
+
+    /**
+     * Constructor without cause.
+     *
+     * @param message error message
+     */
+    public FlightRecordingException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param message error message
+     * @param cause   cause
+     */
+    public FlightRecordingException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.oakinvest.b2g.util.exception;
+
+/**
+ * Exception : the lease of the range being imported has been given to another importer.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    /**
+     * Default constructor.
+     *
+     * @param message error message
+     */
+    public LeaseLostException(final String message) {
+        super(message);
+    }
+
+}
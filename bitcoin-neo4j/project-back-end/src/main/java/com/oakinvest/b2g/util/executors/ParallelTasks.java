@@ -0,0 +1,88 @@
+package com.oakinvest.b2g.util.executors;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs tasks in parallel on a given executor and waits for them (replaces parallel streams that run on the common fork join pool).
+ */
+public final class ParallelTasks {
+
+    /**
+     * Private constructor.
+     */
+    private ParallelTasks() {
+    }
+
+    /**
+     * Applies an action on each element in parallel and waits for all of them to finish.
+     * If one of the actions fails, its exception is thrown once all the actions are finished.
+     *
+     * @param executor executor
+     * @param elements elements
+     * @param action   action
+     * @param <T>      element type
+     */
+    public static <T> void forEach(final Executor executor, final Collection<T> elements, final Consumer<T> action) {
+        List<CompletableFuture<Void>> futures = elements.stream()
+                .map(e -> CompletableFuture.runAsync(() -> action.accept(e), executor))
+                .collect(Collectors.toList());
+        join(futures);
+    }
+
+    /**
+     * Applies a function on each element in parallel and returns the results in the same order.
+     * If one of the functions fails, its exception is thrown once all the functions are finished.
+     *
+     * @param executor executor
+     * @param elements elements
+     * @param function function
+     * @param <T>      element type
+     * @param <R>      result type
+     * @return results
+     */
+    public static <T, R> List<R> map(final Executor executor, final Collection<T> elements, final Function<T, R> function) {
+        List<CompletableFuture<R>> futures = elements.stream()
+                .map(e -> CompletableFuture.supplyAsync(() -> function.apply(e), executor))
+                .collect(Collectors.toList());
+        join(futures);
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Waits for a future and returns its result, throwing the cause of the failure if it failed.
+     *
+     * @param future future
+     * @param <R>    result type
+     * @return result
+     */
+    public static <R> R join(final CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all futures and throws the cause of the first failure.
+     *
+     * @param futures futures
+     * @param <R>     result type
+     */
+    private static <R> void join(final List<CompletableFuture<R>> futures) {
+        join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+    }
+
+}
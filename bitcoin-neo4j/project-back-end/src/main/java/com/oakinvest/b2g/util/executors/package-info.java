@@ -0,0 +1,4 @@
+/**
+ * Executors.
+ */
+package com.oakinvest.b2g.util.executors;
\ No newline at end of file
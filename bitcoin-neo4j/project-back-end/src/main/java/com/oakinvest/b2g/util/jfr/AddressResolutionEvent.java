@@ -0,0 +1,30 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Addresses of a block found in neo4j or created.
+ */
+@Name("com.oakinvest.b2g.AddressResolution")
+@Label("Address resolution")
+@Description("Addresses of a block found in neo4j or created")
+public final class AddressResolutionEvent extends ImportEvent {
+
+    /**
+     * Number of addresses.
+     */
+    @Label("Addresses")
+    private int addressCount;
+
+    /**
+     * Setter addressCount.
+     *
+     * @param newAddressCount number of addresses
+     */
+    public void setAddressCount(final int newAddressCount) {
+        this.addressCount = newAddressCount;
+    }
+
+}
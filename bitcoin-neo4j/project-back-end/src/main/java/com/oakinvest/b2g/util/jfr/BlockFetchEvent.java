@@ -0,0 +1,32 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Block and its transactions retrieved from the buffer or from core.
+ */
+@Name("com.oakinvest.b2g.BlockFetch")
+@Label("Block fetch")
+@Description("Block and its transactions retrieved from the buffer or from core")
+public final class BlockFetchEvent extends ImportEvent {
+
+    /**
+     * Block size.
+     */
+    @Label("Size")
+    @DataAmount
+    private int size;
+
+    /**
+     * Setter size.
+     *
+     * @param newSize block size (bytes)
+     */
+    public void setSize(final int newSize) {
+        this.size = newSize;
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Block and transactions mapped to the domain.
+ */
+@Name("com.oakinvest.b2g.BlockMapping")
+@Label("Block mapping")
+@Description("Block and transactions mapped to the domain")
+public final class BlockMappingEvent extends ImportEvent {
+
+}
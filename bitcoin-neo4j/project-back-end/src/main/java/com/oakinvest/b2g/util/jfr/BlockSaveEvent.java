@@ -0,0 +1,15 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Block saved in neo4j with the statements of the import stages.
+ */
+@Name("com.oakinvest.b2g.BlockSave")
+@Label("Neo4j save")
+@Description("Block saved in neo4j with the statements of the import stages")
+public final class BlockSaveEvent extends ImportEvent {
+
+}
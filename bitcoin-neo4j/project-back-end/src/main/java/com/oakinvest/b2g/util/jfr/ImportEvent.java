@@ -0,0 +1,63 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Event of a step of the import of a block.
+ * <p>
+ * Events are created, begun and committed by the pipeline : when no recording enables them, shouldCommit() returns
+ * false, the fields are not set and the JIT removes the rest.
+ */
+@Category({"Blockchain2graph", "Import"})
+public abstract class ImportEvent extends Event {
+
+    /**
+     * Block height (flight recorder doesn't record the private fields of a super class).
+     */
+    @Label("Height")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected int height;
+
+    /**
+     * Number of transactions.
+     */
+    @Label("Transactions")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected int transactionCount;
+
+    /**
+     * Ends the event and commits it if a recording enables it (the fields are only set in that case).
+     *
+     * @param newHeight           block height
+     * @param newTransactionCount number of transactions
+     */
+    public final void commit(final int newHeight, final int newTransactionCount) {
+        end();
+        if (shouldCommit()) {
+            height = newHeight;
+            transactionCount = newTransactionCount;
+            commit();
+        }
+    }
+
+    /**
+     * Setter height.
+     *
+     * @param newHeight block height
+     */
+    public final void setHeight(final int newHeight) {
+        this.height = newHeight;
+    }
+
+    /**
+     * Setter transactionCount.
+     *
+     * @param newTransactionCount number of transactions
+     */
+    public final void setTransactionCount(final int newTransactionCount) {
+        this.transactionCount = newTransactionCount;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.oakinvest.b2g.util.jfr;
+
+import com.oakinvest.b2g.util.exception.FlightRecordingException;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Continuous flight recording of the import : the JVM events of the settings and the import events are kept on disk
+ * for max age (and at most max size), oldest chunks being dropped first.
+ * <p>
+ * A dump of the last minutes is the stream of the chunks covering them : a snapshot is taken first so that the events
+ * not written in a chunk yet are included.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.jfr.recording.enabled", havingValue = "true")
+public class ImportRecording {
+
+    /**
+     * Recording name.
+     */
+    public static final String RECORDING_NAME = "b2g-import";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(ImportRecording.class);
+
+    /**
+     * Recording.
+     */
+    private final Recording recording;
+
+    /**
+     * Constructor : starts the recording.
+     *
+     * @param newSettings settings (default or profile)
+     * @param newMaxAge   how long events are kept
+     * @param newMaxSize  maximum size of the recording (bytes)
+     */
+    public ImportRecording(@Value("${b2g.jfr.recording.settings:default}") final String newSettings,
+                           @Value("${b2g.jfr.recording.max-age:30m}") final Duration newMaxAge,
+                           @Value("${b2g.jfr.recording.max-size:268435456}") final long newMaxSize) {
+        try {
+            recording = new Recording(Configuration.getConfiguration(newSettings));
+        } catch (IOException | ParseException e) {
+            throw new FlightRecordingException("Error while reading the flight recorder settings " + newSettings, e);
+        }
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(newMaxAge);
+        recording.setMaxSize(newMaxSize);
+        recording.enable(BlockFetchEvent.class);
+        recording.enable(RpcCallEvent.class);
+        recording.enable(BlockMappingEvent.class);
+        recording.enable(AddressResolutionEvent.class);
+        recording.enable(InputLinkingEvent.class);
+        recording.enable(BlockSaveEvent.class);
+        recording.start();
+        log.info("Flight recording started (" + newSettings + " settings, last " + newMaxAge + " kept)");
+    }
+
+    /**
+     * Dumps the last events of the recording in a temporary file (deleted by the caller).
+     *
+     * @param last duration to dump
+     * @return file
+     */
+    public final Path dump(final Duration last) {
+        final Instant end = Instant.now();
+        try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot();
+             InputStream stream = snapshot.getStream(end.minus(last), end)) {
+            if (stream == null) {
+                throw new FlightRecordingException("No event recorded in the last " + last);
+            }
+            final Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            throw new FlightRecordingException("Error while dumping the flight recording", e);
+        }
+    }
+
+    /**
+     * Stops the recording.
+     */
+    @PreDestroy
+    public final void close() {
+        recording.close();
+    }
+
+}
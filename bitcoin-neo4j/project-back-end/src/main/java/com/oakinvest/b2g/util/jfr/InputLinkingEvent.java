@@ -0,0 +1,30 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Inputs of a block linked to the outputs they spend.
+ */
+@Name("com.oakinvest.b2g.InputLinking")
+@Label("Input linking")
+@Description("Inputs of a block linked to the outputs they spend")
+public final class InputLinkingEvent extends ImportEvent {
+
+    /**
+     * Number of inputs.
+     */
+    @Label("Inputs")
+    private int inputCount;
+
+    /**
+     * Setter inputCount.
+     *
+     * @param newInputCount number of inputs
+     */
+    public void setInputCount(final int newInputCount) {
+        this.inputCount = newInputCount;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.oakinvest.b2g.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Call to bitcoin core.
+ */
+@Name("com.oakinvest.b2g.RpcCall")
+@Label("RPC call")
+@Description("Call to bitcoin core")
+@Category({"Blockchain2graph", "Bitcoin core"})
+public final class RpcCallEvent extends Event {
+
+    /**
+     * RPC method.
+     */
+    @Label("Method")
+    private String method;
+
+    /**
+     * Request size.
+     */
+    @Label("Request size")
+    @DataAmount
+    private long requestSize;
+
+    /**
+     * Response size.
+     */
+    @Label("Response size")
+    @DataAmount
+    private long responseSize;
+
+    /**
+     * Setter method.
+     *
+     * @param newMethod rpc method
+     */
+    public void setMethod(final String newMethod) {
+        this.method = newMethod;
+    }
+
+    /**
+     * Setter requestSize.
+     *
+     * @param newRequestSize request size (bytes)
+     */
+    public void setRequestSize(final long newRequestSize) {
+        this.requestSize = newRequestSize;
+    }
+
+    /**
+     * Setter responseSize.
+     *
+     * @param newResponseSize response size (bytes, -1 if unknown)
+     */
+    public void setResponseSize(final long newResponseSize) {
+        this.responseSize = newResponseSize;
+    }
+
+}
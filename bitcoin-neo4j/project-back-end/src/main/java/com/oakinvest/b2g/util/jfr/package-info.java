@@ -0,0 +1,4 @@
+/**
+ * Java Flight Recorder events of the import pipeline and continuous recording.
+ */
+package com.oakinvest.b2g.util.jfr;
@@ -0,0 +1,20 @@
+package com.oakinvest.b2g.util.job;
+
+/**
+ * Maintenance job (rebuild or backfill of data maintained by the import), launched with --job=name.
+ */
+public interface MaintenanceJob {
+
+    /**
+     * Returns the job name.
+     *
+     * @return name
+     */
+    String getName();
+
+    /**
+     * Runs the job.
+     */
+    void run();
+
+}
@@ -0,0 +1,66 @@
+package com.oakinvest.b2g.util.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Launches the maintenance jobs, one after the other.
+ * <p>
+ * Jobs run while the import is running : they take the stages write lock for each batch they write.
+ */
+@Component
+public class MaintenanceJobLauncher {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(MaintenanceJobLauncher.class);
+
+    /**
+     * Jobs (indexed by name).
+     */
+    private final Map<String, MaintenanceJob> jobs;
+
+    /**
+     * Constructor.
+     *
+     * @param newJobs available jobs
+     */
+    public MaintenanceJobLauncher(final ObjectProvider<MaintenanceJob> newJobs) {
+        this.jobs = newJobs.orderedStream().collect(Collectors.toMap(MaintenanceJob::getName, Function.identity()));
+    }
+
+    /**
+     * Runs jobs.
+     *
+     * @param names job names
+     */
+    public final void run(final List<String> names) {
+        names.forEach(name -> {
+            final Optional<MaintenanceJob> job = Optional.ofNullable(jobs.get(name));
+            if (job.isPresent()) {
+                log.info("Starting job " + name);
+                final Instant start = Instant.now();
+                try {
+                    job.get().run();
+                    log.info("Job " + name + " done in " + Duration.between(start, Instant.now()).toSeconds() + " secs");
+                } catch (Exception e) {
+                    log.error("Job " + name + " failed : " + e.getMessage(), e);
+                }
+            } else {
+                log.error("Unknown job " + name + ", available jobs : " + jobs.keySet());
+            }
+        });
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Maintenance jobs.
+ */
+package com.oakinvest.b2g.util.job;
@@ -0,0 +1,202 @@
+package com.oakinvest.b2g.util.lease;
+
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lease table stored in a local file shared by the importers running on the same machine (one lease per line).
+ * Each access holds an exclusive lock on the file so that several processes can share it.
+ * <p>
+ * Renewed from a block transaction, the lease is checked before the block is committed but the file is not part of
+ * that transaction : the uniqueness constraint on the block height rejects a block saved by two importers.
+ */
+public class FileImportLeaseStore implements ImportLeaseStore {
+
+    /**
+     * Field separator.
+     */
+    private static final String SEPARATOR = ";";
+
+    /**
+     * Index of the version field.
+     */
+    private static final int VERSION_FIELD = 5;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(FileImportLeaseStore.class);
+
+    /**
+     * Lease file.
+     */
+    private final Path file;
+
+    /**
+     * Constructor.
+     *
+     * @param newFile lease file
+     */
+    public FileImportLeaseStore(final Path newFile) {
+        this.file = newFile;
+    }
+
+    @Override
+    public final Optional<ImportLease> acquire(final String owner, final int rangeSize, final int lastBlockHeight, final long leaseDuration) {
+        final long now = System.currentTimeMillis();
+        final long expiresAt = now + leaseDuration;
+        return update(leases -> {
+            // The unfinished lease of the owner or an expired lease.
+            final Optional<ImportLease> takenLease = leases.stream()
+                    .filter(l -> l.getStatus() == ImportLeaseStatus.LEASED && owner.equals(l.getOwner()))
+                    .findFirst()
+                    .or(() -> leases.stream().filter(l -> l.isExpired(now)).findFirst());
+            if (takenLease.isPresent()) {
+                if (!owner.equals(takenLease.get().getOwner())) {
+                    log.info("Lease on range " + takenLease.get() + " expired, reassigned to " + owner);
+                }
+                final ImportLease lease = new ImportLease(takenLease.get().getStart(), takenLease.get().getEnd(), owner, expiresAt, ImportLeaseStatus.LEASED,
+                        takenLease.get().getVersion() + 1);
+                leases.set(leases.indexOf(takenLease.get()), lease);
+                return Optional.of(lease);
+            }
+
+            // A new range.
+            final int nextHeight = leases.stream().mapToInt(ImportLease::getEnd).max().orElse(0) + 1;
+            if (nextHeight <= lastBlockHeight) {
+                final ImportLease lease = new ImportLease(nextHeight, Math.min(nextHeight + rangeSize - 1, lastBlockHeight), owner, expiresAt, ImportLeaseStatus.LEASED, 1);
+                leases.add(lease);
+                return Optional.of(lease);
+            } else {
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public final boolean renew(final ImportLease lease, final String owner, final long leaseDuration) {
+        return replace(lease, owner, l -> new ImportLease(l.getStart(), l.getEnd(), owner, System.currentTimeMillis() + leaseDuration, ImportLeaseStatus.LEASED, l.getVersion()));
+    }
+
+    @Override
+    public final boolean renew(final ImportLease lease, final String owner, final long leaseDuration, final CypherRunner runner) {
+        return renew(lease, owner, leaseDuration);
+    }
+
+    @Override
+    public final void complete(final ImportLease lease, final String owner) {
+        replace(lease, owner, l -> new ImportLease(l.getStart(), l.getEnd(), owner, l.getExpiresAt(), ImportLeaseStatus.DONE, l.getVersion()));
+    }
+
+    @Override
+    public final List<ImportLease> getLeases() {
+        return update(ArrayList::new);
+    }
+
+    /**
+     * Replaces the lease of the owner on a range (if it has not been acquired again since).
+     *
+     * @param lease       lease
+     * @param owner       importer
+     * @param replacement creates the new lease from the current one
+     * @return false if the lease has been given to another importer
+     */
+    private boolean replace(final ImportLease lease, final String owner, final Function<ImportLease, ImportLease> replacement) {
+        return update(leases -> {
+            for (int i = 0; i < leases.size(); i++) {
+                final ImportLease current = leases.get(i);
+                if (current.getStart() == lease.getStart() && current.getStatus() == ImportLeaseStatus.LEASED && owner.equals(current.getOwner())
+                        && current.getVersion() == lease.getVersion()) {
+                    leases.set(i, replacement.apply(current));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Reads the leases, updates them and writes them back while holding the lock on the file.
+     * Synchronized because a file lock is held on behalf of the whole JVM.
+     *
+     * @param updater reads and updates the leases
+     * @param <T>     result type
+     * @return result of the updater
+     */
+    private synchronized <T> T update(final Function<List<ImportLease>, T> updater) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            // Read.
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            final List<ImportLease> leases = new String(buffer.array(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.isBlank())
+                    .map(this::parse)
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            // Update & write.
+            final T result = updater.apply(leases);
+            leases.sort(Comparator.comparingInt(ImportLease::getStart));
+            final byte[] content = leases.stream().map(this::format).collect(Collectors.joining()).getBytes(StandardCharsets.UTF_8);
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(content), 0);
+            channel.force(true);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error accessing lease file " + file, e);
+        }
+    }
+
+    /**
+     * Parses a lease.
+     *
+     * @param line line
+     * @return lease
+     */
+    private ImportLease parse(final String line) {
+        final List<String> fields = Arrays.asList(line.split(SEPARATOR));
+        int i = 0;
+        // The version is missing in the files written by a previous version.
+        long version = 0;
+        if (fields.size() > VERSION_FIELD) {
+            version = Long.parseLong(fields.get(VERSION_FIELD));
+        }
+        return new ImportLease(Integer.parseInt(fields.get(i++)),
+                Integer.parseInt(fields.get(i++)),
+                fields.get(i++),
+                Long.parseLong(fields.get(i++)),
+                ImportLeaseStatus.valueOf(fields.get(i)),
+                version);
+    }
+
+    /**
+     * Formats a lease.
+     *
+     * @param lease lease
+     * @return line
+     */
+    private String format(final ImportLease lease) {
+        return lease.getStart() + SEPARATOR + lease.getEnd() + SEPARATOR + lease.getOwner() + SEPARATOR + lease.getExpiresAt() + SEPARATOR + lease.getStatus() + SEPARATOR + lease.getVersion() + System.lineSeparator();
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.oakinvest.b2g.util.lease;
+
+/**
+ * Lease given to an importer on a range of block heights (from start to end).
+ */
+public final class ImportLease {
+
+    /**
+     * First block height of the range.
+     */
+    private final int start;
+
+    /**
+     * Last block height of the range.
+     */
+    private final int end;
+
+    /**
+     * Importer owning the lease.
+     */
+    private final String owner;
+
+    /**
+     * Time (epoch milliseconds) after which the lease can be given to another importer.
+     */
+    private final long expiresAt;
+
+    /**
+     * Status.
+     */
+    private final ImportLeaseStatus status;
+
+    /**
+     * Version, incremented each time the lease is acquired (fencing token : an importer whose lease has been given to
+     * another one can't commit blocks anymore).
+     */
+    private final long version;
+
+    /**
+     * Constructor.
+     *
+     * @param newStart     first block height
+     * @param newEnd       last block height
+     * @param newOwner     importer owning the lease
+     * @param newExpiresAt expiration time (epoch milliseconds)
+     * @param newStatus    status
+     * @param newVersion   version
+     */
+    public ImportLease(final int newStart, final int newEnd, final String newOwner, final long newExpiresAt, final ImportLeaseStatus newStatus, final long newVersion) {
+        this.start = newStart;
+        this.end = newEnd;
+        this.owner = newOwner;
+        this.expiresAt = newExpiresAt;
+        this.status = newStatus;
+        this.version = newVersion;
+    }
+
+    /**
+     * Getter of start.
+     *
+     * @return start
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Getter of end.
+     *
+     * @return end
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Getter of owner.
+     *
+     * @return owner
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Getter of expiresAt.
+     *
+     * @return expiresAt
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Getter of status.
+     *
+     * @return status
+     */
+    public ImportLeaseStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter of version.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns true if the lease can be given to another importer.
+     *
+     * @param now current time (epoch milliseconds)
+     * @return true if expired
+     */
+    public boolean isExpired(final long now) {
+        return status == ImportLeaseStatus.LEASED && expiresAt < now;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + "-" + end + "] " + status + " by " + owner;
+    }
+
+}
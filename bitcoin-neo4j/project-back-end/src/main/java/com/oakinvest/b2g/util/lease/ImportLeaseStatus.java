@@ -0,0 +1,18 @@
+package com.oakinvest.b2g.util.lease;
+
+/**
+ * Import lease status.
+ */
+public enum ImportLeaseStatus {
+
+    /**
+     * The range is being imported by the owner of the lease.
+     */
+    LEASED,
+
+    /**
+     * The range is imported.
+     */
+    DONE
+
+}
@@ -0,0 +1,77 @@
+package com.oakinvest.b2g.util.lease;
+
+import com.oakinvest.b2g.util.stage.CypherRunner;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lease table shared by the importers : each importer leases a range of block heights, imports it and marks it as done.
+ * A lease that is not renewed before its expiration is given to another importer (the owner is considered dead).
+ * <p>
+ * The version of a lease is incremented each time it is acquired : renewing a lease checks its owner and its version,
+ * so an importer whose lease has been given to another one can't renew it anymore.
+ */
+public interface ImportLeaseStore {
+
+    /**
+     * Acquire a lease : the unfinished lease of the owner if there is one, else an expired lease, else a new range.
+     *
+     * @param owner           importer
+     * @param rangeSize       number of blocks in a new range
+     * @param lastBlockHeight last block height that can be leased (the block count in bitcoin core)
+     * @param leaseDuration   lease duration (milliseconds)
+     * @return lease or empty if there is nothing to lease
+     */
+    Optional<ImportLease> acquire(String owner, int rangeSize, int lastBlockHeight, long leaseDuration);
+
+    /**
+     * Renew a lease.
+     *
+     * @param lease         lease
+     * @param owner         importer
+     * @param leaseDuration lease duration (milliseconds)
+     * @return false if the lease has been given to another importer
+     */
+    boolean renew(ImportLease lease, String owner, long leaseDuration);
+
+    /**
+     * Renew a lease from the transaction saving a block of its range, before it is committed : the block must not be
+     * committed if the lease has been given to another importer.
+     *
+     * @param lease         lease
+     * @param owner         importer
+     * @param leaseDuration lease duration (milliseconds)
+     * @param runner        runs statements in the block transaction
+     * @return false if the lease has been given to another importer
+     */
+    boolean renew(ImportLease lease, String owner, long leaseDuration, CypherRunner runner);
+
+    /**
+     * Marks a lease as done.
+     *
+     * @param lease lease
+     * @param owner importer
+     */
+    void complete(ImportLease lease, String owner);
+
+    /**
+     * Returns all the leases (ordered by start).
+     *
+     * @return leases
+     */
+    List<ImportLease> getLeases();
+
+    /**
+     * Returns true if all the blocks up to a height are leased and all the leases are done.
+     *
+     * @param lastBlockHeight last block height
+     * @return true if everything is imported
+     */
+    default boolean isEverythingImported(final int lastBlockHeight) {
+        final List<ImportLease> leases = getLeases();
+        return leases.stream().allMatch(l -> l.getStatus() == ImportLeaseStatus.DONE)
+                && leases.stream().mapToInt(ImportLease::getEnd).max().orElse(0) >= lastBlockHeight;
+    }
+
+}
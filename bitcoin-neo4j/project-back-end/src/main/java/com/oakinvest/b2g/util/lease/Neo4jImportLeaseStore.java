@@ -0,0 +1,170 @@
+package com.oakinvest.b2g.util.lease;
+
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lease table stored in neo4j : a BitcoinImportLease node per range and a BitcoinImportLeaseTable node holding the next
+ * height to lease. The table node is written first in each acquisition so that concurrent acquisitions are serialized
+ * by its write lock.
+ * <p>
+ * Renewed from a block transaction, the lease node is written in that transaction : its write lock is held until the
+ * block is committed, so the lease can't be given to another importer in between.
+ */
+public class Neo4jImportLeaseStore implements ImportLeaseStore {
+
+    /**
+     * Query locking the lease table (created if it doesn't exist) and returning the next height to lease.
+     */
+    private static final String LOCK_TABLE = "MERGE (t:BitcoinImportLeaseTable {name: 'blocks'}) ON CREATE SET t.nextHeight = 1 SET t.lockedAt = timestamp() RETURN t.nextHeight AS nextHeight";
+
+    /**
+     * Query taking the unfinished lease of the owner or, if there is none, an expired lease.
+     */
+    private static final String TAKE_LEASE = "MATCH (l:BitcoinImportLease) WHERE l.status = 'LEASED' AND (l.owner = $owner OR l.expiresAt < $now) "
+            + "WITH l, l.owner AS previousOwner ORDER BY CASE WHEN l.owner = $owner THEN 0 ELSE 1 END, l.start LIMIT 1 "
+            + "SET l.owner = $owner, l.expiresAt = $expiresAt, l.version = coalesce(l.version, 0) + 1 "
+            + "RETURN l.start AS start, l.end AS end, l.version AS version, previousOwner";
+
+    /**
+     * Query creating a lease on a new range.
+     */
+    private static final String CREATE_LEASE = "MATCH (t:BitcoinImportLeaseTable {name: 'blocks'}) SET t.nextHeight = $end + 1 "
+            + "CREATE (l:BitcoinImportLease {start: $start, end: $end, owner: $owner, expiresAt: $expiresAt, status: 'LEASED', version: 1})";
+
+    /**
+     * Query renewing a lease.
+     */
+    private static final String RENEW_LEASE = "MATCH (l:BitcoinImportLease {start: $start}) WHERE l.owner = $owner AND l.version = $version AND l.status = 'LEASED' "
+            + "SET l.expiresAt = $expiresAt RETURN count(l) AS renewed";
+
+    /**
+     * Query marking a lease as done.
+     */
+    private static final String COMPLETE_LEASE = "MATCH (l:BitcoinImportLease {start: $start}) WHERE l.owner = $owner AND l.version = $version SET l.status = 'DONE'";
+
+    /**
+     * Query returning all the leases.
+     */
+    private static final String FIND_LEASES = "MATCH (l:BitcoinImportLease) "
+            + "RETURN l.start AS start, l.end AS end, l.owner AS owner, l.expiresAt AS expiresAt, l.status AS status, coalesce(l.version, 0) AS version ORDER BY l.start";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(Neo4jImportLeaseStore.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     */
+    public Neo4jImportLeaseStore(final SessionFactory newSessionFactory) {
+        this.sessionFactory = newSessionFactory;
+    }
+
+    @Override
+    public final Optional<ImportLease> acquire(final String owner, final int rangeSize, final int lastBlockHeight, final long leaseDuration) {
+        final long now = System.currentTimeMillis();
+        final long expiresAt = now + leaseDuration;
+        final Session session = sessionFactory.openSession();
+        try (Transaction transaction = session.beginTransaction()) {
+            final int nextHeight = getInt(session.query(LOCK_TABLE, Collections.emptyMap()).queryResults().iterator().next(), "nextHeight");
+            final Optional<ImportLease> lease;
+
+            // The unfinished lease of the owner or an expired lease.
+            final Iterator<Map<String, Object>> takenLease = session.query(TAKE_LEASE, Map.of("owner", owner, "now", now, "expiresAt", expiresAt)).queryResults().iterator();
+            if (takenLease.hasNext()) {
+                final Map<String, Object> row = takenLease.next();
+                if (!owner.equals(row.get("previousOwner"))) {
+                    log.info("Lease on range " + row.get("start") + "-" + row.get("end") + " of " + row.get("previousOwner") + " expired, reassigned to " + owner);
+                }
+                lease = Optional.of(new ImportLease(getInt(row, "start"), getInt(row, "end"), owner, expiresAt, ImportLeaseStatus.LEASED, getLong(row, "version")));
+            } else if (nextHeight <= lastBlockHeight) {
+                // A new range.
+                final int end = Math.min(nextHeight + rangeSize - 1, lastBlockHeight);
+                session.query(CREATE_LEASE, Map.of("start", nextHeight, "end", end, "owner", owner, "expiresAt", expiresAt));
+                lease = Optional.of(new ImportLease(nextHeight, end, owner, expiresAt, ImportLeaseStatus.LEASED, 1));
+            } else {
+                lease = Optional.empty();
+            }
+            transaction.commit();
+            return lease;
+        } finally {
+            session.clear();
+        }
+    }
+
+    @Override
+    public final boolean renew(final ImportLease lease, final String owner, final long leaseDuration) {
+        return renew(lease, owner, leaseDuration, sessionFactory.openSession()::query);
+    }
+
+    @Override
+    public final boolean renew(final ImportLease lease, final String owner, final long leaseDuration, final CypherRunner runner) {
+        final Map<String, Object> row = runner.run(RENEW_LEASE, Map.of("start", lease.getStart(),
+                        "owner", owner,
+                        "version", lease.getVersion(),
+                        "expiresAt", System.currentTimeMillis() + leaseDuration))
+                .iterator()
+                .next();
+        return getInt(row, "renewed") == 1;
+    }
+
+    @Override
+    public final void complete(final ImportLease lease, final String owner) {
+        sessionFactory.openSession().query(COMPLETE_LEASE, Map.of("start", lease.getStart(), "owner", owner, "version", lease.getVersion()));
+    }
+
+    @Override
+    public final List<ImportLease> getLeases() {
+        final List<ImportLease> leases = new ArrayList<>();
+        sessionFactory.openSession().query(FIND_LEASES, Collections.emptyMap()).queryResults()
+                .forEach(row -> leases.add(new ImportLease(getInt(row, "start"),
+                        getInt(row, "end"),
+                        (String) row.get("owner"),
+                        ((Number) row.get("expiresAt")).longValue(),
+                        ImportLeaseStatus.valueOf((String) row.get("status")),
+                        getLong(row, "version"))));
+        return leases;
+    }
+
+    /**
+     * Returns an integer value from a query result row.
+     *
+     * @param row  row
+     * @param name column name
+     * @return value
+     */
+    private int getInt(final Map<String, Object> row, final String name) {
+        return ((Number) row.get(name)).intValue();
+    }
+
+    /**
+     * Returns a long value from a query result row.
+     *
+     * @param row  row
+     * @param name column name
+     * @return value
+     */
+    private long getLong(final Map<String, Object> row, final String name) {
+        return ((Number) row.get(name)).longValue();
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Import leases.
+ */
+package com.oakinvest.b2g.util.lease;
@@ -10,12 +10,13 @@ import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResult;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vin.GetRawTransactionVIn;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.GetRawTransactionVOut;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
 
 /**
- * Mapper from core to domain.
+ * Mapper from core to domain (the bulky fields dropped by the ingestion profile are cleared by the post mapper).
  * Created by straumat on 09/09/16.
  */
 @SuppressWarnings("unused")
@@ -26,6 +27,7 @@ public interface BitcoinCoreToDomainMapper {
      * Maps block data to block.
      *log.debug(
      * @param bitcoinCoreBlockData core block data
+     * @param profile              ingestion profile
      * @return domain block
      */
     @Mappings({
@@ -43,14 +45,17 @@ public interface BitcoinCoreToDomainMapper {
             @Mapping(source = "block.chainwork", target = "chainWork"),
             @Mapping(source = "block.previousblockhash", target = "previousBlockHash"),
             @Mapping(source = "block.nextblockhash", target = "nextBlockHash"),
-            @Mapping(source = "transactions", target = "transactions")
+            @Mapping(source = "transactions", target = "transactions"),
+            @Mapping(target = "totalFees", ignore = true),
+            @Mapping(target = "totalOutput", ignore = true)
     })
-    BitcoinBlock blockDataToBitcoinBlock(BitcoinCoreBlockData bitcoinCoreBlockData);
+    BitcoinBlock blockDataToBitcoinBlock(BitcoinCoreBlockData bitcoinCoreBlockData, @Context IngestionProfile profile);
 
 	/**
 	 * Maps block result to block.
 	 *
 	 * @param getBlockResult getblock result
+	 * @param profile        ingestion profile
 	 * @return domain block
 	 */
 	@Mappings({
@@ -67,14 +72,17 @@ public interface BitcoinCoreToDomainMapper {
 			@Mapping(source = "difficulty", target = "difficulty"),
 			@Mapping(source = "chainwork", target = "chainWork"),
 			@Mapping(source = "previousblockhash", target = "previousBlockHash"),
-			@Mapping(source = "nextblockhash", target = "nextBlockHash")
+			@Mapping(source = "nextblockhash", target = "nextBlockHash"),
+			@Mapping(target = "totalFees", ignore = true),
+			@Mapping(target = "totalOutput", ignore = true)
 	})
-	BitcoinBlock blockResultToBitcoinBlock(GetBlockResult getBlockResult);
+	BitcoinBlock blockResultToBitcoinBlock(GetBlockResult getBlockResult, @Context IngestionProfile profile);
 
 	/**
 	 * Maps a raw transaction to a transaction.
 	 *
 	 * @param getRawTransactionResult getRawTransactionResult result
+	 * @param profile                 ingestion profile
 	 * @return domain transaction
 	 */
 	@Mappings({
@@ -89,14 +97,21 @@ public interface BitcoinCoreToDomainMapper {
 			@Mapping(source = "time", target = "time"),
 			@Mapping(source = "blocktime", target = "blockTime"),
 			@Mapping(source = "vin", target = "inputs"),
-			@Mapping(source = "vout", target = "outputs")
+			@Mapping(source = "vout", target = "outputs"),
+			@Mapping(target = "archiveSegment", ignore = true),
+			@Mapping(target = "archiveOffset", ignore = true),
+			@Mapping(target = "inputTotal", ignore = true),
+			@Mapping(target = "outputTotal", ignore = true),
+			@Mapping(target = "fee", ignore = true),
+			@Mapping(target = "feeRate", ignore = true)
 	})
-	BitcoinTransaction rawTransactionResultToBitcoinTransaction(GetRawTransactionResult getRawTransactionResult);
+	BitcoinTransaction rawTransactionResultToBitcoinTransaction(GetRawTransactionResult getRawTransactionResult, @Context IngestionProfile profile);
 
 	/**
 	 * maps a vin.
 	 *
 	 * @param getRawTransactionVIn vin
+	 * @param profile              ingestion profile
 	 * @return domain transaction input
 	 */
 	@Mappings({
@@ -105,14 +120,16 @@ public interface BitcoinCoreToDomainMapper {
 			@Mapping(source = "vout", target = "vOut"),
 			@Mapping(source = "scriptSig.asm", target = "scriptSigAsm"),
 			@Mapping(source = "scriptSig.hex", target = "scriptSigHex"),
-			@Mapping(source = "sequence", target = "sequence")
+			@Mapping(source = "sequence", target = "sequence"),
+			@Mapping(target = "unresolved", ignore = true)
 	})
-	BitcoinTransactionInput rawTransactionVIn(GetRawTransactionVIn getRawTransactionVIn);
+	BitcoinTransactionInput rawTransactionVIn(GetRawTransactionVIn getRawTransactionVIn, @Context IngestionProfile profile);
 
 	/**
 	 * Maps a vout.
 	 *
 	 * @param getRawTransactionVOut vout
+	 * @param profile               ingestion profile
 	 * @return domain transaction output
 	 */
 	@Mappings({
@@ -122,9 +139,10 @@ public interface BitcoinCoreToDomainMapper {
 			@Mapping(source = "scriptPubKey.hex", target = "scriptPubKeyHex"),
 			@Mapping(source = "scriptPubKey.reqSigs", target = "scriptPubKeyReqSigs"),
 			@Mapping(source = "scriptPubKey.type", target = "scriptPubKeyType"),
-			@Mapping(source = "scriptPubKey.addresses", target = "addresses")
+			@Mapping(source = "scriptPubKey.addresses", target = "addresses"),
+			@Mapping(target = "spentAtHeight", ignore = true)
 	})
-	BitcoinTransactionOutput rawTransactionVout(GetRawTransactionVOut getRawTransactionVOut);
+	BitcoinTransactionOutput rawTransactionVout(GetRawTransactionVOut getRawTransactionVOut, @Context IngestionProfile profile);
 
 	/**
 	 * Maps a string to a bitcoin address.
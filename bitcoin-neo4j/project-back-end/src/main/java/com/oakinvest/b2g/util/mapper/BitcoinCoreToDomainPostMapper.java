@@ -1,8 +1,12 @@
 package com.oakinvest.b2g.util.mapper;
 
 import com.oakinvest.b2g.domain.BitcoinBlock;
-import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionInput;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
 import org.mapstruct.AfterMapping;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.MappingTarget;
 
@@ -16,15 +20,64 @@ import org.mapstruct.MappingTarget;
 public abstract class BitcoinCoreToDomainPostMapper {
 
     /**
-     * After mapping for bitcoin block.
+     * After mapping for bitcoin transaction.
      *
-     * @param bitcoinCoreBlockData block data from core
-     * @param bitcoinBlock      bitcoin block
+     * @param getRawTransactionResult transaction from core
+     * @param bitcoinTransaction      bitcoin transaction
+     * @param profile                 ingestion profile
      */
     @AfterMapping
     @SuppressWarnings({"checkstyle:designforextension", "unused"})
-    protected void blockDataToBitcoinBlockAfterMapping(final BitcoinCoreBlockData bitcoinCoreBlockData, @MappingTarget final BitcoinBlock bitcoinBlock) {
-        bitcoinBlock.getTransactions().forEach(t -> t.getOutputs().forEach(o -> o.setTxId(t.getTxId())));
+    protected void rawTransactionResultToBitcoinTransactionAfterMapping(final GetRawTransactionResult getRawTransactionResult, @MappingTarget final BitcoinTransaction bitcoinTransaction, @Context final IngestionProfile profile) {
+        bitcoinTransaction.getOutputs().forEach(o -> o.setTxId(bitcoinTransaction.getTxId()));
+        if (profile.isBulkyFieldsDropped()) {
+            bitcoinTransaction.setHex(null);
+        }
+    }
+
+    /**
+     * After mapping for bitcoin block : the transaction ids are dropped by the slim profiles.
+     *
+     * @param bitcoinBlock bitcoin block
+     * @param profile      ingestion profile
+     */
+    @AfterMapping
+    @SuppressWarnings({"checkstyle:designforextension", "unused"})
+    protected void bitcoinBlockAfterMapping(@MappingTarget final BitcoinBlock bitcoinBlock, @Context final IngestionProfile profile) {
+        if (profile.isBulkyFieldsDropped()) {
+            bitcoinBlock.setTx(null);
+        }
+    }
+
+    /**
+     * After mapping for bitcoin transaction input : the script asm and hex are dropped by the slim profiles.
+     *
+     * @param bitcoinTransactionInput bitcoin transaction input
+     * @param profile                 ingestion profile
+     */
+    @AfterMapping
+    @SuppressWarnings({"checkstyle:designforextension", "unused"})
+    protected void bitcoinTransactionInputAfterMapping(@MappingTarget final BitcoinTransactionInput bitcoinTransactionInput, @Context final IngestionProfile profile) {
+        if (profile.isBulkyFieldsDropped()) {
+            bitcoinTransactionInput.setScriptSigAsm(null);
+        }
+        if (profile.isScriptSigHexDropped()) {
+            bitcoinTransactionInput.setScriptSigHex(null);
+        }
+    }
+
+    /**
+     * After mapping for bitcoin transaction output : the script asm is dropped by the slim profiles.
+     *
+     * @param bitcoinTransactionOutput bitcoin transaction output
+     * @param profile                  ingestion profile
+     */
+    @AfterMapping
+    @SuppressWarnings({"checkstyle:designforextension", "unused"})
+    protected void bitcoinTransactionOutputAfterMapping(@MappingTarget final BitcoinTransactionOutput bitcoinTransactionOutput, @Context final IngestionProfile profile) {
+        if (profile.isBulkyFieldsDropped()) {
+            bitcoinTransactionOutput.setScriptPubKeyAsm(null);
+        }
     }
 
 }
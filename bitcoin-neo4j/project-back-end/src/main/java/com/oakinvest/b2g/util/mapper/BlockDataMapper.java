@@ -0,0 +1,86 @@
+package com.oakinvest.b2g.util.mapper;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.util.archive.ArchivePointer;
+import com.oakinvest.b2g.util.archive.ArchivedTransaction;
+import com.oakinvest.b2g.util.archive.RawTransactionArchive;
+import com.oakinvest.b2g.util.executors.ParallelTasks;
+import com.oakinvest.b2g.util.providers.ExecutorsProvider;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Maps the data retrieved from core to a block according to the ingestion profile.
+ */
+@Component
+public class BlockDataMapper {
+
+    /**
+     * Mapper.
+     */
+    private final BitcoinCoreToDomainMapper mapper = Mappers.getMapper(BitcoinCoreToDomainMapper.class);
+
+    /**
+     * Executors.
+     */
+    private final ExecutorsProvider executors;
+
+    /**
+     * Ingestion profile (fields stored).
+     */
+    private final IngestionProfile ingestionProfile;
+
+    /**
+     * Raw transaction archive (archive profile).
+     */
+    private final Optional<RawTransactionArchive> rawTransactionArchive;
+
+    /**
+     * Constructor.
+     *
+     * @param newExecutors             executors
+     * @param newIngestionProfile      ingestion profile
+     * @param newRawTransactionArchive raw transaction archive (archive profile)
+     */
+    public BlockDataMapper(final ExecutorsProvider newExecutors, @Value("${b2g.import.profile:FULL}") final IngestionProfile newIngestionProfile, final Optional<RawTransactionArchive> newRawTransactionArchive) {
+        this.executors = newExecutors;
+        this.ingestionProfile = newIngestionProfile;
+        this.rawTransactionArchive = newRawTransactionArchive;
+    }
+
+    /**
+     * Maps the data retrieved from core to a block, the transactions being mapped in parallel.
+     * The fields dropped by the ingestion profile are cleared.
+     *
+     * @param blockData block data
+     * @return block
+     */
+    public final BitcoinBlock map(final BitcoinCoreBlockData blockData) {
+        final BitcoinBlock block = mapper.blockResultToBitcoinBlock(blockData.getBlock(), ingestionProfile);
+        block.getTransactions().addAll(ParallelTasks.map(executors.getCpuExecutor(), blockData.getTransactions(), this::mapTransaction));
+        return block;
+    }
+
+    /**
+     * Maps a transaction retrieved from core, its hex and scripts being archived with the archive profile.
+     *
+     * @param transaction transaction from core
+     * @return transaction
+     */
+    private BitcoinTransaction mapTransaction(final GetRawTransactionResult transaction) {
+        final BitcoinTransaction bitcoinTransaction = mapper.rawTransactionResultToBitcoinTransaction(transaction, ingestionProfile);
+        rawTransactionArchive.ifPresent(archive -> {
+            final ArchivePointer pointer = archive.append(ArchivedTransaction.of(transaction));
+            bitcoinTransaction.setArchiveSegment(pointer.getSegment());
+            bitcoinTransaction.setArchiveOffset(pointer.getOffset());
+        });
+        return bitcoinTransaction;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.oakinvest.b2g.util.mapper;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Jackson mix-ins used by the ingestion profiles to skip the dropped fields of core responses.
+ */
+final class CoreResponseMixIns {
+
+    /**
+     * Utility class.
+     */
+    private CoreResponseMixIns() {
+    }
+
+    /**
+     * Raw transaction without hex.
+     */
+    @JsonIgnoreProperties({"hex"})
+    abstract static class RawTransactionResultMixIn {
+    }
+
+    /**
+     * Input script without asm.
+     */
+    @JsonIgnoreProperties({"asm"})
+    abstract static class ScriptSigMixIn {
+    }
+
+    /**
+     * Input script without asm and hex.
+     */
+    @JsonIgnoreProperties({"asm", "hex"})
+    abstract static class ScriptSigWithoutHexMixIn {
+    }
+
+    /**
+     * Output script without asm.
+     */
+    @JsonIgnoreProperties({"asm"})
+    abstract static class ScriptPubKeyMixIn {
+    }
+
+}
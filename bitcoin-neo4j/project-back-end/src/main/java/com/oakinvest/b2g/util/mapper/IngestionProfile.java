@@ -0,0 +1,115 @@
+package com.oakinvest.b2g.util.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vin.scriptsig.GetRawTransactionScriptSig;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.scriptpubkey.GetRawTransactionScriptPubKey;
+
+/**
+ * Ingestion profile : which bulky fields (never queried) are stored in neo4j.
+ * <p>
+ * Dropped fields are ignored when the core responses are deserialized and cleared by the mapper (for the data coming
+ * from elsewhere, like the buffer or the test cache). Store size reductions are measured on the 600 test fixture
+ * blocks (property stores : 2 005 Kb, whole store : 2 816 Kb with the full profile). Those blocks have almost only
+ * coinbase inputs : on recent blocks, where input scripts are most of the transaction size, the reduction is larger.
+ */
+public enum IngestionProfile {
+
+    /**
+     * Everything is stored.
+     */
+    FULL(false, false, false),
+
+    /**
+     * Transaction raw hex, script asm (inputs and outputs) and the block transaction ids (already in the TRANSACTIONS
+     * relationships) are not stored : property stores 20% smaller (string store 32% smaller), whole store 14% smaller.
+     */
+    SLIM(true, false, false),
+
+    /**
+     * Same as slim and the input script hex is not stored either : property stores 20.4% smaller, whole store 14.5%
+     * smaller (the fixture blocks have only 25 non coinbase inputs).
+     */
+    MINIMAL(true, true, false),
+
+    /**
+     * Same as minimal in neo4j, the transaction hex and the scripts being written in the raw transaction archive (the
+     * transaction keeps a pointer to its archived data).
+     */
+    ARCHIVE(true, true, true);
+
+    /**
+     * True if the transaction hex, the scripts asm and the block transaction ids are dropped.
+     */
+    private final boolean bulkyFieldsDropped;
+
+    /**
+     * True if the input script hex is dropped.
+     */
+    private final boolean scriptSigHexDropped;
+
+    /**
+     * True if the transaction hex and the scripts are written in the archive.
+     */
+    private final boolean archived;
+
+    /**
+     * Constructor.
+     *
+     * @param newBulkyFieldsDropped  true if the transaction hex, the scripts asm and the block transaction ids are dropped
+     * @param newScriptSigHexDropped true if the input script hex is dropped
+     * @param newArchived            true if the transaction hex and the scripts are written in the archive
+     */
+    IngestionProfile(final boolean newBulkyFieldsDropped, final boolean newScriptSigHexDropped, final boolean newArchived) {
+        this.bulkyFieldsDropped = newBulkyFieldsDropped;
+        this.scriptSigHexDropped = newScriptSigHexDropped;
+        this.archived = newArchived;
+    }
+
+    /**
+     * Getter of bulkyFieldsDropped.
+     *
+     * @return true if the transaction hex, the scripts asm and the block transaction ids are dropped
+     */
+    public boolean isBulkyFieldsDropped() {
+        return bulkyFieldsDropped;
+    }
+
+    /**
+     * Getter of scriptSigHexDropped.
+     *
+     * @return true if the input script hex is dropped
+     */
+    public boolean isScriptSigHexDropped() {
+        return scriptSigHexDropped;
+    }
+
+    /**
+     * Getter of archived.
+     *
+     * @return true if the transaction hex and the scripts are written in the archive
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Configures a core responses object mapper so that the dropped fields are skipped without being deserialized.
+     * The block transaction ids are still deserialized as they are needed to retrieve the transactions and nothing is
+     * skipped when the fields are archived.
+     *
+     * @param objectMapper object mapper
+     */
+    public void configure(final ObjectMapper objectMapper) {
+        if (bulkyFieldsDropped && !archived) {
+            objectMapper.addMixIn(GetRawTransactionResult.class, CoreResponseMixIns.RawTransactionResultMixIn.class);
+            objectMapper.addMixIn(GetRawTransactionScriptPubKey.class, CoreResponseMixIns.ScriptPubKeyMixIn.class);
+            if (scriptSigHexDropped) {
+                objectMapper.addMixIn(GetRawTransactionScriptSig.class, CoreResponseMixIns.ScriptSigWithoutHexMixIn.class);
+            } else {
+                objectMapper.addMixIn(GetRawTransactionScriptSig.class, CoreResponseMixIns.ScriptSigMixIn.class);
+            }
+        }
+    }
+
+}
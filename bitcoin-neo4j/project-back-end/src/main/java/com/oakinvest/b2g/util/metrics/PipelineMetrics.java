@@ -0,0 +1,399 @@
+package com.oakinvest.b2g.util.metrics;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionInput;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import com.oakinvest.b2g.util.throughput.BlockRecord;
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.neo4j.ogm.model.Result;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the import pipeline, exposed on /actuator/prometheus.
+ * <p>
+ * Meters are created once and kept (a registry lookup per block or per call would cost more than the measure) :
+ * <ul>
+ * <li>b2g.core.rpc (timer), b2g.core.rpc.errors and b2g.core.rpc.bytes : calls to bitcoin core by method.</li>
+ * <li>b2g.buffer.requests and b2g.buffer.size : hits and misses of the buffer by type (block or transaction).</li>
+ * <li>b2g.import.step (timer with histogram) : duration of each step of a block.</li>
+ * <li>b2g.import.blocks and b2g.import.transactions : blocks and transactions saved (rate() gives the throughput).</li>
+ * <li>b2g.neo4j.statements (timer) and b2g.neo4j.nodes.created : writes in neo4j (nodes of the blocks saved with OGM
+ * or the embedded writer and nodes created by the stage statements).</li>
+ * <li>executor.* (tagged with the executor name) : utilization of the executors, registered by the executors
+ * provider.</li>
+ * </ul>
+ * The record of each block saved is added to the throughput history.
+ */
+@Component
+public class PipelineMetrics {
+
+    /**
+     * Block buffer type.
+     */
+    public static final String BLOCK_BUFFER = "block";
+
+    /**
+     * Transaction buffer type.
+     */
+    public static final String TRANSACTION_BUFFER = "transaction";
+
+    /**
+     * Bytes received from core.
+     */
+    public static final String RECEIVED_BYTES = "received";
+
+    /**
+     * Block save statement kind.
+     */
+    private static final String SAVE_STATEMENT = "save";
+
+    /**
+     * Stage statement kind.
+     */
+    private static final String STAGE_STATEMENT = "stage";
+
+    /**
+     * Registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Throughput history.
+     */
+    private final ThroughputHistory history;
+
+    /**
+     * Calls to core.
+     */
+    private final LongAdder rpcCount = new LongAdder();
+
+    /**
+     * Bytes received from core.
+     */
+    private final LongAdder rpcBytesReceived = new LongAdder();
+
+    /**
+     * Calls to core when the last block was saved.
+     */
+    private long lastRpcCount;
+
+    /**
+     * Bytes received from core when the last block was saved.
+     */
+    private long lastRpcBytesReceived;
+
+    /**
+     * Step timers.
+     */
+    private final Map<CurrentBlockStatusProcessStep, Timer> stepTimers = new EnumMap<>(CurrentBlockStatusProcessStep.class);
+
+    /**
+     * RPC timers (by method).
+     */
+    private final Map<String, Timer> rpcTimers = new ConcurrentHashMap<>();
+
+    /**
+     * RPC error counters (by method).
+     */
+    private final Map<String, Counter> rpcErrors = new ConcurrentHashMap<>();
+
+    /**
+     * RPC bytes sent and received.
+     */
+    private final Map<String, DistributionSummary> rpcBytes = new ConcurrentHashMap<>();
+
+    /**
+     * Buffer hit counters (by type).
+     */
+    private final Map<String, Counter> bufferHits = new ConcurrentHashMap<>();
+
+    /**
+     * Buffer miss counters (by type).
+     */
+    private final Map<String, Counter> bufferMisses = new ConcurrentHashMap<>();
+
+    /**
+     * Blocks saved.
+     */
+    private final Counter blocks;
+
+    /**
+     * Transactions saved.
+     */
+    private final Counter transactions;
+
+    /**
+     * Block save statements.
+     */
+    private final Timer saveStatements;
+
+    /**
+     * Stage statements.
+     */
+    private final Timer stageStatements;
+
+    /**
+     * Nodes created.
+     */
+    private final Counter nodesCreated;
+
+    /**
+     * Constructor.
+     *
+     * @param newRegistry meter registry
+     * @param newHistory  throughput history
+     */
+    public PipelineMetrics(final MeterRegistry newRegistry, final ThroughputHistory newHistory) {
+        this.registry = newRegistry;
+        this.history = newHistory;
+        for (CurrentBlockStatusProcessStep step : CurrentBlockStatusProcessStep.values()) {
+            stepTimers.put(step, Timer.builder("b2g.import.step")
+                    .description("Duration of a step of the import of a block")
+                    .tag("step", step.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        blocks = Counter.builder("b2g.import.blocks").description("Blocks saved").register(registry);
+        transactions = Counter.builder("b2g.import.transactions").description("Transactions saved").register(registry);
+        saveStatements = createStatementTimer(SAVE_STATEMENT);
+        stageStatements = createStatementTimer(STAGE_STATEMENT);
+        nodesCreated = Counter.builder("b2g.neo4j.nodes.created").description("Nodes created in neo4j").register(registry);
+    }
+
+    /**
+     * Times a call to bitcoin core, counting it as an error if it throws an exception.
+     *
+     * @param method rpc method
+     * @param call   call
+     * @param <T>    response type
+     * @return response
+     */
+    public final <T> T recordRpc(final String method, final Supplier<T> call) {
+        final long start = System.nanoTime();
+        rpcCount.increment();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            rpcErrors.computeIfAbsent(method, m -> Counter.builder("b2g.core.rpc.errors")
+                    .description("Calls to bitcoin core in error")
+                    .tag("method", m)
+                    .register(registry)).increment();
+            throw e;
+        } finally {
+            rpcTimers.computeIfAbsent(method, m -> Timer.builder("b2g.core.rpc")
+                    .description("Calls to bitcoin core")
+                    .tag("method", m)
+                    .register(registry)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records bytes exchanged with bitcoin core.
+     *
+     * @param direction sent or received
+     * @param bytes     number of bytes
+     */
+    public final void recordRpcBytes(final String direction, final long bytes) {
+        if (RECEIVED_BYTES.equals(direction)) {
+            rpcBytesReceived.add(bytes);
+        }
+        rpcBytes.computeIfAbsent(direction, d -> DistributionSummary.builder("b2g.core.rpc.bytes")
+                .description("Bytes exchanged with bitcoin core")
+                .baseUnit("bytes")
+                .tag("direction", d)
+                .register(registry)).record(bytes);
+    }
+
+    /**
+     * Registers the size of a buffer.
+     *
+     * @param type   buffer type
+     * @param buffer buffer
+     * @param <K>    key type
+     * @param <V>    value type
+     */
+    public final <K, V> void registerBuffer(final String type, final Map<K, V> buffer) {
+        registry.gaugeMapSize("b2g.buffer.size", Tags.of("type", type), buffer);
+    }
+
+    /**
+     * Records a buffer request.
+     *
+     * @param type buffer type
+     * @param hit  true if the data was in the buffer
+     */
+    public final void recordBufferRequest(final String type, final boolean hit) {
+        if (hit) {
+            bufferHits.computeIfAbsent(type, t -> createBufferCounter(t, "hit")).increment();
+        } else {
+            bufferMisses.computeIfAbsent(type, t -> createBufferCounter(t, "miss")).increment();
+        }
+    }
+
+    /**
+     * Records the duration of a step of a block.
+     *
+     * @param record record of the block
+     * @param step   step
+     * @param start  start of the step (System.nanoTime())
+     */
+    public final void recordStep(final BlockRecord record, final CurrentBlockStatusProcessStep step, final long start) {
+        final long duration = System.nanoTime() - start;
+        stepTimers.get(step).record(duration, TimeUnit.NANOSECONDS);
+        record.addStepDuration(step, duration);
+    }
+
+    /**
+     * Completes the record of a block written : calls made since the previous block and time of the write (blocks are
+     * written by one thread at a time).
+     *
+     * @param block  block
+     * @param record record of the block
+     */
+    public final void completeRecord(final BitcoinBlock block, final BlockRecord record) {
+        final long currentRpcCount = rpcCount.sum();
+        final long currentRpcBytesReceived = rpcBytesReceived.sum();
+        record.complete(block.getTransactions().size(), currentRpcCount - lastRpcCount, currentRpcBytesReceived - lastRpcBytesReceived, System.currentTimeMillis());
+        lastRpcCount = currentRpcCount;
+        lastRpcBytesReceived = currentRpcBytesReceived;
+    }
+
+    /**
+     * Records a block saved and adds its record to the history : to be called once the transaction of the block is
+     * committed.
+     *
+     * @param block  block
+     * @param record record of the block (completed)
+     */
+    public final void recordBlockSaved(final BitcoinBlock block, final BlockRecord record) {
+        blocks.increment();
+        transactions.increment(block.getTransactions().size());
+        history.add(record);
+    }
+
+    /**
+     * Records the save of a block (OGM session).
+     *
+     * @param start start of the save (System.nanoTime())
+     */
+    public final void recordSave(final long start) {
+        saveStatements.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records nodes created.
+     *
+     * @param count number of nodes
+     */
+    public final void recordNodesCreated(final long count) {
+        nodesCreated.increment(count);
+    }
+
+    /**
+     * Returns the number of nodes an OGM save of the block will create : the entities without id (block,
+     * transactions, inputs, outputs and new addresses). To be called before the save, which sets the ids.
+     *
+     * @param block block to save
+     * @return number of new nodes
+     */
+    public final long countNewNodes(final BitcoinBlock block) {
+        final Set<BitcoinAddress> newAddresses = Collections.newSetFromMap(new IdentityHashMap<>());
+        long count = countIfNew(block.getId());
+        for (BitcoinTransaction transaction : block.getTransactions()) {
+            count += countIfNew(transaction.getId());
+            for (BitcoinTransactionInput input : transaction.getInputs()) {
+                count += countIfNew(input.getId());
+                if (input.getBitcoinAddress() != null && input.getBitcoinAddress().getId() == null) {
+                    newAddresses.add(input.getBitcoinAddress());
+                }
+            }
+            for (BitcoinTransactionOutput output : transaction.getOutputs()) {
+                count += countIfNew(output.getId());
+                if (output.getBitcoinAddress() != null && output.getBitcoinAddress().getId() == null) {
+                    newAddresses.add(output.getBitcoinAddress());
+                }
+            }
+        }
+        return count + newAddresses.size();
+    }
+
+    /**
+     * Returns a runner recording the statements it runs (and the nodes they create when neo4j returns statistics).
+     *
+     * @param runner runner
+     * @return instrumented runner
+     */
+    public final CypherRunner instrument(final CypherRunner runner) {
+        return (query, parameters) -> {
+            final long start = System.nanoTime();
+            final Iterable<Map<String, Object>> rows = runner.run(query, parameters);
+            stageStatements.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (rows instanceof Result && ((Result) rows).queryStatistics() != null) {
+                nodesCreated.increment(((Result) rows).queryStatistics().getNodesCreated());
+            }
+            return rows;
+        };
+    }
+
+    /**
+     * Returns 1 if the entity is not saved yet.
+     *
+     * @param id entity id
+     * @return 1 for a new entity, 0 otherwise
+     */
+    private static long countIfNew(final Long id) {
+        if (id == null) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates a buffer request counter.
+     *
+     * @param type   buffer type
+     * @param result hit or miss
+     * @return counter
+     */
+    private Counter createBufferCounter(final String type, final String result) {
+        return Counter.builder("b2g.buffer.requests")
+                .description("Requests to the buffer")
+                .tag("type", type)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Creates a statement timer.
+     *
+     * @param kind statement kind
+     * @return timer
+     */
+    private Timer createStatementTimer(final String kind) {
+        return Timer.builder("b2g.neo4j.statements")
+                .description("Statements run in neo4j")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+}
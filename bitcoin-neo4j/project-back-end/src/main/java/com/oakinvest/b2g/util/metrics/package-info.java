@@ -0,0 +1,4 @@
+/**
+ * Pipeline metrics.
+ */
+package com.oakinvest.b2g.util.metrics;
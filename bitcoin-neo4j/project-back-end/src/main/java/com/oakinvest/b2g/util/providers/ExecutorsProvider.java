@@ -0,0 +1,116 @@
+package com.oakinvest.b2g.util.providers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import static com.oakinvest.b2g.configuration.AsyncConfiguration.ASYNC_EXECUTOR;
+import static com.oakinvest.b2g.configuration.AsyncConfiguration.CPU_EXECUTOR;
+import static com.oakinvest.b2g.configuration.AsyncConfiguration.IMPORT_EXECUTOR;
+import static com.oakinvest.b2g.configuration.AsyncConfiguration.IO_EXECUTOR;
+
+/**
+ * Executors provider.
+ * <p>
+ * The utilization of each executor (executor.active, executor.queued, executor.pool.size, executor.completed... tagged
+ * with the executor name) is registered in the meter registry and exposed on /actuator/prometheus.
+ */
+@SuppressWarnings("unused")
+@Component
+public class ExecutorsProvider {
+
+    /**
+     * Executor for blocking I/O.
+     */
+    private final ThreadPoolTaskExecutor ioExecutor;
+
+    /**
+     * Executor for CPU bound work.
+     */
+    private final ThreadPoolTaskExecutor cpuExecutor;
+
+    /**
+     * Executor for the import workers.
+     */
+    private final ThreadPoolTaskExecutor importExecutor;
+
+    /**
+     * Executor for @Async methods.
+     */
+    private final ThreadPoolTaskExecutor asyncExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @param newIoExecutor    I/O executor
+     * @param newCpuExecutor    CPU executor
+     * @param newImportExecutor import executor
+     * @param newAsyncExecutor  async executor
+     * @param registry          meter registry
+     */
+    public ExecutorsProvider(@Qualifier(IO_EXECUTOR) final ThreadPoolTaskExecutor newIoExecutor,
+                             @Qualifier(CPU_EXECUTOR) final ThreadPoolTaskExecutor newCpuExecutor,
+                             @Qualifier(IMPORT_EXECUTOR) final ThreadPoolTaskExecutor newImportExecutor,
+                             @Qualifier(ASYNC_EXECUTOR) final ThreadPoolTaskExecutor newAsyncExecutor,
+                             final MeterRegistry registry) {
+        this.ioExecutor = newIoExecutor;
+        this.cpuExecutor = newCpuExecutor;
+        this.importExecutor = newImportExecutor;
+        this.asyncExecutor = newAsyncExecutor;
+        registerMetrics(registry, IO_EXECUTOR, ioExecutor);
+        registerMetrics(registry, CPU_EXECUTOR, cpuExecutor);
+        registerMetrics(registry, IMPORT_EXECUTOR, importExecutor);
+        registerMetrics(registry, ASYNC_EXECUTOR, asyncExecutor);
+    }
+
+    /**
+     * Get I/O executor.
+     *
+     * @return I/O executor
+     */
+    public final ThreadPoolTaskExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Get CPU executor.
+     *
+     * @return CPU executor
+     */
+    public final ThreadPoolTaskExecutor getCpuExecutor() {
+        return cpuExecutor;
+    }
+
+    /**
+     * Get import executor.
+     *
+     * @return import executor
+     */
+    public final ThreadPoolTaskExecutor getImportExecutor() {
+        return importExecutor;
+    }
+
+    /**
+     * Get async executor.
+     *
+     * @return async executor
+     */
+    public final ThreadPoolTaskExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Registers the gauges and counters of an executor (the gauges read the pool when the registry is scraped).
+     *
+     * @param registry meter registry
+     * @param name     executor name
+     * @param executor executor
+     */
+    private static void registerMetrics(final MeterRegistry registry, final String name, final ThreadPoolTaskExecutor executor) {
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(registry);
+    }
+
+}
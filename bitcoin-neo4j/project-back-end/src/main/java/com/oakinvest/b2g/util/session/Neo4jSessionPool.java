@@ -0,0 +1,149 @@
+package com.oakinvest.b2g.util.session;
+
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Pool of neo4j sessions used by the import workers.
+ * <p>
+ * OGM sessions are not thread safe : each lookup borrows a read session that is cleared when given back (so its
+ * identity map never grows) and each commit uses its own write session.
+ */
+@Component
+public class Neo4jSessionPool {
+
+    /**
+     * Query used to find an address.
+     */
+    private static final String FIND_ADDRESS = "MATCH (a:BitcoinAddress) USING INDEX a:BitcoinAddress(address) WHERE a.address = $address RETURN a";
+
+    /**
+     * Query used to find a transaction output.
+     */
+    private static final String FIND_TRANSACTION_OUTPUT = "MATCH (o:BitcoinTransactionOutput) WHERE o.txid = $txid AND o.n = $n RETURN o";
+
+    /**
+     * Query used to find a block by its height.
+     */
+    private static final String FIND_BLOCK_BY_HEIGHT = "MATCH (b:BitcoinBlock) WHERE b.height = $height RETURN b";
+
+    /**
+     * Query used to find the highest block height saved in a range.
+     */
+    private static final String FIND_LAST_BLOCK_HEIGHT = "MATCH (b:BitcoinBlock) WHERE b.height >= $from AND b.height <= $to RETURN b.height ORDER BY b.height DESC LIMIT 1";
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Idle read sessions.
+     */
+    private final BlockingQueue<Session> readSessions;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     * @param newPoolSize       number of read sessions kept (the number of I/O workers)
+     */
+    public Neo4jSessionPool(final SessionFactory newSessionFactory, @Value("${b2g.executors.io.size:64}") final int newPoolSize) {
+        this.sessionFactory = newSessionFactory;
+        this.readSessions = new ArrayBlockingQueue<>(newPoolSize);
+    }
+
+    /**
+     * Runs a read with a session borrowed from the pool.
+     * If all the sessions are in use, a new one is opened and it's discarded if the pool is full when it's given back.
+     *
+     * @param reader read to run
+     * @param <T>    result type
+     * @return result of the read
+     */
+    public final <T> T read(final Function<Session, T> reader) {
+        Session session = readSessions.poll();
+        if (session == null) {
+            session = sessionFactory.openSession();
+        }
+        try {
+            return reader.apply(session);
+        } finally {
+            session.clear();
+            readSessions.offer(session);
+        }
+    }
+
+    /**
+     * Opens a new session dedicated to a commit.
+     *
+     * @return write session
+     */
+    public final Session openWriteSession() {
+        return sessionFactory.openSession();
+    }
+
+    /**
+     * Find a bitcoin address (with depth 0).
+     *
+     * @param address address
+     * @return bitcoin address
+     */
+    public final Optional<BitcoinAddress> findAddress(final String address) {
+        return read(s -> Optional.ofNullable(s.queryForObject(BitcoinAddress.class, FIND_ADDRESS, Map.of("address", address))));
+    }
+
+    /**
+     * Find a transaction output by its transaction id and index (with depth 0).
+     *
+     * @param txId transaction id
+     * @param n    output index
+     * @return transaction output
+     */
+    public final Optional<BitcoinTransactionOutput> findTransactionOutput(final String txId, final int n) {
+        return read(s -> Optional.ofNullable(s.queryForObject(BitcoinTransactionOutput.class, FIND_TRANSACTION_OUTPUT, Map.of("txid", StorageEncoding.encodeHash(txId), "n", n))));
+    }
+
+    /**
+     * Find a block by its height (with depth 0).
+     *
+     * @param height height
+     * @return block
+     */
+    public final Optional<BitcoinBlock> findBlockByHeight(final int height) {
+        return read(s -> Optional.ofNullable(s.queryForObject(BitcoinBlock.class, FIND_BLOCK_BY_HEIGHT, Map.of("height", height))));
+    }
+
+    /**
+     * Find the highest block height saved between two heights.
+     *
+     * @param from first block height
+     * @param to   last block height
+     * @return highest block height saved
+     */
+    public final Optional<Integer> findLastBlockHeight(final int from, final int to) {
+        return read(s -> Optional.ofNullable(s.queryForObject(Integer.class, FIND_LAST_BLOCK_HEIGHT, Map.of("from", from, "to", to))));
+    }
+
+    /**
+     * Number of idle read sessions.
+     *
+     * @return idle read sessions
+     */
+    public final int getIdleReadSessionCount() {
+        return readSessions.size();
+    }
+
+}
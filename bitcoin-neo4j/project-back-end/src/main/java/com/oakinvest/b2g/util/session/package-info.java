@@ -0,0 +1,4 @@
+/**
+ * Neo4j sessions.
+ */
+package com.oakinvest.b2g.util.session;
\ No newline at end of file
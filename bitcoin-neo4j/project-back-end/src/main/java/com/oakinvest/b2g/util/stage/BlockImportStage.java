@@ -0,0 +1,50 @@
+package com.oakinvest.b2g.util.stage;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+
+/**
+ * Stage of the import pipeline run after a block is saved, in the same transaction.
+ * <p>
+ * Blocks are given in height order by the sequencer : a stage can keep state between blocks (it's not called
+ * concurrently). In the distributed import, ranges are imported in any order and inputs whose origin is not imported
+ * yet are only linked by the stitching.
+ */
+public interface BlockImportStage {
+
+    /**
+     * Returns the stage name (used in logs).
+     *
+     * @return name
+     */
+    String getName();
+
+    /**
+     * Called before the block is saved : the entities created by the block have no id yet.
+     *
+     * @param block block to save
+     */
+    default void beforeSave(final BitcoinBlock block) {
+    }
+
+    /**
+     * Applies the block to the graph : statements must be batched (a few statements per block).
+     *
+     * @param block  block saved (with its transactions, inputs, outputs and addresses)
+     * @param runner runs statements in the block transaction
+     */
+    void apply(BitcoinBlock block, CypherRunner runner);
+
+    /**
+     * Called once the transaction of the blocks applied is committed.
+     */
+    default void afterCommit() {
+    }
+
+    /**
+     * Called when the transaction of the blocks applied is rolled back (or not committed) : the ids of the entities
+     * created by these blocks are invalid.
+     */
+    default void afterRollback() {
+    }
+
+}
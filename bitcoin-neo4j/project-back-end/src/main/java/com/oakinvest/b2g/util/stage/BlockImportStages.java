@@ -0,0 +1,108 @@
+package com.oakinvest.b2g.util.stage;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Stages run around the save of each block.
+ * <p>
+ * The write lock is held by the importer while it writes a window and by the maintenance jobs while they rebuild a
+ * batch, so a rebuild never interleaves with the deltas of a block.
+ */
+@Component
+public class BlockImportStages {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(BlockImportStages.class);
+
+    /**
+     * Stages (in @Order order).
+     */
+    private final List<BlockImportStage> stages;
+
+    /**
+     * Write lock.
+     */
+    private final Lock writeLock = new ReentrantLock();
+
+    /**
+     * Metrics.
+     */
+    private final PipelineMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param newStages  enabled stages
+     * @param newMetrics metrics
+     */
+    public BlockImportStages(final ObjectProvider<BlockImportStage> newStages, final PipelineMetrics newMetrics) {
+        this.stages = newStages.orderedStream().collect(Collectors.toList());
+        this.metrics = newMetrics;
+        stages.forEach(s -> log.info("Import stage enabled : " + s.getName()));
+    }
+
+    /**
+     * Gives a block to all the stages before it's saved.
+     *
+     * @param block block to save
+     */
+    public final void beforeSave(final BitcoinBlock block) {
+        stages.forEach(s -> s.beforeSave(block));
+    }
+
+    /**
+     * Applies all the stages to a block (the statements they run are measured).
+     *
+     * @param block  block saved
+     * @param runner runs statements in the block transaction
+     */
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        final CypherRunner instrumentedRunner = metrics.instrument(runner);
+        stages.forEach(s -> s.apply(block, instrumentedRunner));
+    }
+
+    /**
+     * Tells all the stages that the transaction of the blocks applied is committed.
+     */
+    public final void afterCommit() {
+        stages.forEach(BlockImportStage::afterCommit);
+    }
+
+    /**
+     * Tells all the stages that the blocks applied since the last commit are rolled back.
+     */
+    public final void afterRollback() {
+        stages.forEach(BlockImportStage::afterRollback);
+    }
+
+    /**
+     * Returns the enabled stages.
+     *
+     * @return stages
+     */
+    public final List<BlockImportStage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Returns the write lock.
+     *
+     * @return write lock
+     */
+    public final Lock getWriteLock() {
+        return writeLock;
+    }
+
+}
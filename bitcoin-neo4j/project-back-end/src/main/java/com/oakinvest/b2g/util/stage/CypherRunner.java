@@ -0,0 +1,42 @@
+package com.oakinvest.b2g.util.stage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a cypher statement in the transaction writing a block (OGM session or embedded database).
+ */
+@FunctionalInterface
+public interface CypherRunner {
+
+    /**
+     * Number of rows given to an UNWIND statement.
+     */
+    int ROWS_PER_STATEMENT = 10000;
+
+    /**
+     * Runs a statement.
+     *
+     * @param query      cypher query
+     * @param parameters parameters
+     * @return rows returned by the statement
+     */
+    Iterable<Map<String, Object>> run(String query, Map<String, Object> parameters);
+
+    /**
+     * Runs an UNWIND statement on rows, by batches of ROWS_PER_STATEMENT rows.
+     *
+     * @param query      cypher query (UNWIND $rows AS ...)
+     * @param rows       rows
+     * @param parameters other parameters
+     */
+    default void runInBatches(final String query, final List<Map<String, Object>> rows, final Map<String, Object> parameters) {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            final Map<String, Object> batchParameters = new HashMap<>(parameters);
+            batchParameters.put("rows", rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+            run(query, batchParameters);
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Import pipeline stages.
+ */
+package com.oakinvest.b2g.util.stage;
@@ -1,11 +1,17 @@
 package com.oakinvest.b2g.util.status;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Application status DTO.
+ * <p>
+ * Setters don't publish anything : they count a change and the status is published by StatusPublisher at most once
+ * per interval.
  */
 @SuppressWarnings("unused")
 @Component
@@ -25,12 +31,12 @@ public class ApplicationStatus {
     /**
      * Number of blocks in Bitcoin core (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int blockCountInBlockchain = NON_AVAILABLE_VALUE_NUMBER;
+    private volatile int blockCountInBlockchain = NON_AVAILABLE_VALUE_NUMBER;
 
     /**
      * Number of blocks in neo4j (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int blockCountInNeo4j = NON_AVAILABLE_VALUE_NUMBER;
+    private volatile int blockCountInNeo4j = NON_AVAILABLE_VALUE_NUMBER;
 
     /**
      * Status of the block being processed.
@@ -42,12 +48,17 @@ public class ApplicationStatus {
     /**
      * Last block process duration (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private float lastBlockProcessDuration = NON_AVAILABLE_VALUE_NUMBER;
+    private volatile float lastBlockProcessDuration = NON_AVAILABLE_VALUE_NUMBER;
 
     /**
      * Last error message (if no error, value is set to NON_AVAILABLE_VALUE_STRING).
      */
-    private String lastErrorMessage = NON_AVAILABLE_VALUE_STRING;
+    private volatile String lastErrorMessage = NON_AVAILABLE_VALUE_STRING;
+
+    /**
+     * Number of changes (the status is published when it changes).
+     */
+    private final LongAdder changes = new LongAdder();
 
     /**
      * Gets blockCountInBlockchain.
@@ -65,6 +76,7 @@ public class ApplicationStatus {
      */
     public void setBlockCountInBlockchain(final int newBlocksCountInBitcoinCore) {
         blockCountInBlockchain = newBlocksCountInBitcoinCore;
+        changes.increment();
     }
 
     /**
@@ -83,6 +95,7 @@ public class ApplicationStatus {
      */
     public void setBlockCountInNeo4j(final int newBlocksCountInNeo4j) {
         blockCountInNeo4j = newBlocksCountInNeo4j;
+        changes.increment();
     }
 
     /**
@@ -101,6 +114,7 @@ public class ApplicationStatus {
      */
     public void setCurrentBlockStatus(final CurrentBlockStatus newCurrentBlockStatus) {
         currentBlockStatus = newCurrentBlockStatus;
+        changes.increment();
     }
 
     /**
@@ -119,6 +133,7 @@ public class ApplicationStatus {
      */
     public void setLastBlockProcessDuration(final float newAverageBlockProcessDuration) {
         lastBlockProcessDuration = newAverageBlockProcessDuration;
+        changes.increment();
     }
 
     /**
@@ -137,6 +152,17 @@ public class ApplicationStatus {
      */
     public void setLastErrorMessage(final String newLastErrorMessage) {
         lastErrorMessage = newLastErrorMessage;
+        changes.increment();
+    }
+
+    /**
+     * Returns the number of changes of the application status and of the current block status.
+     *
+     * @return number of changes (increases each time the status changes)
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return changes.sum() + currentBlockStatus.getVersion();
     }
 
 }
@@ -1,13 +1,20 @@
 package com.oakinvest.b2g.util.status;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 import static com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep.NEW_BLOCK_TO_PROCESS;
 import static com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep.NO_BLOCK_TO_PROCESS;
 
 /**
  * Status of the current block being processed.
+ * <p>
+ * Setters don't publish anything : they count a change and the status is published by StatusPublisher at most once
+ * per interval. The counters updated by the parallel workers are atomics.
  */
 @SuppressWarnings("unused")
 @Component
@@ -22,38 +29,42 @@ public class CurrentBlockStatus {
     /**
      * The block being processed (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int blockHeight = NON_AVAILABLE_VALUE_NUMBER;
+    private volatile int blockHeight = NON_AVAILABLE_VALUE_NUMBER;
 
     /**
      * Step in the process.
      */
-    private CurrentBlockStatusProcessStep processStep = NO_BLOCK_TO_PROCESS;
+    private volatile CurrentBlockStatusProcessStep processStep = NO_BLOCK_TO_PROCESS;
 
     /**
      * Number of transactions in the current block (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int transactionCount = NON_AVAILABLE_VALUE_NUMBER;
+    private final AtomicInteger transactionCount = new AtomicInteger(NON_AVAILABLE_VALUE_NUMBER);
 
     /**
      * Number of addresses in the current block (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int addressCount = NON_AVAILABLE_VALUE_NUMBER;
+    private final AtomicInteger addressCount = new AtomicInteger(NON_AVAILABLE_VALUE_NUMBER);
 
     /**
      * Number of loaded transactions from bitcoin core.
      */
-    private int loadedTransactions = NON_AVAILABLE_VALUE_NUMBER;
+    private final AtomicInteger loadedTransactions = new AtomicInteger(NON_AVAILABLE_VALUE_NUMBER);
 
     /**
      * Number of addresses processed (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int processedAddresses = NON_AVAILABLE_VALUE_NUMBER;
+    private final AtomicInteger processedAddresses = new AtomicInteger(NON_AVAILABLE_VALUE_NUMBER);
 
     /**
      * Number of transactions processed (NON_AVAILABLE_VALUE_NUMBER means no value has been set yet).
      */
-    private int processedTransactions = NON_AVAILABLE_VALUE_NUMBER;
+    private final AtomicInteger processedTransactions = new AtomicInteger(NON_AVAILABLE_VALUE_NUMBER);
 
+    /**
+     * Number of changes (the status is published when it changes).
+     */
+    private final LongAdder changes = new LongAdder();
 
     /**
      * Gets blockHeight.
@@ -72,11 +83,12 @@ public class CurrentBlockStatus {
     public void setBlockHeight(final int newBlockHeight) {
         blockHeight = newBlockHeight;
         processStep = NEW_BLOCK_TO_PROCESS;
-        transactionCount = NON_AVAILABLE_VALUE_NUMBER;
-        addressCount = NON_AVAILABLE_VALUE_NUMBER;
-        loadedTransactions = NON_AVAILABLE_VALUE_NUMBER;
-        processedAddresses = NON_AVAILABLE_VALUE_NUMBER;
-        processedTransactions = NON_AVAILABLE_VALUE_NUMBER;
+        transactionCount.set(NON_AVAILABLE_VALUE_NUMBER);
+        addressCount.set(NON_AVAILABLE_VALUE_NUMBER);
+        loadedTransactions.set(NON_AVAILABLE_VALUE_NUMBER);
+        processedAddresses.set(NON_AVAILABLE_VALUE_NUMBER);
+        processedTransactions.set(NON_AVAILABLE_VALUE_NUMBER);
+        changes.increment();
     }
 
     /**
@@ -98,19 +110,20 @@ public class CurrentBlockStatus {
         // If there there is nothing to process, we change the other values to non available.
         if (newProcessStep.equals(NO_BLOCK_TO_PROCESS)) {
             blockHeight = NON_AVAILABLE_VALUE_NUMBER;
-            transactionCount = NON_AVAILABLE_VALUE_NUMBER;
-            addressCount = NON_AVAILABLE_VALUE_NUMBER;
-            loadedTransactions = NON_AVAILABLE_VALUE_NUMBER;
-            processedAddresses = NON_AVAILABLE_VALUE_NUMBER;
-            processedTransactions = NON_AVAILABLE_VALUE_NUMBER;
+            transactionCount.set(NON_AVAILABLE_VALUE_NUMBER);
+            addressCount.set(NON_AVAILABLE_VALUE_NUMBER);
+            loadedTransactions.set(NON_AVAILABLE_VALUE_NUMBER);
+            processedAddresses.set(NON_AVAILABLE_VALUE_NUMBER);
+            processedTransactions.set(NON_AVAILABLE_VALUE_NUMBER);
         }
         if (newProcessStep.equals(NEW_BLOCK_TO_PROCESS)) {
-            transactionCount = 0;
-            addressCount = 0;
-            loadedTransactions = 0;
-            processedAddresses = 0;
-            processedTransactions = 0;
+            transactionCount.set(0);
+            addressCount.set(0);
+            loadedTransactions.set(0);
+            processedAddresses.set(0);
+            processedTransactions.set(0);
         }
+        changes.increment();
     }
 
     /**
@@ -119,7 +132,7 @@ public class CurrentBlockStatus {
      * @return value of loadedTransactions
      */
     public int getLoadedTransactions() {
-        return loadedTransactions;
+        return loadedTransactions.get();
     }
 
     /**
@@ -128,7 +141,8 @@ public class CurrentBlockStatus {
      * @param newLoadedTransactions loadedTransactions
      */
     public void setLoadedTransactions(final int newLoadedTransactions) {
-        loadedTransactions = newLoadedTransactions;
+        loadedTransactions.set(newLoadedTransactions);
+        changes.increment();
     }
 
     /**
@@ -137,7 +151,7 @@ public class CurrentBlockStatus {
      * @return value of processedAddresses
      */
     public int getProcessedAddresses() {
-        return processedAddresses;
+        return processedAddresses.get();
     }
 
     /**
@@ -146,7 +160,8 @@ public class CurrentBlockStatus {
      * @param newProcessedAddresses processedAddresses
      */
     public void setProcessedAddresses(final int newProcessedAddresses) {
-        processedAddresses = newProcessedAddresses;
+        processedAddresses.set(newProcessedAddresses);
+        changes.increment();
     }
 
     /**
@@ -155,7 +170,7 @@ public class CurrentBlockStatus {
      * @return value of addressCount
      */
     public int getAddressCount() {
-        return addressCount;
+        return addressCount.get();
     }
 
     /**
@@ -164,7 +179,8 @@ public class CurrentBlockStatus {
      * @param newAddressesCount addressCount
      */
     public void setAddressCount(final int newAddressesCount) {
-        addressCount = newAddressesCount;
+        addressCount.set(newAddressesCount);
+        changes.increment();
     }
 
     /**
@@ -173,7 +189,7 @@ public class CurrentBlockStatus {
      * @return value of processedTransactions
      */
     public int getProcessedTransactions() {
-        return processedTransactions;
+        return processedTransactions.get();
     }
 
     /**
@@ -182,7 +198,8 @@ public class CurrentBlockStatus {
      * @param newProcessedTransactions processedTransactions
      */
     public void setProcessedTransactions(final int newProcessedTransactions) {
-        processedTransactions = newProcessedTransactions;
+        processedTransactions.set(newProcessedTransactions);
+        changes.increment();
     }
 
     /**
@@ -191,7 +208,7 @@ public class CurrentBlockStatus {
      * @return value of transactionCount
      */
     public int getTransactionCount() {
-        return transactionCount;
+        return transactionCount.get();
     }
 
     /**
@@ -200,7 +217,49 @@ public class CurrentBlockStatus {
      * @param newTransactionsCount transactionCount
      */
     public void setTransactionCount(final int newTransactionsCount) {
-        transactionCount = newTransactionsCount;
+        transactionCount.set(newTransactionsCount);
+        changes.increment();
+    }
+
+    /**
+     * Adds a transaction loaded from bitcoin core.
+     */
+    public void addLoadedTransaction() {
+        increment(loadedTransactions);
+    }
+
+    /**
+     * Adds a processed address.
+     */
+    public void addProcessedAddress() {
+        increment(processedAddresses);
+    }
+
+    /**
+     * Adds a processed transaction.
+     */
+    public void addProcessedTransaction() {
+        increment(processedTransactions);
+    }
+
+    /**
+     * Returns the number of changes.
+     *
+     * @return number of changes (increases each time the status changes)
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return changes.sum();
+    }
+
+    /**
+     * Increments a counter (a non available value counts as 0).
+     *
+     * @param counter counter
+     */
+    private void increment(final AtomicInteger counter) {
+        counter.updateAndGet(value -> Math.max(value, 0) + 1);
+        changes.increment();
     }
 
 }
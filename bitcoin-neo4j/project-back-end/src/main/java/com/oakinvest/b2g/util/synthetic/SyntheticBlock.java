@@ -0,0 +1,64 @@
+package com.oakinvest.b2g.util.synthetic;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Block of the synthetic chain and its transactions, as core returns them.
+ */
+public class SyntheticBlock {
+
+    /**
+     * Block (getblock result).
+     */
+    private final GetBlockResult block;
+
+    /**
+     * Transactions of the block indexed by id (getrawtransaction results, in block order).
+     */
+    private final Map<String, GetRawTransactionResult> transactions;
+
+    /**
+     * Constructor.
+     *
+     * @param newBlock        block
+     * @param newTransactions transactions of the block indexed by id (in block order)
+     */
+    public SyntheticBlock(final GetBlockResult newBlock, final Map<String, GetRawTransactionResult> newTransactions) {
+        this.block = newBlock;
+        this.transactions = newTransactions;
+    }
+
+    /**
+     * Getter of block.
+     *
+     * @return block
+     */
+    public final GetBlockResult getBlock() {
+        return block;
+    }
+
+    /**
+     * Returns the transactions of the block.
+     *
+     * @return transactions (in block order)
+     */
+    public final Collection<GetRawTransactionResult> getTransactions() {
+        return transactions.values();
+    }
+
+    /**
+     * Returns a transaction of the block.
+     *
+     * @param transactionId transaction id
+     * @return transaction
+     */
+    public final Optional<GetRawTransactionResult> getTransaction(final String transactionId) {
+        return Optional.ofNullable(transactions.get(transactionId));
+    }
+
+}
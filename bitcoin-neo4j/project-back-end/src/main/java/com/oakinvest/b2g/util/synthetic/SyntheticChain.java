@@ -0,0 +1,629 @@
+package com.oakinvest.b2g.util.synthetic;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vin.GetRawTransactionVIn;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vin.scriptsig.GetRawTransactionScriptSig;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.GetRawTransactionVOut;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.scriptpubkey.GetRawTransactionScriptPubKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Deterministic synthetic block chain : the same settings always give the same blocks, transactions and values.
+ * <p>
+ * Blocks are generated in sequence from one random generator. Transactions spend outputs picked in the pool of unspent
+ * outputs (previous blocks, or earlier transactions of the same block), so every input references an existing output
+ * that is spent only once and the values are balanced (coinbase : reward and fees). As there is nothing to spend at
+ * the beginning, the first blocks are smaller than the settings until enough outputs are created. Genesis outputs are
+ * never spent, like on mainnet (the genesis block is never imported).
+ * <p>
+ * Only the last blocks are kept : asking for an older block generates the chain again from genesis. Block hashes and
+ * transaction ids start with the block height (and the transaction index) in hexadecimal, so they are found without
+ * an index.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.synthetic.enabled", havingValue = "true")
+public class SyntheticChain {
+
+    /**
+     * Number of blocks kept (more than the blocks imported in parallel).
+     */
+    private static final int RETAINED_BLOCKS = 32;
+
+    /**
+     * Number of decimals of a value in BTC.
+     */
+    private static final int BITCOIN_SCALE = 8;
+
+    /**
+     * Initial block reward (satoshis).
+     */
+    private static final long BLOCK_REWARD = 5_000_000_000L;
+
+    /**
+     * Blocks between two reward halvings.
+     */
+    private static final int HALVING_INTERVAL = 210_000;
+
+    /**
+     * Fee of a transaction (part of its inputs value : 1/1000).
+     */
+    private static final long FEE_DIVISOR = 1000;
+
+    /**
+     * Time of the genesis block (seconds).
+     */
+    private static final long GENESIS_TIME = 1231006505L;
+
+    /**
+     * Time between two blocks (seconds).
+     */
+    private static final long BLOCK_INTERVAL = 600;
+
+    /**
+     * Median time lag (median of the last 11 blocks).
+     */
+    private static final long MEDIAN_TIME_LAG = 6 * BLOCK_INTERVAL;
+
+    /**
+     * Block header size.
+     */
+    private static final int HEADER_SIZE = 80;
+
+    /**
+     * Transaction overhead size (version, counts, lock time).
+     */
+    private static final int TRANSACTION_SIZE = 10;
+
+    /**
+     * Input size (outpoint, signature script, sequence).
+     */
+    private static final int INPUT_SIZE = 148;
+
+    /**
+     * Output size (value and pay to public key hash script).
+     */
+    private static final int OUTPUT_SIZE = 34;
+
+    /**
+     * Signature script of the inputs (placeholder of the size of a signature and a public key).
+     */
+    private static final String SIGNATURE_SCRIPT = "00".repeat(106);
+
+    /**
+     * Sequence of the inputs (final).
+     */
+    private static final long SEQUENCE = 4294967295L;
+
+    /**
+     * Length of the height or index prefix (hexadecimal).
+     */
+    private static final int PREFIX_LENGTH = 8;
+
+    /**
+     * Length of a hash (hexadecimal).
+     */
+    private static final int HASH_LENGTH = 64;
+
+    /**
+     * Length of a public key hash (hexadecimal).
+     */
+    private static final int PUBLIC_KEY_HASH_LENGTH = 40;
+
+    /**
+     * Length of an address (after the version character).
+     */
+    private static final int ADDRESS_LENGTH = 33;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Settings.
+     */
+    private final SyntheticChainSettings settings;
+
+    /**
+     * Hash function (ids).
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Last blocks generated (indexed by height).
+     */
+    private final TreeMap<Integer, SyntheticBlock> blocks = new TreeMap<>();
+
+    /**
+     * Unspent outputs of the blocks generated.
+     */
+    private final List<UnspentOutput> unspentOutputs = new ArrayList<>();
+
+
+    /**
+     * Random generator.
+     */
+    private Random random;
+
+    /**
+     * Height of the next block to generate.
+     */
+    private int nextHeight;
+
+    /**
+     * Number of addresses used (addresses are computed from their index, nothing is kept).
+     */
+    private int addressCount;
+
+    /**
+     * Constructor.
+     *
+     * @param newSettings settings
+     */
+    public SyntheticChain(final SyntheticChainSettings newSettings) {
+        this.settings = newSettings;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        reset();
+    }
+
+    /**
+     * Returns the number of blocks of the chain (height of the tip).
+     *
+     * @return block count
+     */
+    public final int getBlockCount() {
+        return settings.getBlockCount();
+    }
+
+    /**
+     * Returns the hash of a block.
+     *
+     * @param height block height
+     * @return block hash (empty if the height is out of the chain)
+     */
+    public final synchronized Optional<String> getBlockHash(final int height) {
+        if (height < 0 || height > getBlockCount()) {
+            return Optional.empty();
+        }
+        return Optional.of(computeBlockHash(height));
+    }
+
+    /**
+     * Returns a block.
+     *
+     * @param height block height
+     * @return block (empty if the height is out of the chain)
+     */
+    public final synchronized Optional<SyntheticBlock> getBlock(final int height) {
+        if (height < 0 || height > getBlockCount()) {
+            return Optional.empty();
+        }
+        if (!blocks.containsKey(height)) {
+            if (height < nextHeight) {
+                // Not kept anymore, the chain is generated again.
+                reset();
+            }
+            while (nextHeight <= height) {
+                blocks.put(nextHeight, generateBlock(nextHeight));
+                nextHeight++;
+                if (blocks.size() > RETAINED_BLOCKS) {
+                    blocks.pollFirstEntry();
+                }
+            }
+        }
+        return Optional.of(blocks.get(height));
+    }
+
+    /**
+     * Returns a block from its hash.
+     *
+     * @param hash block hash
+     * @return block (empty if the hash is not in the chain)
+     */
+    public final synchronized Optional<GetBlockResult> getBlock(final String hash) {
+        return parseHeight(hash, PREFIX_LENGTH)
+                .filter(h -> computeBlockHash(h).equals(hash))
+                .flatMap(this::getBlock)
+                .map(SyntheticBlock::getBlock);
+    }
+
+    /**
+     * Returns a transaction from its id.
+     *
+     * @param transactionId transaction id
+     * @return transaction (empty if the id is not in the chain)
+     */
+    public final synchronized Optional<GetRawTransactionResult> getTransaction(final String transactionId) {
+        return parseHeight(transactionId, 0)
+                .flatMap(this::getBlock)
+                .flatMap(b -> b.getTransaction(transactionId));
+    }
+
+    /**
+     * Starts the generation from genesis.
+     */
+    private void reset() {
+        random = new Random(settings.getSeed());
+        nextHeight = 0;
+        blocks.clear();
+        unspentOutputs.clear();
+        addressCount = 0;
+    }
+
+    /**
+     * Generates a block (and updates the unspent outputs).
+     *
+     * @param height block height
+     * @return block
+     */
+    private SyntheticBlock generateBlock(final int height) {
+        final String hash = computeBlockHash(height);
+        final long time = GENESIS_TIME + height * BLOCK_INTERVAL;
+        final List<GetRawTransactionResult> transactions = new ArrayList<>();
+        final List<UnspentOutput> blockOutputs = new ArrayList<>();
+
+        // Transactions (not for genesis, the first one is the coinbase).
+        int transactionCount = 1;
+        if (height > 0) {
+            transactionCount = settings.getTransactions().pick(random);
+        }
+        long fees = 0;
+        for (int index = 1; index < transactionCount; index++) {
+            final int inputCount = settings.getInputs().pick(random);
+            final List<UnspentOutput> spentOutputs = new ArrayList<>(inputCount);
+            for (int i = 0; i < inputCount; i++) {
+                final UnspentOutput spentOutput = pickUnspentOutput(blockOutputs);
+                if (spentOutput == null) {
+                    break;
+                }
+                spentOutputs.add(spentOutput);
+            }
+            if (spentOutputs.isEmpty()) {
+                // Nothing left to spend.
+                break;
+            }
+            final GetRawTransactionResult transaction = createTransaction(hash, height, index, time);
+            long value = 0;
+            for (UnspentOutput output : spentOutputs) {
+                transaction.getVin().add(createInput(output));
+                value += output.getValue();
+            }
+            final long fee = value / FEE_DIVISOR;
+            fees += fee;
+            blockOutputs.addAll(addOutputs(transaction, value - fee));
+            transactions.add(transaction);
+        }
+
+        // Coinbase (reward and fees).
+        final GetRawTransactionResult coinbase = createTransaction(hash, height, 0, time);
+        final GetRawTransactionVIn coinbaseInput = new GetRawTransactionVIn();
+        coinbaseInput.setCoinbase(toHex(hash(coinbase.getTxid())).substring(0, PREFIX_LENGTH * 2));
+        coinbaseInput.setSequence(SEQUENCE);
+        coinbase.getVin().add(coinbaseInput);
+        final List<UnspentOutput> coinbaseOutputs = addOutputs(coinbase, getReward(height) + fees);
+        transactions.add(0, coinbase);
+        if (height > 0) {
+            unspentOutputs.addAll(coinbaseOutputs);
+        }
+        unspentOutputs.addAll(blockOutputs);
+
+        // Block.
+        final GetBlockResult block = new GetBlockResult();
+        final Map<String, GetRawTransactionResult> blockTransactions = new LinkedHashMap<>();
+        int size = HEADER_SIZE;
+        for (GetRawTransactionResult transaction : transactions) {
+            transaction.setConfirmations(getBlockCount() - height + 1);
+            blockTransactions.put(transaction.getTxid(), transaction);
+            block.getTx().add(transaction.getTxid());
+            size += transaction.getSize();
+        }
+        block.setHash(hash);
+        block.setHeight(height);
+        block.setConfirmations(getBlockCount() - height + 1);
+        block.setSize(size);
+        block.setVersion(1);
+        block.setMerkleroot(toHex(hash("merkle:" + hash)));
+        block.setTime(time);
+        block.setMediantime(Math.max(GENESIS_TIME, time - MEDIAN_TIME_LAG));
+        block.setNonce(random.nextInt() & Integer.MAX_VALUE);
+        block.setBits("1d00ffff");
+        block.setDifficulty(1);
+        block.setChainwork(String.format("%064x", height + 1L));
+        if (height > 0) {
+            block.setPreviousblockhash(computeBlockHash(height - 1));
+        }
+        if (height < getBlockCount()) {
+            block.setNextblockhash(computeBlockHash(height + 1));
+        }
+        return new SyntheticBlock(block, blockTransactions);
+    }
+
+    /**
+     * Picks and removes an unspent output, in the same block with the in-block spends probability.
+     *
+     * @param blockOutputs unspent outputs created in the block
+     * @return unspent output (null if there is nothing to spend)
+     */
+    private UnspentOutput pickUnspentOutput(final List<UnspentOutput> blockOutputs) {
+        final boolean inBlock = random.nextDouble() < settings.getInBlockSpends();
+        if ((inBlock || unspentOutputs.isEmpty()) && !blockOutputs.isEmpty()) {
+            return removeRandom(blockOutputs);
+        }
+        if (!unspentOutputs.isEmpty()) {
+            return removeRandom(unspentOutputs);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a random element of a list (the last element takes its place).
+     *
+     * @param list list
+     * @return element removed
+     */
+    private UnspentOutput removeRandom(final List<UnspentOutput> list) {
+        final int position = random.nextInt(list.size());
+        final UnspentOutput output = list.get(position);
+        list.set(position, list.get(list.size() - 1));
+        list.remove(list.size() - 1);
+        return output;
+    }
+
+    /**
+     * Creates a transaction without inputs and outputs.
+     *
+     * @param blockHash block hash
+     * @param height    block height
+     * @param index     index in the block
+     * @param time      block time
+     * @return transaction
+     */
+    private GetRawTransactionResult createTransaction(final String blockHash, final int height, final int index, final long time) {
+        final String id = toHex(height) + toHex(index) + toHex(hash("transaction:" + settings.getSeed() + ":" + height + ":" + index))
+                .substring(0, HASH_LENGTH - PREFIX_LENGTH * 2);
+        final GetRawTransactionResult transaction = new GetRawTransactionResult();
+        transaction.setTxid(id);
+        transaction.setHash(id);
+        transaction.setHex("01000000" + id);
+        transaction.setVersion(1);
+        transaction.setLocktime(0);
+        transaction.setBlockhash(blockHash);
+        transaction.setTime(time);
+        transaction.setBlocktime(time);
+        transaction.setSize(TRANSACTION_SIZE);
+        transaction.setVsize(TRANSACTION_SIZE);
+        return transaction;
+    }
+
+    /**
+     * Creates an input spending an output.
+     *
+     * @param output output spent
+     * @return input
+     */
+    private GetRawTransactionVIn createInput(final UnspentOutput output) {
+        final GetRawTransactionScriptSig scriptSig = new GetRawTransactionScriptSig();
+        scriptSig.setAsm(SIGNATURE_SCRIPT);
+        scriptSig.setHex(SIGNATURE_SCRIPT);
+        final GetRawTransactionVIn input = new GetRawTransactionVIn();
+        input.setTxid(output.getTransactionId());
+        input.setVout(output.getIndex());
+        input.setScriptSig(scriptSig);
+        input.setSequence(SEQUENCE);
+        return input;
+    }
+
+    /**
+     * Adds outputs to a transaction, the value being split between them (and updates its size).
+     *
+     * @param transaction transaction
+     * @param value       value to split (satoshis)
+     * @return outputs created
+     */
+    private List<UnspentOutput> addOutputs(final GetRawTransactionResult transaction, final long value) {
+        final int outputCount = settings.getOutputs().pick(random);
+        final List<UnspentOutput> outputs = new ArrayList<>(outputCount);
+        for (int n = 0; n < outputCount; n++) {
+            // The first output gets the remainder.
+            long outputValue = value / outputCount;
+            if (n == 0) {
+                outputValue += value % outputCount;
+            }
+            final String publicKeyHash = pickAddress();
+            final GetRawTransactionScriptPubKey scriptPubKey = new GetRawTransactionScriptPubKey();
+            scriptPubKey.setAsm("OP_DUP OP_HASH160 " + publicKeyHash + " OP_EQUALVERIFY OP_CHECKSIG");
+            scriptPubKey.setHex("76a914" + publicKeyHash + "88ac");
+            scriptPubKey.setReqSigs(1);
+            scriptPubKey.setType("pubkeyhash");
+            scriptPubKey.getAddresses().add("1" + publicKeyHash.substring(0, ADDRESS_LENGTH));
+            final GetRawTransactionVOut output = new GetRawTransactionVOut();
+            output.setValue(BigDecimal.valueOf(outputValue, BITCOIN_SCALE));
+            output.setN(n);
+            output.setScriptPubKey(scriptPubKey);
+            transaction.getVout().add(output);
+            outputs.add(new UnspentOutput(transaction.getTxid(), n, outputValue));
+        }
+        final int size = TRANSACTION_SIZE + transaction.getVin().size() * INPUT_SIZE + outputCount * OUTPUT_SIZE;
+        transaction.setSize(size);
+        transaction.setVsize(size);
+        return outputs;
+    }
+
+    /**
+     * Picks the address of an output : an address already used with the address reuse probability or a new one.
+     *
+     * @return public key hash of the address
+     */
+    private String pickAddress() {
+        int index = addressCount;
+        if (addressCount > 0 && random.nextDouble() < settings.getAddressReuse()) {
+            index = random.nextInt(addressCount);
+        } else {
+            addressCount++;
+        }
+        return toHex(hash("address:" + settings.getSeed() + ":" + index)).substring(0, PUBLIC_KEY_HASH_LENGTH);
+    }
+
+    /**
+     * Returns the block reward (halved every 210 000 blocks).
+     *
+     * @param height block height
+     * @return reward (satoshis)
+     */
+    private long getReward(final int height) {
+        final int halvings = height / HALVING_INTERVAL;
+        if (halvings >= Long.SIZE) {
+            return 0;
+        }
+        return BLOCK_REWARD >> halvings;
+    }
+
+    /**
+     * Computes the hash of a block : zeros, the height and a hash of the seed and the height.
+     *
+     * @param height block height
+     * @return block hash
+     */
+    private String computeBlockHash(final int height) {
+        return toHex(0) + toHex(height) + toHex(hash("block:" + settings.getSeed() + ":" + height))
+                .substring(0, HASH_LENGTH - PREFIX_LENGTH * 2);
+    }
+
+    /**
+     * Returns the height in a block hash or a transaction id.
+     *
+     * @param id    block hash or transaction id
+     * @param start position of the height in the id
+     * @return height (empty if the id is not a synthetic one)
+     */
+    private Optional<Integer> parseHeight(final String id, final int start) {
+        if (id == null || id.length() != HASH_LENGTH) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Integer.parseInt(id.substring(start, start + PREFIX_LENGTH), HEX_DIGITS.length));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hashes a value.
+     *
+     * @param value value
+     * @return hash
+     */
+    private byte[] hash(final String value) {
+        return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the hexadecimal representation of bytes.
+     *
+     * @param bytes bytes
+     * @return hexadecimal
+     */
+    private static String toHex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> (Byte.SIZE / 2)) & (HEX_DIGITS.length - 1)];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & (HEX_DIGITS.length - 1)];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Returns the hexadecimal representation of a number (left padded with zeros).
+     *
+     * @param value number
+     * @return hexadecimal (8 characters)
+     */
+    private static String toHex(final int value) {
+        final char[] hex = new char[PREFIX_LENGTH];
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            hex[PREFIX_LENGTH - 1 - i] = HEX_DIGITS[(value >>> (i * Byte.SIZE / 2)) & (HEX_DIGITS.length - 1)];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Unspent output.
+     */
+    private static final class UnspentOutput {
+
+        /**
+         * Id of the transaction of the output.
+         */
+        private final String transactionId;
+
+        /**
+         * Index of the output.
+         */
+        private final int index;
+
+        /**
+         * Value (satoshis).
+         */
+        private final long value;
+
+        /**
+         * Constructor.
+         *
+         * @param newTransactionId id of the transaction of the output
+         * @param newIndex         index of the output
+         * @param newValue         value (satoshis)
+         */
+        private UnspentOutput(final String newTransactionId, final int newIndex, final long newValue) {
+            this.transactionId = newTransactionId;
+            this.index = newIndex;
+            this.value = newValue;
+        }
+
+        /**
+         * Getter of transactionId.
+         *
+         * @return id of the transaction of the output
+         */
+        private String getTransactionId() {
+            return transactionId;
+        }
+
+        /**
+         * Getter of index.
+         *
+         * @return index of the output
+         */
+        private int getIndex() {
+            return index;
+        }
+
+        /**
+         * Getter of value.
+         *
+         * @return value (satoshis)
+         */
+        private long getValue() {
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.oakinvest.b2g.util.synthetic;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Random;
+
+/**
+ * Settings of the synthetic chain : seed, size and distributions. Counts are drawn uniformly in "min-max" ranges and
+ * probabilities are between 0 and 1.
+ */
+@Component
+@ConditionalOnProperty(name = "b2g.synthetic.enabled", havingValue = "true")
+public class SyntheticChainSettings {
+
+    /**
+     * Seed of the generator (same seed, same chain).
+     */
+    private final long seed;
+
+    /**
+     * Number of blocks of the chain (height of the tip).
+     */
+    private final int blockCount;
+
+    /**
+     * Transactions per block (coinbase included).
+     */
+    private final Range transactions;
+
+    /**
+     * Inputs per transaction.
+     */
+    private final Range inputs;
+
+    /**
+     * Outputs per transaction.
+     */
+    private final Range outputs;
+
+    /**
+     * Probability that an output is sent to an address already used.
+     */
+    private final double addressReuse;
+
+    /**
+     * Probability that an input spends an output created earlier in the same block.
+     */
+    private final double inBlockSpends;
+
+    /**
+     * Constructor.
+     *
+     * @param newSeed          seed of the generator
+     * @param newBlockCount    number of blocks of the chain
+     * @param newTransactions  transactions per block ("min-max")
+     * @param newInputs        inputs per transaction ("min-max")
+     * @param newOutputs       outputs per transaction ("min-max")
+     * @param newAddressReuse  probability that an output is sent to an address already used
+     * @param newInBlockSpends probability that an input spends an output of the same block
+     */
+    public SyntheticChainSettings(@Value("${b2g.synthetic.seed:1}") final long newSeed,
+                                  @Value("${b2g.synthetic.block-count:1000}") final int newBlockCount,
+                                  @Value("${b2g.synthetic.transactions:1000-3000}") final String newTransactions,
+                                  @Value("${b2g.synthetic.inputs:1-3}") final String newInputs,
+                                  @Value("${b2g.synthetic.outputs:1-3}") final String newOutputs,
+                                  @Value("${b2g.synthetic.address-reuse:0.3}") final double newAddressReuse,
+                                  @Value("${b2g.synthetic.in-block-spends:0.1}") final double newInBlockSpends) {
+        if (newBlockCount < 0) {
+            throw new IllegalArgumentException("Negative block count " + newBlockCount);
+        }
+        this.seed = newSeed;
+        this.blockCount = newBlockCount;
+        this.transactions = Range.parse(newTransactions);
+        this.inputs = Range.parse(newInputs);
+        this.outputs = Range.parse(newOutputs);
+        this.addressReuse = newAddressReuse;
+        this.inBlockSpends = newInBlockSpends;
+    }
+
+    /**
+     * Getter of seed.
+     *
+     * @return seed of the generator
+     */
+    public final long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Getter of blockCount.
+     *
+     * @return number of blocks of the chain
+     */
+    public final int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Getter of transactions.
+     *
+     * @return transactions per block
+     */
+    public final Range getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Getter of inputs.
+     *
+     * @return inputs per transaction
+     */
+    public final Range getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Getter of outputs.
+     *
+     * @return outputs per transaction
+     */
+    public final Range getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * Getter of addressReuse.
+     *
+     * @return probability that an output is sent to an address already used
+     */
+    public final double getAddressReuse() {
+        return addressReuse;
+    }
+
+    /**
+     * Getter of inBlockSpends.
+     *
+     * @return probability that an input spends an output of the same block
+     */
+    public final double getInBlockSpends() {
+        return inBlockSpends;
+    }
+
+    /**
+     * Range of counts, drawn uniformly.
+     */
+    public static final class Range {
+
+        /**
+         * Minimum (included).
+         */
+        private final int min;
+
+        /**
+         * Maximum (included).
+         */
+        private final int max;
+
+        /**
+         * Constructor.
+         *
+         * @param newMin minimum (included)
+         * @param newMax maximum (included)
+         */
+        public Range(final int newMin, final int newMax) {
+            if (newMin < 1 || newMax < newMin) {
+                throw new IllegalArgumentException("Invalid range " + newMin + "-" + newMax);
+            }
+            this.min = newMin;
+            this.max = newMax;
+        }
+
+        /**
+         * Parses a range ("min-max" or a single value).
+         *
+         * @param value range
+         * @return range
+         */
+        public static Range parse(final String value) {
+            final String[] bounds = value.trim().split("-");
+            try {
+                if (bounds.length == 1) {
+                    return new Range(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[0].trim()));
+                }
+                if (bounds.length == 2) {
+                    return new Range(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid range " + value, e);
+            }
+            throw new IllegalArgumentException("Invalid range " + value);
+        }
+
+        /**
+         * Draws a count.
+         *
+         * @param random generator
+         * @return count between min and max
+         */
+        public int pick(final Random random) {
+            return min + random.nextInt(max - min + 1);
+        }
+
+        /**
+         * Getter of min.
+         *
+         * @return minimum (included)
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * Getter of max.
+         *
+         * @return maximum (included)
+         */
+        public int getMax() {
+            return max;
+        }
+
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Deterministic synthetic block chain used to load test the import pipeline without core.
+ */
+package com.oakinvest.b2g.util.synthetic;
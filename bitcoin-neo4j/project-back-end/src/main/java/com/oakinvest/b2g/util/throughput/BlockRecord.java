@@ -0,0 +1,142 @@
+package com.oakinvest.b2g.util.throughput;
+
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * What the import of a block cost : time spent in each step, calls to core and bytes fetched.
+ * <p>
+ * Filled by the worker preparing the block then by the sequencer saving it, and not modified once it's in the history.
+ * Core is called ahead by the buffer loader, so the calls and the bytes are the ones made since the previous block was
+ * saved.
+ */
+public class BlockRecord {
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /**
+     * Block height.
+     */
+    private final int height;
+
+    /**
+     * Time spent in each step (nanoseconds).
+     */
+    private final Map<CurrentBlockStatusProcessStep, Long> stepDurations = new EnumMap<>(CurrentBlockStatusProcessStep.class);
+
+    /**
+     * Number of transactions.
+     */
+    private int transactionCount;
+
+    /**
+     * Calls to core.
+     */
+    private long rpcCount;
+
+    /**
+     * Bytes fetched from core.
+     */
+    private long rpcBytes;
+
+    /**
+     * Time when the block was saved (epoch milliseconds).
+     */
+    private long savedAt;
+
+    /**
+     * Constructor.
+     *
+     * @param newHeight block height
+     */
+    public BlockRecord(final int newHeight) {
+        this.height = newHeight;
+    }
+
+    /**
+     * Adds the time spent in a step.
+     *
+     * @param step     step
+     * @param duration duration (nanoseconds)
+     */
+    public final void addStepDuration(final CurrentBlockStatusProcessStep step, final long duration) {
+        stepDurations.merge(step, duration, Long::sum);
+    }
+
+    /**
+     * Completes the record when the block is saved.
+     *
+     * @param newTransactionCount number of transactions
+     * @param newRpcCount         calls to core
+     * @param newRpcBytes         bytes fetched from core
+     * @param newSavedAt          time when the block was saved (epoch milliseconds)
+     */
+    public final void complete(final int newTransactionCount, final long newRpcCount, final long newRpcBytes, final long newSavedAt) {
+        this.transactionCount = newTransactionCount;
+        this.rpcCount = newRpcCount;
+        this.rpcBytes = newRpcBytes;
+        this.savedAt = newSavedAt;
+    }
+
+    /**
+     * Getter height.
+     *
+     * @return height
+     */
+    public final int getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter transactionCount.
+     *
+     * @return transactionCount
+     */
+    public final int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Returns the time spent in each step (milliseconds).
+     *
+     * @return step durations
+     */
+    public final Map<CurrentBlockStatusProcessStep, Double> getStepDurations() {
+        final Map<CurrentBlockStatusProcessStep, Double> durations = new EnumMap<>(CurrentBlockStatusProcessStep.class);
+        stepDurations.forEach((step, duration) -> durations.put(step, duration / NANOS_PER_MILLI));
+        return durations;
+    }
+
+    /**
+     * Getter rpcCount.
+     *
+     * @return rpcCount
+     */
+    public final long getRpcCount() {
+        return rpcCount;
+    }
+
+    /**
+     * Getter rpcBytes.
+     *
+     * @return rpcBytes
+     */
+    public final long getRpcBytes() {
+        return rpcBytes;
+    }
+
+    /**
+     * Getter savedAt.
+     *
+     * @return savedAt
+     */
+    public final long getSavedAt() {
+        return savedAt;
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.oakinvest.b2g.util.throughput;
+
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ring buffer of the records of the last blocks saved, the oldest record being replaced when it is full.
+ * <p>
+ * The aggregates are computed over the records saved in the last window : rates use the time between the first and
+ * the last block saved in the window, and the time to reach the tip uses the block counts of the status.
+ */
+@Component
+public class ThroughputHistory {
+
+    /**
+     * Milliseconds in a second.
+     */
+    private static final double MILLIS_PER_SECOND = 1000d;
+
+    /**
+     * Seconds in a minute.
+     */
+    private static final double SECONDS_PER_MINUTE = 60d;
+
+    /**
+     * Application status.
+     */
+    private final ApplicationStatus status;
+
+    /**
+     * Records (ring buffer).
+     */
+    private final BlockRecord[] records;
+
+    /**
+     * Window of the aggregates (milliseconds).
+     */
+    private final long window;
+
+    /**
+     * Position of the next record.
+     */
+    private int next;
+
+    /**
+     * Number of records.
+     */
+    private int size;
+
+    /**
+     * Number of records added (version of the history).
+     */
+    private long version;
+
+    /**
+     * Constructor.
+     *
+     * @param newStatus      application status
+     * @param newHistorySize number of records kept
+     * @param newWindow      window of the aggregates (milliseconds)
+     */
+    public ThroughputHistory(final ApplicationStatus newStatus,
+                             @Value("${b2g.throughput.history-size:1000}") final int newHistorySize,
+                             @Value("${b2g.throughput.window:60000}") final long newWindow) {
+        this.status = newStatus;
+        this.records = new BlockRecord[newHistorySize];
+        this.window = newWindow;
+    }
+
+    /**
+     * Adds the record of a block saved.
+     *
+     * @param record record
+     */
+    public final synchronized void add(final BlockRecord record) {
+        records[next] = record;
+        next = (next + 1) % records.length;
+        size = Math.min(size + 1, records.length);
+        version++;
+    }
+
+    /**
+     * Returns the version of the history (it changes each time a record is added).
+     *
+     * @return version
+     */
+    public final synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the version of the aggregates of the last window : it changes each time a record is added and each time
+     * a record leaves the window.
+     *
+     * @return window version
+     */
+    public final synchronized long getWindowVersion() {
+        final long windowStart = System.currentTimeMillis() - window;
+        // Records dropped from the ring buffer and records kept but out of the window.
+        long leftRecords = version - size;
+        for (int i = 0; i < size; i++) {
+            if (records[i].getSavedAt() < windowStart) {
+                leftRecords++;
+            }
+        }
+        return version + leftRecords;
+    }
+
+    /**
+     * Returns the last records (oldest first).
+     *
+     * @param count maximum number of records
+     * @return records
+     */
+    public final synchronized List<BlockRecord> getRecords(final int count) {
+        final int returned = Math.max(0, Math.min(count, size));
+        final List<BlockRecord> lastRecords = new ArrayList<>(returned);
+        for (int i = returned; i > 0; i--) {
+            lastRecords.add(records[Math.floorMod(next - i, records.length)]);
+        }
+        return lastRecords;
+    }
+
+    /**
+     * Returns the aggregates of the records saved in the last window.
+     *
+     * @return summary
+     */
+    public final ThroughputSummary getSummary() {
+        final long now = System.currentTimeMillis();
+        final List<BlockRecord> windowRecords = new ArrayList<>();
+        getRecords(records.length).stream().filter(r -> r.getSavedAt() >= now - window).forEach(windowRecords::add);
+
+        final ThroughputSummary summary = new ThroughputSummary();
+        summary.setWindow(window);
+        summary.setBlocks(windowRecords.size());
+        final Map<CurrentBlockStatusProcessStep, Double> stepDurations = new EnumMap<>(CurrentBlockStatusProcessStep.class);
+        long rpcCount = 0;
+        for (BlockRecord record : windowRecords) {
+            summary.setTransactions(summary.getTransactions() + record.getTransactionCount());
+            record.getStepDurations().forEach((step, duration) -> stepDurations.merge(step, duration / windowRecords.size(), Double::sum));
+            rpcCount += record.getRpcCount();
+        }
+        summary.setAverageStepDurations(stepDurations);
+        if (!windowRecords.isEmpty()) {
+            summary.setRpcPerBlock((double) rpcCount / windowRecords.size());
+        }
+
+        // Rates : the work of the first block of the window was done before the window started.
+        final double elapsedSeconds = getElapsedSeconds(windowRecords);
+        if (elapsedSeconds > 0) {
+            final List<BlockRecord> counted = windowRecords.subList(1, windowRecords.size());
+            summary.setBlocksPerMinute(counted.size() / elapsedSeconds * SECONDS_PER_MINUTE);
+            summary.setTransactionsPerSecond(counted.stream().mapToLong(BlockRecord::getTransactionCount).sum() / elapsedSeconds);
+            summary.setBytesPerSecond(counted.stream().mapToLong(BlockRecord::getRpcBytes).sum() / elapsedSeconds);
+        }
+
+        // Time to reach the tip.
+        if (status.getBlockCountInBlockchain() >= 0 && status.getBlockCountInNeo4j() >= 0) {
+            summary.setBlocksToTip(Math.max(0, status.getBlockCountInBlockchain() - status.getBlockCountInNeo4j()));
+            if (summary.getBlocksPerMinute() > 0) {
+                summary.setEtaSeconds(Math.round(summary.getBlocksToTip() / summary.getBlocksPerMinute() * SECONDS_PER_MINUTE));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Returns the report sent to the console : aggregates and last records.
+     *
+     * @param count maximum number of records
+     * @return report
+     */
+    public final ThroughputReport getReport(final int count) {
+        return new ThroughputReport(getSummary(), getRecords(count));
+    }
+
+    /**
+     * Returns the time between the first and the last record.
+     *
+     * @param windowRecords records (oldest first)
+     * @return elapsed time (seconds)
+     */
+    private double getElapsedSeconds(final List<BlockRecord> windowRecords) {
+        if (windowRecords.size() < 2) {
+            return 0;
+        } else {
+            return (windowRecords.get(windowRecords.size() - 1).getSavedAt() - windowRecords.get(0).getSavedAt()) / MILLIS_PER_SECOND;
+        }
+    }
+
+}
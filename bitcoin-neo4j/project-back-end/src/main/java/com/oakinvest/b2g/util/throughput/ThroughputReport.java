@@ -0,0 +1,49 @@
+package com.oakinvest.b2g.util.throughput;
+
+import java.util.List;
+
+/**
+ * Throughput history : aggregates of the last window and records of the last blocks saved (oldest first).
+ */
+public class ThroughputReport {
+
+    /**
+     * Aggregates of the last window.
+     */
+    private final ThroughputSummary summary;
+
+    /**
+     * Records of the last blocks saved.
+     */
+    private final List<BlockRecord> records;
+
+    /**
+     * Constructor.
+     *
+     * @param newSummary aggregates of the last window
+     * @param newRecords records of the last blocks saved
+     */
+    public ThroughputReport(final ThroughputSummary newSummary, final List<BlockRecord> newRecords) {
+        this.summary = newSummary;
+        this.records = newRecords;
+    }
+
+    /**
+     * Getter summary.
+     *
+     * @return summary
+     */
+    public final ThroughputSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Getter records.
+     *
+     * @return records
+     */
+    public final List<BlockRecord> getRecords() {
+        return records;
+    }
+
+}
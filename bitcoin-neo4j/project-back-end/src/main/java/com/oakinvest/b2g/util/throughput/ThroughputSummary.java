@@ -0,0 +1,248 @@
+package com.oakinvest.b2g.util.throughput;
+
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Aggregates of the blocks saved in the last window : rates, average time per step and time left to reach the tip.
+ */
+public class ThroughputSummary {
+
+    /**
+     * Non available value.
+     */
+    public static final int NON_AVAILABLE_VALUE_NUMBER = -1;
+
+    /**
+     * Window of the aggregates (milliseconds).
+     */
+    private long window;
+
+    /**
+     * Blocks saved in the window.
+     */
+    private int blocks;
+
+    /**
+     * Transactions saved in the window.
+     */
+    private long transactions;
+
+    /**
+     * Blocks saved per minute.
+     */
+    private double blocksPerMinute;
+
+    /**
+     * Transactions saved per second.
+     */
+    private double transactionsPerSecond;
+
+    /**
+     * Calls to core per block.
+     */
+    private double rpcPerBlock;
+
+    /**
+     * Bytes fetched from core per second.
+     */
+    private double bytesPerSecond;
+
+    /**
+     * Average time spent in each step (milliseconds).
+     */
+    private Map<CurrentBlockStatusProcessStep, Double> averageStepDurations = new EnumMap<>(CurrentBlockStatusProcessStep.class);
+
+    /**
+     * Blocks left to import (NON_AVAILABLE_VALUE_NUMBER if unknown).
+     */
+    private int blocksToTip = NON_AVAILABLE_VALUE_NUMBER;
+
+    /**
+     * Estimated time to reach the tip in seconds (NON_AVAILABLE_VALUE_NUMBER if unknown).
+     */
+    private long etaSeconds = NON_AVAILABLE_VALUE_NUMBER;
+
+    /**
+     * Getter window.
+     *
+     * @return window
+     */
+    public final long getWindow() {
+        return window;
+    }
+
+    /**
+     * Setter window.
+     *
+     * @param newWindow window
+     */
+    public final void setWindow(final long newWindow) {
+        this.window = newWindow;
+    }
+
+    /**
+     * Getter blocks.
+     *
+     * @return blocks
+     */
+    public final int getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Setter blocks.
+     *
+     * @param newBlocks blocks
+     */
+    public final void setBlocks(final int newBlocks) {
+        this.blocks = newBlocks;
+    }
+
+    /**
+     * Getter transactions.
+     *
+     * @return transactions
+     */
+    public final long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Setter transactions.
+     *
+     * @param newTransactions transactions
+     */
+    public final void setTransactions(final long newTransactions) {
+        this.transactions = newTransactions;
+    }
+
+    /**
+     * Getter blocksPerMinute.
+     *
+     * @return blocksPerMinute
+     */
+    public final double getBlocksPerMinute() {
+        return blocksPerMinute;
+    }
+
+    /**
+     * Setter blocksPerMinute.
+     *
+     * @param newBlocksPerMinute blocksPerMinute
+     */
+    public final void setBlocksPerMinute(final double newBlocksPerMinute) {
+        this.blocksPerMinute = newBlocksPerMinute;
+    }
+
+    /**
+     * Getter transactionsPerSecond.
+     *
+     * @return transactionsPerSecond
+     */
+    public final double getTransactionsPerSecond() {
+        return transactionsPerSecond;
+    }
+
+    /**
+     * Setter transactionsPerSecond.
+     *
+     * @param newTransactionsPerSecond transactionsPerSecond
+     */
+    public final void setTransactionsPerSecond(final double newTransactionsPerSecond) {
+        this.transactionsPerSecond = newTransactionsPerSecond;
+    }
+
+    /**
+     * Getter rpcPerBlock.
+     *
+     * @return rpcPerBlock
+     */
+    public final double getRpcPerBlock() {
+        return rpcPerBlock;
+    }
+
+    /**
+     * Setter rpcPerBlock.
+     *
+     * @param newRpcPerBlock rpcPerBlock
+     */
+    public final void setRpcPerBlock(final double newRpcPerBlock) {
+        this.rpcPerBlock = newRpcPerBlock;
+    }
+
+    /**
+     * Getter bytesPerSecond.
+     *
+     * @return bytesPerSecond
+     */
+    public final double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Setter bytesPerSecond.
+     *
+     * @param newBytesPerSecond bytesPerSecond
+     */
+    public final void setBytesPerSecond(final double newBytesPerSecond) {
+        this.bytesPerSecond = newBytesPerSecond;
+    }
+
+    /**
+     * Getter averageStepDurations.
+     *
+     * @return averageStepDurations
+     */
+    public final Map<CurrentBlockStatusProcessStep, Double> getAverageStepDurations() {
+        return averageStepDurations;
+    }
+
+    /**
+     * Setter averageStepDurations.
+     *
+     * @param newAverageStepDurations averageStepDurations
+     */
+    public final void setAverageStepDurations(final Map<CurrentBlockStatusProcessStep, Double> newAverageStepDurations) {
+        this.averageStepDurations = newAverageStepDurations;
+    }
+
+    /**
+     * Getter blocksToTip.
+     *
+     * @return blocksToTip
+     */
+    public final int getBlocksToTip() {
+        return blocksToTip;
+    }
+
+    /**
+     * Setter blocksToTip.
+     *
+     * @param newBlocksToTip blocksToTip
+     */
+    public final void setBlocksToTip(final int newBlocksToTip) {
+        this.blocksToTip = newBlocksToTip;
+    }
+
+    /**
+     * Getter etaSeconds.
+     *
+     * @return etaSeconds
+     */
+    public final long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    /**
+     * Setter etaSeconds.
+     *
+     * @param newEtaSeconds etaSeconds
+     */
+    public final void setEtaSeconds(final long newEtaSeconds) {
+        this.etaSeconds = newEtaSeconds;
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Import throughput history.
+ */
+package com.oakinvest.b2g.util.throughput;
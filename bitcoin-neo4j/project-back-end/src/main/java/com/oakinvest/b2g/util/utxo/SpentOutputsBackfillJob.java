@@ -0,0 +1,96 @@
+package com.oakinvest.b2g.util.utxo;
+
+import com.oakinvest.b2g.util.job.MaintenanceJob;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Sets the spent status of the outputs of a graph imported before it was maintained by the import. Outputs are
+ * processed by ranges of blocks, in the order of the block height index.
+ */
+@Component
+public class SpentOutputsBackfillJob implements MaintenanceJob {
+
+    /**
+     * Number of blocks processed in a transaction.
+     */
+    private static final int BLOCKS_PER_BATCH = 100;
+
+    /**
+     * Query returning the highest block height.
+     */
+    private static final String LAST_BLOCK_HEIGHT = "MATCH (b:BitcoinBlock) RETURN max(b.height) AS height";
+
+    /**
+     * Statement setting the spent status of the outputs of a range of blocks.
+     */
+    private static final String SET_SPENT = "MATCH (b:BitcoinBlock) WHERE b.height >= $from AND b.height < $to "
+            + "MATCH (b)<-[:TRANSACTIONS]-(:BitcoinTransaction)-[:OUTPUTS]->(o:BitcoinTransactionOutput) "
+            + "OPTIONAL MATCH (o)-[:TRANSACTION_OUTPUT]->(:BitcoinTransactionInput)<-[:INPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(s:BitcoinBlock) "
+            + "SET o.spent = s IS NOT NULL, o.spentAtHeight = s.height";
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(SpentOutputsBackfillJob.class);
+
+    /**
+     * Session factory.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Import stages (write lock).
+     */
+    private final BlockImportStages stages;
+
+    /**
+     * Constructor.
+     *
+     * @param newSessionFactory session factory
+     * @param newStages         import stages
+     */
+    public SpentOutputsBackfillJob(final SessionFactory newSessionFactory, final BlockImportStages newStages) {
+        this.sessionFactory = newSessionFactory;
+        this.stages = newStages;
+    }
+
+    @Override
+    public final String getName() {
+        return "backfill-spent-outputs";
+    }
+
+    @Override
+    public final void run() {
+        final Session session = sessionFactory.openSession();
+        final Iterator<Map<String, Object>> result = session.query(LAST_BLOCK_HEIGHT, Collections.emptyMap()).iterator();
+        final Object lastBlockHeight = result.next().get("height");
+        if (lastBlockHeight == null) {
+            log.info("No block to backfill");
+            return;
+        }
+        final int lastHeight = ((Number) lastBlockHeight).intValue();
+        for (int from = 0; from <= lastHeight; from += BLOCKS_PER_BATCH) {
+            // A block can't be written at the same time.
+            stages.getWriteLock().lock();
+            try (Transaction transaction = session.beginTransaction()) {
+                session.query(SET_SPENT, Map.of("from", from, "to", from + BLOCKS_PER_BATCH));
+                transaction.commit();
+            } finally {
+                stages.getWriteLock().unlock();
+            }
+            session.clear();
+            log.info("Spent status set up to block " + Math.min(from + BLOCKS_PER_BATCH - 1, lastHeight));
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.oakinvest.b2g.util.utxo;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.util.stage.BlockImportStage;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the spent status set by the importer on the outputs spent by a block.
+ * <p>
+ * OGM saves the spent status with the block but the embedded writer doesn't update the outputs saved before the block
+ * (previous windows or previous blocks of the window) : the status is set with the id of the output, which has the
+ * same result with both writers.
+ */
+@Component
+@Order(SpentOutputsStage.ORDER)
+public class SpentOutputsStage implements BlockImportStage {
+
+    /**
+     * Stage order (before the analytics).
+     */
+    public static final int ORDER = 10;
+
+    /**
+     * Statement marking the outputs as spent.
+     */
+    private static final String MARK_SPENT = "UNWIND $rows AS r "
+            + "MATCH (o:BitcoinTransactionOutput) WHERE id(o) = r.id "
+            + "SET o.spent = true, o.spentAtHeight = r.height";
+
+    @Override
+    public final String getName() {
+        return "spent outputs";
+    }
+
+    @Override
+    public final void apply(final BitcoinBlock block, final CypherRunner runner) {
+        final List<Map<String, Object>> rows = block.getTransactions()
+                .stream()
+                .flatMap(t -> t.getInputs().stream())
+                .filter(i -> !i.isCoinbase() && i.getTransactionOutput() != null)
+                .map(i -> Map.<String, Object>of("id", i.getTransactionOutput().getId(), "height", block.getHeight()))
+                .collect(Collectors.toList());
+        runner.runInBatches(MARK_SPENT, rows, Collections.emptyMap());
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Spent status of the transaction outputs.
+ */
+package com.oakinvest.b2g.util.utxo;
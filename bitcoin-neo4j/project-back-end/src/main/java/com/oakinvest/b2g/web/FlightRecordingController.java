@@ -0,0 +1,60 @@
+package com.oakinvest.b2g.web;
+
+import com.oakinvest.b2g.util.jfr.ImportRecording;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Downloads the last minutes of the flight recording (open it with JDK Mission Control).
+ */
+@RestController
+@ConditionalOnProperty(name = "b2g.jfr.recording.enabled", havingValue = "true")
+public class FlightRecordingController {
+
+    /**
+     * Flight recording.
+     */
+    private final ImportRecording recording;
+
+    /**
+     * Constructor.
+     *
+     * @param newRecording flight recording
+     */
+    public FlightRecordingController(final ImportRecording newRecording) {
+        this.recording = newRecording;
+    }
+
+    /**
+     * Returns the last minutes of the recording, the dump being deleted once it's sent.
+     *
+     * @param minutes number of minutes
+     * @return recording file
+     */
+    @GetMapping("/api/jfr")
+    public final ResponseEntity<StreamingResponseBody> dump(@RequestParam(name = "minutes", defaultValue = "10") final int minutes) {
+        final Path file = recording.dump(Duration.ofMinutes(minutes));
+        final StreamingResponseBody body = output -> {
+            try {
+                Files.copy(file, output);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + ImportRecording.RECORDING_NAME + ".jfr\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.oakinvest.b2g.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Websocket session receiving the versioned messages of a publishing handler (status or throughput) : a session has at
+ * most one message being sent, so a slow client never blocks the publisher or the other clients.
+ */
+final class MessageSubscriber {
+
+    /**
+     * Version of a subscriber that has not received any message.
+     */
+    private static final long NO_VERSION = -1;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(MessageSubscriber.class);
+
+    /**
+     * Session.
+     */
+    private final WebSocketSession session;
+
+    /**
+     * True while a message is being sent.
+     */
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    /**
+     * Time when the message being sent was submitted.
+     */
+    private volatile long sendStart;
+
+    /**
+     * Version of the last message sent.
+     */
+    private volatile long version = NO_VERSION;
+
+    /**
+     * Constructor.
+     *
+     * @param newSession session
+     */
+    MessageSubscriber(final WebSocketSession newSession) {
+        this.session = newSession;
+    }
+
+    /**
+     * Sends a message if the previous one has been sent.
+     *
+     * @param message    message
+     * @param newVersion message version
+     * @param executor   executor sending the message
+     * @return false if the previous message is still being sent
+     */
+    boolean send(final TextMessage message, final long newVersion, final Executor executor) {
+        if (!sending.compareAndSet(false, true)) {
+            return false;
+        }
+        sendStart = System.currentTimeMillis();
+        executor.execute(() -> {
+            try {
+                session.sendMessage(message);
+                version = newVersion;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Error sending message : " + e.getMessage());
+                close(CloseStatus.SERVER_ERROR);
+            } finally {
+                sending.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Returns true if the message being sent was submitted for longer than the time limit.
+     *
+     * @param timeLimit time limit in milliseconds
+     * @return true if the client is too slow
+     */
+    boolean isSlow(final long timeLimit) {
+        return sending.get() && System.currentTimeMillis() - sendStart > timeLimit;
+    }
+
+    /**
+     * Closes the session.
+     *
+     * @param status close status
+     */
+    void close(final CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.warn("Error closing session : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Getter of session.
+     *
+     * @return session
+     */
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Getter of version.
+     *
+     * @return version of the last message sent
+     */
+    long getVersion() {
+        return version;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.oakinvest.b2g.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Websocket handler publishing versioned messages to its sessions (a MessageSubscriber per session).
+ * <p>
+ * Messages are sent by a dedicated pool, one message at a time per session : a session that doesn't receive a message
+ * within the send time limit is closed.
+ */
+public abstract class PublishingHandler extends TextWebSocketHandler {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(PublishingHandler.class);
+
+    /**
+     * Subscribers (one per open session).
+     */
+    private final CopyOnWriteArrayList<MessageSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Executor sending the messages.
+     */
+    private final ExecutorService sendExecutor;
+
+    /**
+     * Time limit to send a message to a session (milliseconds).
+     */
+    private final long sendTimeLimit;
+
+    /**
+     * Constructor.
+     *
+     * @param newThreadNamePrefix prefix of the threads sending the messages
+     * @param newSendTimeLimit    time limit to send a message to a session
+     */
+    protected PublishingHandler(final String newThreadNamePrefix, final long newSendTimeLimit) {
+        this.sendTimeLimit = newSendTimeLimit;
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(newThreadNamePrefix);
+        threadFactory.setDaemon(true);
+        this.sendExecutor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    @Override
+    public final void afterConnectionClosed(final WebSocketSession session, final CloseStatus status) {
+        subscribers.removeIf(s -> s.getSession().equals(session));
+    }
+
+    @Override
+    public final void afterConnectionEstablished(final WebSocketSession newSession) {
+        // The message is sent at the next publication.
+        subscribers.add(new MessageSubscriber(newSession));
+    }
+
+    /**
+     * Sends a message to the sessions that haven't received its version yet, the same message being shared by all
+     * sessions.
+     *
+     * @param message message
+     * @param version message version
+     */
+    public final void publish(final TextMessage message, final long version) {
+        for (MessageSubscriber subscriber : subscribers) {
+            if (!subscriber.getSession().isOpen()) {
+                subscribers.remove(subscriber);
+            } else if (subscriber.getVersion() != version && !subscriber.send(message, version, sendExecutor) && subscriber.isSlow(sendTimeLimit)) {
+                log.warn("Client " + subscriber.getSession().getId() + " too slow, closing");
+                subscribers.remove(subscriber);
+                sendExecutor.execute(() -> subscriber.close(CloseStatus.SESSION_NOT_RELIABLE));
+            }
+        }
+    }
+
+    /**
+     * Stops the executor sending the messages.
+     */
+    @PreDestroy
+    public final void close() {
+        sendExecutor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.oakinvest.b2g.web;
+
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the application status to the subscribers of the status handler (its version changes with each status
+ * change).
+ */
+@Component
+public class StatusPublisher extends VersionedPublisher {
+
+    /**
+     * Application status.
+     */
+    private final ApplicationStatus applicationStatus;
+
+    /**
+     * Constructor.
+     *
+     * @param newApplicationStatus application status
+     * @param newStatusHandler     status handler
+     * @param newInterval          publication interval
+     */
+    public StatusPublisher(final ApplicationStatus newApplicationStatus, final StatusHandler newStatusHandler,
+                           @Value("${b2g.status.publish-interval:250}") final long newInterval) {
+        super("b2g-status-publisher-", newStatusHandler, newInterval);
+        this.applicationStatus = newApplicationStatus;
+    }
+
+    @Override
+    protected final String getName() {
+        return "status";
+    }
+
+    @Override
+    protected final long getVersion() {
+        return applicationStatus.getVersion();
+    }
+
+    @Override
+    protected final Object getContent() {
+        return applicationStatus;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.oakinvest.b2g.web;
+
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import com.oakinvest.b2g.util.throughput.ThroughputReport;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST access to the import throughput.
+ */
+@RestController
+@CrossOrigin
+public class ThroughputController {
+
+    /**
+     * Throughput history.
+     */
+    private final ThroughputHistory history;
+
+    /**
+     * Constructor.
+     *
+     * @param newHistory throughput history
+     */
+    public ThroughputController(final ThroughputHistory newHistory) {
+        this.history = newHistory;
+    }
+
+    /**
+     * Returns the aggregates of the last window and the last records (oldest first).
+     *
+     * @param last maximum number of records
+     * @return report
+     */
+    @GetMapping("/api/throughput")
+    public final ThroughputReport getThroughput(@RequestParam(name = "last", defaultValue = "" + Integer.MAX_VALUE) final int last) {
+        return history.getReport(last);
+    }
+
+}
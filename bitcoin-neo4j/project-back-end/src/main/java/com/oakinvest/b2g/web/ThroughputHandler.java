@@ -0,0 +1,21 @@
+package com.oakinvest.b2g.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Websocket stream of the import throughput (published by ThroughputPublisher).
+ */
+@Component
+public class ThroughputHandler extends PublishingHandler {
+
+    /**
+     * Constructor.
+     *
+     * @param newSendTimeLimit time limit to send a message to a session
+     */
+    public ThroughputHandler(@Value("${b2g.status.send-time-limit:5000}") final long newSendTimeLimit) {
+        super("b2g-throughput-", newSendTimeLimit);
+    }
+
+}
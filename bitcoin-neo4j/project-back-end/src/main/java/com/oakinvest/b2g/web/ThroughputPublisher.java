@@ -0,0 +1,55 @@
+package com.oakinvest.b2g.web;
+
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the throughput (aggregates of the last window and last records) to the subscribers of the throughput
+ * handler.
+ * <p>
+ * The report is serialized again when a block is saved and when a record leaves the window, so that the rates and the
+ * time to reach the tip of a stalled import are not left as they were.
+ */
+@Component
+public class ThroughputPublisher extends VersionedPublisher {
+
+    /**
+     * Number of records published.
+     */
+    public static final int RECORDS_PUBLISHED = 100;
+
+    /**
+     * Throughput history.
+     */
+    private final ThroughputHistory history;
+
+    /**
+     * Constructor.
+     *
+     * @param newHistory           throughput history
+     * @param newThroughputHandler throughput handler
+     * @param newInterval          publication interval
+     */
+    public ThroughputPublisher(final ThroughputHistory newHistory, final ThroughputHandler newThroughputHandler,
+                               @Value("${b2g.throughput.publish-interval:1000}") final long newInterval) {
+        super("b2g-throughput-publisher-", newThroughputHandler, newInterval);
+        this.history = newHistory;
+    }
+
+    @Override
+    protected final String getName() {
+        return "throughput";
+    }
+
+    @Override
+    protected final long getVersion() {
+        return history.getWindowVersion();
+    }
+
+    @Override
+    protected final Object getContent() {
+        return history.getReport(RECORDS_PUBLISHED);
+    }
+
+}
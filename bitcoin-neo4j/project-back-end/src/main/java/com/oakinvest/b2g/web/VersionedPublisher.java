@@ -0,0 +1,129 @@
+package com.oakinvest.b2g.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.socket.TextMessage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a versioned content to the websocket clients of a handler.
+ * <p>
+ * Changes are coalesced : every interval, if the version of the content changed, the content is serialized once and
+ * the handler sends the same message to all its subscribers. Subscribers that missed a version (slow or new) get the
+ * last one.
+ */
+public abstract class VersionedPublisher {
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(VersionedPublisher.class);
+
+    /**
+     * Object to Json mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Handler sending the messages.
+     */
+    private final PublishingHandler handler;
+
+    /**
+     * Publication interval (milliseconds).
+     */
+    private final long interval;
+
+    /**
+     * Publication scheduler.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Last message serialized.
+     */
+    private TextMessage message;
+
+    /**
+     * Version of the last message serialized.
+     */
+    private long messageVersion = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param newThreadNamePrefix prefix of the publication thread
+     * @param newHandler          handler sending the messages
+     * @param newInterval         publication interval
+     */
+    protected VersionedPublisher(final String newThreadNamePrefix, final PublishingHandler newHandler, final long newInterval) {
+        this.handler = newHandler;
+        this.interval = newInterval;
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(newThreadNamePrefix);
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Starts the publication.
+     */
+    @PostConstruct
+    public final void start() {
+        scheduler.scheduleWithFixedDelay(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the publication.
+     */
+    @PreDestroy
+    public final void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Publishes the content (serialized only if its version changed since the last publication).
+     */
+    public final void publish() {
+        try {
+            // The version is read before the serialization : a change made meanwhile is published next time.
+            final long version = getVersion();
+            if (message == null || version != messageVersion) {
+                message = new TextMessage(mapper.writeValueAsBytes(getContent()));
+                messageVersion = version;
+            }
+            handler.publish(message, messageVersion);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Error publishing " + getName() + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the name of the content (used in logs).
+     *
+     * @return name
+     */
+    protected abstract String getName();
+
+    /**
+     * Returns the version of the content : it must change each time the content changes.
+     *
+     * @return version
+     */
+    protected abstract long getVersion();
+
+    /**
+     * Returns the content to serialize.
+     *
+     * @return content
+     */
+    protected abstract Object getContent();
+
+}
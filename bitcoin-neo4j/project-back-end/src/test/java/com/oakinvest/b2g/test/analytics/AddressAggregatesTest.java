@@ -0,0 +1,134 @@
+package com.oakinvest.b2g.test.analytics;
+
+import com.oakinvest.b2g.dto.analytics.AddressAggregates;
+import com.oakinvest.b2g.repository.AddressRepository;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.AddressAggregatesRebuildJob;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Tests for the address aggregates maintained by the import and their rebuild.
+ */
+public class AddressAggregatesTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Block reward in satoshis.
+     */
+    private static final long BLOCK_REWARD = 5_000_000_000L;
+
+    /**
+     * Query returning the aggregates of all the addresses.
+     */
+    private static final String ALL_AGGREGATES = "MATCH (a:BitcoinAddress) RETURN a.address AS address, "
+            + "[a.balance, a.totalReceived, a.totalSent, a.txCount, a.firstSeenHeight, a.lastSeenHeight] AS aggregates";
+
+    /**
+     * Address repository.
+     */
+    @Autowired
+    private AddressRepository addressRepository;
+
+    /**
+     * Rebuild job.
+     */
+    @Autowired
+    private AddressAggregatesRebuildJob rebuildJob;
+
+    /**
+     * Aggregates maintained by the import and rebuilt.
+     */
+    @Test
+    public final void addressAggregatesTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // No fees in those blocks : the sum of the balances is the sum of the rewards.
+        assertThat(sum("balance")).as("Balances").isEqualTo(BLOCK_REWARD * NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(sum("totalReceived") - sum("totalSent")).as("Received - sent").isEqualTo(BLOCK_REWARD * NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Address of the coinbase of block 9, spent in block 170 (10 BTC sent, 40 BTC back).
+        Optional<AddressAggregates> aggregates = addressRepository.findAggregatesByAddress("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S");
+        if (aggregates.isPresent()) {
+            assertThat(aggregates.get().getFirstSeenHeight()).as("First seen").isEqualTo(9);
+            assertThat(aggregates.get().getLastSeenHeight()).as("Last seen").isGreaterThanOrEqualTo(170);
+            assertThat(aggregates.get().getTxCount()).as("Transactions").isGreaterThanOrEqualTo(2);
+            assertThat(aggregates.get().getTotalSent()).as("Sent").isGreaterThanOrEqualTo(BLOCK_REWARD);
+            assertThat(aggregates.get().getBalance()).as("Balance").isEqualTo(aggregates.get().getTotalReceived() - aggregates.get().getTotalSent());
+        } else {
+            fail("Address not found");
+        }
+        aggregates = addressRepository.findAggregatesByAddress("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3");
+        if (aggregates.isPresent()) {
+            assertThat(aggregates.get().getFirstSeenHeight()).as("First seen").isEqualTo(170);
+            assertThat(aggregates.get().getTotalReceived()).as("Received").isGreaterThanOrEqualTo(BLOCK_REWARD / 5);
+        } else {
+            fail("Address not found");
+        }
+
+        // The rebuild gives the same aggregates.
+        final Map<String, List<Object>> incrementalAggregates = getAllAggregates();
+        getSessionFactory().openSession().query("MATCH (a:BitcoinAddress) REMOVE a.balance, a.totalReceived, a.totalSent, a.txCount, a.firstSeenHeight, a.lastSeenHeight", Collections.emptyMap());
+        assertThat(sum("balance")).isZero();
+        rebuildJob.run();
+        assertThat(getAllAggregates()).as("Rebuilt aggregates").isEqualTo(incrementalAggregates);
+    }
+
+    /**
+     * Returns the sum of an aggregate for all the addresses.
+     *
+     * @param aggregate aggregate
+     * @return sum
+     */
+    private long sum(final String aggregate) {
+        return getSessionFactory().openSession().queryForObject(Long.class, "MATCH (a:BitcoinAddress) RETURN coalesce(sum(a." + aggregate + "), 0)", Collections.emptyMap());
+    }
+
+    /**
+     * Returns the aggregates of all the addresses.
+     *
+     * @return aggregates indexed by address
+     */
+    private Map<String, List<Object>> getAllAggregates() {
+        final Map<String, List<Object>> aggregates = new HashMap<>();
+        getSessionFactory().openSession().query(ALL_AGGREGATES, Collections.emptyMap())
+                .forEach(row -> aggregates.put((String) row.get("address"), Arrays.asList((Object[]) row.get("aggregates"))));
+        return aggregates;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.oakinvest.b2g.test.analytics;
+
+import com.oakinvest.b2g.dto.analytics.AddressFlow;
+import com.oakinvest.b2g.repository.AddressRepository;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.AddressFlowsRebuildJob;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the address flows maintained by the import and their rebuild.
+ */
+public class AddressFlowsTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Amount sent in block 170 in satoshis.
+     */
+    private static final long AMOUNT_SENT = 1_000_000_000L;
+
+    /**
+     * Query returning all the flows.
+     */
+    private static final String ALL_FLOWS = "MATCH (s:BitcoinAddress)-[f:SENT_TO]->(r:BitcoinAddress) "
+            + "RETURN s.address + ' -> ' + r.address AS flow, [f.amount, f.count, f.firstHeight, f.lastHeight] AS values";
+
+    /**
+     * Address repository.
+     */
+    @Autowired
+    private AddressRepository addressRepository;
+
+    /**
+     * Rebuild job.
+     */
+    @Autowired
+    private AddressFlowsRebuildJob rebuildJob;
+
+    /**
+     * Flows maintained by the import and rebuilt.
+     */
+    @Test
+    public final void addressFlowsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Block 170 : 10 BTC sent to 1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3, 40 BTC back (change, no flow).
+        final List<AddressFlow> sent = addressRepository.findFlowsFrom("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S");
+        assertThat(sent).as("Flows sent").isNotEmpty().noneMatch(f -> f.getRecipient().equals(f.getSender()));
+        assertThat(sent).as("Flow to 1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3")
+                .filteredOn(f -> f.getRecipient().equals("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3"))
+                .hasSize(1)
+                .allSatisfy(f -> {
+                    assertThat(f.getAmount()).as("Amount").isEqualTo(AMOUNT_SENT);
+                    assertThat(f.getCount()).as("Count").isEqualTo(1);
+                    assertThat(f.getFirstHeight()).as("First height").isEqualTo(170);
+                    assertThat(f.getLastHeight()).as("Last height").isEqualTo(170);
+                });
+        assertThat(addressRepository.findFlowsTo("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3")).as("Flows received")
+                .anyMatch(f -> f.getSender().equals("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S") && f.getAmount() == AMOUNT_SENT);
+
+        // The rebuild gives the same flows.
+        final Map<String, List<Object>> incrementalFlows = getAllFlows();
+        getSessionFactory().openSession().query("MATCH ()-[f:SENT_TO]->() DELETE f", Collections.emptyMap());
+        assertThat(getAllFlows()).isEmpty();
+        rebuildJob.run();
+        assertThat(getAllFlows()).as("Rebuilt flows").isEqualTo(incrementalFlows);
+    }
+
+    /**
+     * Returns all the flows.
+     *
+     * @return amount, count, first and last height indexed by sender and recipient
+     */
+    private Map<String, List<Object>> getAllFlows() {
+        final Map<String, List<Object>> flows = new HashMap<>();
+        getSessionFactory().openSession().query(ALL_FLOWS, Collections.emptyMap())
+                .forEach(row -> flows.put((String) row.get("flow"), Arrays.asList((Object[]) row.get("values"))));
+        return flows;
+    }
+
+}
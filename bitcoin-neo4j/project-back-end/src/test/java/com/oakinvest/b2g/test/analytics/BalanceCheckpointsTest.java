@@ -0,0 +1,165 @@
+package com.oakinvest.b2g.test.analytics;
+
+import com.oakinvest.b2g.service.AddressBalanceService;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.AddressAggregatesRebuildJob;
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the balance checkpoints maintained by the import and their rebuild.
+ * Checkpoints hold two balance changes so that addresses have several checkpoints (another context, so it runs on a
+ * random port).
+ */
+@TestPropertySource(properties = {"b2g.analytics.balance-checkpoints.interval=2", "server.port=0"})
+public class BalanceCheckpointsTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Heights where the balances are checked.
+     */
+    private static final List<Integer> HEIGHTS = List.of(0, 9, 100, 169, 170, 181, 183, 199, 200);
+
+    /**
+     * Query returning the values received by the addresses up to a height.
+     */
+    private static final String RECEIVED = "MATCH (a:BitcoinAddress)-[:ADDRESS]->(o:BitcoinTransactionOutput)<-[:OUTPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "WHERE b.height <= $height RETURN a.address AS address, o.value AS value";
+
+    /**
+     * Query returning the values sent by the addresses up to a height.
+     */
+    private static final String SENT = "MATCH (a:BitcoinAddress)-[:ADDRESS]->(i:BitcoinTransactionInput)<-[:TRANSACTION_OUTPUT]-(o:BitcoinTransactionOutput), "
+            + "(i)<-[:INPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(b:BitcoinBlock) "
+            + "WHERE b.height <= $height RETURN a.address AS address, o.value AS value";
+
+    /**
+     * Query returning all the checkpoints.
+     */
+    private static final String ALL_CHECKPOINTS = "MATCH (a:BitcoinAddress)-[:BALANCE_CHECKPOINT]->(c:BitcoinBalanceCheckpoint) "
+            + "RETURN a.address + ' ' + c.height AS checkpoint, c.balance AS balance, c.heights AS heights, c.deltas AS deltas";
+
+    /**
+     * Address balance service.
+     */
+    @Autowired
+    private AddressBalanceService addressBalanceService;
+
+    /**
+     * Rebuild job.
+     */
+    @Autowired
+    private AddressAggregatesRebuildJob rebuildJob;
+
+    /**
+     * Balances at a height read from the checkpoints.
+     */
+    @Test
+    public final void balanceCheckpointsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Address of the coinbase of block 9, spent in block 170.
+        assertThat(addressBalanceService.getBalanceAtHeight("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S", 8)).as("Before block 9").contains(0L);
+        assertThat(addressBalanceService.getBalanceAtHeight("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S", 9)).as("Block 9").contains(5_000_000_000L);
+        assertThat(addressBalanceService.getBalanceAtHeight("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3", 170)).as("Block 170").contains(1_000_000_000L);
+        assertThat(addressBalanceService.getBalanceAtHeight("unknown", 170)).as("Unknown address").isEmpty();
+        assertThat(count("MATCH (a:BitcoinAddress) WHERE size((a)-[:BALANCE_CHECKPOINT]->()) > 1 RETURN count(a)")).as("Addresses with several checkpoints").isPositive();
+
+        // The balances of all the addresses are the ones computed from the outputs and inputs.
+        HEIGHTS.forEach(this::checkBalances);
+
+        // The rebuild gives the same checkpoints.
+        final Map<String, List<Object>> incrementalCheckpoints = getAllCheckpoints();
+        getSessionFactory().openSession().query("MATCH (c:BitcoinBalanceCheckpoint) DETACH DELETE c", Collections.emptyMap());
+        assertThat(getAllCheckpoints()).isEmpty();
+        rebuildJob.run();
+        assertThat(getAllCheckpoints()).as("Rebuilt checkpoints").isEqualTo(incrementalCheckpoints);
+    }
+
+    /**
+     * Checks the balances of all the addresses at a height.
+     *
+     * @param height block height
+     */
+    private void checkBalances(final int height) {
+        final Map<String, Long> balances = new HashMap<>();
+        getSessionFactory().openSession().query("MATCH (a:BitcoinAddress) RETURN a.address AS address", Collections.emptyMap())
+                .forEach(row -> balances.put((String) row.get("address"), 0L));
+        getSessionFactory().openSession().query(RECEIVED, Map.of("height", height))
+                .forEach(row -> balances.merge((String) row.get("address"), getAmount(row), Long::sum));
+        getSessionFactory().openSession().query(SENT, Map.of("height", height))
+                .forEach(row -> balances.merge((String) row.get("address"), -getAmount(row), Long::sum));
+        balances.forEach((address, balance) -> assertThat(addressBalanceService.getBalanceAtHeight(address, height))
+                .as("Balance of " + address + " at " + height)
+                .contains(balance));
+    }
+
+    /**
+     * Returns all the checkpoints.
+     *
+     * @return balance, heights and deltas indexed by address and height
+     */
+    private Map<String, List<Object>> getAllCheckpoints() {
+        final Map<String, List<Object>> checkpoints = new HashMap<>();
+        getSessionFactory().openSession().query(ALL_CHECKPOINTS, Collections.emptyMap())
+                .forEach(row -> checkpoints.put((String) row.get("checkpoint"), List.of(row.get("balance"),
+                        Arrays.asList((Object[]) row.get("heights")), Arrays.asList((Object[]) row.get("deltas")))));
+        return checkpoints;
+    }
+
+    /**
+     * Returns the amount of a row in satoshis.
+     *
+     * @param row row (value in BTC or in satoshis in compact mode)
+     * @return amount in satoshis
+     */
+    private long getAmount(final Map<String, Object> row) {
+        return StorageEncoding.toSatoshis(StorageEncoding.decodeAmount(row.get("value")));
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        return getSessionFactory().openSession().queryForObject(Long.class, query, Collections.emptyMap());
+    }
+
+}
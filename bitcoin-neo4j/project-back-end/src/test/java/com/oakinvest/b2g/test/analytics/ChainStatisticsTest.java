@@ -0,0 +1,165 @@
+package com.oakinvest.b2g.test.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinStatistics;
+import com.oakinvest.b2g.domain.StatisticsPeriod;
+import com.oakinvest.b2g.service.ChainStatisticsService;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.HyperLogLog;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for the chain statistics maintained by the import.
+ */
+public class ChainStatisticsTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Number of values added to the sketches.
+     */
+    private static final int NUMBER_OF_VALUES = 100000;
+
+    /**
+     * Sketch precision.
+     */
+    private static final int PRECISION = 12;
+
+    /**
+     * Tolerated relative error (about three standard errors).
+     */
+    private static final double TOLERANCE = 0.05;
+
+    /**
+     * Query returning the exact number of active addresses of each day.
+     */
+    private static final String ACTIVE_ADDRESSES_PER_DAY = "MATCH (b:BitcoinBlock)<-[:TRANSACTIONS]-(t:BitcoinTransaction) "
+            + "OPTIONAL MATCH (t)-[:OUTPUTS]->(:BitcoinTransactionOutput)<-[:ADDRESS]-(received:BitcoinAddress) "
+            + "OPTIONAL MATCH (t)-[:INPUTS]->(:BitcoinTransactionInput)<-[:ADDRESS]-(sent:BitcoinAddress) "
+            + "WITH b.time - b.time % 86400 AS day, collect(received.address) + collect(sent.address) AS addresses "
+            + "UNWIND addresses AS address "
+            + "RETURN day, count(DISTINCT address) AS activeAddresses";
+
+    /**
+     * Chain statistics service.
+     */
+    @Autowired
+    private ChainStatisticsService chainStatisticsService;
+
+    /**
+     * Sketch estimate and merge.
+     */
+    @Test
+    public final void hyperLogLogTest() {
+        final HyperLogLog first = new HyperLogLog(PRECISION);
+        final HyperLogLog second = new HyperLogLog(PRECISION);
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            first.add("address-" + i);
+            // Half of the values are also in the first sketch.
+            second.add("address-" + (i + NUMBER_OF_VALUES / 2));
+        }
+        assertThat((double) first.estimate()).as("Estimate").isCloseTo(NUMBER_OF_VALUES, within(NUMBER_OF_VALUES * TOLERANCE));
+
+        // Values already seen don't change the estimate.
+        final long estimate = first.estimate();
+        first.add("address-0");
+        assertThat(first.estimate()).as("Estimate").isEqualTo(estimate);
+
+        // Merged sketches estimate the union and the stored registers give the same sketch.
+        final HyperLogLog union = new HyperLogLog(PRECISION, first.toBytes());
+        union.merge(second);
+        final double unionSize = NUMBER_OF_VALUES * 1.5;
+        assertThat((double) union.estimate()).as("Union estimate").isCloseTo(unionSize, within(unionSize * TOLERANCE));
+
+        // Small cardinalities are counted exactly.
+        final HyperLogLog small = new HyperLogLog(PRECISION);
+        small.add("a");
+        small.add("b");
+        small.add("c");
+        assertThat(small.estimate()).as("Small estimate").isEqualTo(3);
+    }
+
+    /**
+     * Statistics maintained by the import.
+     */
+    @Test
+    public final void chainStatisticsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Hours and days add up to the whole graph.
+        final long transactions = count("MATCH (t:BitcoinTransaction) RETURN count(t)");
+        final long addresses = count("MATCH (a:BitcoinAddress) RETURN count(a)");
+        final long outputVolume = count("MATCH (b:BitcoinBlock) RETURN sum(b.totalOutput)");
+        for (StatisticsPeriod period : StatisticsPeriod.values()) {
+            final List<BitcoinStatistics> statistics = chainStatisticsService.getStatistics(period, Instant.EPOCH, Instant.now());
+            assertThat(statistics).as("Statistics").isNotEmpty();
+            assertThat(statistics).as("Periods").allMatch(s -> s.getPeriod() == period && s.getStart() % period.getDuration() == 0);
+            assertThat(statistics).as("Order").isSortedAccordingTo((a, b) -> Long.compare(a.getStart(), b.getStart()));
+            assertThat(statistics.stream().mapToLong(BitcoinStatistics::getBlockCount).sum()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+            assertThat(statistics.stream().mapToLong(BitcoinStatistics::getTxCount).sum()).as("Transactions").isEqualTo(transactions);
+            assertThat(statistics.stream().mapToLong(BitcoinStatistics::getOutputVolume).sum()).as("Output volume").isEqualTo(outputVolume);
+            assertThat(statistics.stream().mapToLong(BitcoinStatistics::getFees).sum()).as("Fees").isZero();
+            assertThat(statistics.stream().mapToLong(BitcoinStatistics::getNewAddresses).sum()).as("New addresses").isEqualTo(addresses);
+        }
+
+        // Active addresses of each day.
+        final List<BitcoinStatistics> days = chainStatisticsService.getStatistics(StatisticsPeriod.DAY, Instant.EPOCH, Instant.now());
+        for (Map<String, Object> row : getSessionFactory().openSession().query(ACTIVE_ADDRESSES_PER_DAY, Collections.emptyMap())) {
+            final long day = ((Number) row.get("day")).longValue();
+            final long activeAddresses = ((Number) row.get("activeAddresses")).longValue();
+            assertThat(days.stream().filter(s -> s.getStart() == day).findFirst())
+                    .as("Day " + day)
+                    .hasValueSatisfying(s -> assertThat((double) s.getActiveAddresses()).isCloseTo(activeAddresses, within(activeAddresses * TOLERANCE + 1)));
+        }
+
+        // Range query.
+        final BitcoinStatistics secondDay = days.get(1);
+        assertThat(chainStatisticsService.getStatistics(StatisticsPeriod.DAY, Instant.ofEpochSecond(secondDay.getStart() + 1), Instant.ofEpochSecond(secondDay.getStart() + 2)))
+                .as("Day containing the range")
+                .extracting(BitcoinStatistics::getStart)
+                .containsExactly(secondDay.getStart());
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        return getSessionFactory().openSession().queryForObject(Long.class, query, Collections.emptyMap());
+    }
+
+}
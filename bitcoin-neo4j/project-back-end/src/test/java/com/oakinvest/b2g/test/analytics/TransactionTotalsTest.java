@@ -0,0 +1,173 @@
+package com.oakinvest.b2g.test.analytics;
+
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.BlockTotals;
+import com.oakinvest.b2g.util.analytics.TransactionTotals;
+import com.oakinvest.b2g.util.analytics.TransactionTotalsBackfillJob;
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Tests for the transaction and block totals computed by the import and their backfill.
+ */
+public class TransactionTotalsTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Block reward in satoshis.
+     */
+    private static final long BLOCK_REWARD = 5_000_000_000L;
+
+    /**
+     * Query returning the totals of all the transactions and blocks.
+     */
+    private static final String ALL_TOTALS = "MATCH (t:BitcoinTransaction) RETURN id(t) AS id, t.inputTotal AS v1, t.outputTotal AS v2, t.fee AS v3, t.feeRate AS v4 "
+            + "UNION MATCH (b:BitcoinBlock) RETURN id(b) AS id, b.totalFees AS v1, b.totalOutput AS v2, null AS v3, null AS v4";
+
+    /**
+     * Backfill job.
+     */
+    @Autowired
+    private TransactionTotalsBackfillJob backfillJob;
+
+    /**
+     * Fee and fee rate computation.
+     */
+    @Test
+    public final void feeTest() {
+        final int size = 250;
+        final int vSize = 200;
+        final TransactionTotals totals = new TransactionTotals(size, vSize);
+        totals.addInput(BLOCK_REWARD);
+        totals.addOutput(BLOCK_REWARD - 10_000);
+        assertThat(totals.getInputTotal()).as("Input total").isEqualTo(BLOCK_REWARD);
+        assertThat(totals.getFee()).as("Fee").isEqualTo(10_000);
+        assertThat(totals.getFeeRate()).as("Fee rate").isEqualTo(50.0);
+
+        // The size is used without virtual size.
+        final TransactionTotals legacy = new TransactionTotals(size, 0);
+        legacy.addInput(BLOCK_REWARD);
+        legacy.addOutput(BLOCK_REWARD - 10_000);
+        assertThat(legacy.getFeeRate()).as("Fee rate").isEqualTo(40.0);
+
+        // Unknown origin output : no fee.
+        legacy.addUnknownInput();
+        assertThat(legacy.getFee()).as("Fee").isNull();
+        assertThat(legacy.getFeeRate()).as("Fee rate").isNull();
+
+        // Amount stored as a float by a previous version : no fee.
+        final TransactionTotals floatAmount = new TransactionTotals(size, vSize);
+        floatAmount.addInput(StorageEncoding.decodeAmount((double) 50.00012345f));
+        floatAmount.addOutput(new BigDecimal("50.00002345"));
+        assertThat(floatAmount.getInputTotal()).as("Input total").isNull();
+        assertThat(floatAmount.getFee()).as("Fee").isNull();
+        assertThat(floatAmount.getFeeRate()).as("Fee rate").isNull();
+        assertThat(floatAmount.getOutputTotal()).as("Output total").isEqualTo(5_000_002_345L);
+
+        // Block totals.
+        final TransactionTotals coinbase = new TransactionTotals(size, vSize);
+        coinbase.setCoinbase();
+        coinbase.addOutput(BLOCK_REWARD + 10_000);
+        final BlockTotals blockTotals = new BlockTotals();
+        blockTotals.add(coinbase);
+        blockTotals.add(totals);
+        assertThat(blockTotals.getTotalFees()).as("Total fees").isEqualTo(10_000);
+        assertThat(blockTotals.getTotalOutput()).as("Total output").isEqualTo(BLOCK_REWARD * 2);
+        blockTotals.add(legacy);
+        assertThat(blockTotals.getTotalFees()).as("Total fees").isNull();
+    }
+
+    /**
+     * Totals computed by the import and backfilled.
+     */
+    @Test
+    public final void transactionTotalsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Block 170 : the coinbase and the transaction spending the coinbase of block 9 (10 BTC sent, 40 BTC back).
+        final Optional<BitcoinBlock> b170 = getBlockRepository().findByHeightWithoutDepth(170);
+        if (b170.isPresent()) {
+            assertThat(b170.get().getTotalFees()).as("Total fees").isZero();
+            assertThat(b170.get().getTotalOutput()).as("Total output").isEqualTo(BLOCK_REWARD * 2);
+        } else {
+            fail("Block 170 not found");
+        }
+        final Optional<BitcoinTransaction> transaction = getTransactionRepository().findByTxId("f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16");
+        if (transaction.isPresent()) {
+            assertThat(transaction.get().getInputTotal()).as("Input total").isEqualTo(BLOCK_REWARD);
+            assertThat(transaction.get().getOutputTotal()).as("Output total").isEqualTo(BLOCK_REWARD);
+            assertThat(transaction.get().getFee()).as("Fee").isZero();
+            assertThat(transaction.get().getFeeRate()).as("Fee rate").isZero();
+        } else {
+            fail("Transaction f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16 not found");
+        }
+        final Optional<BitcoinTransaction> coinbase = getTransactionRepository().findByTxId("0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9");
+        if (coinbase.isPresent()) {
+            assertThat(coinbase.get().getInputTotal()).as("Input total").isNull();
+            assertThat(coinbase.get().getFee()).as("Fee").isNull();
+            assertThat(coinbase.get().getOutputTotal()).as("Output total").isEqualTo(BLOCK_REWARD);
+        } else {
+            fail("Transaction 0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9 not found");
+        }
+
+        // The backfill gives the same totals.
+        final Map<Long, List<Object>> importedTotals = getAllTotals();
+        getSessionFactory().openSession().query("MATCH (t:BitcoinTransaction) REMOVE t.inputTotal, t.outputTotal, t.fee, t.feeRate", Collections.emptyMap());
+        getSessionFactory().openSession().query("MATCH (b:BitcoinBlock) REMOVE b.totalFees, b.totalOutput", Collections.emptyMap());
+        assertThat(getAllTotals()).isNotEqualTo(importedTotals);
+        backfillJob.run();
+        assertThat(getAllTotals()).as("Backfilled totals").isEqualTo(importedTotals);
+    }
+
+    /**
+     * Returns the totals of all the transactions and blocks.
+     *
+     * @return totals indexed by node id
+     */
+    private Map<Long, List<Object>> getAllTotals() {
+        final Map<Long, List<Object>> totals = new HashMap<>();
+        getSessionFactory().openSession().query(ALL_TOTALS, Collections.emptyMap())
+                .forEach(row -> totals.put(((Number) row.get("id")).longValue(), Arrays.asList(row.get("v1"), row.get("v2"), row.get("v3"), row.get("v4"))));
+        return totals;
+    }
+
+}
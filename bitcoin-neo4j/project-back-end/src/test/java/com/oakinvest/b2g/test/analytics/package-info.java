@@ -0,0 +1,4 @@
+/**
+ * analytics test.
+ */
+package com.oakinvest.b2g.test.analytics;
@@ -0,0 +1,110 @@
+package com.oakinvest.b2g.test.archive;
+
+import com.oakinvest.b2g.util.archive.ArchivePointer;
+import com.oakinvest.b2g.util.archive.ArchivedTransaction;
+import com.oakinvest.b2g.util.archive.RawTransactionArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the raw transaction archive.
+ */
+public class RawTransactionArchiveTest {
+
+    /**
+     * Number of transactions archived.
+     */
+    private static final int NUMBER_OF_TRANSACTIONS = 100;
+
+    /**
+     * Small segment size so that several segments are written.
+     */
+    private static final long SEGMENT_SIZE = 1024;
+
+    /**
+     * Archive directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Append and read test.
+     */
+    @Test
+    public final void appendAndReadTest() {
+        final String directory = folder.getRoot().getAbsolutePath();
+        RawTransactionArchive archive = new RawTransactionArchive(directory, SEGMENT_SIZE);
+        final List<ArchivePointer> pointers = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+            pointers.add(archive.append(createTransaction(i)));
+        }
+
+        // Segments are rolled and records are read back while the last segment is still written.
+        assertThat(pointers.get(NUMBER_OF_TRANSACTIONS - 1).getSegment()).as("Segments").isGreaterThan(1);
+        for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+            checkTransaction(archive.read(pointers.get(i)), i);
+        }
+        archive.close();
+
+        // The archive is opened again and continues the last segment.
+        archive = new RawTransactionArchive(directory, SEGMENT_SIZE);
+        final ArchivePointer pointer = archive.append(createTransaction(NUMBER_OF_TRANSACTIONS));
+        assertThat(pointer.getSegment()).as("Segment").isGreaterThanOrEqualTo(pointers.get(NUMBER_OF_TRANSACTIONS - 1).getSegment());
+        checkTransaction(archive.read(pointer), NUMBER_OF_TRANSACTIONS);
+        checkTransaction(archive.read(pointers.get(0)), 0);
+        archive.close();
+    }
+
+    /**
+     * Big transaction test (bigger than what DataOutputStream.writeUTF accepts).
+     */
+    @Test
+    public final void bigTransactionTest() {
+        final RawTransactionArchive archive = new RawTransactionArchive(folder.getRoot().getAbsolutePath(), SEGMENT_SIZE);
+        final StringBuilder hex = new StringBuilder();
+        final int size = 200000;
+        for (int i = 0; hex.length() < size; i++) {
+            hex.append(Integer.toHexString(i));
+        }
+        final ArchivedTransaction transaction = new ArchivedTransaction("big", hex.toString());
+        final ArchivePointer pointer = archive.append(transaction);
+        assertThat(archive.read(pointer).getHex()).isEqualTo(hex.toString());
+        archive.close();
+    }
+
+    /**
+     * Creates a transaction.
+     *
+     * @param i transaction number
+     * @return transaction
+     */
+    private ArchivedTransaction createTransaction(final int i) {
+        final ArchivedTransaction transaction = new ArchivedTransaction("tx" + i, "0100000001" + i);
+        transaction.addInputScript(null, null);
+        transaction.addInputScript("asm-in-" + i, "hex-in-" + i);
+        transaction.addOutputScript("asm-out-" + i, "hex-out-" + i);
+        return transaction;
+    }
+
+    /**
+     * Checks a transaction read from the archive.
+     *
+     * @param transaction transaction
+     * @param i           transaction number
+     */
+    private void checkTransaction(final ArchivedTransaction transaction, final int i) {
+        assertThat(transaction.getTxId()).isEqualTo("tx" + i);
+        assertThat(transaction.getHex()).isEqualTo("0100000001" + i);
+        assertThat(transaction.getScriptSigAsm()).containsExactly(null, "asm-in-" + i);
+        assertThat(transaction.getScriptSigHex()).containsExactly(null, "hex-in-" + i);
+        assertThat(transaction.getScriptPubKeyAsm()).containsExactly("asm-out-" + i);
+        assertThat(transaction.getScriptPubKeyHex()).containsExactly("hex-out-" + i);
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.oakinvest.b2g.test.archive;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
+import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponseError;
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchive;
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchiveWriter;
+import com.oakinvest.b2g.util.exception.ArchiveException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the archive of recorded core responses.
+ */
+public class RecordedResponseArchiveTest {
+
+    /**
+     * Number of responses archived.
+     */
+    private static final int NUMBER_OF_RESPONSES = 500;
+
+    /**
+     * Archive of the tests.
+     */
+    private static final String TEST_ARCHIVE = "src/test/resources/cache/responses.dat";
+
+    /**
+     * Archive of the tests : last block recorded.
+     */
+    private static final int LAST_RECORDED_BLOCK = 601;
+
+    /**
+     * Archive directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Write and read test.
+     */
+    @Test
+    public final void writeAndReadTest() {
+        final RecordedResponseArchiveWriter writer = new RecordedResponseArchiveWriter();
+        for (int i = 0; i < NUMBER_OF_RESPONSES; i++) {
+            final GetBlockHashResponse response = new GetBlockHashResponse();
+            response.setResult("hash-" + i);
+            writer.add(RecordedResponseArchive.getBlockHashKey(i), response);
+        }
+        final GetBlockResponse error = new GetBlockResponse();
+        final BitcoinCoreResponseError coreError = new BitcoinCoreResponseError();
+        coreError.setCode(-5);
+        coreError.setMessage("Block not found");
+        error.setError(coreError);
+        writer.add(RecordedResponseArchive.getBlockKey("unknown"), error);
+        final Path file = folder.getRoot().toPath().resolve("responses.dat");
+        writer.write(file);
+
+        final RecordedResponseArchive archive = new RecordedResponseArchive(file);
+        assertThat(archive.getKeys()).hasSize(NUMBER_OF_RESPONSES + 1);
+        for (int i = 0; i < NUMBER_OF_RESPONSES; i++) {
+            assertThat(archive.read(RecordedResponseArchive.getBlockHashKey(i), GetBlockHashResponse.class).get().getResult())
+                    .as("Response " + i).isEqualTo("hash-" + i);
+        }
+        final GetBlockResponse archivedError = archive.read(RecordedResponseArchive.getBlockKey("unknown"), GetBlockResponse.class).get();
+        assertThat(archivedError.getResult()).isNull();
+        assertThat(archivedError.getError().getCode()).isEqualTo(-5);
+        assertThat(archivedError.getError().getMessage()).isEqualTo("Block not found");
+
+        // Responses not archived.
+        assertThat(archive.contains(RecordedResponseArchive.getBlockHashKey(NUMBER_OF_RESPONSES))).isFalse();
+        assertThat(archive.read(RecordedResponseArchive.getBlockHashKey(NUMBER_OF_RESPONSES), GetBlockHashResponse.class)).isEmpty();
+        assertThat(archive.readJson(RecordedResponseArchive.getBlockCountKey())).isEmpty();
+
+        // An archive is merged in another one.
+        final Path copy = folder.getRoot().toPath().resolve("copy.dat");
+        new RecordedResponseArchiveWriter().addArchive(archive).write(copy);
+        assertThat(new RecordedResponseArchive(copy).getKeys()).isEqualTo(archive.getKeys());
+    }
+
+    /**
+     * Unknown properties test (responses recorded with properties that the DTO classes do not have anymore).
+     */
+    @Test
+    public final void unknownPropertiesTest() {
+        final Path file = folder.getRoot().toPath().resolve("responses.dat");
+        new RecordedResponseArchiveWriter()
+                .add(RecordedResponseArchive.getBlockHashKey(1), "{\"result\":\"hash\",\"error\":null,\"removed\":1}".getBytes(StandardCharsets.UTF_8))
+                .write(file);
+        final RecordedResponseArchive archive = new RecordedResponseArchive(file);
+        assertThat(archive.read(RecordedResponseArchive.getBlockHashKey(1), GetBlockHashResponse.class).get().getResult()).isEqualTo("hash");
+    }
+
+    /**
+     * Truncated entries test : the compressed data ends before the length of the JSON is reached.
+     *
+     * @throws IOException error while corrupting the archive
+     */
+    @Test
+    public final void truncatedEntryTest() throws IOException {
+        final String key = RecordedResponseArchive.getBlockHashKey(1);
+        final byte[] json = "{\"result\":\"hash\",\"error\":null}".getBytes(StandardCharsets.UTF_8);
+        final Path file = folder.getRoot().toPath().resolve("responses.dat");
+        new RecordedResponseArchiveWriter().add(key, json).write(file);
+        assertThat(new RecordedResponseArchive(file).readJson(key)).contains(json);
+
+        // Index entry : header, key length, key, offset, compressed length and raw length.
+        final int compressedLengthPosition = Integer.BYTES * 3 + Integer.BYTES + key.length() + Integer.BYTES;
+        final int rawLengthPosition = compressedLengthPosition + Integer.BYTES;
+
+        // Compressed data cut (more input needed).
+        final Path cut = folder.getRoot().toPath().resolve("cut.dat");
+        final ByteBuffer cutData = ByteBuffer.wrap(Files.readAllBytes(file));
+        cutData.putInt(compressedLengthPosition, cutData.getInt(compressedLengthPosition) / 2);
+        Files.write(cut, cutData.array());
+        assertThatThrownBy(() -> new RecordedResponseArchive(cut).readJson(key)).isInstanceOf(ArchiveException.class);
+
+        // JSON longer than the compressed data (inflater finished).
+        final Path longer = folder.getRoot().toPath().resolve("longer.dat");
+        final ByteBuffer longerData = ByteBuffer.wrap(Files.readAllBytes(file));
+        longerData.putInt(rawLengthPosition, json.length + 1);
+        Files.write(longer, longerData.array());
+        assertThatThrownBy(() -> new RecordedResponseArchive(longer).readJson(key)).isInstanceOf(ArchiveException.class);
+    }
+
+    /**
+     * Archive of the tests : every block is recorded.
+     */
+    @Test
+    public final void testArchiveTest() {
+        final RecordedResponseArchive archive = new RecordedResponseArchive(Paths.get(TEST_ARCHIVE));
+        assertThat(archive.contains(RecordedResponseArchive.getBlockCountKey())).isTrue();
+        for (int i = 1; i <= LAST_RECORDED_BLOCK; i++) {
+            final String blockHash = archive.read(RecordedResponseArchive.getBlockHashKey(i), GetBlockHashResponse.class).get().getResult();
+            final GetBlockResponse block = archive.read(RecordedResponseArchive.getBlockKey(blockHash), GetBlockResponse.class).get();
+            assertThat(block.getResult().getHeight()).isEqualTo(i);
+            block.getResult().getTx().forEach(t -> assertThat(archive.contains(RecordedResponseArchive.getRawTransactionKey(t))).as(t).isTrue());
+        }
+    }
+
+}
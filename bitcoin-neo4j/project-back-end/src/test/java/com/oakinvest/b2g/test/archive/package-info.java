@@ -0,0 +1,4 @@
+/**
+ * archive test.
+ */
+package com.oakinvest.b2g.test.archive;
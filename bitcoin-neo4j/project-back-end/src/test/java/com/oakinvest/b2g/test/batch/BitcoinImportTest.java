@@ -13,6 +13,7 @@ import org.springframework.context.annotation.Bean;
 import org.neo4j.harness.Neo4j;
 import org.neo4j.harness.Neo4jBuilders;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -176,7 +177,7 @@ public class BitcoinImportTest extends BaseTest {
         final String expectedVin1ScriptSigHex = "47304402204e45e16932b8af514961a1d3a1a25fdf3f4f7732e9d624c6c61548ab5fb8cd410220181522ec8eca07de4860a4acdd12909d831cc56cbbac4622082221a8768d1d0901";
         final long expectedVin1Sequence = 4294967295L;
         // Vout 1.
-        final float expectedVout1Value = 10;
+        final BigDecimal expectedVout1Value = new BigDecimal("10");
         final int expectedVout1N = 0;
         final String expectedVout1ScriptPubKeyAsm = "04ae1a62fe09c5f51b13905f07f06b99a2f7159b2225f374cd378d71302fa28414e7aab37397f554a7df5f142c21c1b7303b8a0626f1baded5c72a704f7e6cd84c OP_CHECKSIG";
         final String expectedVout1ScriptPubKeyHex = "4104ae1a62fe09c5f51b13905f07f06b99a2f7159b2225f374cd378d71302fa28414e7aab37397f554a7df5f142c21c1b7303b8a0626f1baded5c72a704f7e6cd84cac";
@@ -184,7 +185,7 @@ public class BitcoinImportTest extends BaseTest {
         final BitcoinTransactionOutputType expectedVout1ScriptPubKeyType = BitcoinTransactionOutputType.pubkey;
         final String expectedVout1ScriptPubKeyAddress = "1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3";
         // Vout 2.
-        final float expectedVout2Value = 40;
+        final BigDecimal expectedVout2Value = new BigDecimal("40");
         final int expectedVout2N = 1;
         final String expectedVout2ScriptPubKeyAsm = "0411db93e1dcdb8a016b49840f8c53bc1eb68a382e97b1482ecad7b148a6909a5cb2e0eaddfb84ccf9744464f82e160bfa9b8b64f9d4c03f999b8643f656b412a3 OP_CHECKSIG";
         final String expectedVout2ScriptPubKeyHex = "410411db93e1dcdb8a016b49840f8c53bc1eb68a382e97b1482ecad7b148a6909a5cb2e0eaddfb84ccf9744464f82e160bfa9b8b64f9d4c03f999b8643f656b412a3ac";
@@ -228,7 +229,7 @@ public class BitcoinImportTest extends BaseTest {
         if (transaction.isPresent()) {
             assertThat(transaction.get().getOutputByIndex(0).isPresent()).as("Vout 1").isTrue();
             BitcoinTransactionOutput vout1 = transaction.get().getOutputByIndex(0).get();
-            assertThat(vout1.getValue()).as("Value").isEqualTo(expectedVout1Value);
+            assertThat(vout1.getValue()).as("Value").isEqualByComparingTo(expectedVout1Value);
             assertThat(vout1.getN()).as("N").isEqualTo(expectedVout1N);
             assertThat(vout1.getScriptPubKeyAsm()).as("Asm").isEqualTo(expectedVout1ScriptPubKeyAsm);
             assertThat(vout1.getScriptPubKeyHex()).as("Hex").isEqualTo(expectedVout1ScriptPubKeyHex);
@@ -243,7 +244,7 @@ public class BitcoinImportTest extends BaseTest {
         if (transaction.isPresent()) {
             assertThat(transaction.get().getOutputByIndex(1).isPresent()).as("Vout 2").isTrue();
             BitcoinTransactionOutput vout2 = transaction.get().getOutputByIndex(1).get();
-            assertThat(vout2.getValue()).as("Value").isEqualTo(expectedVout2Value);
+            assertThat(vout2.getValue()).as("Value").isEqualByComparingTo(expectedVout2Value);
             assertThat(vout2.getN()).as("N").isEqualTo(expectedVout2N);
             assertThat(vout2.getScriptPubKeyAsm()).as("Asm").isEqualTo(expectedVout2ScriptPubKeyAsm);
             assertThat(vout2.getScriptPubKeyHex()).as("Hex").isEqualTo(expectedVout2ScriptPubKeyHex);
@@ -286,7 +287,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto1.get().getValue())
                         .as("Transaction 1 output 1 - value")
-                        .isEqualTo(50f);
+                        .isEqualByComparingTo(new BigDecimal("50"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -310,7 +311,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bti1.get().getTransactionOutput().getValue())
                         .as("Transaction 2 input 1 - bitcoin address")
-                        .isEqualTo(50f);
+                        .isEqualByComparingTo(new BigDecimal("50"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -326,7 +327,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3");
                 assertThat(bto1.get().getValue())
                         .as("Transaction 2 output 1 - bitcoin address")
-                        .isEqualTo(10f);
+                        .isEqualByComparingTo(new BigDecimal("10"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -342,7 +343,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto2.get().getValue())
                         .as("Transaction 2 output 2 - bitcoin address")
-                        .isEqualTo(40f);
+                        .isEqualByComparingTo(new BigDecimal("40"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -366,7 +367,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bti1.get().getTransactionOutput().getValue())
                         .as("Transaction 3 input 1 - bitcoin address")
-                        .isEqualTo(40f);
+                        .isEqualByComparingTo(new BigDecimal("40"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -382,7 +383,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo("1DUDsfc23Dv9sPMEk5RsrtfzCw5ofi5sVW");
                 assertThat(bto1.get().getValue())
                         .as("Transaction 3 output 1 - bitcoin address")
-                        .isEqualTo(10f);
+                        .isEqualByComparingTo(new BigDecimal("10"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -398,7 +399,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto2.get().getValue())
                         .as("Transaction 3 output 2 - bitcoin address")
-                        .isEqualTo(30f);
+                        .isEqualByComparingTo(new BigDecimal("30"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -422,7 +423,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bti1.get().getTransactionOutput().getValue())
                         .as("Transaction 4 input 1 - bitcoin address")
-                        .isEqualTo(30f);
+                        .isEqualByComparingTo(new BigDecimal("30"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -438,7 +439,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo("1LzBzVqEeuQyjD2mRWHes3dgWrT9titxvq");
                 assertThat(bto1.get().getValue())
                         .as("Transaction 4 output 1 - bitcoin address")
-                        .isEqualTo(1);
+                        .isEqualByComparingTo(new BigDecimal("1"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -454,7 +455,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto2.get().getValue())
                         .as("Transaction 4 output 2 - bitcoin address")
-                        .isEqualTo(29f);
+                        .isEqualByComparingTo(new BigDecimal("29"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -478,7 +479,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bti1.get().getTransactionOutput().getValue())
                         .as("Transaction 5 input 1 - bitcoin address")
-                        .isEqualTo(29f);
+                        .isEqualByComparingTo(new BigDecimal("29"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -494,7 +495,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo("13HtsYzne8xVPdGDnmJX8gHgBZerAfJGEf");
                 assertThat(bto1.get().getValue())
                         .as("Transaction 5 output 1 - bitcoin address")
-                        .isEqualTo(1);
+                        .isEqualByComparingTo(new BigDecimal("1"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -510,7 +511,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto2.get().getValue())
                         .as("Transaction 5 output 2 - bitcoin address")
-                        .isEqualTo(28f);
+                        .isEqualByComparingTo(new BigDecimal("28"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -534,7 +535,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bti1.get().getTransactionOutput().getValue())
                         .as("Transaction 6 input 1 - bitcoin address")
-                        .isEqualTo(28f);
+                        .isEqualByComparingTo(new BigDecimal("28"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -550,7 +551,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo("1ByLSV2gLRcuqUmfdYcpPQH8Npm8cccsFg");
                 assertThat(bto1.get().getValue())
                         .as("Transaction 6 output 1 - bitcoin address")
-                        .isEqualTo(10);
+                        .isEqualByComparingTo(new BigDecimal("10"));
             } else {
                 fail("Bitcoin address not present");
             }
@@ -566,7 +567,7 @@ public class BitcoinImportTest extends BaseTest {
                         .isEqualTo(bitcoinAddress.get().getAddress());
                 assertThat(bto2.get().getValue())
                         .as("Transaction 6 output 2 - bitcoin address")
-                        .isEqualTo(18f);
+                        .isEqualByComparingTo(new BigDecimal("18"));
             } else {
                 fail("Bitcoin address not present");
             }
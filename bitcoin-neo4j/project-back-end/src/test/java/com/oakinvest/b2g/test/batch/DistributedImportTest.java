@@ -0,0 +1,456 @@
+package com.oakinvest.b2g.test.batch;
+
+import com.oakinvest.b2g.batch.BlockImporter;
+import com.oakinvest.b2g.batch.DistributedImportBatch;
+import com.oakinvest.b2g.batch.StitchedBlocksUpdater;
+import com.oakinvest.b2g.dto.analytics.AddressAggregates;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.analytics.AddressAggregatesRebuildJob;
+import com.oakinvest.b2g.util.analytics.AddressAggregatesStage;
+import com.oakinvest.b2g.util.lease.ImportLease;
+import com.oakinvest.b2g.util.lease.ImportLeaseStatus;
+import com.oakinvest.b2g.util.lease.ImportLeaseStore;
+import com.oakinvest.b2g.util.lease.Neo4jImportLeaseStore;
+import com.oakinvest.b2g.util.providers.ServicesProvider;
+import com.oakinvest.b2g.util.session.Neo4jSessionPool;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the distributed import (several importers sharing a lease table).
+ */
+public class DistributedImportTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 300;
+
+    /**
+     * Number of blocks in a range.
+     */
+    private static final int RANGE_SIZE = 50;
+
+    /**
+     * Number of importers.
+     */
+    private static final int NUMBER_OF_IMPORTERS = 3;
+
+    /**
+     * First block height of the range imported first in the stitching test.
+     */
+    private static final int SECOND_RANGE_START = 151;
+
+    /**
+     * Block spending the coinbase of block 9.
+     */
+    private static final int BLOCK_170 = 170;
+
+    /**
+     * Transaction of block 170 spending the coinbase of block 9.
+     */
+    private static final String BLOCK_170_TRANSACTION = "f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16";
+
+    /**
+     * Address of the coinbase of block 9.
+     */
+    private static final String BLOCK_9_ADDRESS = "12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S";
+
+    /**
+     * Block reward (satoshis).
+     */
+    private static final long BLOCK_REWARD = 5_000_000_000L;
+
+    /**
+     * Lease duration.
+     */
+    private static final long LEASE_DURATION = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Block importer.
+     */
+    @Autowired
+    private BlockImporter blockImporter;
+
+    /**
+     * Neo4j sessions.
+     */
+    @Autowired
+    private Neo4jSessionPool sessionPool;
+
+    /**
+     * Services.
+     */
+    @Autowired
+    private ServicesProvider services;
+
+    /**
+     * Status.
+     */
+    @Autowired
+    private ApplicationStatus status;
+
+    /**
+     * Updates the blocks whose inputs are linked by the stitching.
+     */
+    @Autowired
+    private StitchedBlocksUpdater stitchedBlocksUpdater;
+
+    /**
+     * Address aggregates stage.
+     */
+    @Autowired
+    private AddressAggregatesStage addressAggregatesStage;
+
+    /**
+     * Address aggregates rebuild.
+     */
+    @Autowired
+    private AddressAggregatesRebuildJob addressAggregatesRebuildJob;
+
+    /**
+     * Import with several importers, one of them dying with a lease.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public final void distributedImportTest() throws Exception {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final ImportLeaseStore leaseStore = new Neo4jImportLeaseStore(getSessionFactory());
+        ReflectionTestUtils.setField(addressAggregatesStage, "distributedImport", true);
+
+        // An importer leases the first range and dies : its lease must be given to another importer.
+        assertThat(leaseStore.acquire("dead-importer", RANGE_SIZE, NUMBERS_OF_BLOCK_TO_IMPORT, 0)).isPresent();
+
+        // The importers run in parallel until there is nothing left to lease.
+        final ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_IMPORTERS);
+        final List<CompletableFuture<Void>> importers = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_IMPORTERS; i++) {
+            final DistributedImportBatch importer = createImporter(leaseStore, "importer-" + i);
+            importers.add(CompletableFuture.runAsync(() -> runImporter(importer), executor));
+        }
+        CompletableFuture.allOf(importers.toArray(new CompletableFuture[0])).get(10, TimeUnit.MINUTES);
+        executor.shutdown();
+        createImporter(leaseStore, "importer-stitching").stitch();
+
+        // All the ranges are imported, the dead importer lease has been reassigned.
+        final List<ImportLease> leases = leaseStore.getLeases();
+        assertThat(leases).as("Leases").hasSize(NUMBERS_OF_BLOCK_TO_IMPORT / RANGE_SIZE);
+        assertThat(leases).as("Leases status").allMatch(l -> l.getStatus() == ImportLeaseStatus.DONE);
+        assertThat(leases).as("Leases owners").noneMatch(l -> "dead-importer".equals(l.getOwner()));
+        assertThat(leaseStore.isEverythingImported(NUMBERS_OF_BLOCK_TO_IMPORT)).isTrue();
+
+        // All the blocks are imported and linked.
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(count("MATCH (b:BitcoinBlock)-[:PREVIOUS_BLOCK]->(p:BitcoinBlock) WHERE p.height = b.height - 1 RETURN count(b)"))
+                .as("Previous blocks")
+                .isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT - 1);
+        assertThat(count("MATCH (p:BitcoinBlock)-[:NEXT_BLOCK]->(b:BitcoinBlock) WHERE b.height = p.height + 1 RETURN count(b)"))
+                .as("Next blocks")
+                .isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT - 1);
+
+        // All the inputs are linked to their origin.
+        assertThat(count("MATCH (i:BitcoinTransactionInput) WHERE i.unresolved = true RETURN count(i)"))
+                .as("Unresolved inputs")
+                .isZero();
+        assertThat(count("MATCH (i:BitcoinTransactionInput) WHERE i.coinbase IS NULL AND NOT ()-[:TRANSACTION_OUTPUT]->(i) RETURN count(i)"))
+                .as("Inputs without origin")
+                .isZero();
+
+        // Block 170 spends the coinbase of block 9 (imported by another range).
+        assertThat(count("MATCH (a:BitcoinAddress)-[:ADDRESS]->(o:BitcoinTransactionOutput)-[:TRANSACTION_OUTPUT]->(i:BitcoinTransactionInput)<-[:ADDRESS]-(a) "
+                + "WHERE i.txid = '0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9' AND i.vout = 0 RETURN count(i)"))
+                .as("Block 170 input")
+                .isEqualTo(1);
+        assertThat(count("MATCH (o:BitcoinTransactionOutput) WHERE o.txid = '0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9' "
+                + "AND o.n = 0 AND o.spent = true AND o.spentAtHeight = 170 RETURN count(o)"))
+                .as("Block 9 output spent")
+                .isEqualTo(1);
+    }
+
+    /**
+     * The data computed by the import is updated for the inputs linked by the stitching : the range spending the
+     * coinbase of block 9 (block 170) is imported before the range of block 9.
+     */
+    @Test
+    public final void stitchingUpdateTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        ReflectionTestUtils.setField(addressAggregatesStage, "distributedImport", true);
+        final ImportLeaseStore leaseStore = new OrderedImportLeaseStore(List.of(
+                new ImportLease(SECOND_RANGE_START, NUMBERS_OF_BLOCK_TO_IMPORT, "", 0, ImportLeaseStatus.LEASED, 1),
+                new ImportLease(1, SECOND_RANGE_START - 1, "", 0, ImportLeaseStatus.LEASED, 1)));
+        runImporter(createImporter(leaseStore, "importer"));
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(count("MATCH (i:BitcoinTransactionInput) WHERE i.unresolved = true OR i.stitched = true RETURN count(i)"))
+                .as("Inputs not stitched or not updated")
+                .isZero();
+
+        // Transaction and block totals.
+        assertThat(count("MATCH (t:BitcoinTransaction)-[:INPUTS]->(i:BitcoinTransactionInput) WHERE i.coinbase IS NULL AND t.fee IS NULL RETURN count(DISTINCT t)"))
+                .as("Transactions without fee")
+                .isZero();
+        assertThat(count("MATCH (b:BitcoinBlock) WHERE b.totalFees IS NULL RETURN count(b)"))
+                .as("Blocks without total fees")
+                .isZero();
+        assertThat(count("MATCH (t:BitcoinTransaction) WHERE t.txid = '" + BLOCK_170_TRANSACTION + "' AND t.inputTotal = " + BLOCK_REWARD
+                + " AND t.outputTotal = " + BLOCK_REWARD + " AND t.fee = 0 RETURN count(t)"))
+                .as("Block 170 transaction totals")
+                .isEqualTo(1);
+        assertThat(count("MATCH (s:BitcoinStatistics) WHERE s.period = 'DAY' RETURN sum(s.fees)"))
+                .as("Statistics fees")
+                .isEqualTo(count("MATCH (b:BitcoinBlock) RETURN sum(b.totalFees)"));
+
+        // Address of the coinbase of block 9, spent in block 170 (10 BTC sent, 40 BTC back).
+        final Optional<AddressAggregates> aggregates = getAddressRepository().findAggregatesByAddress(BLOCK_9_ADDRESS);
+        assertThat(aggregates).as("Block 9 address").isPresent();
+        assertThat(aggregates.get().getTotalSent()).as("Sent").isGreaterThanOrEqualTo(BLOCK_REWARD);
+        assertThat(aggregates.get().getBalance()).as("Balance").isEqualTo(aggregates.get().getTotalReceived() - aggregates.get().getTotalSent());
+        assertThat(getAddressRepository().findBalanceAtHeight(BLOCK_9_ADDRESS, BLOCK_170 - 1)).as("Balance before block 170").isEqualTo(BLOCK_REWARD);
+        assertThat(getAddressRepository().findBalanceAtHeight(BLOCK_9_ADDRESS, BLOCK_170)).as("Balance after block 170").isEqualTo(BLOCK_REWARD * 4 / 5);
+        assertThat(count("MATCH (a:BitcoinAddress)-[f:SENT_TO]->(r:BitcoinAddress) WHERE a.address = '" + BLOCK_9_ADDRESS + "' "
+                + "AND r.address = '1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3' AND f.amount = " + BLOCK_REWARD / 5 + " RETURN count(f)"))
+                .as("Block 170 flow")
+                .isEqualTo(1);
+
+        // Balance checkpoints rebuilt by the stitching : the balance after the last block is the balance of the address.
+        assertThat(count("MATCH (a:BitcoinAddress) WHERE a.checkpointsPending = true RETURN count(a)"))
+                .as("Addresses with checkpoints pending")
+                .isZero();
+        getAllAggregates().forEach((address, values) -> assertThat(values.get(0))
+                .as("Balance of " + address)
+                .isEqualTo(getAddressRepository().findBalanceAtHeight(address, NUMBERS_OF_BLOCK_TO_IMPORT)));
+
+        // The rebuild gives the same aggregates and the same balances.
+        final Map<String, List<Object>> stitchedAggregates = getAllAggregates();
+        addressAggregatesRebuildJob.run();
+        assertThat(getAllAggregates()).as("Rebuilt aggregates").isEqualTo(stitchedAggregates);
+    }
+
+    /**
+     * An importer whose lease has been given to another importer can't commit blocks of the range.
+     */
+    @Test
+    public final void leaseLostTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final ImportLeaseStore leaseStore = new Neo4jImportLeaseStore(getSessionFactory());
+
+        // The lease of a slow importer expires and is given to another importer.
+        final Optional<ImportLease> lostLease = leaseStore.acquire("slow-importer", RANGE_SIZE, NUMBERS_OF_BLOCK_TO_IMPORT, 0);
+        final Optional<ImportLease> takenLease = leaseStore.acquire("importer", RANGE_SIZE, NUMBERS_OF_BLOCK_TO_IMPORT, LEASE_DURATION);
+        assertThat(lostLease).isPresent();
+        assertThat(takenLease).isPresent();
+        assertThat(takenLease.get().getStart()).as("Range").isEqualTo(lostLease.get().getStart());
+        assertThat(takenLease.get().getVersion()).as("Version").isGreaterThan(lostLease.get().getVersion());
+        assertThat(leaseStore.renew(lostLease.get(), "slow-importer", LEASE_DURATION)).as("Lost lease renewed").isFalse();
+
+        // The slow importer, still importing its range, doesn't commit any block.
+        createImporter(new LostImportLeaseStore(leaseStore, lostLease.get()), "slow-importer").importNextRange(NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(getBlockRepository().count()).as("Blocks").isZero();
+        assertThat(leaseStore.getLeases()).as("Leases")
+                .allMatch(l -> "importer".equals(l.getOwner()) && l.getStatus() == ImportLeaseStatus.LEASED);
+
+        // A block height can't be saved twice.
+        assertThatThrownBy(() -> getSessionFactory().openSession().query("CREATE (:BitcoinBlock {height: 1}), (:BitcoinBlock {height: 1})", Collections.emptyMap()))
+                .as("Block saved twice")
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param leaseStore lease store
+     * @param owner      importer name
+     * @return importer
+     */
+    private DistributedImportBatch createImporter(final ImportLeaseStore leaseStore, final String owner) {
+        final DistributedImportBatch importer = new DistributedImportBatch(blockImporter, leaseStore, sessionPool, services, status, stitchedBlocksUpdater);
+        ReflectionTestUtils.setField(importer, "owner", owner);
+        ReflectionTestUtils.setField(importer, "rangeSize", RANGE_SIZE);
+        ReflectionTestUtils.setField(importer, "leaseDuration", LEASE_DURATION);
+        ReflectionTestUtils.setField(importer, "parallelism", 1);
+        return importer;
+    }
+
+    /**
+     * Runs an importer until there is nothing left to lease (errors, like two importers creating the same address,
+     * are retried as the scheduled batch would do).
+     *
+     * @param importer importer
+     */
+    private void runImporter(final DistributedImportBatch importer) {
+        final int maxIterations = 1000;
+        boolean running = true;
+        for (int i = 0; running && i < maxIterations; i++) {
+            try {
+                running = importer.importNextRange(NUMBERS_OF_BLOCK_TO_IMPORT);
+            } catch (Exception e) {
+                running = true;
+            }
+        }
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        return getSessionFactory().openSession().queryForObject(Long.class, query, Collections.emptyMap());
+    }
+
+    /**
+     * Returns the aggregates of all the addresses and their balance after the first range.
+     *
+     * @return aggregates indexed by address
+     */
+    private Map<String, List<Object>> getAllAggregates() {
+        final Map<String, List<Object>> aggregates = new HashMap<>();
+        getSessionFactory().openSession().query("MATCH (a:BitcoinAddress) RETURN a.address AS address, "
+                + "[a.balance, a.totalReceived, a.totalSent, a.txCount, a.firstSeenHeight, a.lastSeenHeight] AS aggregates", Collections.emptyMap())
+                .forEach(row -> {
+                    final List<Object> values = new ArrayList<>(Arrays.asList((Object[]) row.get("aggregates")));
+                    values.add(getAddressRepository().findBalanceAtHeight((String) row.get("address"), SECOND_RANGE_START - 1));
+                    aggregates.put((String) row.get("address"), values);
+                });
+        return aggregates;
+    }
+
+    /**
+     * Lease table giving ranges in a fixed order.
+     */
+    private static final class OrderedImportLeaseStore implements ImportLeaseStore {
+
+        /**
+         * Leases.
+         */
+        private final List<ImportLease> leases;
+
+        /**
+         * Constructor.
+         *
+         * @param newLeases leases, in the order they are given
+         */
+        OrderedImportLeaseStore(final List<ImportLease> newLeases) {
+            this.leases = new ArrayList<>(newLeases);
+        }
+
+        @Override
+        public Optional<ImportLease> acquire(final String owner, final int rangeSize, final int lastBlockHeight, final long leaseDuration) {
+            return leases.stream().filter(l -> l.getStatus() == ImportLeaseStatus.LEASED).findFirst();
+        }
+
+        @Override
+        public boolean renew(final ImportLease lease, final String owner, final long leaseDuration) {
+            return true;
+        }
+
+        @Override
+        public boolean renew(final ImportLease lease, final String owner, final long leaseDuration, final CypherRunner runner) {
+            return true;
+        }
+
+        @Override
+        public void complete(final ImportLease lease, final String owner) {
+            leases.set(leases.indexOf(lease), new ImportLease(lease.getStart(), lease.getEnd(), owner, lease.getExpiresAt(), ImportLeaseStatus.DONE, lease.getVersion()));
+        }
+
+        @Override
+        public List<ImportLease> getLeases() {
+            return new ArrayList<>(leases);
+        }
+
+    }
+
+    /**
+     * Lease table giving a lease already given to another importer.
+     */
+    private static final class LostImportLeaseStore implements ImportLeaseStore {
+
+        /**
+         * Lease table.
+         */
+        private final ImportLeaseStore leaseStore;
+
+        /**
+         * Lease given to another importer.
+         */
+        private final ImportLease lostLease;
+
+        /**
+         * Constructor.
+         *
+         * @param newLeaseStore lease table
+         * @param newLostLease  lease given to another importer
+         */
+        LostImportLeaseStore(final ImportLeaseStore newLeaseStore, final ImportLease newLostLease) {
+            this.leaseStore = newLeaseStore;
+            this.lostLease = newLostLease;
+        }
+
+        @Override
+        public Optional<ImportLease> acquire(final String owner, final int rangeSize, final int lastBlockHeight, final long leaseDuration) {
+            return Optional.of(lostLease);
+        }
+
+        @Override
+        public boolean renew(final ImportLease lease, final String owner, final long leaseDuration) {
+            return leaseStore.renew(lease, owner, leaseDuration);
+        }
+
+        @Override
+        public boolean renew(final ImportLease lease, final String owner, final long leaseDuration, final CypherRunner runner) {
+            return leaseStore.renew(lease, owner, leaseDuration, runner);
+        }
+
+        @Override
+        public void complete(final ImportLease lease, final String owner) {
+            leaseStore.complete(lease, owner);
+        }
+
+        @Override
+        public List<ImportLease> getLeases() {
+            return leaseStore.getLeases();
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.oakinvest.b2g.test.batch;
+
+import com.oakinvest.b2g.batch.BlockImporter;
+import com.oakinvest.b2g.batch.ImportBatch;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionInput;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.embedded.EmbeddedGraphWriter;
+import com.oakinvest.b2g.util.mapper.BlockDataMapper;
+import com.oakinvest.b2g.util.metrics.PipelineMetrics;
+import com.oakinvest.b2g.util.providers.ExecutorsProvider;
+import com.oakinvest.b2g.util.providers.RepositoriesProvider;
+import com.oakinvest.b2g.util.providers.ServicesProvider;
+import com.oakinvest.b2g.util.session.Neo4jSessionPool;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.neo4j.ogm.metadata.MetaData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Tests for the import with the embedded database writer (writes with the core API, reads with OGM).
+ */
+public class EmbeddedImportTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Number of blocks written in a transaction.
+     */
+    private static final int BLOCKS_PER_TRANSACTION = 10;
+
+    /**
+     * In process database.
+     */
+    @Autowired
+    private Neo4j neo4j;
+
+    /**
+     * Neo4j sessions.
+     */
+    @Autowired
+    private Neo4jSessionPool sessionPool;
+
+    /**
+     * Repositories.
+     */
+    @Autowired
+    private RepositoriesProvider repositories;
+
+    /**
+     * Services.
+     */
+    @Autowired
+    private ServicesProvider services;
+
+    /**
+     * Executors.
+     */
+    @Autowired
+    private ExecutorsProvider executors;
+
+    /**
+     * Status.
+     */
+    @Autowired
+    private ApplicationStatus status;
+
+    /**
+     * Block data mapper.
+     */
+    @Autowired
+    private BlockDataMapper blockDataMapper;
+
+    /**
+     * Import stages.
+     */
+    @Autowired
+    private BlockImportStages stages;
+
+    /**
+     * Metrics.
+     */
+    @Autowired
+    private PipelineMetrics metrics;
+
+    /**
+     * Import with the embedded writer.
+     */
+    @Test
+    public final void embeddedImportTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+
+        // Import batch writing in the in process database.
+        final EmbeddedGraphWriter writer = new EmbeddedGraphWriter(neo4j.defaultDatabaseService(), new MetaData("com.oakinvest.b2g.domain"));
+        final BlockImporter blockImporter = new BlockImporter(sessionPool, services, executors, status, Optional.of(writer), blockDataMapper, stages, metrics);
+        final ImportBatch importBatch = new ImportBatch(blockImporter, repositories, services, status, BLOCKS_PER_TRANSACTION);
+        final int maxIterations = 100;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            importBatch.execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(status.getBlockCountInNeo4j()).as("Blocks counted once committed").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Blocks read with OGM.
+        Optional<BitcoinBlock> b170 = getBlockRepository().findByHeight(170);
+        if (b170.isPresent()) {
+            assertThat(b170.get().getHash()).as("Hash").isEqualTo("00000000d1145790a8694403d4063f323d499e655c83426834d4ce2f8dd4a2ee");
+            assertThat(b170.get().getTx()).as("Transaction ids").hasSize(2);
+            assertThat(b170.get().getTransactions()).as("Block transactions").hasSize(2);
+            assertThat(b170.get().getPreviousBlock().getHeight()).as("Previous block").isEqualTo(169);
+            assertThat(b170.get().getNextBlock().getHeight()).as("Next block").isEqualTo(171);
+        } else {
+            fail("Block 170 not found");
+        }
+        Optional<BitcoinBlock> b11 = getBlockRepository().findByHeight(11);
+        if (b11.isPresent()) {
+            // First block of the second transaction.
+            assertThat(b11.get().getPreviousBlock().getHeight()).as("Previous block").isEqualTo(10);
+        } else {
+            fail("Block 11 not found");
+        }
+
+        // Block 170 spends the coinbase of block 9.
+        Optional<BitcoinTransactionInput> input = getTransactionRepository().findByTxId("f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16")
+                .flatMap(t -> getTransactionInputRepository().findById(t.getInputs().iterator().next().getId()));
+        if (input.isPresent()) {
+            assertThat(input.get().getTransactionOutput()).as("Transaction output").isNotNull();
+            assertThat(input.get().getTransactionOutput().getValue()).as("Value").isEqualByComparingTo(new BigDecimal("50"));
+            assertThat(input.get().getTransactionOutput().isSpent()).as("Spent").isTrue();
+            assertThat(input.get().getTransactionOutput().getSpentAtHeight()).as("Spent at height").isEqualTo(170);
+            assertThat(input.get().getBitcoinAddress().getAddress()).as("Address").isEqualTo("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S");
+        } else {
+            fail("Input of f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16 not found");
+        }
+    }
+
+}
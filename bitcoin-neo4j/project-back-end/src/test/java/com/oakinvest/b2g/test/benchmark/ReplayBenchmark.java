@@ -0,0 +1,204 @@
+package com.oakinvest.b2g.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import com.oakinvest.b2g.util.throughput.BlockRecord;
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Replay benchmark : the import batch imports a fixed block range from the recorded responses of core (the cache of
+ * BitcoinCoreMock) into an embedded neo4j, and writes a JSON report (blocks/s, transactions/s, p50/p99 latency of each
+ * step, peak heap and GC time).
+ * <p>
+ * The report is compared to the baseline and the benchmark fails when the throughput regresses by more than the
+ * maximum regression. Not part of the tests, run with : mvn test -Preplay-benchmark [-Dreplay.blocks=600]
+ * [-Dreplay.baseline=src/test/resources/replay/baseline.json] [-Dreplay.max-regression=0.2]
+ * [-Dreplay.report=target/replay-report.json] (copy the report to the baseline to update it).
+ */
+@TestPropertySource(properties = "b2g.throughput.history-size=" + ReplayBenchmark.MAX_BLOCKS)
+public class ReplayBenchmark extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Maximum number of blocks imported (records kept in the throughput history).
+     */
+    static final int MAX_BLOCKS = 100000;
+
+    /**
+     * Default number of blocs to import.
+     */
+    private static final int DEFAULT_BLOCKS = 600;
+
+    /**
+     * Default maximum regression of the throughput (20%).
+     */
+    private static final String DEFAULT_MAX_REGRESSION = "0.2";
+
+    /**
+     * Median.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Milliseconds in a second.
+     */
+    private static final double MILLISECONDS = 1000;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(ReplayBenchmark.class);
+
+    /**
+     * Throughput history (records of the blocks saved).
+     */
+    @Autowired
+    private ThroughputHistory history;
+
+    /**
+     * Imports the block range, writes the report and compares it to the baseline.
+     *
+     * @throws IOException error while writing the report or reading the baseline
+     */
+    @Test
+    public final void replay() throws IOException {
+        final int blocks = Math.min(Integer.getInteger("replay.blocks", DEFAULT_BLOCKS), MAX_BLOCKS);
+        final File reportFile = new File(System.getProperty("replay.report", "target/replay-report.json"));
+        final File baselineFile = new File(System.getProperty("replay.baseline", "src/test/resources/replay/baseline.json"));
+        final double maxRegression = Double.parseDouble(System.getProperty("replay.max-regression", DEFAULT_MAX_REGRESSION));
+
+        // Reset the database, no errors are simulated.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().disableErrors();
+
+        // Import.
+        final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final long gcTimeBefore = getGcTime();
+        final long gcCountBefore = getGcCount();
+        final long start = System.currentTimeMillis();
+        int iterations = 0;
+        final int maxIterations = 1000;
+        while (getBlockRepository().count() < blocks) {
+            getBatchBlocks().execute();
+            iterations++;
+            if (iterations >= maxIterations) {
+                fail("Persistent problem to get blocks");
+            }
+        }
+        final long duration = System.currentTimeMillis() - start;
+
+        // Report.
+        final List<BlockRecord> records = history.getRecords(MAX_BLOCKS);
+        final ReplayReport report = new ReplayReport();
+        report.setBlocks(records.size());
+        report.setTransactions(records.stream().mapToLong(BlockRecord::getTransactionCount).sum());
+        report.setDuration(duration);
+        report.setBlocksPerSecond(report.getBlocks() * MILLISECONDS / duration);
+        report.setTransactionsPerSecond(report.getTransactions() * MILLISECONDS / duration);
+        for (CurrentBlockStatusProcessStep step : CurrentBlockStatusProcessStep.values()) {
+            final List<Double> durations = records.stream()
+                    .map(r -> r.getStepDurations().get(step))
+                    .filter(d -> d != null)
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (!durations.isEmpty()) {
+                final ReplayReport.StepLatency latency = new ReplayReport.StepLatency();
+                latency.setP50(getPercentile(durations, P50));
+                latency.setP99(getPercentile(durations, P99));
+                report.getSteps().put(step.name().toLowerCase(), latency);
+            }
+        }
+        report.setPeakHeap(heapPools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum());
+        report.setGcTime(getGcTime() - gcTimeBefore);
+        report.setGcCount(getGcCount() - gcCountBefore);
+        final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(reportFile, report);
+        log.info("Replay report written in " + reportFile.getAbsolutePath() + " : " + mapper.writeValueAsString(report));
+        assertThat(report.getBlocks()).as("Blocks imported").isGreaterThanOrEqualTo(blocks);
+
+        // Comparison with the baseline.
+        if (baselineFile.exists()) {
+            final ReplayReport baseline = mapper.readValue(baselineFile, ReplayReport.class);
+            assertThat(report.getBlocksPerSecond())
+                    .as("Blocks per second (baseline " + baseline.getBlocksPerSecond() + ")")
+                    .isGreaterThanOrEqualTo(baseline.getBlocksPerSecond() * (1 - maxRegression));
+            assertThat(report.getTransactionsPerSecond())
+                    .as("Transactions per second (baseline " + baseline.getTransactionsPerSecond() + ")")
+                    .isGreaterThanOrEqualTo(baseline.getTransactionsPerSecond() * (1 - maxRegression));
+        } else {
+            log.warn("No baseline found in " + baselineFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns a percentile (nearest rank).
+     *
+     * @param sortedValues sorted values
+     * @param percentile   percentile (0 to 1)
+     * @return value
+     */
+    private double getPercentile(final List<Double> sortedValues, final double percentile) {
+        final int rank = (int) Math.ceil(percentile * sortedValues.size());
+        return sortedValues.get(Math.max(0, rank - 1));
+    }
+
+    /**
+     * Returns the time spent in garbage collections since the start of the JVM.
+     *
+     * @return time (milliseconds)
+     */
+    private long getGcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * Returns the number of garbage collections since the start of the JVM.
+     *
+     * @return number of garbage collections
+     */
+    private long getGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+}
@@ -0,0 +1,272 @@
+package com.oakinvest.b2g.test.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Report of a replay benchmark (written in JSON and read back as the baseline).
+ */
+@SuppressWarnings("unused")
+public class ReplayReport {
+
+    /**
+     * Number of blocks imported.
+     */
+    private long blocks;
+
+    /**
+     * Number of transactions imported.
+     */
+    private long transactions;
+
+    /**
+     * Import duration (milliseconds).
+     */
+    private long duration;
+
+    /**
+     * Blocks imported per second.
+     */
+    private double blocksPerSecond;
+
+    /**
+     * Transactions imported per second.
+     */
+    private double transactionsPerSecond;
+
+    /**
+     * Latencies of each step (milliseconds).
+     */
+    private Map<String, StepLatency> steps = new LinkedHashMap<>();
+
+    /**
+     * Peak heap used (bytes).
+     */
+    private long peakHeap;
+
+    /**
+     * Time spent in garbage collections (milliseconds).
+     */
+    private long gcTime;
+
+    /**
+     * Number of garbage collections.
+     */
+    private long gcCount;
+
+    /**
+     * Getter of blocks.
+     *
+     * @return blocks
+     */
+    public final long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Setter of blocks.
+     *
+     * @param newBlocks blocks
+     */
+    public final void setBlocks(final long newBlocks) {
+        this.blocks = newBlocks;
+    }
+
+    /**
+     * Getter of transactions.
+     *
+     * @return transactions
+     */
+    public final long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Setter of transactions.
+     *
+     * @param newTransactions transactions
+     */
+    public final void setTransactions(final long newTransactions) {
+        this.transactions = newTransactions;
+    }
+
+    /**
+     * Getter of duration.
+     *
+     * @return duration (milliseconds)
+     */
+    public final long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Setter of duration.
+     *
+     * @param newDuration duration (milliseconds)
+     */
+    public final void setDuration(final long newDuration) {
+        this.duration = newDuration;
+    }
+
+    /**
+     * Getter of blocksPerSecond.
+     *
+     * @return blocks per second
+     */
+    public final double getBlocksPerSecond() {
+        return blocksPerSecond;
+    }
+
+    /**
+     * Setter of blocksPerSecond.
+     *
+     * @param newBlocksPerSecond blocks per second
+     */
+    public final void setBlocksPerSecond(final double newBlocksPerSecond) {
+        this.blocksPerSecond = newBlocksPerSecond;
+    }
+
+    /**
+     * Getter of transactionsPerSecond.
+     *
+     * @return transactions per second
+     */
+    public final double getTransactionsPerSecond() {
+        return transactionsPerSecond;
+    }
+
+    /**
+     * Setter of transactionsPerSecond.
+     *
+     * @param newTransactionsPerSecond transactions per second
+     */
+    public final void setTransactionsPerSecond(final double newTransactionsPerSecond) {
+        this.transactionsPerSecond = newTransactionsPerSecond;
+    }
+
+    /**
+     * Getter of steps.
+     *
+     * @return latencies of each step
+     */
+    public final Map<String, StepLatency> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Setter of steps.
+     *
+     * @param newSteps latencies of each step
+     */
+    public final void setSteps(final Map<String, StepLatency> newSteps) {
+        this.steps = newSteps;
+    }
+
+    /**
+     * Getter of peakHeap.
+     *
+     * @return peak heap used (bytes)
+     */
+    public final long getPeakHeap() {
+        return peakHeap;
+    }
+
+    /**
+     * Setter of peakHeap.
+     *
+     * @param newPeakHeap peak heap used (bytes)
+     */
+    public final void setPeakHeap(final long newPeakHeap) {
+        this.peakHeap = newPeakHeap;
+    }
+
+    /**
+     * Getter of gcTime.
+     *
+     * @return time spent in garbage collections (milliseconds)
+     */
+    public final long getGcTime() {
+        return gcTime;
+    }
+
+    /**
+     * Setter of gcTime.
+     *
+     * @param newGcTime time spent in garbage collections (milliseconds)
+     */
+    public final void setGcTime(final long newGcTime) {
+        this.gcTime = newGcTime;
+    }
+
+    /**
+     * Getter of gcCount.
+     *
+     * @return number of garbage collections
+     */
+    public final long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Setter of gcCount.
+     *
+     * @param newGcCount number of garbage collections
+     */
+    public final void setGcCount(final long newGcCount) {
+        this.gcCount = newGcCount;
+    }
+
+    /**
+     * Latency percentiles of a step.
+     */
+    public static class StepLatency {
+
+        /**
+         * Median (milliseconds).
+         */
+        private double p50;
+
+        /**
+         * 99th percentile (milliseconds).
+         */
+        private double p99;
+
+        /**
+         * Getter of p50.
+         *
+         * @return median (milliseconds)
+         */
+        public final double getP50() {
+            return p50;
+        }
+
+        /**
+         * Setter of p50.
+         *
+         * @param newP50 median (milliseconds)
+         */
+        public final void setP50(final double newP50) {
+            this.p50 = newP50;
+        }
+
+        /**
+         * Getter of p99.
+         *
+         * @return 99th percentile (milliseconds)
+         */
+        public final double getP99() {
+            return p99;
+        }
+
+        /**
+         * Setter of p99.
+         *
+         * @param newP99 99th percentile (milliseconds)
+         */
+        public final void setP99(final double newP99) {
+            this.p99 = newP99;
+        }
+
+    }
+
+}
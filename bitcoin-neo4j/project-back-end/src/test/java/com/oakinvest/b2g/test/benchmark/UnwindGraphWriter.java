@@ -0,0 +1,292 @@
+package com.oakinvest.b2g.test.benchmark;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.metadata.ClassInfo;
+import org.neo4j.ogm.metadata.FieldInfo;
+import org.neo4j.ogm.metadata.MetaData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes domain entities with the bolt driver : the entities reachable from the saved one are flattened into rows
+ * (nodes by label and relationships by type) and written by UNWIND statements of a fixed number of rows, in one
+ * transaction per save.
+ * <p>
+ * Labels, property names, converters and relationships are read from the OGM metadata of the domain classes (as the
+ * embedded graph writer does) so the graph has the same shape as the one written by OGM. Entities with an id are
+ * considered as saved : the relationships of new entities to them are created but they are neither updated nor
+ * traversed. The ids of the new entities are set so that the following saves see them as saved.
+ */
+public class UnwindGraphWriter {
+
+    /**
+     * Driver.
+     */
+    private final Driver driver;
+
+    /**
+     * OGM metadata of the domain classes.
+     */
+    private final MetaData metaData;
+
+    /**
+     * Rows per statement.
+     */
+    private final int batchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param newDriver    driver
+     * @param newMetaData  OGM metadata of the domain classes
+     * @param newBatchSize rows per statement
+     */
+    public UnwindGraphWriter(final Driver newDriver, final MetaData newMetaData, final int newBatchSize) {
+        this.driver = newDriver;
+        this.metaData = newMetaData;
+        this.batchSize = newBatchSize;
+    }
+
+    /**
+     * Returns the graph of an entity : the new entities reachable from it, the saved entities they are linked to and
+     * their relationships.
+     *
+     * @param entity entity
+     * @return graph
+     */
+    public final Graph getGraph(final Object entity) {
+        final Graph graph = new Graph();
+        final Deque<Object> entitiesToVisit = new ArrayDeque<>();
+        graph.getKey(entity, entitiesToVisit);
+        while (!entitiesToVisit.isEmpty()) {
+            final Object current = entitiesToVisit.pop();
+            for (FieldInfo field : metaData.classInfo(current).relationshipFields()) {
+                for (Object related : getRelatedEntities(field, current)) {
+                    graph.addRelationship(field, graph.keys.get(current), graph.getKey(related, entitiesToVisit));
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Writes an entity and all the new entities reachable from it in one transaction.
+     *
+     * @param entity entity
+     */
+    public final void save(final Object entity) {
+        save(getGraph(entity));
+    }
+
+    /**
+     * Writes a graph in one transaction.
+     *
+     * @param graph graph
+     */
+    public final void save(final Graph graph) {
+        final long[] ids;
+        try (Session session = driver.session()) {
+            ids = session.writeTransaction(transaction -> {
+                // Nodes : the keys of the rows are replaced by the ids of the nodes created.
+                final long[] nodeIds = new long[graph.entities.size()];
+                graph.savedIds.forEach((key, id) -> nodeIds[key] = id);
+                graph.nodes.forEach((labels, rows) -> {
+                    final String query = "UNWIND $rows AS row CREATE (n" + labels + ") SET n = row.properties RETURN row.key AS key, id(n) AS id";
+                    for (List<Map<String, Object>> batch : getBatches(rows)) {
+                        for (Record record : transaction.run(query, Collections.singletonMap("rows", batch)).list()) {
+                            nodeIds[record.get("key").asInt()] = record.get("id").asLong();
+                        }
+                    }
+                });
+
+                // Relationships.
+                graph.relationships.forEach((type, relationships) -> {
+                    final List<Map<String, Object>> rows = new ArrayList<>(relationships.size());
+                    relationships.forEach(r -> rows.add(Map.of("start", nodeIds[r[0]], "end", nodeIds[r[1]])));
+                    final String query = "UNWIND $rows AS row MATCH (s) WHERE id(s) = row.start MATCH (e) WHERE id(e) = row.end CREATE (s)-[:`" + type + "`]->(e)";
+                    for (List<Map<String, Object>> batch : getBatches(rows)) {
+                        transaction.run(query, Collections.singletonMap("rows", batch)).consume();
+                    }
+                });
+                return nodeIds;
+            });
+        }
+
+        // The entities created now have an id.
+        for (int key = 0; key < graph.entities.size(); key++) {
+            if (!graph.savedIds.containsKey(key)) {
+                final Object entity = graph.entities.get(key);
+                metaData.classInfo(entity).identityField().write(entity, ids[key]);
+            }
+        }
+    }
+
+    /**
+     * Splits rows in batches.
+     *
+     * @param rows rows
+     * @return batches
+     */
+    private List<List<Map<String, Object>>> getBatches(final List<Map<String, Object>> rows) {
+        final List<List<Map<String, Object>>> batches = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            batches.add(rows.subList(i, Math.min(rows.size(), i + batchSize)));
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the entities of a relationship field.
+     *
+     * @param field  relationship field
+     * @param entity entity
+     * @return related entities
+     */
+    @SuppressWarnings("unchecked")
+    private Collection<Object> getRelatedEntities(final FieldInfo field, final Object entity) {
+        final Object value = field.read(entity);
+        if (value == null) {
+            return Collections.emptySet();
+        } else if (value instanceof Collection) {
+            return (Collection<Object>) value;
+        } else {
+            return Collections.singleton(value);
+        }
+    }
+
+    /**
+     * Graph to write : node rows by labels and relationships (start key, end key) by type.
+     */
+    public final class Graph {
+
+        /**
+         * Keys of the entities (new or saved).
+         */
+        private final Map<Object, Integer> keys = new IdentityHashMap<>();
+
+        /**
+         * Entities by key.
+         */
+        private final List<Object> entities = new ArrayList<>();
+
+        /**
+         * Ids of the saved entities by key.
+         */
+        private final Map<Integer, Long> savedIds = new HashMap<>();
+
+        /**
+         * Node rows (key and properties) by labels.
+         */
+        private final Map<String, List<Map<String, Object>>> nodes = new LinkedHashMap<>();
+
+        /**
+         * Relationships (start key, end key) by type.
+         */
+        private final Map<String, List<int[]>> relationships = new LinkedHashMap<>();
+
+        /**
+         * Relationships already added (start key, type, end key).
+         */
+        private final Set<String> addedRelationships = new HashSet<>();
+
+        /**
+         * Number of relationships.
+         */
+        private int relationshipCount;
+
+        /**
+         * Returns the number of nodes.
+         *
+         * @return number of nodes
+         */
+        public int getNodeCount() {
+            return entities.size() - savedIds.size();
+        }
+
+        /**
+         * Returns the number of relationships.
+         *
+         * @return number of relationships
+         */
+        public int getRelationshipCount() {
+            return relationshipCount;
+        }
+
+        /**
+         * Returns the key of an entity, adding its row if it's a new entity.
+         *
+         * @param entity          entity
+         * @param entitiesToVisit entities whose relationships are not visited yet
+         * @return key
+         */
+        @SuppressWarnings("unchecked")
+        private int getKey(final Object entity, final Deque<Object> entitiesToVisit) {
+            final Integer existingKey = keys.get(entity);
+            if (existingKey != null) {
+                return existingKey;
+            }
+            final ClassInfo classInfo = metaData.classInfo(entity);
+            final int key = entities.size();
+            keys.put(entity, key);
+            entities.add(entity);
+            final Long id = (Long) classInfo.identityField().read(entity);
+            if (id != null) {
+                savedIds.put(key, id);
+                return key;
+            }
+            final Map<String, Object> properties = new HashMap<>();
+            for (FieldInfo field : classInfo.propertyFields()) {
+                final Object value = field.readProperty(entity);
+                if (value instanceof Collection) {
+                    // The collections of the domain are collections of strings.
+                    final List<String> values = new ArrayList<>();
+                    ((Collection<Object>) value).forEach(v -> values.add(String.valueOf(v)));
+                    properties.put(field.property(), values);
+                } else if (value != null) {
+                    properties.put(field.property(), value);
+                }
+            }
+            final StringBuilder labels = new StringBuilder();
+            classInfo.staticLabels().forEach(label -> labels.append(":`").append(label).append('`'));
+            nodes.computeIfAbsent(labels.toString(), l -> new ArrayList<>()).add(Map.of("key", key, "properties", properties));
+            entitiesToVisit.push(entity);
+            return key;
+        }
+
+        /**
+         * Adds the relationship described by a relationship field if it was not added yet.
+         *
+         * @param field      relationship field
+         * @param entityKey  key of the entity owning the field
+         * @param relatedKey key of the related entity
+         */
+        private void addRelationship(final FieldInfo field, final int entityKey, final int relatedKey) {
+            int start = entityKey;
+            int end = relatedKey;
+            if (Relationship.INCOMING.equals(field.relationshipDirection())) {
+                start = relatedKey;
+                end = entityKey;
+            }
+            if (addedRelationships.add(start + field.relationshipType() + end)) {
+                relationships.computeIfAbsent(field.relationshipType(), t -> new ArrayList<>()).add(new int[]{start, end});
+                relationshipCount++;
+            }
+        }
+
+    }
+
+}
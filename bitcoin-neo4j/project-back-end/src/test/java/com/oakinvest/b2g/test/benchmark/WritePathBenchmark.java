@@ -0,0 +1,333 @@
+package com.oakinvest.b2g.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.oakinvest.b2g.domain.BitcoinAddress;
+import com.oakinvest.b2g.domain.BitcoinBlock;
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.dto.bitcoin.core.BitcoinCoreBlockData;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.embedded.EmbeddedGraphWriter;
+import com.oakinvest.b2g.util.mapper.BlockDataMapper;
+import com.oakinvest.b2g.util.providers.ServicesProvider;
+import com.oakinvest.b2g.util.synthetic.SyntheticBlock;
+import com.oakinvest.b2g.util.synthetic.SyntheticChain;
+import com.oakinvest.b2g.util.synthetic.SyntheticChainSettings;
+import org.junit.Test;
+import org.neo4j.driver.Driver;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.neo4j.ogm.metadata.MetaData;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write path benchmark : the same mapped blocks are written in an embedded neo4j with OGM (session.save(), as the
+ * import batch does), with the bolt driver (UNWIND statements, for each batch size) and with the core API (embedded
+ * graph writer). Each block is written in its own transaction and the benchmark reports, for each set of blocks and
+ * each write path, the nodes and relationships created per second and the heap allocated per block (all the threads,
+ * so the in process database is included).
+ * <p>
+ * Two sets of blocks are written : the first blocks of the chain (recorded responses of core, small blocks) and large
+ * synthetic blocks. A block is written with its transactions, inputs, outputs and addresses, the addresses saved by the
+ * previous blocks being reused and the inputs being linked to the outputs of the same block (the links to the outputs
+ * of previous blocks are lookups, not writes). The database is purged between the write paths and the paths are warmed
+ * up before being measured.
+ * <p>
+ * Not part of the tests, run with : mvn test -Pwrite-benchmark [-Dwrite.early-blocks=600]
+ * [-Dwrite.synthetic-blocks=10] [-Dwrite.synthetic-transactions=2000-3000] [-Dwrite.batch-sizes=100,1000,10000]
+ * [-Dwrite.warmup-blocks=100] [-Dwrite.report=target/write-report.json].
+ */
+public class WritePathBenchmark extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Default number of early blocks.
+     */
+    private static final int DEFAULT_EARLY_BLOCKS = 600;
+
+    /**
+     * Default number of synthetic blocks.
+     */
+    private static final int DEFAULT_SYNTHETIC_BLOCKS = 10;
+
+    /**
+     * Default number of blocks written by each path before being measured.
+     */
+    private static final int DEFAULT_WARMUP_BLOCKS = 100;
+
+    /**
+     * Seed of the synthetic chain.
+     */
+    private static final long SYNTHETIC_SEED = 1;
+
+    /**
+     * Address reuse of the synthetic chain.
+     */
+    private static final double SYNTHETIC_ADDRESS_REUSE = 0.3;
+
+    /**
+     * In block spends of the synthetic chain.
+     */
+    private static final double SYNTHETIC_IN_BLOCK_SPENDS = 0.1;
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final long NANOSECONDS_PER_MILLISECOND = 1000000;
+
+    /**
+     * Milliseconds in a second.
+     */
+    private static final double MILLISECONDS = 1000;
+
+    /**
+     * Logger.
+     */
+    private final Logger log = LoggerFactory.getLogger(WritePathBenchmark.class);
+
+    /**
+     * In process database.
+     */
+    @Autowired
+    private Neo4j neo4j;
+
+    /**
+     * Driver connected to the in process database.
+     */
+    @Autowired
+    private Driver driver;
+
+    /**
+     * Services.
+     */
+    @Autowired
+    private ServicesProvider services;
+
+    /**
+     * Block data mapper.
+     */
+    @Autowired
+    private BlockDataMapper blockDataMapper;
+
+    /**
+     * OGM metadata of the domain classes.
+     */
+    private final MetaData metaData = new MetaData("com.oakinvest.b2g.domain");
+
+    /**
+     * Writes the sets of blocks with each write path and writes the report.
+     *
+     * @throws IOException error while writing the report
+     */
+    @Test
+    public final void write() throws IOException {
+        final int earlyBlocks = Integer.getInteger("write.early-blocks", DEFAULT_EARLY_BLOCKS);
+        final int syntheticBlocks = Integer.getInteger("write.synthetic-blocks", DEFAULT_SYNTHETIC_BLOCKS);
+        final String syntheticTransactions = System.getProperty("write.synthetic-transactions", "2000-3000");
+        final int warmupBlocks = Integer.getInteger("write.warmup-blocks", DEFAULT_WARMUP_BLOCKS);
+        final File reportFile = new File(System.getProperty("write.report", "target/write-report.json"));
+
+        // Reset the database, no errors are simulated.
+        purge();
+        getBitcoinCoreMock().disableErrors();
+
+        // Blocks.
+        final Map<String, List<BitcoinCoreBlockData>> blockSets = new LinkedHashMap<>();
+        final List<BitcoinCoreBlockData> early = new ArrayList<>();
+        for (int h = 1; h <= earlyBlocks; h++) {
+            early.add(services.getBitcoinDataService().getBlockData(h).orElseThrow());
+        }
+        blockSets.put("early-chain", early);
+        final SyntheticChain chain = new SyntheticChain(new SyntheticChainSettings(SYNTHETIC_SEED, syntheticBlocks + 1,
+                syntheticTransactions, "1-3", "1-3", SYNTHETIC_ADDRESS_REUSE, SYNTHETIC_IN_BLOCK_SPENDS));
+        final List<BitcoinCoreBlockData> synthetic = new ArrayList<>();
+        for (int h = 1; h <= syntheticBlocks; h++) {
+            synthetic.add(getBlockData(chain.getBlock(h).orElseThrow()));
+        }
+        blockSets.put("synthetic", synthetic);
+
+        // Write paths.
+        final Map<String, Consumer<BitcoinBlock>> paths = new LinkedHashMap<>();
+        final Session session = getSessionFactory().openSession();
+        paths.put("ogm", block -> {
+            try (Transaction transaction = session.beginTransaction()) {
+                session.save(block);
+                transaction.commit();
+            }
+            session.clear();
+        });
+        for (String batchSize : System.getProperty("write.batch-sizes", "100,1000,10000").split(",")) {
+            final UnwindGraphWriter writer = new UnwindGraphWriter(driver, metaData, Integer.parseInt(batchSize.trim()));
+            paths.put("unwind-" + batchSize.trim(), writer::save);
+        }
+        final EmbeddedGraphWriter embeddedWriter = new EmbeddedGraphWriter(neo4j.defaultDatabaseService(), metaData);
+        paths.put("embedded", block -> {
+            embeddedWriter.save(block);
+            embeddedWriter.commit();
+        });
+
+        // Warm up.
+        paths.forEach((name, path) -> {
+            final Map<String, BitcoinAddress> addresses = new HashMap<>();
+            early.stream().limit(warmupBlocks).forEach(data -> path.accept(map(data, addresses)));
+            purge();
+        });
+
+        // Measures.
+        final WritePathReport report = new WritePathReport();
+        blockSets.forEach((blockSet, blocks) -> paths.forEach((name, path) -> {
+            final WritePathReport.Result result = write(blocks, path);
+            result.setBlockSet(blockSet);
+            result.setPath(name);
+            report.getResults().add(result);
+            log.info(String.format("%-12s %-12s %10.0f nodes/s %10.0f relationships/s %12d bytes/block",
+                    blockSet, name, result.getNodesPerSecond(), result.getRelationshipsPerSecond(), result.getHeapPerBlock()));
+            purge();
+        }));
+        final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(reportFile, report);
+        log.info("Write path report written in " + reportFile.getAbsolutePath());
+    }
+
+    /**
+     * Writes blocks with a write path.
+     *
+     * @param blocks blocks
+     * @param path   write path
+     * @return result
+     */
+    private WritePathReport.Result write(final List<BitcoinCoreBlockData> blocks, final Consumer<BitcoinBlock> path) {
+        final UnwindGraphWriter graphReader = new UnwindGraphWriter(driver, metaData, 1);
+        long nodes = 0;
+        long relationships = 0;
+        long duration = 0;
+        long allocated = 0;
+        final Map<String, BitcoinAddress> addresses = new HashMap<>();
+        for (BitcoinCoreBlockData data : blocks) {
+            final BitcoinBlock block = map(data, addresses);
+            final UnwindGraphWriter.Graph graph = graphReader.getGraph(block);
+            nodes += graph.getNodeCount();
+            relationships += graph.getRelationshipCount();
+            final long allocatedBefore = getAllocatedBytes();
+            final long start = System.nanoTime();
+            path.accept(block);
+            duration += System.nanoTime() - start;
+            allocated += getAllocatedBytes() - allocatedBefore;
+        }
+
+        // The whole graph has been written.
+        assertThat(count("MATCH (n) RETURN count(n)")).as("Nodes").isEqualTo(nodes);
+        assertThat(count("MATCH ()-[r]->() RETURN count(r)")).as("Relationships").isEqualTo(relationships);
+
+        final WritePathReport.Result result = new WritePathReport.Result();
+        result.setBlocks(blocks.size());
+        result.setTransactions(blocks.stream().mapToLong(b -> b.getTransactions().size()).sum());
+        result.setNodes(nodes);
+        result.setRelationships(relationships);
+        result.setDuration(duration / NANOSECONDS_PER_MILLISECOND);
+        result.setNodesPerSecond(nodes * MILLISECONDS * NANOSECONDS_PER_MILLISECOND / duration);
+        result.setRelationshipsPerSecond(relationships * MILLISECONDS * NANOSECONDS_PER_MILLISECOND / duration);
+        result.setHeapPerBlock(allocated / blocks.size());
+        return result;
+    }
+
+    /**
+     * Maps a block and links its outputs to their addresses and its inputs to the outputs of the block they spend.
+     *
+     * @param data      block data
+     * @param addresses addresses of the previous blocks (the new addresses are added)
+     * @return block
+     */
+    private BitcoinBlock map(final BitcoinCoreBlockData data, final Map<String, BitcoinAddress> addresses) {
+        final BitcoinBlock block = blockDataMapper.map(data);
+        final Map<String, BitcoinTransactionOutput> outputs = new HashMap<>();
+        block.getTransactions().forEach(t -> t.getOutputs().forEach(o -> {
+            outputs.put(o.getTxId() + "/" + o.getN(), o);
+            o.getAddresses().stream().filter(Objects::nonNull).forEach(a -> o.setBitcoinAddress(addresses.computeIfAbsent(a, BitcoinAddress::new)));
+        }));
+        block.getTransactions().forEach(t -> t.getInputs().stream().filter(i -> !i.isCoinbase()).forEach(i -> {
+            final BitcoinTransactionOutput output = outputs.get(i.getTxId() + "/" + i.getvOut());
+            if (output != null) {
+                i.setTransactionOutput(output);
+                output.setSpentAtHeight(block.getHeight());
+                i.setBitcoinAddress(output.getBitcoinAddress());
+            }
+        }));
+        return block;
+    }
+
+    /**
+     * Returns the data of a synthetic block.
+     *
+     * @param block synthetic block
+     * @return block data
+     */
+    private BitcoinCoreBlockData getBlockData(final SyntheticBlock block) {
+        final List<GetRawTransactionResult> transactions = new ArrayList<>(block.getTransactions());
+        final Set<String> addresses = new HashSet<>();
+        transactions.forEach(t -> t.getVout().forEach(o -> addresses.addAll(o.getScriptPubKey().getAddresses())));
+        return new BitcoinCoreBlockData(block.getBlock(), transactions, addresses);
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        try (org.neo4j.driver.Session countSession = driver.session()) {
+            return countSession.run(query).single().get(0).asLong();
+        }
+    }
+
+    /**
+     * Purges the database.
+     */
+    private void purge() {
+        getSessionFactory().openSession().purgeDatabase();
+    }
+
+    /**
+     * Returns the bytes allocated by the live threads since they started.
+     *
+     * @return bytes allocated
+     */
+    private long getAllocatedBytes() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds())).filter(b -> b > 0).sum();
+    }
+
+}
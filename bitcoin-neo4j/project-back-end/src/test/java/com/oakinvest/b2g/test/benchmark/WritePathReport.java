@@ -0,0 +1,272 @@
+package com.oakinvest.b2g.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report of a write path benchmark (written in JSON) : a result for each set of blocks and each write path.
+ */
+@SuppressWarnings("unused")
+public class WritePathReport {
+
+    /**
+     * Results.
+     */
+    private List<Result> results = new ArrayList<>();
+
+    /**
+     * Getter of results.
+     *
+     * @return results
+     */
+    public final List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Setter of results.
+     *
+     * @param newResults results
+     */
+    public final void setResults(final List<Result> newResults) {
+        this.results = newResults;
+    }
+
+    /**
+     * Result of a write path on a set of blocks.
+     */
+    public static class Result {
+
+        /**
+         * Blocks written (early-chain or synthetic).
+         */
+        private String blockSet;
+
+        /**
+         * Write path (ogm, unwind-[batch size] or embedded).
+         */
+        private String path;
+
+        /**
+         * Number of blocks written.
+         */
+        private long blocks;
+
+        /**
+         * Number of transactions written.
+         */
+        private long transactions;
+
+        /**
+         * Number of nodes created.
+         */
+        private long nodes;
+
+        /**
+         * Number of relationships created.
+         */
+        private long relationships;
+
+        /**
+         * Write duration (milliseconds).
+         */
+        private long duration;
+
+        /**
+         * Nodes created per second.
+         */
+        private double nodesPerSecond;
+
+        /**
+         * Relationships created per second.
+         */
+        private double relationshipsPerSecond;
+
+        /**
+         * Heap allocated per block (bytes).
+         */
+        private long heapPerBlock;
+
+        /**
+         * Getter of blockSet.
+         *
+         * @return blocks written (early-chain or synthetic)
+         */
+        public final String getBlockSet() {
+            return blockSet;
+        }
+
+        /**
+         * Setter of blockSet.
+         *
+         * @param newBlockSet blocks written (early-chain or synthetic)
+         */
+        public final void setBlockSet(final String newBlockSet) {
+            this.blockSet = newBlockSet;
+        }
+
+        /**
+         * Getter of path.
+         *
+         * @return write path (ogm, unwind-[batch size] or embedded)
+         */
+        public final String getPath() {
+            return path;
+        }
+
+        /**
+         * Setter of path.
+         *
+         * @param newPath write path (ogm, unwind-[batch size] or embedded)
+         */
+        public final void setPath(final String newPath) {
+            this.path = newPath;
+        }
+
+        /**
+         * Getter of blocks.
+         *
+         * @return number of blocks written
+         */
+        public final long getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Setter of blocks.
+         *
+         * @param newBlocks number of blocks written
+         */
+        public final void setBlocks(final long newBlocks) {
+            this.blocks = newBlocks;
+        }
+
+        /**
+         * Getter of transactions.
+         *
+         * @return number of transactions written
+         */
+        public final long getTransactions() {
+            return transactions;
+        }
+
+        /**
+         * Setter of transactions.
+         *
+         * @param newTransactions number of transactions written
+         */
+        public final void setTransactions(final long newTransactions) {
+            this.transactions = newTransactions;
+        }
+
+        /**
+         * Getter of nodes.
+         *
+         * @return number of nodes created
+         */
+        public final long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Setter of nodes.
+         *
+         * @param newNodes number of nodes created
+         */
+        public final void setNodes(final long newNodes) {
+            this.nodes = newNodes;
+        }
+
+        /**
+         * Getter of relationships.
+         *
+         * @return number of relationships created
+         */
+        public final long getRelationships() {
+            return relationships;
+        }
+
+        /**
+         * Setter of relationships.
+         *
+         * @param newRelationships number of relationships created
+         */
+        public final void setRelationships(final long newRelationships) {
+            this.relationships = newRelationships;
+        }
+
+        /**
+         * Getter of duration.
+         *
+         * @return write duration (milliseconds)
+         */
+        public final long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Setter of duration.
+         *
+         * @param newDuration write duration (milliseconds)
+         */
+        public final void setDuration(final long newDuration) {
+            this.duration = newDuration;
+        }
+
+        /**
+         * Getter of nodesPerSecond.
+         *
+         * @return nodes created per second
+         */
+        public final double getNodesPerSecond() {
+            return nodesPerSecond;
+        }
+
+        /**
+         * Setter of nodesPerSecond.
+         *
+         * @param newNodesPerSecond nodes created per second
+         */
+        public final void setNodesPerSecond(final double newNodesPerSecond) {
+            this.nodesPerSecond = newNodesPerSecond;
+        }
+
+        /**
+         * Getter of relationshipsPerSecond.
+         *
+         * @return relationships created per second
+         */
+        public final double getRelationshipsPerSecond() {
+            return relationshipsPerSecond;
+        }
+
+        /**
+         * Setter of relationshipsPerSecond.
+         *
+         * @param newRelationshipsPerSecond relationships created per second
+         */
+        public final void setRelationshipsPerSecond(final double newRelationshipsPerSecond) {
+            this.relationshipsPerSecond = newRelationshipsPerSecond;
+        }
+
+        /**
+         * Getter of heapPerBlock.
+         *
+         * @return heap allocated per block (bytes)
+         */
+        public final long getHeapPerBlock() {
+            return heapPerBlock;
+        }
+
+        /**
+         * Setter of heapPerBlock.
+         *
+         * @param newHeapPerBlock heap allocated per block (bytes)
+         */
+        public final void setHeapPerBlock(final long newHeapPerBlock) {
+            this.heapPerBlock = newHeapPerBlock;
+        }
+
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Benchmarks.
+ */
+package com.oakinvest.b2g.test.benchmark;
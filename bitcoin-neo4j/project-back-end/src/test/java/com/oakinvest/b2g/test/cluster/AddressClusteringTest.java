@@ -0,0 +1,270 @@
+package com.oakinvest.b2g.test.cluster;
+
+import com.oakinvest.b2g.domain.BitcoinCluster;
+import com.oakinvest.b2g.repository.AddressRepository;
+import com.oakinvest.b2g.repository.ClusterRepository;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.cluster.AddressClusteringJob;
+import com.oakinvest.b2g.util.cluster.AddressClusters;
+import com.oakinvest.b2g.util.stage.BlockImportStages;
+import com.oakinvest.b2g.util.stage.CypherRunner;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Tests for the address clusters maintained by the import and built by the job.
+ * The clustering is enabled (another context, so it runs on a random port). Each context keeps its union-find in a
+ * directory of a temporary folder and is closed after its test, so the folder can be deleted after the class.
+ */
+@TestPropertySource(properties = {"b2g.analytics.clustering.enabled=true", "server.port=0"})
+public class AddressClusteringTest extends BaseTest {
+
+    /**
+     * Union-find directories of the contexts.
+     */
+    @ClassRule
+    public static final TemporaryFolder CONTEXT_FOLDER = new TemporaryFolder();
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Height used for the blocks applied by the test (after the imported blocks).
+     */
+    private static final int TEST_BLOCK_HEIGHT = 1000;
+
+    /**
+     * Checkpoint interval of the clusters built by the job.
+     */
+    private static final int CHECKPOINT_INTERVAL = 50;
+
+    /**
+     * Query returning the clusters (address ids of each cluster).
+     */
+    private static final String CLUSTERS = "MATCH (a:BitcoinAddress)-[:IN_CLUSTER]->(c:BitcoinCluster) RETURN c.clusterId AS cluster, collect(id(a)) AS addresses";
+
+    /**
+     * Union-find directory of the job.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Address clusters maintained by the import.
+     */
+    @Autowired
+    private AddressClusters clusters;
+
+    /**
+     * Import stages (write lock).
+     */
+    @Autowired
+    private BlockImportStages stages;
+
+    /**
+     * Cluster repository.
+     */
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    /**
+     * Address repository.
+     */
+    @Autowired
+    private AddressRepository addressRepository;
+
+    /**
+     * Sets the union-find directory of the context (a new one for each context).
+     *
+     * @param registry properties
+     */
+    @DynamicPropertySource
+    static void clusteringDirectory(final DynamicPropertyRegistry registry) {
+        registry.add("b2g.analytics.clustering.directory", () -> CONTEXT_FOLDER.getRoot().getAbsolutePath() + "/clusters-${random.uuid}");
+    }
+
+    /**
+     * Clusters maintained by the import, merged and built by the job.
+     *
+     * @throws IOException error
+     */
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public final void addressClusteringTest() throws IOException {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+        assertThat(clusters.getAppliedHeight()).as("Applied height").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT); // Blocks 1 to 200.
+
+        // Every address spending is in one cluster, with the other addresses spending in the same transactions.
+        assertThat(count("MATCH (a:BitcoinAddress)-[:ADDRESS]->(:BitcoinTransactionInput) WITH DISTINCT a "
+                + "WHERE size((a)-[:IN_CLUSTER]->()) <> 1 RETURN count(a)")).as("Addresses not in one cluster").isZero();
+        assertThat(count("MATCH (t:BitcoinTransaction)-[:INPUTS]->(:BitcoinTransactionInput)<-[:ADDRESS]-(:BitcoinAddress)-[:IN_CLUSTER]->(c:BitcoinCluster) "
+                + "WITH t, count(DISTINCT c) AS clusters WHERE clusters > 1 RETURN count(t)")).as("Transactions in several clusters").isZero();
+        assertThat(count("MATCH (c:BitcoinCluster) WHERE c.size <> size((c)<-[:IN_CLUSTER]-()) RETURN count(c)")).as("Cluster sizes").isZero();
+        final Optional<BitcoinCluster> cluster = clusterRepository.findByAddress("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S");
+        if (cluster.isPresent()) {
+            assertThat(addressRepository.findByClusterId(cluster.get().getClusterId())).as("Cluster addresses")
+                    .hasSize((int) cluster.get().getSize())
+                    .anyMatch(a -> a.getAddress().equals("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S"));
+        } else {
+            fail("Cluster not found");
+        }
+
+        // Clusters merged by a transaction spending from both.
+        final List<Long> addresses = new ArrayList<>();
+        getSessionFactory().openSession().query("MATCH (a:BitcoinAddress) WHERE NOT (a)-[:IN_CLUSTER]->() RETURN id(a) AS id LIMIT 4", Collections.emptyMap())
+                .forEach(row -> addresses.add(((Number) row.get("id")).longValue()));
+        assertThat(addresses).hasSize(4);
+        final long clustersBefore = getClusterRepository().count();
+        applyTransaction(addresses.get(0), addresses.get(1));
+        applyTransaction(addresses.get(2), addresses.get(3));
+        assertThat(getClusterRepository().count()).as("Clusters").isEqualTo(clustersBefore + 2);
+        applyTransaction(addresses.get(1), addresses.get(2));
+        applyTransaction(addresses.get(1), addresses.get(2));
+        assertThat(getClusterRepository().count()).as("Clusters").isEqualTo(clustersBefore + 1);
+        final long clusterId = clusters.getClusterId(addresses.get(0));
+        assertThat(addressRepository.findByClusterId(clusterId)).as("Merged cluster").hasSize(4);
+        assertThat(count("MATCH (c:BitcoinCluster) WHERE c.clusterId = " + clusterId + " RETURN c.size")).as("Merged cluster size").isEqualTo(4);
+        assertThat(clusters.getAppliedHeight()).as("Applied height").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // The job builds the same clusters from the graph (without the merged cluster of the test).
+        getSessionFactory().openSession().query("MATCH (c:BitcoinCluster) WHERE c.clusterId = $clusterId DETACH DELETE c", Map.of("clusterId", clusterId));
+        final Set<Set<Long>> importedClusters = getClusters();
+        getSessionFactory().openSession().query("MATCH (c:BitcoinCluster) DETACH DELETE c", Collections.emptyMap());
+        final AddressClusters jobClusters = new AddressClusters(folder.getRoot().getAbsolutePath(), CHECKPOINT_INTERVAL);
+        new AddressClusteringJob(getSessionFactory(), stages, jobClusters).run();
+        assertThat(getClusters()).as("Clusters built by the job").isEqualTo(importedClusters);
+        assertThat(jobClusters.getAppliedHeight()).as("Applied height").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+        jobClusters.close();
+        assertThat(Files.readString(folder.getRoot().toPath().resolve("checkpoint"), StandardCharsets.UTF_8)).as("Checkpoint")
+                .isEqualTo(Integer.toString(NUMBERS_OF_BLOCK_TO_IMPORT));
+    }
+
+    /**
+     * The unions of the blocks not committed are discarded by a rollback and the checkpoint only covers the blocks
+     * committed.
+     *
+     * @throws IOException error
+     */
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public final void journalTest() throws IOException {
+        final AddressClusters journalClusters = new AddressClusters(folder.getRoot().getAbsolutePath(), 1);
+        final CypherRunner runner = (query, parameters) -> Collections.emptyList();
+
+        // Rolled back.
+        journalClusters.addBlock(0, List.of(new long[]{1, 2}), runner);
+        assertThat(journalClusters.getClusterId(2)).as("Cluster before the rollback").isEqualTo(journalClusters.getClusterId(1));
+        assertThat(journalClusters.getAppliedHeight()).as("Applied height").isZero();
+        assertThat(journalClusters.getCommittedHeight()).as("Committed height").isEqualTo(-1);
+        journalClusters.rollback();
+        assertThat(journalClusters.getClusterId(2)).as("Cluster after the rollback").isEqualTo(2);
+        assertThat(journalClusters.getAppliedHeight()).as("Applied height").isEqualTo(-1);
+        assertThat(folder.getRoot().toPath().resolve("checkpoint")).as("Checkpoint").doesNotExist();
+
+        // Committed.
+        journalClusters.addBlock(0, List.of(new long[]{1, 2}), runner);
+        journalClusters.addBlock(1, List.of(new long[]{3, 2}), runner);
+        final long clusterId = journalClusters.getClusterId(3);
+        journalClusters.commit();
+        assertThat(journalClusters.getClusterId(1)).as("Cluster after the commit").isEqualTo(clusterId);
+        assertThat(journalClusters.getClusterId(2)).as("Cluster after the commit").isEqualTo(clusterId);
+        assertThat(journalClusters.getClusterId(3)).as("Cluster after the commit").isEqualTo(clusterId);
+        assertThat(journalClusters.getCommittedHeight()).as("Committed height").isEqualTo(1);
+        assertThat(Files.readString(folder.getRoot().toPath().resolve("checkpoint"), StandardCharsets.UTF_8)).as("Checkpoint").isEqualTo("1");
+        journalClusters.close();
+    }
+
+    /**
+     * Applies a transaction spending from two addresses.
+     *
+     * @param first  first address id
+     * @param second second address id
+     */
+    private void applyTransaction(final long first, final long second) {
+        final Session session = getSessionFactory().openSession();
+        clusters.addBlock(TEST_BLOCK_HEIGHT, List.of(new long[]{first, second}), session::query);
+        clusters.commit();
+    }
+
+    /**
+     * Returns the clusters of the graph.
+     *
+     * @return address ids of each cluster
+     */
+    private Set<Set<Long>> getClusters() {
+        final Set<Set<Long>> result = new HashSet<>();
+        getSessionFactory().openSession().query(CLUSTERS, Collections.emptyMap()).forEach(row -> {
+            final Set<Long> ids = new HashSet<>();
+            for (Object id : (Object[]) row.get("addresses")) {
+                ids.add(((Number) id).longValue());
+            }
+            result.add(ids);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the cluster repository.
+     *
+     * @return cluster repository
+     */
+    private ClusterRepository getClusterRepository() {
+        return clusterRepository;
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        return getSessionFactory().openSession().queryForObject(Long.class, query, Collections.emptyMap());
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.oakinvest.b2g.test.cluster;
+
+import com.oakinvest.b2g.util.cluster.OffHeapUnionFind;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the off-heap union-find.
+ */
+public class OffHeapUnionFindTest {
+
+    /**
+     * Id far from the others (in another region of the file).
+     */
+    private static final long FAR_ID = 5_000_000_000L;
+
+    /**
+     * Number of ids merged in a chain.
+     */
+    private static final int CHAIN_LENGTH = 10000;
+
+    /**
+     * Union-find directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Union, find and reopening test.
+     */
+    @Test
+    public final void unionFindTest() {
+        final Path file = folder.getRoot().toPath().resolve("union-find.dat");
+        OffHeapUnionFind unionFind = new OffHeapUnionFind(file);
+
+        // Ids never merged are sets of one element.
+        assertThat(unionFind.find(0)).isZero();
+        assertThat(unionFind.find(FAR_ID)).isEqualTo(FAR_ID);
+        assertThat(unionFind.size(FAR_ID)).isEqualTo(1);
+
+        // Two sets merged.
+        unionFind.union(1, 2);
+        unionFind.union(3, 4);
+        unionFind.union(4, 5);
+        assertThat(unionFind.find(1)).isEqualTo(unionFind.find(2)).isNotEqualTo(unionFind.find(3));
+        final long root = unionFind.union(2, FAR_ID);
+        assertThat(unionFind.union(5, FAR_ID)).as("Root of the biggest set").isEqualTo(unionFind.find(3));
+        assertThat(unionFind.size(1)).isEqualTo(6);
+        assertThat(unionFind.find(1)).isEqualTo(unionFind.find(FAR_ID)).isEqualTo(unionFind.find(5));
+        assertThat(root).isNotNegative();
+
+        // Idempotent.
+        assertThat(unionFind.union(1, 5)).isEqualTo(unionFind.find(1));
+        assertThat(unionFind.size(1)).isEqualTo(6);
+
+        // Long chain (paths are halved).
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            unionFind.union(1000 + i, 1000 + i + 1);
+        }
+        assertThat(unionFind.size(1000)).isEqualTo(CHAIN_LENGTH + 1);
+        assertThat(unionFind.find(1000 + CHAIN_LENGTH)).isEqualTo(unionFind.find(1000));
+        unionFind.close();
+
+        // The sets are read back from the file.
+        unionFind = new OffHeapUnionFind(file);
+        assertThat(unionFind.find(FAR_ID)).isEqualTo(unionFind.find(1));
+        assertThat(unionFind.size(3)).isEqualTo(6);
+        assertThat(unionFind.size(1000)).isEqualTo(CHAIN_LENGTH + 1);
+        assertThat(unionFind.size(0)).isEqualTo(1);
+        unionFind.close();
+    }
+
+}
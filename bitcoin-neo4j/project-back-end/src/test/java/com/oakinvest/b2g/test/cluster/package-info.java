@@ -0,0 +1,4 @@
+/**
+ * cluster test.
+ */
+package com.oakinvest.b2g.test.cluster;
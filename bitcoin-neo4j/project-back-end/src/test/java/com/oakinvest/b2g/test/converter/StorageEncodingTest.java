@@ -0,0 +1,84 @@
+package com.oakinvest.b2g.test.converter;
+
+import com.oakinvest.b2g.util.converter.StorageEncoding;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the encoding of hashes and amounts in the graph.
+ */
+public class StorageEncodingTest {
+
+    /**
+     * Hash used in tests (block 170).
+     */
+    private static final String HASH = "00000000d1145790a8694403d4063f323d499e655c83426834d4ce2f8dd4a2ee";
+
+    /**
+     * Back to the default mode.
+     */
+    @After
+    public final void resetMode() {
+        StorageEncoding.setCompact(false);
+    }
+
+    /**
+     * Default mode test.
+     */
+    @Test
+    public final void defaultModeTest() {
+        assertThat(StorageEncoding.encodeHash(HASH)).isEqualTo(HASH);
+        assertThat(StorageEncoding.decodeHash(HASH)).isEqualTo(HASH);
+        assertThat(StorageEncoding.encodeAmount(new BigDecimal("50"))).isEqualTo(50d);
+        assertThat(StorageEncoding.decodeAmount(50d)).isEqualTo(new BigDecimal("50.00000000"));
+        assertThat(StorageEncoding.decodeAmount(StorageEncoding.encodeAmount(new BigDecimal("50.00012345")))).isEqualTo(new BigDecimal("50.00012345"));
+        assertThat(StorageEncoding.decodeAmount(StorageEncoding.encodeAmount(new BigDecimal("20999999.97690000")))).isEqualTo(new BigDecimal("20999999.97690000"));
+        assertThat(StorageEncoding.isExact(StorageEncoding.decodeAmount(0.01d))).isTrue();
+        assertThat(StorageEncoding.decodeAmount(0.01d)).isEqualTo(new BigDecimal("0.01000000"));
+
+        // Amount written from a float by a previous version.
+        final BigDecimal floatAmount = StorageEncoding.decodeAmount((double) 0.01f);
+        assertThat(StorageEncoding.isExact(floatAmount)).isFalse();
+        assertThat(StorageEncoding.toSatoshis(floatAmount)).isEqualTo(1_000_000L);
+        assertThat(StorageEncoding.encodeHash(null)).isNull();
+        assertThat(StorageEncoding.decodeHash(null)).isNull();
+    }
+
+    /**
+     * Compact mode test.
+     */
+    @Test
+    public final void compactModeTest() {
+        StorageEncoding.setCompact(true);
+
+        // Hashes.
+        final byte[] encodedHash = (byte[]) StorageEncoding.encodeHash(HASH);
+        assertThat(encodedHash).hasSize(32);
+        assertThat(StorageEncoding.decodeHash(encodedHash)).isEqualTo(HASH);
+        final List<Byte> hashReadByOgm = new ArrayList<>();
+        for (byte b : encodedHash) {
+            hashReadByOgm.add(b);
+        }
+        assertThat(StorageEncoding.decodeHash(hashReadByOgm)).isEqualTo(HASH);
+
+        // Amounts.
+        assertThat(StorageEncoding.encodeAmount(new BigDecimal("50"))).isEqualTo(5_000_000_000L);
+        assertThat(StorageEncoding.encodeAmount(new BigDecimal("50.00012345"))).isEqualTo(5_000_012_345L);
+        assertThat(StorageEncoding.encodeAmount(new BigDecimal("0.01"))).isEqualTo(1_000_000L);
+        assertThat(StorageEncoding.encodeAmount(new BigDecimal("0.00000001"))).isEqualTo(1L);
+        assertThat(StorageEncoding.decodeAmount(5_000_000_000L)).isEqualTo(new BigDecimal("50.00000000"));
+        assertThat(StorageEncoding.decodeAmount(1L)).isEqualTo(new BigDecimal("0.00000001"));
+
+        // Mode of the store.
+        assertThat(StorageEncoding.isCompactHash(encodedHash)).isTrue();
+        assertThat(StorageEncoding.isCompactHash(hashReadByOgm)).isTrue();
+        assertThat(StorageEncoding.isCompactHash(HASH)).isFalse();
+    }
+
+}
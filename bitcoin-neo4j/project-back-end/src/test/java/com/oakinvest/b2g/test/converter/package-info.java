@@ -0,0 +1,4 @@
+/**
+ * converter test.
+ */
+package com.oakinvest.b2g.test.converter;
@@ -0,0 +1,82 @@
+package com.oakinvest.b2g.test.jfr;
+
+import com.oakinvest.b2g.util.jfr.BlockFetchEvent;
+import com.oakinvest.b2g.util.jfr.ImportRecording;
+import com.oakinvest.b2g.util.jfr.RpcCallEvent;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the flight recording of the import.
+ */
+public class ImportRecordingTest {
+
+    /**
+     * Maximum size of the recording.
+     */
+    private static final long MAX_SIZE = 10_000_000;
+
+    /**
+     * Block height.
+     */
+    private static final int HEIGHT = 170;
+
+    /**
+     * Block size.
+     */
+    private static final int SIZE = 490;
+
+    /**
+     * Events recorded and dumped.
+     *
+     * @throws IOException error reading the dump
+     */
+    @Test
+    public final void recordingTest() throws IOException {
+        // Without recording, the events are disabled.
+        final BlockFetchEvent disabledEvent = new BlockFetchEvent();
+        disabledEvent.begin();
+        assertThat(disabledEvent.isEnabled()).as("Event without recording").isFalse();
+
+        final ImportRecording recording = new ImportRecording("default", Duration.ofMinutes(1), MAX_SIZE);
+        try {
+            final BlockFetchEvent event = new BlockFetchEvent();
+            event.begin();
+            event.setSize(SIZE);
+            event.commit(HEIGHT, 2);
+            final RpcCallEvent rpcEvent = new RpcCallEvent();
+            rpcEvent.begin();
+            rpcEvent.setMethod("getblock");
+            rpcEvent.commit();
+
+            final Path dump = recording.dump(Duration.ofMinutes(1));
+            try {
+                final List<RecordedEvent> events = RecordingFile.readAllEvents(dump)
+                        .stream()
+                        .filter(e -> e.getEventType().getName().startsWith("com.oakinvest.b2g."))
+                        .collect(Collectors.toList());
+                assertThat(events).extracting(e -> e.getEventType().getName())
+                        .contains("com.oakinvest.b2g.BlockFetch", "com.oakinvest.b2g.RpcCall");
+                final RecordedEvent fetch = events.stream().filter(e -> e.getEventType().getName().endsWith("BlockFetch")).findFirst().orElseThrow();
+                assertThat(fetch.getInt("height")).isEqualTo(HEIGHT);
+                assertThat(fetch.getInt("transactionCount")).isEqualTo(2);
+                assertThat(fetch.getInt("size")).isEqualTo(SIZE);
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        } finally {
+            recording.close();
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Flight recording test.
+ */
+package com.oakinvest.b2g.test.jfr;
@@ -0,0 +1,110 @@
+package com.oakinvest.b2g.test.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.domain.BitcoinTransaction;
+import com.oakinvest.b2g.domain.BitcoinTransactionInput;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.util.mapper.BitcoinCoreToDomainMapper;
+import com.oakinvest.b2g.util.mapper.IngestionProfile;
+import org.junit.Test;
+import org.mapstruct.factory.Mappers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the ingestion profiles.
+ */
+public class IngestionProfileTest {
+
+    /**
+     * Raw transaction from core (simplified).
+     */
+    private static final String RAW_TRANSACTION = "{"
+            + "\"hex\": \"0100000001c997a5e56e\","
+            + "\"txid\": \"f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16\","
+            + "\"vin\": [{"
+            + "  \"txid\": \"0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9\","
+            + "  \"vout\": 0,"
+            + "  \"scriptSig\": {\"asm\": \"304402204e45e16932b8af514961a1d3a1a25fdf3f4f7732e9d624c6c61548ab5fb8cd41[ALL]\", \"hex\": \"47304402204e45e16932b8af514961a1d3a1a25fdf3f4f7732e9d624c6c61548ab5fb8cd4101\"},"
+            + "  \"sequence\": 4294967295"
+            + "}],"
+            + "\"vout\": [{"
+            + "  \"value\": 10,"
+            + "  \"n\": 0,"
+            + "  \"scriptPubKey\": {\"asm\": \"04ae1a62fe09c5f51b13905f07f06b99a2f7159b2225f374cd378d71302fa28414e7aab37397f554a7df5f142c21c1b7303b8a0626f1baded5c72a704f7e6cd84c OP_CHECKSIG\", \"hex\": \"4104ae1a62fe09c5f51b13905f07f06b99a2f7159b2225f374cd378d71302fa28414e7aab37397f554a7df5f142c21c1b7303b8a0626f1baded5c72a704f7e6cd84cac\", \"type\": \"pubkey\"}"
+            + "}]"
+            + "}";
+
+    /**
+     * Mapper.
+     */
+    private final BitcoinCoreToDomainMapper mapper = Mappers.getMapper(BitcoinCoreToDomainMapper.class);
+
+    /**
+     * Full profile test : everything is kept.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public final void fullProfileTest() throws Exception {
+        final GetRawTransactionResult result = read(IngestionProfile.FULL);
+        assertThat(result.getHex()).isNotNull();
+        final BitcoinTransaction transaction = mapper.rawTransactionResultToBitcoinTransaction(result, IngestionProfile.FULL);
+        assertThat(transaction.getHex()).isEqualTo("0100000001c997a5e56e");
+        final BitcoinTransactionInput input = transaction.getInputs().iterator().next();
+        assertThat(input.getScriptSigAsm()).isNotNull();
+        assertThat(input.getScriptSigHex()).isNotNull();
+        assertThat(transaction.getOutputs().iterator().next().getScriptPubKeyAsm()).isNotNull();
+    }
+
+    /**
+     * Slim profile test : the bulky fields are not deserialized and are cleared by the mapper.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public final void slimProfileTest() throws Exception {
+        final GetRawTransactionResult result = read(IngestionProfile.SLIM);
+        assertThat(result.getHex()).isNull();
+        assertThat(result.getVin().get(0).getScriptSig().getAsm()).isNull();
+        assertThat(result.getVout().get(0).getScriptPubKey().getAsm()).isNull();
+
+        // Data coming from the buffer still has the fields, the mapper clears them.
+        final BitcoinTransaction transaction = mapper.rawTransactionResultToBitcoinTransaction(read(IngestionProfile.FULL), IngestionProfile.SLIM);
+        assertThat(transaction.getTxId()).isEqualTo("f4184fc596403b9d638783cf57adfe4c75c605f6356fbc91338530e9831e9e16");
+        assertThat(transaction.getHex()).isNull();
+        final BitcoinTransactionInput input = transaction.getInputs().iterator().next();
+        assertThat(input.getScriptSigAsm()).isNull();
+        assertThat(input.getScriptSigHex()).isNotNull();
+        assertThat(transaction.getOutputs().iterator().next().getScriptPubKeyAsm()).isNull();
+        assertThat(transaction.getOutputs().iterator().next().getScriptPubKeyHex()).isNotNull();
+    }
+
+    /**
+     * Minimal profile test : the input script hex is also dropped.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public final void minimalProfileTest() throws Exception {
+        final GetRawTransactionResult result = read(IngestionProfile.MINIMAL);
+        assertThat(result.getVin().get(0).getScriptSig().getHex()).isNull();
+        final BitcoinTransaction transaction = mapper.rawTransactionResultToBitcoinTransaction(read(IngestionProfile.FULL), IngestionProfile.MINIMAL);
+        assertThat(transaction.getInputs().iterator().next().getScriptSigHex()).isNull();
+        assertThat(transaction.getOutputs().iterator().next().getScriptPubKeyHex()).isNotNull();
+    }
+
+    /**
+     * Reads the raw transaction with an object mapper configured for a profile.
+     *
+     * @param profile profile
+     * @return raw transaction
+     * @throws Exception exception
+     */
+    private GetRawTransactionResult read(final IngestionProfile profile) throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        profile.configure(objectMapper);
+        return objectMapper.readValue(RAW_TRANSACTION, GetRawTransactionResult.class);
+    }
+
+}
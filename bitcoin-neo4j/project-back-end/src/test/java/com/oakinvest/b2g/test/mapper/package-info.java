@@ -0,0 +1,4 @@
+/**
+ * mapper test.
+ */
+package com.oakinvest.b2g.test.mapper;
@@ -0,0 +1,97 @@
+package com.oakinvest.b2g.test.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oakinvest.b2g.configuration.AsyncConfiguration;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the pipeline metrics and the throughput history.
+ */
+public class PipelineMetricsTest extends BaseTest {
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 20;
+
+    /**
+     * Prometheus endpoint.
+     */
+    private static final String PROMETHEUS_URL = "http://localhost:8080/actuator/prometheus";
+
+    /**
+     * Throughput endpoint.
+     */
+    private static final String THROUGHPUT_URL = "http://localhost:8080/api/throughput?last=5";
+
+    /**
+     * Meter registry.
+     */
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Metrics recorded by an import and exposed on the prometheus endpoint.
+     */
+    @Test
+    public final void importMetricsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 100;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        final long blocks = getBlockRepository().count();
+        assertThat(blocks).as("Blocks").isGreaterThanOrEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // Blocks, transactions and steps.
+        assertThat(registry.get("b2g.import.blocks").counter().count()).as("Blocks saved").isEqualTo(blocks);
+        assertThat(registry.get("b2g.import.transactions").counter().count()).as("Transactions saved").isEqualTo(getTransactionRepository().count());
+        assertThat(registry.get("b2g.import.step").tag("step", "loading_transactions_from_blockchain").timer().count()).as("Loading").isGreaterThanOrEqualTo(blocks);
+        assertThat(registry.get("b2g.import.step").tag("step", "processing_addresses").timer().count()).as("Addresses").isGreaterThanOrEqualTo(blocks);
+        assertThat(registry.get("b2g.import.step").tag("step", "processing_transactions").timer().count()).as("Transactions").isGreaterThanOrEqualTo(blocks);
+        assertThat(registry.get("b2g.import.step").tag("step", CurrentBlockStatusProcessStep.SAVING_BLOCK.name().toLowerCase()).timer().count()).as("Saving").isEqualTo(blocks);
+
+        // Buffer and neo4j.
+        assertThat(registry.get("b2g.buffer.requests").tag("type", "block").counters()).as("Block buffer requests").isNotEmpty();
+        assertThat(registry.get("b2g.buffer.size").tag("type", "transaction").gauge()).as("Transaction buffer size").isNotNull();
+        assertThat(registry.get("b2g.neo4j.statements").tag("kind", "save").timer().count()).as("Saves").isEqualTo(blocks);
+        assertThat(registry.get("b2g.neo4j.statements").tag("kind", "stage").timer().count()).as("Stage statements").isPositive();
+        final long blockNodes = blocks + getTransactionRepository().count() + getTransactionInputRepository().count()
+                + getTransactionOutputRepository().count() + getAddressRepository().count();
+        assertThat(registry.get("b2g.neo4j.nodes.created").counter().count()).as("Nodes created by the saves and the stages").isGreaterThan(blockNodes);
+
+        // Executors.
+        assertThat(registry.get("executor.completed").tag("name", AsyncConfiguration.IMPORT_EXECUTOR).functionCounter().count()).as("Import tasks").isPositive();
+        assertThat(registry.get("executor.active").tag("name", AsyncConfiguration.IO_EXECUTOR).gauge()).as("I/O executor").isNotNull();
+
+        // Prometheus endpoint.
+        final String scrape = new RestTemplate().getForObject(PROMETHEUS_URL, String.class);
+        assertThat(scrape).contains("b2g_import_blocks_total " + (double) blocks)
+                .contains("b2g_import_step_seconds_bucket{step=\"saving_block\"")
+                .contains("b2g_buffer_requests_total")
+                .contains("b2g_neo4j_statements_seconds_count")
+                .contains("executor_queued_tasks{name=\"" + AsyncConfiguration.CPU_EXECUTOR + "\"")
+                .contains("executor_pool_size_threads{name=\"" + AsyncConfiguration.ASYNC_EXECUTOR + "\"");
+
+        // Throughput history.
+        final JsonNode report = new RestTemplate().getForObject(THROUGHPUT_URL, JsonNode.class);
+        assertThat(report).isNotNull();
+        assertThat(report.get("summary").get("blocks").asInt()).as("Blocks in the window").isPositive();
+        assertThat(report.get("records")).hasSize(5);
+        final JsonNode lastRecord = report.get("records").get(4);
+        assertThat(lastRecord.get("height").asLong()).as("Last block").isEqualTo(blocks);
+        assertThat(lastRecord.get("transactionCount").asInt()).as("Transactions").isPositive();
+        assertThat(lastRecord.get("stepDurations").has(CurrentBlockStatusProcessStep.PROCESSING_TRANSACTIONS.name())).as("Transactions step").isTrue();
+        assertThat(lastRecord.get("stepDurations").has(CurrentBlockStatusProcessStep.SAVING_BLOCK.name())).as("Saving step").isTrue();
+    }
+
+}
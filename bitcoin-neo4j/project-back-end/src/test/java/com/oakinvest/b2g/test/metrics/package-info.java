@@ -0,0 +1,4 @@
+/**
+ * Metrics test.
+ */
+package com.oakinvest.b2g.test.metrics;
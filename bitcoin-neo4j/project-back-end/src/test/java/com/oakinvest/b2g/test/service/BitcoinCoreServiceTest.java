@@ -8,6 +8,8 @@ import com.oakinvest.b2g.test.util.junit.BaseTest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.with;
@@ -232,7 +234,7 @@ public class BitcoinCoreServiceTest extends BaseTest {
 		final String expectedVIn3scriptSigHex = "47304402201a1ff43febcfee2fffb1dff37348181a4a0bfb3c3fd018efcf26c27812a1e13f02205a2dc3935c2c315d98f4b6da97f264931ec97234b69ddee3d76ad47989a23b2b012103e4ab3eb6a7f15ca989a16ec4457a0f776ebce42930580abc76f2a2f06939bc27";
 		final long expectedVIn3Sequence = 4294967295L;
 		// First VOut.
-		final float expectedVOut1Value = 0.05100000f;
+		final BigDecimal expectedVOut1Value = new BigDecimal("0.05100000");
 		final int expectedVOut1N = 0;
 		final String expectedVOut1ScriptPubKeyAsm = "OP_HASH160 6169cadbc390751d0932864719c8ca539e18ad94 OP_EQUAL";
 		final String expectedVOut1ScriptPubKeyHex = "a9146169cadbc390751d0932864719c8ca539e18ad9487";
@@ -240,7 +242,7 @@ public class BitcoinCoreServiceTest extends BaseTest {
 		final String expectedVOut1ScriptPubKeyType = "scripthash";
 		final String expectedVOut1ScriptPubKeyAddresses1 = "3Aa6CjiGJVo6sDvZV9R2DFngdGbbhJjaRr";
 		// Second VOut.
-		final float expectedVOut2Value = 0.01723026f;
+		final BigDecimal expectedVOut2Value = new BigDecimal("0.01723026");
 		final int expectedVOut2N = 1;
 		final String expectedVOut2ScriptPubKeyAsm = "OP_DUP OP_HASH160 4e7d959b26448aa47de48c622e6ce23838edbb67 OP_EQUALVERIFY OP_CHECKSIG";
 		final String expectedVOut2ScriptPubKeyHex = "76a9144e7d959b26448aa47de48c622e6ce23838edbb6788ac";
@@ -294,7 +296,7 @@ public class BitcoinCoreServiceTest extends BaseTest {
 
 		// VOut 1.
 		GetRawTransactionVOut vOut1 = transactionResult.getVout().get(0);
-		assertThat(vOut1.getValue()).as("VOut 1 value").isEqualTo(expectedVOut1Value);
+		assertThat(vOut1.getValue()).as("VOut 1 value").isEqualByComparingTo(expectedVOut1Value);
 		assertThat(vOut1.getN()).as("VOut 1 n").isEqualTo(expectedVOut1N);
 		assertThat(vOut1.getScriptPubKey().getAsm()).as("VOut 1 scriptPubKey asm").isEqualTo(expectedVOut1ScriptPubKeyAsm);
 		assertThat(vOut1.getScriptPubKey().getHex()).as("VOut 1 scriptPubKey hex").isEqualTo(expectedVOut1ScriptPubKeyHex);
@@ -304,7 +306,7 @@ public class BitcoinCoreServiceTest extends BaseTest {
 
 		// VOut 2.
 		GetRawTransactionVOut vOut2 = transactionResult.getVout().get(1);
-		assertThat(vOut2.getValue()).as("VOut 2 value").isEqualTo(expectedVOut2Value);
+		assertThat(vOut2.getValue()).as("VOut 2 value").isEqualByComparingTo(expectedVOut2Value);
 		assertThat(vOut2.getN()).as("VOut 2 n").isEqualTo(expectedVOut2N);
 		assertThat(vOut2.getScriptPubKey().getAsm()).as("VOut 2 scriptPubKey asm").isEqualTo(expectedVOut2ScriptPubKeyAsm);
 		assertThat(vOut2.getScriptPubKey().getHex()).as("VOut 2 scriptPubKey hex").isEqualTo(expectedVOut2ScriptPubKeyHex);
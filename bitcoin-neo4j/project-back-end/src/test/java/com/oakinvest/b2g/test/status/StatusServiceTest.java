@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -99,6 +100,10 @@ public class StatusServiceTest extends BaseTest {
         SockJsClient sockJsClient = new SockJsClient(transports);
         sockJsClient.doHandshake(webSocketResponse,"ws://localhost:8080/status/").get(1, TimeUnit.MINUTES);
 
+        // Status published after the connection.
+        valueFromWebSocket = webSocketResponse.getNewMessage();
+        assertThat(valueFromWebSocket.getBlockCountInBlockchain()).isEqualTo(NON_AVAILABLE_VALUE_NUMBER);
+
         // Change blocksCountInBitcoinCore.
         status.setBlockCountInBlockchain(1);
         valueFromWebSocket = webSocketResponse.getNewMessage();
@@ -288,4 +293,30 @@ public class StatusServiceTest extends BaseTest {
         assertThat(valueFromWebSocket.getLastErrorMessage()).isEqualTo("");
     }
 
+    /**
+     * Test for the coalescing of the changes : a lot of changes are published in a few messages.
+     */
+    @Test
+    public final void coalescedPublicationTest() throws InterruptedException, TimeoutException, ExecutionException {
+        final StatusWebSocketSessionHandler webSocketResponse = new StatusWebSocketSessionHandler();
+        List<Transport> transports = new ArrayList<>(2);
+        transports.add(new WebSocketTransport(new StandardWebSocketClient()));
+        transports.add(new RestTemplateXhrTransport());
+        new SockJsClient(transports).doHandshake(webSocketResponse, "ws://localhost:8080/status/").get(1, TimeUnit.MINUTES);
+        webSocketResponse.getNewMessage();
+
+        // Changes made by several threads.
+        final int changes = 10000;
+        status.getCurrentBlockStatus().setBlockHeight(1);
+        IntStream.range(0, changes).parallel().forEach(i -> status.getCurrentBlockStatus().addProcessedTransaction());
+        assertThat(status.getCurrentBlockStatus().getProcessedTransactions()).isEqualTo(changes);
+
+        // The last status is published.
+        ApplicationStatus valueFromWebSocket = webSocketResponse.getNewMessage();
+        while (valueFromWebSocket.getCurrentBlockStatus().getProcessedTransactions() != changes) {
+            valueFromWebSocket = webSocketResponse.getNewMessage();
+        }
+        assertThat(webSocketResponse.getMessageCount()).as("Messages received").isLessThan(changes / 10);
+    }
+
 }
@@ -0,0 +1,200 @@
+package com.oakinvest.b2g.test.synthetic;
+
+import com.oakinvest.b2g.dto.bitcoin.core.getblock.GetBlockResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResult;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vin.GetRawTransactionVIn;
+import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.vout.GetRawTransactionVOut;
+import com.oakinvest.b2g.service.SyntheticBitcoinCoreService;
+import com.oakinvest.b2g.util.synthetic.SyntheticBlock;
+import com.oakinvest.b2g.util.synthetic.SyntheticChain;
+import com.oakinvest.b2g.util.synthetic.SyntheticChainSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the synthetic chain and the core service serving it.
+ */
+public class SyntheticChainTest {
+
+    /**
+     * Seed.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Number of blocks.
+     */
+    private static final int BLOCK_COUNT = 300;
+
+    /**
+     * Minimum number of transactions per block.
+     */
+    private static final int MIN_TRANSACTIONS = 5;
+
+    /**
+     * Maximum number of transactions per block.
+     */
+    private static final int MAX_TRANSACTIONS = 20;
+
+    /**
+     * Maximum number of inputs and outputs.
+     */
+    private static final int MAX_INPUTS_OUTPUTS = 3;
+
+    /**
+     * Probabilities of address reuse and in-block spends.
+     */
+    private static final double PROBABILITY = 0.3;
+
+    /**
+     * Number of decimals of a value in BTC.
+     */
+    private static final int BITCOIN_SCALE = 8;
+
+    /**
+     * Block reward (satoshis).
+     */
+    private static final long BLOCK_REWARD = 5_000_000_000L;
+
+    /**
+     * Error code of core when a block or a transaction is not found.
+     */
+    private static final int NOT_FOUND = -5;
+
+    /**
+     * Creates a synthetic chain.
+     *
+     * @param seed seed
+     * @return synthetic chain
+     */
+    private SyntheticChain createChain(final long seed) {
+        return new SyntheticChain(new SyntheticChainSettings(seed, BLOCK_COUNT, MIN_TRANSACTIONS + "-" + MAX_TRANSACTIONS,
+                "1-" + MAX_INPUTS_OUTPUTS, "1-" + MAX_INPUTS_OUTPUTS, PROBABILITY, PROBABILITY));
+    }
+
+    /**
+     * The same seed gives the same chain, another seed another chain.
+     */
+    @Test
+    public final void determinismTest() {
+        final SyntheticChain chain = createChain(SEED);
+        final SyntheticChain sameChain = createChain(SEED);
+        final SyntheticChain otherChain = createChain(SEED + 1);
+        final GetBlockResult block = chain.getBlock(BLOCK_COUNT).get().getBlock();
+        assertThat(sameChain.getBlock(BLOCK_COUNT).get().getBlock()).as("Same block").isEqualTo(block);
+        assertThat(sameChain.getBlock(BLOCK_COUNT).get().getBlock().getTx()).as("Same transactions").isEqualTo(block.getTx());
+        assertThat(otherChain.getBlock(BLOCK_COUNT).get().getBlock().getHash()).as("Other block").isNotEqualTo(block.getHash());
+
+        // An older block, not kept anymore, is generated again.
+        final GetRawTransactionResult transaction = chain.getBlock(BLOCK_COUNT).get().getTransactions().iterator().next();
+        assertThat(chain.getBlock(1).get().getBlock().getHeight()).as("Block generated again").isEqualTo(1);
+        assertThat(chain.getTransaction(transaction.getTxid())).as("Transaction generated again").contains(transaction);
+    }
+
+    /**
+     * Distributions are respected, every input spends an existing output only once and values are balanced.
+     */
+    @Test
+    public final void chainTest() {
+        final SyntheticChain chain = createChain(SEED);
+        final Map<String, Long> unspentOutputs = new HashMap<>();
+        final Set<String> addresses = new HashSet<>();
+        int outputCount = 0;
+        int inBlockSpends = 0;
+        String previousHash = null;
+        for (int height = 0; height <= BLOCK_COUNT; height++) {
+            final SyntheticBlock block = chain.getBlock(height).get();
+            assertThat(block.getBlock().getHeight()).as("Height").isEqualTo(height);
+            assertThat(block.getBlock().getPreviousblockhash()).as("Previous hash").isEqualTo(previousHash);
+            assertThat(block.getBlock().getTx().size()).as("Transactions").isBetween(1, MAX_TRANSACTIONS);
+            previousHash = block.getBlock().getHash();
+
+            final Set<String> blockOutputs = new HashSet<>();
+            final List<GetRawTransactionResult> transactions = new ArrayList<>(block.getTransactions());
+            long fees = 0;
+            for (int i = 1; i < transactions.size(); i++) {
+                final GetRawTransactionResult transaction = transactions.get(i);
+                assertThat(transaction.getVin().size()).as("Inputs").isBetween(1, MAX_INPUTS_OUTPUTS);
+                long inputsValue = 0;
+                for (GetRawTransactionVIn input : transaction.getVin()) {
+                    final String outpoint = input.getTxid() + "/" + input.getVout();
+                    assertThat(unspentOutputs).as("Output spent " + outpoint).containsKey(outpoint);
+                    if (blockOutputs.contains(outpoint)) {
+                        inBlockSpends++;
+                    }
+                    inputsValue += unspentOutputs.remove(outpoint);
+                }
+                final long outputsValue = addOutputs(transaction, unspentOutputs, addresses);
+                transaction.getVout().forEach(o -> blockOutputs.add(transaction.getTxid() + "/" + o.getN()));
+                assertThat(outputsValue).as("Outputs value").isLessThanOrEqualTo(inputsValue);
+                fees += inputsValue - outputsValue;
+                outputCount += transaction.getVout().size();
+            }
+
+            // Coinbase : reward and fees (genesis outputs are never spent).
+            final GetRawTransactionResult coinbase = transactions.get(0);
+            assertThat(coinbase.getVin().get(0).getCoinbase()).as("Coinbase").isNotNull();
+            final Map<String, Long> coinbaseOutputs = new HashMap<>();
+            final long reward = addOutputs(coinbase, coinbaseOutputs, addresses) - fees;
+            assertThat(reward).as("Reward").isEqualTo(BLOCK_REWARD);
+            if (height > 0) {
+                unspentOutputs.putAll(coinbaseOutputs);
+            }
+            outputCount += coinbase.getVout().size();
+        }
+        assertThat(chain.getBlock(BLOCK_COUNT).get().getBlock().getTx().size()).as("Transactions at the tip").isGreaterThanOrEqualTo(MIN_TRANSACTIONS);
+        assertThat(inBlockSpends).as("In-block spends").isPositive();
+        assertThat(addresses.size()).as("Address reuse").isLessThan(outputCount);
+        assertThat(chain.getBlock(BLOCK_COUNT + 1)).as("Block after the tip").isEmpty();
+    }
+
+    /**
+     * The core service serves the chain and returns errors for unknown blocks and transactions.
+     */
+    @Test
+    public final void serviceTest() {
+        final SyntheticChain chain = createChain(SEED);
+        final SyntheticBitcoinCoreService service = new SyntheticBitcoinCoreService(chain);
+        assertThat(service.getBlockCount().getResult()).as("Block count").isEqualTo(BLOCK_COUNT);
+
+        final String hash = service.getBlockHash(BLOCK_COUNT).getResult();
+        final GetBlockResult block = service.getBlock(hash).getResult();
+        assertThat(block.getHeight()).as("Block height").isEqualTo(BLOCK_COUNT);
+        assertThat(block.getNextblockhash()).as("Tip").isNull();
+        block.getTx().forEach(txId -> assertThat(service.getRawTransaction(txId).getResult().getBlockhash()).as("Transaction block").isEqualTo(hash));
+
+        assertThat(service.getBlockHash(BLOCK_COUNT + 1).getError()).as("Height out of range").isNotNull();
+        assertThat(service.getBlock(hash.replace(hash.charAt(hash.length() - 1), 'x')).getError().getCode()).as("Unknown block").isEqualTo(NOT_FOUND);
+        assertThat(service.getRawTransaction("unknown").getError().getCode()).as("Unknown transaction").isEqualTo(NOT_FOUND);
+    }
+
+    /**
+     * Adds the outputs of a transaction to the unspent outputs.
+     *
+     * @param transaction     transaction
+     * @param unspentOutputs  unspent outputs (values in satoshis)
+     * @param addresses       addresses used
+     * @return value of the outputs (satoshis)
+     */
+    private long addOutputs(final GetRawTransactionResult transaction, final Map<String, Long> unspentOutputs, final Set<String> addresses) {
+        assertThat(transaction.getVout().size()).as("Outputs").isBetween(1, MAX_INPUTS_OUTPUTS);
+        long value = 0;
+        for (GetRawTransactionVOut output : transaction.getVout()) {
+            // Values are exact : a value with more than 8 decimals can't be converted.
+            final long outputValue = output.getValue().movePointRight(BITCOIN_SCALE).longValueExact();
+            assertThat(unspentOutputs.put(transaction.getTxid() + "/" + output.getN(), outputValue)).as("New output").isNull();
+            addresses.addAll(output.getScriptPubKey().getAddresses());
+            value += outputValue;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.oakinvest.b2g.test.throughput;
+
+import com.oakinvest.b2g.util.status.ApplicationStatus;
+import com.oakinvest.b2g.util.status.CurrentBlockStatusProcessStep;
+import com.oakinvest.b2g.util.throughput.BlockRecord;
+import com.oakinvest.b2g.util.throughput.ThroughputHistory;
+import com.oakinvest.b2g.util.throughput.ThroughputSummary;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for the throughput history.
+ */
+public class ThroughputHistoryTest {
+
+    /**
+     * Number of records kept.
+     */
+    private static final int HISTORY_SIZE = 10;
+
+    /**
+     * Window of the aggregates.
+     */
+    private static final long WINDOW = 60000;
+
+    /**
+     * Time between two blocks saved (milliseconds).
+     */
+    private static final long BLOCK_INTERVAL = 1000;
+
+    /**
+     * Transactions per block.
+     */
+    private static final int TRANSACTIONS = 5;
+
+    /**
+     * Time spent saving a block (nanoseconds).
+     */
+    private static final long SAVING_DURATION = 2_000_000;
+
+    /**
+     * Precision of the rates.
+     */
+    private static final double PRECISION = 0.001;
+
+    /**
+     * Ring buffer test.
+     */
+    @Test
+    public final void ringBufferTest() {
+        final ThroughputHistory history = new ThroughputHistory(new ApplicationStatus(), HISTORY_SIZE, WINDOW);
+        assertThat(history.getRecords(HISTORY_SIZE)).isEmpty();
+        final int added = 25;
+        final long now = System.currentTimeMillis();
+        for (int height = 1; height <= added; height++) {
+            history.add(createRecord(height, now));
+        }
+        assertThat(history.getVersion()).isEqualTo(added);
+        assertThat(history.getRecords(Integer.MAX_VALUE).stream().map(BlockRecord::getHeight).collect(Collectors.toList()))
+                .as("Last records, oldest first")
+                .containsExactly(16, 17, 18, 19, 20, 21, 22, 23, 24, 25);
+        assertThat(history.getRecords(3).stream().map(BlockRecord::getHeight).collect(Collectors.toList())).containsExactly(23, 24, 25);
+    }
+
+    /**
+     * Aggregates test.
+     */
+    @Test
+    public final void summaryTest() {
+        final ApplicationStatus status = new ApplicationStatus();
+        final ThroughputHistory history = new ThroughputHistory(status, HISTORY_SIZE, WINDOW);
+        assertThat(history.getSummary().getEtaSeconds()).isEqualTo(ThroughputSummary.NON_AVAILABLE_VALUE_NUMBER);
+
+        // A block saved every second, the first one out of the window.
+        final long now = System.currentTimeMillis();
+        history.add(createRecord(1, now - WINDOW * 2));
+        final int blocks = 5;
+        for (int i = 0; i < blocks; i++) {
+            history.add(createRecord(2 + i, now - (blocks - 1 - i) * BLOCK_INTERVAL));
+        }
+        status.setBlockCountInBlockchain(126);
+        status.setBlockCountInNeo4j(6);
+
+        final ThroughputSummary summary = history.getSummary();
+        assertThat(summary.getBlocks()).isEqualTo(blocks);
+        assertThat(summary.getTransactions()).isEqualTo(blocks * TRANSACTIONS);
+        assertThat(summary.getBlocksPerMinute()).isCloseTo(60, within(PRECISION));
+        assertThat(summary.getTransactionsPerSecond()).isCloseTo(TRANSACTIONS, within(PRECISION));
+        assertThat(summary.getAverageStepDurations().get(CurrentBlockStatusProcessStep.SAVING_BLOCK)).isCloseTo(2, within(PRECISION));
+        assertThat(summary.getRpcPerBlock()).isCloseTo(3, within(PRECISION));
+        assertThat(summary.getBlocksToTip()).isEqualTo(120);
+        assertThat(summary.getEtaSeconds()).isEqualTo(120);
+    }
+
+    /**
+     * The window version changes when a record leaves the window, without any block saved.
+     *
+     * @throws InterruptedException interrupted
+     */
+    @Test
+    public final void windowVersionTest() throws InterruptedException {
+        final ThroughputHistory history = new ThroughputHistory(new ApplicationStatus(), HISTORY_SIZE, WINDOW);
+        final long expiryDelay = 200;
+        history.add(createRecord(1, System.currentTimeMillis()));
+        history.add(createRecord(2, System.currentTimeMillis() - WINDOW + expiryDelay));
+        final long version = history.getWindowVersion();
+        assertThat(history.getWindowVersion()).as("Same window").isEqualTo(version);
+        Thread.sleep(expiryDelay * 2);
+        assertThat(history.getWindowVersion()).as("Record out of the window").isGreaterThan(version);
+        assertThat(history.getSummary().getBlocks()).isEqualTo(1);
+        assertThat(history.getVersion()).as("History version").isEqualTo(2);
+    }
+
+    /**
+     * Creates a record.
+     *
+     * @param height  block height
+     * @param savedAt time when the block was saved
+     * @return record
+     */
+    private BlockRecord createRecord(final int height, final long savedAt) {
+        final BlockRecord record = new BlockRecord(height);
+        record.addStepDuration(CurrentBlockStatusProcessStep.SAVING_BLOCK, SAVING_DURATION);
+        record.complete(TRANSACTIONS, 3, 100, savedAt);
+        return record;
+    }
+
+}
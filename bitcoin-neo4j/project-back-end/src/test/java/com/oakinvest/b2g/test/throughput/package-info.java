@@ -0,0 +1,4 @@
+/**
+ * Throughput test.
+ */
+package com.oakinvest.b2g.test.throughput;
@@ -0,0 +1,271 @@
+package com.oakinvest.b2g.test.util.archive;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.util.exception.ArchiveException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Archive of recorded core responses (fixtures of the tests, the benchmarks and the simulator) in a single file.
+ * <p>
+ * Layout : [magic][version][entry count], the index (for each entry : [key length][key][offset][compressed length][raw
+ * length]) and then the data, each response being its JSON deflated. The file is memory-mapped and responses are
+ * decoded from JSON ignoring unknown properties, so the archive does not depend on the layout of the DTO classes.
+ * <p>
+ * Keys are the core method and its parameter : getblockcount, getblockhash/170, getblock/[hash] and
+ * getrawtransaction/[transaction id].
+ */
+public class RecordedResponseArchive {
+
+    /**
+     * Magic number ("B2GR").
+     */
+    static final int MAGIC = 0x42324752;
+
+    /**
+     * Format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Header size (magic, version and entry count).
+     */
+    static final int HEADER_SIZE = Integer.BYTES * 3;
+
+    /**
+     * Separator of the method and its parameter in keys.
+     */
+    private static final String KEY_SEPARATOR = "/";
+
+    /**
+     * Archive file.
+     */
+    private final Path file;
+
+    /**
+     * Memory-mapped file.
+     */
+    private final MappedByteBuffer data;
+
+    /**
+     * Index (entries by key).
+     */
+    private final Map<String, Entry> index;
+
+    /**
+     * JSON mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Constructor : maps the file and reads the index.
+     *
+     * @param newFile archive file
+     */
+    public RecordedResponseArchive(final Path newFile) {
+        this.file = newFile;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                throw new ArchiveException("Unknown archive format in " + file.toAbsolutePath(), null);
+            }
+            final int entries = data.getInt();
+            final Map<String, Entry> entriesByKey = new HashMap<>(entries * 2);
+            for (int i = 0; i < entries; i++) {
+                final byte[] key = new byte[data.getInt()];
+                data.get(key);
+                entriesByKey.put(new String(key, StandardCharsets.UTF_8), new Entry(data.getInt(), data.getInt(), data.getInt()));
+            }
+            index = Collections.unmodifiableMap(entriesByKey);
+        } catch (IOException | BufferUnderflowException e) {
+            throw new ArchiveException("Error while opening the archive " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Returns the key of the getblockcount response.
+     *
+     * @return key
+     */
+    public static String getBlockCountKey() {
+        return "getblockcount";
+    }
+
+    /**
+     * Returns the key of a getblockhash response.
+     *
+     * @param blockHeight block height
+     * @return key
+     */
+    public static String getBlockHashKey(final int blockHeight) {
+        return "getblockhash" + KEY_SEPARATOR + blockHeight;
+    }
+
+    /**
+     * Returns the key of a getblock response.
+     *
+     * @param blockHash block hash
+     * @return key
+     */
+    public static String getBlockKey(final String blockHash) {
+        return "getblock" + KEY_SEPARATOR + blockHash;
+    }
+
+    /**
+     * Returns the key of a getrawtransaction response.
+     *
+     * @param transactionId transaction id
+     * @return key
+     */
+    public static String getRawTransactionKey(final String transactionId) {
+        return "getrawtransaction" + KEY_SEPARATOR + transactionId;
+    }
+
+    /**
+     * Returns the keys of the responses.
+     *
+     * @return keys
+     */
+    public final Set<String> getKeys() {
+        return index.keySet();
+    }
+
+    /**
+     * Indicates if a response is recorded.
+     *
+     * @param key key
+     * @return true if the response is recorded
+     */
+    public final boolean contains(final String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Reads a response.
+     *
+     * @param key  key
+     * @param type response type
+     * @param <T>  response type
+     * @return response (empty if not recorded)
+     */
+    public final <T> Optional<T> read(final String key, final Class<T> type) {
+        return readJson(key).map(json -> {
+            try {
+                return mapper.readValue(json, type);
+            } catch (IOException e) {
+                throw new ArchiveException("Error while decoding " + key + " from " + file.toAbsolutePath(), e);
+            }
+        });
+    }
+
+    /**
+     * Reads the JSON of a response.
+     *
+     * @param key key
+     * @return JSON (empty if not recorded)
+     */
+    public final Optional<byte[]> readJson(final String key) {
+        final Entry entry = index.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        final ByteBuffer compressed = data.duplicate();
+        compressed.position(entry.getOffset()).limit(entry.getOffset() + entry.getCompressedLength());
+        final Inflater inflater = new Inflater();
+        final byte[] json = new byte[entry.getRawLength()];
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < json.length) {
+                // Compressed data ending (or needing a dictionary) before the JSON is complete : corrupted entry.
+                if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                    throw new ArchiveException("Truncated entry " + key + " in " + file.toAbsolutePath() + " (" + length + " of " + json.length + " bytes)", null);
+                }
+                length += inflater.inflate(json, length, json.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new ArchiveException("Error while reading " + key + " from " + file.toAbsolutePath(), e);
+        } finally {
+            inflater.end();
+        }
+        return Optional.of(json);
+    }
+
+    /**
+     * Entry of the index.
+     */
+    private static final class Entry {
+
+        /**
+         * Offset of the compressed JSON.
+         */
+        private final int offset;
+
+        /**
+         * Length of the compressed JSON.
+         */
+        private final int compressedLength;
+
+        /**
+         * Length of the JSON.
+         */
+        private final int rawLength;
+
+        /**
+         * Constructor.
+         *
+         * @param newOffset           offset of the compressed JSON
+         * @param newCompressedLength length of the compressed JSON
+         * @param newRawLength        length of the JSON
+         */
+        private Entry(final int newOffset, final int newCompressedLength, final int newRawLength) {
+            this.offset = newOffset;
+            this.compressedLength = newCompressedLength;
+            this.rawLength = newRawLength;
+        }
+
+        /**
+         * Getter of offset.
+         *
+         * @return offset of the compressed JSON
+         */
+        private int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Getter of compressedLength.
+         *
+         * @return length of the compressed JSON
+         */
+        private int getCompressedLength() {
+            return compressedLength;
+        }
+
+        /**
+         * Getter of rawLength.
+         *
+         * @return length of the JSON
+         */
+        private int getRawLength() {
+            return rawLength;
+        }
+
+    }
+
+}
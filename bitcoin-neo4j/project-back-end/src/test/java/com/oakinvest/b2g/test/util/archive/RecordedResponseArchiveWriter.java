@@ -0,0 +1,213 @@
+package com.oakinvest.b2g.test.util.archive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oakinvest.b2g.util.exception.ArchiveException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an archive of recorded core responses (see RecordedResponseArchive), from responses, from another archive or
+ * from the cache directories of the core mock (a Java serialized response per file : getblockcount/response.ser,
+ * getBlockHash/response-[height].ser, getblock/response-[hash].ser and getRawTransaction/response-[id].ser).
+ */
+public class RecordedResponseArchiveWriter {
+
+    /**
+     * Prefix of the serialized response files.
+     */
+    private static final String RESPONSE_FILE_PREFIX = "response-";
+
+    /**
+     * Suffix of the serialized response files.
+     */
+    private static final String RESPONSE_FILE_SUFFIX = ".ser";
+
+    /**
+     * Size of an index entry without its key (key length, offset, compressed length and raw length).
+     */
+    private static final int INDEX_ENTRY_SIZE = Integer.BYTES * 4;
+
+    /**
+     * JSON mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * JSON of the responses by key (sorted, so that the same responses always give the same file).
+     */
+    private final Map<String, byte[]> responses = new TreeMap<>();
+
+    /**
+     * Adds a response (replaces the response of the same key).
+     *
+     * @param key      key
+     * @param response response
+     * @return this writer
+     */
+    public final RecordedResponseArchiveWriter add(final String key, final Object response) {
+        try {
+            responses.put(key, mapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException e) {
+            throw new ArchiveException("Error while encoding " + key, e);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the JSON of a response (replaces the response of the same key).
+     *
+     * @param key  key
+     * @param json JSON of the response
+     * @return this writer
+     */
+    public final RecordedResponseArchiveWriter add(final String key, final byte[] json) {
+        responses.put(key, json);
+        return this;
+    }
+
+    /**
+     * Adds the responses of an archive.
+     *
+     * @param archive archive
+     * @return this writer
+     */
+    public final RecordedResponseArchiveWriter addArchive(final RecordedResponseArchive archive) {
+        archive.getKeys().forEach(key -> add(key, archive.readJson(key).orElseThrow()));
+        return this;
+    }
+
+    /**
+     * Adds the responses of the cache directories of the core mock.
+     *
+     * @param cacheDirectory cache directory
+     * @return this writer
+     */
+    public final RecordedResponseArchiveWriter addCacheDirectory(final Path cacheDirectory) {
+        final Path blockCount = cacheDirectory.resolve("getblockcount").resolve("response" + RESPONSE_FILE_SUFFIX);
+        if (Files.exists(blockCount)) {
+            add(RecordedResponseArchive.getBlockCountKey(), readSerializedResponse(blockCount));
+        }
+        addCacheDirectory(cacheDirectory.resolve("getBlockHash"), "getblockhash");
+        addCacheDirectory(cacheDirectory.resolve("getblock"), "getblock");
+        addCacheDirectory(cacheDirectory.resolve("getRawTransaction"), "getrawtransaction");
+        return this;
+    }
+
+    /**
+     * Returns the number of responses.
+     *
+     * @return number of responses
+     */
+    public final int size() {
+        return responses.size();
+    }
+
+    /**
+     * Writes the archive.
+     *
+     * @param file archive file
+     */
+    public final void write(final Path file) {
+        // Compression.
+        final Map<String, byte[]> compressedResponses = new TreeMap<>();
+        responses.forEach((key, json) -> compressedResponses.put(key, compress(json)));
+
+        // Header and index, the data starting after the index.
+        int offset = RecordedResponseArchive.HEADER_SIZE;
+        for (String key : responses.keySet()) {
+            offset += INDEX_ENTRY_SIZE + key.getBytes(StandardCharsets.UTF_8).length;
+        }
+        try (OutputStream out = Files.newOutputStream(file); DataOutputStream output = new DataOutputStream(out)) {
+            output.writeInt(RecordedResponseArchive.MAGIC);
+            output.writeInt(RecordedResponseArchive.VERSION);
+            output.writeInt(responses.size());
+            for (Map.Entry<String, byte[]> response : responses.entrySet()) {
+                final byte[] key = response.getKey().getBytes(StandardCharsets.UTF_8);
+                final int compressedLength = compressedResponses.get(response.getKey()).length;
+                output.writeInt(key.length);
+                output.write(key);
+                output.writeInt(offset);
+                output.writeInt(compressedLength);
+                output.writeInt(response.getValue().length);
+                offset += compressedLength;
+            }
+            for (byte[] compressed : compressedResponses.values()) {
+                output.write(compressed);
+            }
+        } catch (IOException e) {
+            throw new ArchiveException("Error while writing the archive " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Adds the responses of a cache directory.
+     *
+     * @param directory directory
+     * @param method    core method (prefix of the keys)
+     */
+    private void addCacheDirectory(final Path directory, final String method) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().startsWith(RESPONSE_FILE_PREFIX))
+                    .filter(f -> f.getFileName().toString().endsWith(RESPONSE_FILE_SUFFIX))
+                    .forEach(f -> {
+                        final String name = f.getFileName().toString();
+                        final String parameter = name.substring(RESPONSE_FILE_PREFIX.length(), name.length() - RESPONSE_FILE_SUFFIX.length());
+                        add(method + "/" + parameter, readSerializedResponse(f));
+                    });
+        } catch (IOException e) {
+            throw new ArchiveException("Error while listing " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Reads a Java serialized response.
+     *
+     * @param file file
+     * @return response
+     */
+    private Object readSerializedResponse(final Path file) {
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(file))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ArchiveException("Error while reading " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Compresses JSON.
+     *
+     * @param json JSON
+     * @return compressed JSON
+     */
+    private byte[] compress(final byte[] json) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length);
+        try {
+            deflater.setInput(json);
+            deflater.finish();
+            final byte[] buffer = new byte[json.length + INDEX_ENTRY_SIZE];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+}
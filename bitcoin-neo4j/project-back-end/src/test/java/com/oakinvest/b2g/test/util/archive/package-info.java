@@ -0,0 +1,4 @@
+/**
+ * Archive of recorded core responses (fixtures of the tests, the benchmarks and the simulator).
+ */
+package com.oakinvest.b2g.test.util.archive;
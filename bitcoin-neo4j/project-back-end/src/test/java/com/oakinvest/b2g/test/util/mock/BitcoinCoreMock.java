@@ -5,6 +5,7 @@ import com.oakinvest.b2g.dto.bitcoin.core.getblockcount.GetBlockCountResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getblockhash.GetBlockHashResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.getrawtransaction.GetRawTransactionResponse;
 import com.oakinvest.b2g.dto.bitcoin.core.util.BitcoinCoreResponseError;
+import com.oakinvest.b2g.test.util.archive.RecordedResponseArchive;
 import org.apache.commons.io.FileUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -20,10 +21,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Bitcoin core mock for tests.
+ * Responses are read from the archive of recorded responses (cache/responses.dat) and then from the cache directories,
+ * where responses missing from both are recorded (Java serialization, see FixtureArchiveConverter to merge them in the
+ * archive).
  * Created by straumat on 04/01/17.
  */
 @Configuration
@@ -71,6 +77,11 @@ public class BitcoinCoreMock {
      */
     private static final String BITCOIN_CORE_CACHE_DIRECTORY = "src/test/resources/cache";
 
+    /**
+     * Archive of recorded responses.
+     */
+    private static final String ARCHIVE_FILE = BITCOIN_CORE_CACHE_DIRECTORY + "/responses.dat";
+
     /**
      * getblock directory.
      */
@@ -116,6 +127,11 @@ public class BitcoinCoreMock {
      */
     private final File getRawTransactionDirectory = new File(GET_RAW_TRANSACTION_CACHE_DIRECTORY);
 
+    /**
+     * Archive of recorded responses (null if there is no archive or if the cache was deleted).
+     */
+    private RecordedResponseArchive archive;
+
     /**
      * getBlockHash errors.
      */
@@ -151,12 +167,17 @@ public class BitcoinCoreMock {
         if (!getRawTransactionDirectory.exists() && !getRawTransactionDirectory.mkdir()) {
             log.error("Impossible to create " + getRawTransactionDirectory.getAbsolutePath());
         }
+        if (new File(ARCHIVE_FILE).exists()) {
+            archive = new RecordedResponseArchive(Paths.get(ARCHIVE_FILE));
+        }
     }
 
     /**
      * Delete cached data of core.
      */
     public void deleteCache() {
+        // The archive is kept but not used anymore (responses are recorded again).
+        archive = null;
         try {
             FileUtils.cleanDirectory(getBlockDirectory);
             FileUtils.cleanDirectory(getBlockCountDirectory);
@@ -176,6 +197,15 @@ public class BitcoinCoreMock {
         getRawTransactionErrors = 0;
     }
 
+    /**
+     * No more errors are simulated (benchmarks).
+     */
+    public final void disableErrors() {
+        getBlockHashErrors = NUMBER_OF_ERRORS;
+        getBlockErrors = NUMBER_OF_ERRORS;
+        getRawTransactionErrors = NUMBER_OF_ERRORS;
+    }
+
     /**
      * getBlockCountFromCache() advice.
      *
@@ -189,8 +219,11 @@ public class BitcoinCoreMock {
         GetBlockCountResponse getBlockCountResponse;
         File response = new File(getBlockCountDirectory.getPath() + "/response.ser");
 
-        // if the file doesn't exists, we call the core server and save the file.
-        if (!response.exists()) {
+        // if the response is not archived and the file doesn't exists, we call the core server and save the file.
+        final Optional<GetBlockCountResponse> archivedResponse = readFromArchive(RecordedResponseArchive.getBlockCountKey(), GetBlockCountResponse.class);
+        if (archivedResponse.isPresent()) {
+            getBlockCountResponse = archivedResponse.get();
+        } else if (!response.exists()) {
             getBlockCountResponse = (GetBlockCountResponse) pjp.proceed(new Object[]{});
             writeObjectToFile(getBlockCountDirectory.getPath(), "response.ser", getBlockCountResponse);
         } else {
@@ -235,9 +268,12 @@ public class BitcoinCoreMock {
             getBlockHashErrors++;
         }
 
-        // if the file doesn't exists, we call the core server and save the file.
+        // if the response is not archived and the file doesn't exists, we call the core server and save the file.
         File response = new File(getBlockHashDirectory.getPath() + "/response-" + blockHeightValue + ".ser");
-        if (!response.exists()) {
+        final Optional<GetBlockHashResponse> archivedResponse = readFromArchive(RecordedResponseArchive.getBlockHashKey(blockHeightValue), GetBlockHashResponse.class);
+        if (archivedResponse.isPresent()) {
+            getBlockHashResponse = archivedResponse.get();
+        } else if (!response.exists()) {
             getBlockHashResponse = (GetBlockHashResponse) pjp.proceed(new Object[]{blockHeightValue});
             writeObjectToFile(getBlockHashDirectory.getPath(), "response-" + blockHeightValue + ".ser", getBlockHashResponse);
         } else {
@@ -269,9 +305,12 @@ public class BitcoinCoreMock {
             getBlockErrors++;
         }
 
-        // if the file doesn't exists, we call the core server and save the file.
+        // if the response is not archived and the file doesn't exists, we call the core server and save the file.
         File response = new File(getBlockDirectory.getPath() + "/response-" + blockHashValue + ".ser");
-        if (!response.exists()) {
+        final Optional<GetBlockResponse> archivedResponse = readFromArchive(RecordedResponseArchive.getBlockKey(blockHashValue), GetBlockResponse.class);
+        if (archivedResponse.isPresent()) {
+            getBlockResponse = archivedResponse.get();
+        } else if (!response.exists()) {
             getBlockResponse = (GetBlockResponse) pjp.proceed(new Object[]{blockHashValue});
             writeObjectToFile(getBlockDirectory.getPath(), "response-" + blockHashValue + ".ser", getBlockResponse);
         } else {
@@ -303,8 +342,11 @@ public class BitcoinCoreMock {
             getRawTransactionErrors++;
         }
         File response = new File(getRawTransactionDirectory.getPath(), "response-" + transactionHashValue + ".ser");
-        // if the file doesn't exists, we call the core server and save the file.
-        if (!response.exists()) {
+        // if the response is not archived and the file doesn't exists, we call the core server and save the file.
+        final Optional<GetRawTransactionResponse> archivedResponse = readFromArchive(RecordedResponseArchive.getRawTransactionKey(transactionHashValue), GetRawTransactionResponse.class);
+        if (archivedResponse.isPresent()) {
+            getRawTransactionResponse = archivedResponse.get();
+        } else if (!response.exists()) {
             getRawTransactionResponse = (GetRawTransactionResponse) pjp.proceed(new Object[]{transactionHashValue});
             writeObjectToFile(getRawTransactionDirectory.getPath(), "response-" + transactionHashValue + ".ser", getRawTransactionResponse);
         } else {
@@ -314,6 +356,21 @@ public class BitcoinCoreMock {
         return getRawTransactionResponse;
     }
 
+    /**
+     * Read a response from the archive.
+     *
+     * @param key  key
+     * @param type response type
+     * @param <T>  response type
+     * @return response (empty if there is no archive or if the response is not archived)
+     */
+    private <T> Optional<T> readFromArchive(final String key, final Class<T> type) {
+        if (archive == null) {
+            return Optional.empty();
+        }
+        return archive.read(key, type);
+    }
+
     /**
      * Write an object to a file (serialize).
      *
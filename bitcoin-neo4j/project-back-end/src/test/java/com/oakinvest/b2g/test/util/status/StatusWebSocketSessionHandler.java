@@ -9,6 +9,7 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Status web socket session handler.
@@ -35,11 +36,17 @@ public class StatusWebSocketSessionHandler extends TextWebSocketHandler {
      */
     private boolean newMessageReceived = false;
 
+    /**
+     * Number of messages received.
+     */
+    private final AtomicInteger messageCount = new AtomicInteger(0);
+
     @Override
     protected void handleTextMessage(final WebSocketSession session, final TextMessage message) {
         try {
             lastStatus = mapper.readValue(message.getPayload(), ApplicationStatus.class);
             newMessageReceived = true;
+            messageCount.incrementAndGet();
         } catch (IOException e) {
             log.error("Error getting message", e);
         }
@@ -62,4 +69,12 @@ public class StatusWebSocketSessionHandler extends TextWebSocketHandler {
         return lastStatus;
     }
 
+    /**
+     * Returns the number of messages received.
+     * @return number of messages
+     */
+    public int getMessageCount() {
+        return messageCount.get();
+    }
+
 }
@@ -0,0 +1,115 @@
+package com.oakinvest.b2g.test.utxo;
+
+import com.oakinvest.b2g.domain.BitcoinTransactionOutput;
+import com.oakinvest.b2g.repository.TransactionOutputRepository;
+import com.oakinvest.b2g.test.util.junit.BaseTest;
+import com.oakinvest.b2g.util.utxo.SpentOutputsBackfillJob;
+import org.junit.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.fail;
+
+/**
+ * Tests for the spent status of the outputs set by the import and its backfill.
+ */
+public class SpentOutputsTest extends BaseTest {
+
+    @TestConfiguration
+    static class TestHarnessConfig {
+        @Bean
+        public Neo4j neo4j() {
+            return Neo4jBuilders.newInProcessBuilder()
+                    .withDisabledServer() // No need for http
+                    .build();
+        }
+    }
+
+    /**
+     * Number of blocs to import.
+     */
+    private static final int NUMBERS_OF_BLOCK_TO_IMPORT = 200;
+
+    /**
+     * Coinbase transaction of block 9, spent in block 170.
+     */
+    private static final String BLOCK_9_COINBASE = "0437cd7f8525ceed2324359c2d0ba26006d92d856a9c20fa0241106ee5a597c9";
+
+    /**
+     * Query counting the outputs whose spent status doesn't match their inputs.
+     */
+    private static final String INCONSISTENT_OUTPUTS = "MATCH (o:BitcoinTransactionOutput) "
+            + "OPTIONAL MATCH (o)-[:TRANSACTION_OUTPUT]->(:BitcoinTransactionInput)<-[:INPUTS]-(:BitcoinTransaction)-[:TRANSACTIONS]->(s:BitcoinBlock) "
+            + "WITH o, s WHERE o.spent IS NULL OR o.spent <> (s IS NOT NULL) OR coalesce(o.spentAtHeight, -1) <> coalesce(s.height, -1) "
+            + "RETURN count(o)";
+
+    /**
+     * Transaction output repository.
+     */
+    @Autowired
+    private TransactionOutputRepository transactionOutputRepository;
+
+    /**
+     * Backfill job.
+     */
+    @Autowired
+    private SpentOutputsBackfillJob backfillJob;
+
+    /**
+     * Spent status set by the import and backfilled.
+     */
+    @Test
+    public final void spentOutputsTest() {
+        // Reset the database.
+        getSessionFactory().openSession().purgeDatabase();
+        getBitcoinCoreMock().resetErrors();
+        final int maxIterations = 1000;
+        for (int i = 0; getBlockRepository().count() < NUMBERS_OF_BLOCK_TO_IMPORT && i < maxIterations; i++) {
+            getBatchBlocks().execute();
+        }
+        assertThat(getBlockRepository().count()).as("Blocks").isEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT);
+
+        // The spent status of all the outputs matches their inputs.
+        assertThat(count(INCONSISTENT_OUTPUTS)).as("Inconsistent outputs").isZero();
+        final Optional<BitcoinTransactionOutput> output = transactionOutputRepository.findByTxIdAndN(BLOCK_9_COINBASE, 0);
+        if (output.isPresent()) {
+            assertThat(output.get().isSpent()).as("Spent").isTrue();
+            assertThat(output.get().getSpentAtHeight()).as("Spent at height").isEqualTo(170);
+        } else {
+            fail("Output not found");
+        }
+
+        // UTXO queries.
+        final long unspentOutputs = transactionOutputRepository.countUnspent();
+        assertThat(unspentOutputs).as("Unspent outputs").isGreaterThanOrEqualTo(NUMBERS_OF_BLOCK_TO_IMPORT - 1);
+        final List<BitcoinTransactionOutput> unspent = transactionOutputRepository.findUnspentByAddress("12cbQLTFMXRnSzktFkuoG3eHoMeFtpTu3S");
+        assertThat(unspent).as("Unspent outputs of the address").noneMatch(o -> BLOCK_9_COINBASE.equals(o.getTxId()));
+        assertThat(transactionOutputRepository.findUnspentByAddress("1Q2TWHE3GMdB6BZKafqwxXtWAWgFt5Jvm3")).as("Unspent outputs of the address").isNotEmpty();
+
+        // The backfill gives the same status.
+        getSessionFactory().openSession().query("MATCH (o:BitcoinTransactionOutput) REMOVE o.spent, o.spentAtHeight", Collections.emptyMap());
+        assertThat(count(INCONSISTENT_OUTPUTS)).isNotZero();
+        backfillJob.run();
+        assertThat(count(INCONSISTENT_OUTPUTS)).as("Inconsistent outputs after backfill").isZero();
+        assertThat(transactionOutputRepository.countUnspent()).as("Unspent outputs after backfill").isEqualTo(unspentOutputs);
+    }
+
+    /**
+     * Runs a count query.
+     *
+     * @param query query
+     * @return count
+     */
+    private long count(final String query) {
+        return getSessionFactory().openSession().queryForObject(Long.class, query, Collections.emptyMap());
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * utxo test.
+ */
+package com.oakinvest.b2g.test.utxo;